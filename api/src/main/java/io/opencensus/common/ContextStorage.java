@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.common;
+
+import io.grpc.Context;
+import io.opencensus.internal.DefaultVisibilityForTesting;
+import io.opencensus.internal.Provider;
+import io.opencensus.internal.Utils;
+import java.util.ServiceConfigurationError;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Service provider interface for the storage of the current span and the current tag context.
+ *
+ * <p>The storage is selected once per class loader, with the {@value #STORAGE_PROPERTY} system
+ * property:
+ *
+ * <ul>
+ *   <li>{@code grpc} (the default): the current values are stored in the current {@link
+ *       io.grpc.Context}. This interoperates with gRPC and with any code that propagates the {@code
+ *       io.grpc.Context}, for example with {@link io.grpc.Context#wrap(Runnable)}.
+ *   <li>{@code thread_local}: the current values are stored in one thread-local slot per kind of
+ *       value. Reading the current value does not walk a chain of {@code io.grpc.Context}s, and
+ *       entering a scope does not allocate a new {@code io.grpc.Context}. The values are not
+ *       visible through {@code io.grpc.Context.current()}, so they are not propagated by gRPC or by
+ *       {@code io.grpc.Context#wrap}.
+ *   <li>The fully qualified name of a subclass of {@code ContextStorage} with a public no-argument
+ *       constructor.
+ * </ul>
+ *
+ * @since 0.24
+ */
+@ExperimentalApi
+public abstract class ContextStorage {
+  private static final Logger logger = Logger.getLogger(ContextStorage.class.getName());
+
+  /**
+   * The name of the system property that selects the {@code ContextStorage}.
+   *
+   * @since 0.24
+   */
+  public static final String STORAGE_PROPERTY = "io.opencensus.context.storage";
+
+  @DefaultVisibilityForTesting static final String GRPC = "grpc";
+  @DefaultVisibilityForTesting static final String THREAD_LOCAL = "thread_local";
+
+  private static final ContextStorage GRPC_CONTEXT_STORAGE = new GrpcContextStorage();
+
+  private static final ContextStorage INSTANCE =
+      loadContextStorage(
+          System.getProperty(STORAGE_PROPERTY), ContextStorage.class.getClassLoader());
+
+  /**
+   * Returns the {@code ContextStorage} selected by the {@value #STORAGE_PROPERTY} system property.
+   *
+   * @return the {@code ContextStorage}.
+   * @since 0.24
+   */
+  public static ContextStorage getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Creates a new {@link Slot} that stores the current value of the given {@code io.grpc.Context}
+   * key. The value of the key in {@link io.grpc.Context#ROOT} is the value of the slot when nothing
+   * is attached.
+   *
+   * @param key the {@code io.grpc.Context} key used by the default storage.
+   * @param <T> the type of the value.
+   * @return a new {@code Slot}.
+   * @since 0.24
+   */
+  public abstract <T> Slot<T> createSlot(Context.Key<T> key);
+
+  /**
+   * Holds the current value of one kind of context, for example the current span.
+   *
+   * @param <T> the type of the value.
+   * @since 0.24
+   */
+  public abstract static class Slot<T> {
+
+    /**
+     * Returns the current value.
+     *
+     * @return the current value.
+     * @since 0.24
+     */
+    public abstract T get();
+
+    /**
+     * Sets the current value, and returns a {@link Scope} that restores the previous value when it
+     * is closed. The returned {@code Scope} must be closed on the same thread.
+     *
+     * @param value the new current value.
+     * @return a {@code Scope} that restores the previous value.
+     * @since 0.24
+     */
+    public abstract Scope attach(T value);
+  }
+
+  // Any storage that may be selected by the system property can be added here.
+  @DefaultVisibilityForTesting
+  static ContextStorage loadContextStorage(
+      @Nullable String name, @Nullable ClassLoader classLoader) {
+    if (name == null || name.isEmpty() || GRPC.equals(name)) {
+      return GRPC_CONTEXT_STORAGE;
+    }
+    if (THREAD_LOCAL.equals(name)) {
+      return new ThreadLocalContextStorage();
+    }
+    try {
+      return Provider.createInstance(
+          Class.forName(name, /*initialize=*/ true, classLoader), ContextStorage.class);
+    } catch (ClassNotFoundException e) {
+      logger.log(
+          Level.WARNING,
+          "Couldn't load ContextStorage " + name + ", now using the io.grpc.Context storage.",
+          e);
+    } catch (ServiceConfigurationError e) {
+      logger.log(
+          Level.WARNING,
+          "Couldn't create ContextStorage " + name + ", now using the io.grpc.Context storage.",
+          e);
+    }
+    return GRPC_CONTEXT_STORAGE;
+  }
+
+  @DefaultVisibilityForTesting
+  static ContextStorage getGrpcContextStorage() {
+    return GRPC_CONTEXT_STORAGE;
+  }
+
+  // Stores the values in the current io.grpc.Context.
+  private static final class GrpcContextStorage extends ContextStorage {
+    @Override
+    public <T> Slot<T> createSlot(Context.Key<T> key) {
+      return new GrpcSlot<T>(Utils.checkNotNull(key, "key"));
+    }
+  }
+
+  private static final class GrpcSlot<T> extends Slot<T> {
+    private final Context.Key<T> key;
+
+    private GrpcSlot(Context.Key<T> key) {
+      this.key = key;
+    }
+
+    @Override
+    public T get() {
+      return key.get();
+    }
+
+    @Override
+    public Scope attach(T value) {
+      return new GrpcScope(Context.current().withValue(key, value).attach());
+    }
+  }
+
+  private static final class GrpcScope implements Scope {
+    private final Context orig;
+
+    private GrpcScope(Context orig) {
+      this.orig = orig;
+    }
+
+    @Override
+    public void close() {
+      Context.current().detach(orig);
+    }
+  }
+
+  // Stores the values in one ThreadLocal per slot.
+  private static final class ThreadLocalContextStorage extends ContextStorage {
+    @Override
+    public <T> Slot<T> createSlot(Context.Key<T> key) {
+      return new ThreadLocalSlot<T>(Utils.checkNotNull(key, "key").get(Context.ROOT));
+    }
+  }
+
+  private static final class ThreadLocalSlot<T> extends Slot<T> {
+    private final ThreadLocal<T> current;
+
+    private ThreadLocalSlot(final T defaultValue) {
+      current =
+          new ThreadLocal<T>() {
+            @Override
+            protected T initialValue() {
+              return defaultValue;
+            }
+          };
+    }
+
+    @Override
+    public T get() {
+      return current.get();
+    }
+
+    @Override
+    public Scope attach(T value) {
+      T previous = current.get();
+      current.set(value);
+      return new ThreadLocalScope<T>(current, previous);
+    }
+  }
+
+  private static final class ThreadLocalScope<T> implements Scope {
+    private final ThreadLocal<T> current;
+    private final T previous;
+
+    private ThreadLocalScope(ThreadLocal<T> current, T previous) {
+      this.current = current;
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      current.set(previous);
+    }
+  }
+}
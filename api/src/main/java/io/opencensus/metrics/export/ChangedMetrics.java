@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.metrics.export;
+
+import com.google.auto.value.AutoValue;
+import io.opencensus.common.ExperimentalApi;
+import io.opencensus.internal.Utils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The {@link Metric}s returned by {@link MetricProducer#getMetricsChangedSince(long)}, with the
+ * cursor to use for the next call.
+ *
+ * @since 0.24
+ */
+@ExperimentalApi
+@Immutable
+@AutoValue
+public abstract class ChangedMetrics {
+
+  /**
+   * The cursor to use to get all the metrics.
+   *
+   * @since 0.24
+   */
+  public static final long INITIAL_CURSOR = 0;
+
+  ChangedMetrics() {}
+
+  /**
+   * Creates a {@link ChangedMetrics}.
+   *
+   * @param metrics the metrics with the time series that changed.
+   * @param cursor the cursor to use for the next call.
+   * @return a {@code ChangedMetrics}.
+   * @since 0.24
+   */
+  public static ChangedMetrics create(Collection<Metric> metrics, long cursor) {
+    List<Metric> metricsCopy = new ArrayList<Metric>(Utils.checkNotNull(metrics, "metrics"));
+    Utils.checkListElementNotNull(metricsCopy, "metric");
+    return new AutoValue_ChangedMetrics(Collections.unmodifiableList(metricsCopy), cursor);
+  }
+
+  /**
+   * Returns the metrics with the time series that changed. Metrics without any changed time series
+   * are not included.
+   *
+   * @return the metrics with the time series that changed.
+   * @since 0.24
+   */
+  public abstract Collection<Metric> getMetrics();
+
+  /**
+   * Returns the cursor to pass to the next call to {@link
+   * MetricProducer#getMetricsChangedSince(long)}.
+   *
+   * @return the cursor to use for the next call.
+   * @since 0.24
+   */
+  public abstract long getCursor();
+}
@@ -37,4 +37,24 @@ public abstract class MetricProducer {
    * @since 0.17
    */
   public abstract Collection<Metric> getMetrics();
+
+  /**
+   * Returns the {@link Metric}s with only the {@link TimeSeries} that changed since the call that
+   * returned {@code cursor}, together with the cursor to pass to the next call. Use {@link
+   * ChangedMetrics#INITIAL_CURSOR} to get all the metrics.
+   *
+   * <p>This lets exporters that send deltas skip the time series that did not change. Time series
+   * that were removed are not reported.
+   *
+   * <p>The default implementation does not track changes: it returns all the metrics and {@link
+   * ChangedMetrics#INITIAL_CURSOR}.
+   *
+   * @param cursor the cursor returned by the previous call, or {@link
+   *     ChangedMetrics#INITIAL_CURSOR}.
+   * @return the metrics that changed since {@code cursor}, and the next cursor.
+   * @since 0.24
+   */
+  public ChangedMetrics getMetricsChangedSince(long cursor) {
+    return ChangedMetrics.create(getMetrics(), ChangedMetrics.INITIAL_CURSOR);
+  }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.stats;
+
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagContext;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link Measure} bound to a {@link TagContext}, returned by {@link StatsRecorder#bindMeasure}.
+ *
+ * <p>Recording with a bound measure is equivalent to {@code
+ * statsRecorder.newMeasureMap().put(measure, value).record(tags)}, but the tags are only resolved
+ * once for each view, so it is cheaper for measures recorded often with the same tags. Bound
+ * measures are meant to be created once and cached, e.g. per RPC method.
+ *
+ * @since 0.24
+ */
+@ThreadSafe
+public abstract class BoundMeasure {
+
+  private BoundMeasure() {}
+
+  /**
+   * A {@link MeasureDouble} bound to a {@link TagContext}.
+   *
+   * @since 0.24
+   */
+  @ThreadSafe
+  public abstract static class BoundMeasureDouble extends BoundMeasure {
+
+    /** Constructor for subclasses. */
+    protected BoundMeasureDouble() {}
+
+    /**
+     * Records a value of the measure with the bound tags. Negative values are dropped.
+     *
+     * @param value the value to record.
+     * @since 0.24
+     */
+    public abstract void record(double value);
+  }
+
+  /**
+   * A {@link MeasureLong} bound to a {@link TagContext}.
+   *
+   * @since 0.24
+   */
+  @ThreadSafe
+  public abstract static class BoundMeasureLong extends BoundMeasure {
+
+    /** Constructor for subclasses. */
+    protected BoundMeasureLong() {}
+
+    /**
+     * Records a value of the measure with the bound tags. Negative values are dropped.
+     *
+     * @param value the value to record.
+     * @since 0.24
+     */
+    public abstract void record(long value);
+  }
+}
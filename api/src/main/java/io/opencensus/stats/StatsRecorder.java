@@ -16,6 +16,13 @@
 
 package io.opencensus.stats;
 
+import io.opencensus.internal.Utils;
+import io.opencensus.stats.BoundMeasure.BoundMeasureDouble;
+import io.opencensus.stats.BoundMeasure.BoundMeasureLong;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagContext;
+
 /**
  * Provides methods to record stats against tags.
  *
@@ -31,4 +38,70 @@ public abstract class StatsRecorder {
    * @since 0.8
    */
   public abstract MeasureMap newMeasureMap();
+
+  /**
+   * Returns a handle that records values of the {@link MeasureDouble} with the given tags.
+   *
+   * <p>The default implementation records each value with a new {@link MeasureMap}.
+   *
+   * @param measure the measure to record.
+   * @param tags the tags to record the values with.
+   * @return a {@code BoundMeasureDouble}.
+   * @since 0.24
+   */
+  public BoundMeasureDouble bindMeasure(MeasureDouble measure, TagContext tags) {
+    return new MeasureMapBoundMeasureDouble(
+        this, Utils.checkNotNull(measure, "measure"), Utils.checkNotNull(tags, "tags"));
+  }
+
+  /**
+   * Returns a handle that records values of the {@link MeasureLong} with the given tags.
+   *
+   * <p>The default implementation records each value with a new {@link MeasureMap}.
+   *
+   * @param measure the measure to record.
+   * @param tags the tags to record the values with.
+   * @return a {@code BoundMeasureLong}.
+   * @since 0.24
+   */
+  public BoundMeasureLong bindMeasure(MeasureLong measure, TagContext tags) {
+    return new MeasureMapBoundMeasureLong(
+        this, Utils.checkNotNull(measure, "measure"), Utils.checkNotNull(tags, "tags"));
+  }
+
+  private static final class MeasureMapBoundMeasureDouble extends BoundMeasureDouble {
+    private final StatsRecorder statsRecorder;
+    private final MeasureDouble measure;
+    private final TagContext tags;
+
+    private MeasureMapBoundMeasureDouble(
+        StatsRecorder statsRecorder, MeasureDouble measure, TagContext tags) {
+      this.statsRecorder = statsRecorder;
+      this.measure = measure;
+      this.tags = tags;
+    }
+
+    @Override
+    public void record(double value) {
+      statsRecorder.newMeasureMap().put(measure, value).record(tags);
+    }
+  }
+
+  private static final class MeasureMapBoundMeasureLong extends BoundMeasureLong {
+    private final StatsRecorder statsRecorder;
+    private final MeasureLong measure;
+    private final TagContext tags;
+
+    private MeasureMapBoundMeasureLong(
+        StatsRecorder statsRecorder, MeasureLong measure, TagContext tags) {
+      this.statsRecorder = statsRecorder;
+      this.measure = measure;
+      this.tags = tags;
+    }
+
+    @Override
+    public void record(long value) {
+      statsRecorder.newMeasureMap().put(measure, value).record(tags);
+    }
+  }
 }
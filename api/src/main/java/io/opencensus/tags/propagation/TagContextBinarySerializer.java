@@ -20,6 +20,8 @@ import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * Object for serializing and deserializing {@link TagContext}s with the binary format.
@@ -60,4 +62,62 @@ public abstract class TagContextBinarySerializer {
    * @since 0.8
    */
   public abstract TagContext fromByteArray(byte[] bytes) throws TagContextDeserializationException;
+
+  /**
+   * Returns the number of bytes that {@link #toByteBuffer(TagContext, ByteBuffer)} writes for the
+   * given {@code TagContext}. This can be used to size a buffer before serializing into it.
+   *
+   * @param tags the {@code TagContext} to serialize.
+   * @return the size in bytes of the on-the-wire representation of the {@code TagContext}.
+   * @throws TagContextSerializationException if the result would be larger than the maximum allowed
+   *     serialized size.
+   * @since 0.24
+   */
+  public int getSerializedSize(TagContext tags) throws TagContextSerializationException {
+    // Implementations should override this method to avoid the intermediate byte array.
+    return toByteArray(tags).length;
+  }
+
+  /**
+   * Serializes the {@code TagContext} into the given {@link ByteBuffer}. The on-the-wire
+   * representation is written at the current position of the buffer, and the position is advanced
+   * by {@link #getSerializedSize(TagContext)} bytes.
+   *
+   * <p>{@link Tag}s that have a {@link TagMetadata} with {@link TagTtl#NO_PROPAGATION} will not be
+   * serialized.
+   *
+   * @param tags the {@code TagContext} to serialize.
+   * @param buffer the buffer to write the on-the-wire representation to.
+   * @throws TagContextSerializationException if the result would be larger than the maximum allowed
+   *     serialized size.
+   * @throws BufferOverflowException if the {@code buffer} does not have enough bytes remaining, in
+   *     which case nothing is written.
+   * @since 0.24
+   */
+  public void toByteBuffer(TagContext tags, ByteBuffer buffer)
+      throws TagContextSerializationException {
+    // Implementations should override this method to avoid the intermediate byte array.
+    buffer.put(toByteArray(tags));
+  }
+
+  /**
+   * Creates a {@code TagContext} from the on-the-wire encoded representation in the remaining bytes
+   * of the given {@link ByteBuffer}. On success the position of the buffer is set to its limit.
+   *
+   * <p>The input is fully validated before this method returns, but implementations may defer
+   * creating the individual tags until the returned {@code TagContext} is first used. The returned
+   * {@code TagContext} does not share state with the {@code buffer}.
+   *
+   * @param buffer on-the-wire representation of a {@code TagContext}.
+   * @return a {@code TagContext} deserialized from {@code buffer}.
+   * @throws TagContextDeserializationException if there is a parse error, the input contains
+   *     invalid tags, or the input is larger than the maximum allowed serialized size.
+   * @since 0.24
+   */
+  public TagContext fromByteBuffer(ByteBuffer buffer) throws TagContextDeserializationException {
+    // Implementations should override this method to avoid the intermediate byte array.
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return fromByteArray(bytes);
+  }
 }
@@ -17,6 +17,7 @@
 package io.opencensus.tags.unsafe;
 
 import io.grpc.Context;
+import io.opencensus.common.ContextStorage;
 import io.opencensus.internal.Utils;
 import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
@@ -48,6 +49,20 @@ public final class ContextUtils {
   private static final Context.Key</*@Nullable*/ TagContext> TAG_CONTEXT_KEY =
       Context.keyWithDefault("opencensus-tag-context-key", EMPTY_TAG_CONTEXT);
 
+  private static final ContextStorage.Slot</*@Nullable*/ TagContext> CURRENT_TAG_CONTEXT_SLOT =
+      ContextStorage.getInstance().createSlot(TAG_CONTEXT_KEY);
+
+  /**
+   * Returns the {@link ContextStorage.Slot} that holds the current {@code TagContext} in the {@link
+   * ContextStorage} selected for this process.
+   *
+   * @return the {@code Slot} that holds the current {@code TagContext}.
+   * @since 0.24
+   */
+  public static ContextStorage.Slot</*@Nullable*/ TagContext> getCurrentTagContextSlot() {
+    return CURRENT_TAG_CONTEXT_SLOT;
+  }
+
   /**
    * Creates a new {@code Context} with the given value set.
    *
@@ -73,6 +88,18 @@ public final class ContextUtils {
     return tags == null ? EMPTY_TAG_CONTEXT : tags;
   }
 
+  /**
+   * Returns the current {@code TagContext} from the {@link ContextStorage} selected for this
+   * process.
+   *
+   * @return the current {@code TagContext}.
+   * @since 0.24
+   */
+  public static TagContext getCurrentValue() {
+    @javax.annotation.Nullable TagContext tags = CURRENT_TAG_CONTEXT_SLOT.get();
+    return tags == null ? EMPTY_TAG_CONTEXT : tags;
+  }
+
   @Immutable
   private static final class EmptyTagContext extends TagContext {
 
@@ -17,6 +17,9 @@
 package io.opencensus.trace;
 
 import io.opencensus.internal.Utils;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 final class BigendianEncoding {
@@ -88,6 +91,51 @@ final class BigendianEncoding {
     dest[destOffset] = (byte) (value >> 56 & 0xFFL);
   }
 
+  /**
+   * Returns the {@code long} value whose big-endian representation is stored in the next 8 bytes of
+   * {@code buffer}, and advances the position of the buffer by 8. The byte order of the buffer is
+   * ignored.
+   *
+   * @param buffer the buffer that contains the representation of the {@code long}.
+   * @return the {@code long} value whose big-endian representation is given.
+   * @throws BufferUnderflowException if {@code buffer} has fewer than 8 bytes remaining.
+   */
+  static long longFromByteBuffer(ByteBuffer buffer) {
+    if (buffer.remaining() < LONG_BYTES) {
+      throw new BufferUnderflowException();
+    }
+    return (buffer.get() & 0xFFL) << 56
+        | (buffer.get() & 0xFFL) << 48
+        | (buffer.get() & 0xFFL) << 40
+        | (buffer.get() & 0xFFL) << 32
+        | (buffer.get() & 0xFFL) << 24
+        | (buffer.get() & 0xFFL) << 16
+        | (buffer.get() & 0xFFL) << 8
+        | (buffer.get() & 0xFFL);
+  }
+
+  /**
+   * Stores the big-endian representation of {@code value} in the next 8 bytes of {@code dest}, and
+   * advances the position of the buffer by 8. The byte order of the buffer is ignored.
+   *
+   * @param value the value to be converted.
+   * @param dest the destination buffer.
+   * @throws BufferOverflowException if {@code dest} has fewer than 8 bytes remaining.
+   */
+  static void longToByteBuffer(long value, ByteBuffer dest) {
+    if (dest.remaining() < LONG_BYTES) {
+      throw new BufferOverflowException();
+    }
+    dest.put((byte) (value >> 56 & 0xFFL));
+    dest.put((byte) (value >> 48 & 0xFFL));
+    dest.put((byte) (value >> 40 & 0xFFL));
+    dest.put((byte) (value >> 32 & 0xFFL));
+    dest.put((byte) (value >> 24 & 0xFFL));
+    dest.put((byte) (value >> 16 & 0xFFL));
+    dest.put((byte) (value >> 8 & 0xFFL));
+    dest.put((byte) (value & 0xFFL));
+  }
+
   /**
    * Returns the {@code long} value whose base16 representation is stored in the first 16 chars of
    * {@code chars} starting from the {@code offset}.
@@ -16,13 +16,15 @@
 
 package io.opencensus.trace;
 
-import io.grpc.Context;
 import io.opencensus.common.Scope;
 import io.opencensus.trace.unsafe.ContextUtils;
 import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 
-/** Util methods/functionality to interact with the {@link Span} in the {@link io.grpc.Context}. */
+/**
+ * Util methods/functionality to interact with the current {@link Span}, which is stored in the
+ * {@link io.opencensus.common.ContextStorage} selected for this process.
+ */
 final class CurrentSpanUtils {
   // No instance of this class.
   private CurrentSpanUtils() {}
@@ -34,7 +36,7 @@ final class CurrentSpanUtils {
    */
   @Nullable
   static Span getCurrentSpan() {
-    return ContextUtils.getValue(Context.current());
+    return ContextUtils.getCurrentValue();
   }
 
   /**
@@ -78,24 +80,24 @@ final class CurrentSpanUtils {
 
   // Defines an arbitrary scope of code as a traceable operation. Supports try-with-resources idiom.
   private static final class ScopeInSpan implements Scope {
-    private final Context origContext;
+    private final Scope origScope;
     private final Span span;
     private final boolean endSpan;
 
     /**
      * Constructs a new {@link ScopeInSpan}.
      *
-     * @param span is the {@code Span} to be added to the current {@code io.grpc.Context}.
+     * @param span is the {@code Span} to be added to the current context.
      */
     private ScopeInSpan(Span span, boolean endSpan) {
       this.span = span;
       this.endSpan = endSpan;
-      origContext = ContextUtils.withValue(Context.current(), span).attach();
+      origScope = ContextUtils.getCurrentSpanSlot().attach(span);
     }
 
     @Override
     public void close() {
-      Context.current().detach(origContext);
+      origScope.close();
       if (endSpan) {
         span.end();
       }
@@ -116,7 +118,7 @@ final class CurrentSpanUtils {
 
     @Override
     public void run() {
-      Context origContext = ContextUtils.withValue(Context.current(), span).attach();
+      Scope origScope = ContextUtils.getCurrentSpanSlot().attach(span);
       try {
         runnable.run();
       } catch (Throwable t) {
@@ -128,7 +130,7 @@ final class CurrentSpanUtils {
         }
         throw new RuntimeException("unexpected", t);
       } finally {
-        Context.current().detach(origContext);
+        origScope.close();
         if (endSpan) {
           span.end();
         }
@@ -149,7 +151,7 @@ final class CurrentSpanUtils {
 
     @Override
     public V call() throws Exception {
-      Context origContext = ContextUtils.withValue(Context.current(), span).attach();
+      Scope origScope = ContextUtils.getCurrentSpanSlot().attach(span);
       try {
         return callable.call();
       } catch (Exception e) {
@@ -162,7 +164,7 @@ final class CurrentSpanUtils {
         }
         throw new RuntimeException("unexpected", t);
       } finally {
-        Context.current().detach(origContext);
+        origScope.close();
         if (endSpan) {
           span.end();
         }
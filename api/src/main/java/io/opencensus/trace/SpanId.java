@@ -17,6 +17,9 @@
 package io.opencensus.trace;
 
 import io.opencensus.internal.Utils;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Random;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -87,6 +90,22 @@ public final class SpanId implements Comparable<SpanId> {
     return new SpanId(BigendianEncoding.longFromByteArray(src, srcOffset));
   }
 
+  /**
+   * Returns a {@code SpanId} whose representation is read from the next {@link SpanId#SIZE} bytes
+   * of {@code src}. The position of the buffer is advanced by {@link SpanId#SIZE}.
+   *
+   * @param src the buffer where the representation of the {@code SpanId} is read from.
+   * @return a {@code SpanId} whose representation is read from the buffer.
+   * @throws NullPointerException if {@code src} is null.
+   * @throws BufferUnderflowException if {@code src} has fewer than {@link SpanId#SIZE} bytes
+   *     remaining.
+   * @since 0.24
+   */
+  public static SpanId fromBytes(ByteBuffer src) {
+    Utils.checkNotNull(src, "src");
+    return new SpanId(BigendianEncoding.longFromByteBuffer(src));
+  }
+
   /**
    * Returns a {@code SpanId} built from a lowercase base16 representation.
    *
@@ -167,6 +186,21 @@ public final class SpanId implements Comparable<SpanId> {
     BigendianEncoding.longToByteArray(id, dest, destOffset);
   }
 
+  /**
+   * Copies the byte array representations of the {@code SpanId} into the next {@link SpanId#SIZE}
+   * bytes of {@code dest}. The position of the buffer is advanced by {@link SpanId#SIZE}.
+   *
+   * @param dest the destination buffer.
+   * @throws NullPointerException if {@code dest} is null.
+   * @throws BufferOverflowException if {@code dest} has fewer than {@link SpanId#SIZE} bytes
+   *     remaining.
+   * @since 0.24
+   */
+  public void copyBytesTo(ByteBuffer dest) {
+    Utils.checkNotNull(dest, "dest");
+    BigendianEncoding.longToByteBuffer(id, dest);
+  }
+
   /**
    * Copies the lowercase base16 representations of the {@code SpanId} into the {@code dest}
    * beginning at the {@code destOffset} offset.
@@ -18,6 +18,9 @@ package io.opencensus.trace;
 
 import io.opencensus.common.Internal;
 import io.opencensus.internal.Utils;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Random;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -91,6 +94,27 @@ public final class TraceId implements Comparable<TraceId> {
         BigendianEncoding.longFromByteArray(src, srcOffset + BigendianEncoding.LONG_BYTES));
   }
 
+  /**
+   * Returns a {@code TraceId} whose representation is read from the next {@link TraceId#SIZE} bytes
+   * of {@code src}. The position of the buffer is advanced by {@link TraceId#SIZE}.
+   *
+   * @param src the buffer where the representation of the {@code TraceId} is read from.
+   * @return a {@code TraceId} whose representation is read from the buffer.
+   * @throws NullPointerException if {@code src} is null.
+   * @throws BufferUnderflowException if {@code src} has fewer than {@link TraceId#SIZE} bytes
+   *     remaining.
+   * @since 0.24
+   */
+  public static TraceId fromBytes(ByteBuffer src) {
+    Utils.checkNotNull(src, "src");
+    if (src.remaining() < SIZE) {
+      throw new BufferUnderflowException();
+    }
+    long idHi = BigendianEncoding.longFromByteBuffer(src);
+    long idLo = BigendianEncoding.longFromByteBuffer(src);
+    return new TraceId(idHi, idLo);
+  }
+
   /**
    * Returns a {@code TraceId} built from a lowercase base16 representation.
    *
@@ -176,6 +200,25 @@ public final class TraceId implements Comparable<TraceId> {
     BigendianEncoding.longToByteArray(idLo, dest, destOffset + BigendianEncoding.LONG_BYTES);
   }
 
+  /**
+   * Copies the byte array representations of the {@code TraceId} into the next {@link TraceId#SIZE}
+   * bytes of {@code dest}. The position of the buffer is advanced by {@link TraceId#SIZE}.
+   *
+   * @param dest the destination buffer.
+   * @throws NullPointerException if {@code dest} is null.
+   * @throws BufferOverflowException if {@code dest} has fewer than {@link TraceId#SIZE} bytes
+   *     remaining.
+   * @since 0.24
+   */
+  public void copyBytesTo(ByteBuffer dest) {
+    Utils.checkNotNull(dest, "dest");
+    if (dest.remaining() < SIZE) {
+      throw new BufferOverflowException();
+    }
+    BigendianEncoding.longToByteBuffer(idHi, dest);
+    BigendianEncoding.longToByteBuffer(idLo, dest);
+  }
+
   /**
    * Copies the lowercase base16 representations of the {@code TraceId} into the {@code dest}
    * beginning at the {@code destOffset} offset.
@@ -18,6 +18,8 @@ package io.opencensus.trace.propagation;
 
 import io.opencensus.internal.Utils;
 import io.opencensus.trace.SpanContext;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 
 /**
@@ -129,6 +131,56 @@ public abstract class BinaryFormat {
     }
   }
 
+  /**
+   * Returns the number of bytes that {@link #toByteBuffer(SpanContext, ByteBuffer)} writes for the
+   * given {@link SpanContext}. This can be used to size a buffer before serializing into it.
+   *
+   * @param spanContext the {@code SpanContext} to serialize.
+   * @return the size in bytes of the serialized binary value.
+   * @throws NullPointerException if the {@code spanContext} is {@code null}.
+   * @since 0.24
+   */
+  public int getSerializedSize(SpanContext spanContext) {
+    // Implementations should override this method to avoid the intermediate byte array.
+    return toByteArray(spanContext).length;
+  }
+
+  /**
+   * Serializes a {@link SpanContext} into the given {@link ByteBuffer} using the binary format. The
+   * value is written at the current position of the buffer, and the position is advanced by {@link
+   * #getSerializedSize(SpanContext)} bytes.
+   *
+   * @param spanContext the {@code SpanContext} to serialize.
+   * @param buffer the buffer to write the serialized binary value to.
+   * @throws NullPointerException if the {@code spanContext} or the {@code buffer} is {@code null}.
+   * @throws BufferOverflowException if the {@code buffer} does not have enough bytes remaining, in
+   *     which case nothing is written.
+   * @since 0.24
+   */
+  public void toByteBuffer(SpanContext spanContext, ByteBuffer buffer) {
+    // Implementations should override this method to avoid the intermediate byte array.
+    Utils.checkNotNull(buffer, "buffer");
+    buffer.put(toByteArray(spanContext));
+  }
+
+  /**
+   * Parses the {@link SpanContext} from the remaining bytes of the given {@link ByteBuffer} using
+   * the binary format. On success the position of the buffer is set to its limit.
+   *
+   * @param buffer a binary encoded buffer from which the {@code SpanContext} will be parsed.
+   * @return the parsed {@code SpanContext}.
+   * @throws NullPointerException if the {@code buffer} is {@code null}.
+   * @throws SpanContextParseException if the version is not supported or the input is invalid
+   * @since 0.24
+   */
+  public SpanContext fromByteBuffer(ByteBuffer buffer) throws SpanContextParseException {
+    // Implementations should override this method to avoid the intermediate byte array.
+    Utils.checkNotNull(buffer, "buffer");
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return fromByteArray(bytes);
+  }
+
   /**
    * Returns the no-op implementation of the {@code BinaryFormat}.
    *
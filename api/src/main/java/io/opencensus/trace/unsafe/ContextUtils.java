@@ -17,6 +17,7 @@
 package io.opencensus.trace.unsafe;
 
 import io.grpc.Context;
+import io.opencensus.common.ContextStorage;
 import io.opencensus.internal.Utils;
 import io.opencensus.trace.BlankSpan;
 import io.opencensus.trace.Span;
@@ -41,6 +42,21 @@ public final class ContextUtils {
   private static final Context.Key</*@Nullable*/ Span> CONTEXT_SPAN_KEY =
       Context.<Span>key("opencensus-trace-span-key");
 
+  private static final ContextStorage.Slot</*@Nullable*/ Span> CURRENT_SPAN_SLOT =
+      ContextStorage.getInstance().createSlot(CONTEXT_SPAN_KEY);
+
+  /**
+   * Returns the {@link ContextStorage.Slot} that holds the current {@code Span} in the {@link
+   * ContextStorage} selected for this process. The slot returns {@code null} when no {@code Span}
+   * is current.
+   *
+   * @return the {@code Slot} that holds the current {@code Span}.
+   * @since 0.24
+   */
+  public static ContextStorage.Slot</*@Nullable*/ Span> getCurrentSpanSlot() {
+    return CURRENT_SPAN_SLOT;
+  }
+
   /**
    * Creates a new {@code Context} with the given value set.
    *
@@ -65,4 +81,15 @@ public final class ContextUtils {
     Span span = CONTEXT_SPAN_KEY.get(Utils.checkNotNull(context, "context"));
     return span == null ? BlankSpan.INSTANCE : span;
   }
+
+  /**
+   * Returns the current {@code Span} from the {@link ContextStorage} selected for this process.
+   *
+   * @return the current {@code Span}, or {@link BlankSpan#INSTANCE} if no {@code Span} is current.
+   * @since 0.24
+   */
+  public static Span getCurrentValue() {
+    @javax.annotation.Nullable Span span = CURRENT_SPAN_SLOT.get();
+    return span == null ? BlankSpan.INSTANCE : span;
+  }
 }
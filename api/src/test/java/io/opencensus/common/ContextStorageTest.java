@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.Context;
+import io.opencensus.common.ContextStorage.Slot;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ContextStorage}. */
+@RunWith(JUnit4.class)
+public class ContextStorageTest {
+  private static final Context.Key<String> KEY = Context.keyWithDefault("test-key", "default");
+
+  private final ContextStorage grpcStorage = ContextStorage.getGrpcContextStorage();
+  private final ContextStorage threadLocalStorage =
+      ContextStorage.loadContextStorage(ContextStorage.THREAD_LOCAL, null);
+
+  @Test
+  public void defaultIsGrpcContextStorage() {
+    assertThat(ContextStorage.getInstance()).isSameInstanceAs(grpcStorage);
+  }
+
+  @Test
+  public void loadContextStorage() {
+    ClassLoader classLoader = ContextStorageTest.class.getClassLoader();
+    assertThat(ContextStorage.loadContextStorage(null, classLoader)).isSameInstanceAs(grpcStorage);
+    assertThat(ContextStorage.loadContextStorage("", classLoader)).isSameInstanceAs(grpcStorage);
+    assertThat(ContextStorage.loadContextStorage(ContextStorage.GRPC, classLoader))
+        .isSameInstanceAs(grpcStorage);
+    assertThat(ContextStorage.loadContextStorage(ContextStorage.THREAD_LOCAL, classLoader))
+        .isNotSameInstanceAs(grpcStorage);
+    assertThat(ContextStorage.loadContextStorage(CustomContextStorage.class.getName(), classLoader))
+        .isInstanceOf(CustomContextStorage.class);
+  }
+
+  @Test
+  public void loadContextStorage_FallsBackToGrpc() {
+    ClassLoader classLoader = ContextStorageTest.class.getClassLoader();
+    assertThat(ContextStorage.loadContextStorage("io.opencensus.NoSuchStorage", classLoader))
+        .isSameInstanceAs(grpcStorage);
+    assertThat(ContextStorage.loadContextStorage(String.class.getName(), classLoader))
+        .isSameInstanceAs(grpcStorage);
+  }
+
+  @Test
+  public void grpcSlot_AttachesToCurrentContext() {
+    Slot<String> slot = grpcStorage.createSlot(KEY);
+    assertThat(slot.get()).isEqualTo("default");
+    Scope scope = slot.attach("value");
+    try {
+      assertThat(slot.get()).isEqualTo("value");
+      assertThat(KEY.get(Context.current())).isEqualTo("value");
+    } finally {
+      scope.close();
+    }
+    assertThat(slot.get()).isEqualTo("default");
+  }
+
+  @Test
+  public void threadLocalSlot_RestoresPreviousValue() {
+    Slot<String> slot = threadLocalStorage.createSlot(KEY);
+    assertThat(slot.get()).isEqualTo("default");
+    Scope outer = slot.attach("outer");
+    try {
+      Scope inner = slot.attach("inner");
+      try {
+        assertThat(slot.get()).isEqualTo("inner");
+      } finally {
+        inner.close();
+      }
+      assertThat(slot.get()).isEqualTo("outer");
+      // The thread-local storage does not change the io.grpc.Context.
+      assertThat(KEY.get(Context.current())).isEqualTo("default");
+    } finally {
+      outer.close();
+    }
+    assertThat(slot.get()).isEqualTo("default");
+  }
+
+  @Test
+  public void threadLocalSlot_IsPerThread() throws InterruptedException {
+    final Slot<String> slot = threadLocalStorage.createSlot(KEY);
+    final AtomicReference<String> otherThreadValue = new AtomicReference<String>();
+    Scope scope = slot.attach("value");
+    try {
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  otherThreadValue.set(slot.get());
+                }
+              });
+      thread.start();
+      thread.join();
+    } finally {
+      scope.close();
+    }
+    assertThat(otherThreadValue.get()).isEqualTo("default");
+  }
+
+  @Test
+  public void threadLocalSlots_AreIndependent() {
+    Slot<String> slot1 = threadLocalStorage.createSlot(KEY);
+    Slot<String> slot2 = threadLocalStorage.createSlot(KEY);
+    Scope scope = slot1.attach("value");
+    try {
+      assertThat(slot2.get()).isEqualTo("default");
+    } finally {
+      scope.close();
+    }
+  }
+
+  /** A {@link ContextStorage} that can be loaded by class name. */
+  public static final class CustomContextStorage extends ContextStorage {
+    @Override
+    public <T> Slot<T> createSlot(Context.Key<T> key) {
+      return getGrpcContextStorage().createSlot(key);
+    }
+  }
+}
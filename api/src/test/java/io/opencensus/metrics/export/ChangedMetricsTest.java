@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.metrics.export;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.EqualsTester;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ChangedMetrics}. */
+@RunWith(JUnit4.class)
+public class ChangedMetricsTest {
+  private static final Metric METRIC =
+      Metric.create(
+          MetricDescriptor.create(
+              "name", "description", "1", Type.GAUGE_INT64, Collections.<LabelKey>emptyList()),
+          Collections.<TimeSeries>emptyList());
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testGet() {
+    ChangedMetrics changedMetrics = ChangedMetrics.create(Collections.singletonList(METRIC), 3);
+    assertThat(changedMetrics.getMetrics()).containsExactly(METRIC);
+    assertThat(changedMetrics.getCursor()).isEqualTo(3);
+  }
+
+  @Test
+  public void create_WithNullMetric() {
+    thrown.expect(NullPointerException.class);
+    thrown.expectMessage("metric");
+    ChangedMetrics.create(Arrays.asList(METRIC, null), 3);
+  }
+
+  @Test
+  public void testEquals() {
+    new EqualsTester()
+        .addEqualityGroup(
+            ChangedMetrics.create(Collections.singletonList(METRIC), 3),
+            ChangedMetrics.create(Collections.singletonList(METRIC), 3))
+        .addEqualityGroup(ChangedMetrics.create(Collections.<Metric>emptyList(), 3))
+        .addEqualityGroup(ChangedMetrics.create(Collections.singletonList(METRIC), 4))
+        .testEquals();
+  }
+
+  @Test
+  public void defaultMetricProducerReturnsAllMetrics() {
+    MetricProducer metricProducer =
+        new MetricProducer() {
+          @Override
+          public Collection<Metric> getMetrics() {
+            return Collections.singletonList(METRIC);
+          }
+        };
+    ChangedMetrics changedMetrics = metricProducer.getMetricsChangedSince(5);
+    assertThat(changedMetrics.getMetrics()).containsExactly(METRIC);
+    assertThat(changedMetrics.getCursor()).isEqualTo(ChangedMetrics.INITIAL_CURSOR);
+  }
+}
@@ -112,6 +112,18 @@ public final class NoopStatsTest {
     measureMap.putAttachment("key", (AttachmentValue) null);
   }
 
+  @Test
+  public void noopStatsRecorder_BindMeasure() {
+    NoopStats.getNoopStatsRecorder().bindMeasure(MEASURE, tagContext).record(5);
+  }
+
+  @Test
+  public void noopStatsRecorder_BindMeasureNullTags() {
+    thrown.expect(NullPointerException.class);
+    thrown.expectMessage("tags");
+    NoopStats.getNoopStatsRecorder().bindMeasure(MEASURE, null);
+  }
+
   @Test
   public void noopStatsRecorder_PutNegativeValue() {
     NoopStats.getNoopStatsRecorder().newMeasureMap().put(MEASURE, -5).record(tagContext);
@@ -17,8 +17,12 @@
 package io.opencensus.trace;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import com.google.common.testing.EqualsTester;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -105,4 +109,42 @@ public class TraceIdTest {
     assertThat(first.toString()).contains("00000000000000000000000000000061");
     assertThat(second.toString()).contains("ff000000000000000000000000000041");
   }
+
+  @Test
+  public void fromBytes_ByteBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocate(TraceId.SIZE + 2);
+    buffer.put((byte) 1).put(secondBytes).put((byte) 2);
+    buffer.position(1);
+    assertThat(TraceId.fromBytes(buffer)).isEqualTo(second);
+    assertThat(buffer.position()).isEqualTo(TraceId.SIZE + 1);
+  }
+
+  @Test(expected = BufferUnderflowException.class)
+  public void fromBytes_ByteBuffer_NotEnoughBytes() {
+    TraceId.fromBytes(ByteBuffer.allocate(TraceId.SIZE - 1));
+  }
+
+  @Test
+  public void copyBytesTo_ByteBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(TraceId.SIZE + 1);
+    buffer.put((byte) 1);
+    second.copyBytesTo(buffer);
+    assertThat(buffer.position()).isEqualTo(TraceId.SIZE + 1);
+    byte[] bytes = new byte[TraceId.SIZE];
+    buffer.position(1);
+    buffer.get(bytes);
+    assertThat(bytes).isEqualTo(secondBytes);
+  }
+
+  @Test
+  public void copyBytesTo_ByteBuffer_NotEnoughSpace() {
+    ByteBuffer buffer = ByteBuffer.allocate(TraceId.SIZE - 1);
+    try {
+      second.copyBytesTo(buffer);
+      fail("Expected BufferOverflowException");
+    } catch (BufferOverflowException e) {
+      // Nothing is written if the buffer is too small.
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongGauge;
+import io.opencensus.metrics.LongGauge.LongPoint;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Tracer;
+import io.opencensus.trace.Tracing;
+import io.opencensus.trace.samplers.Samplers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Util class for the exporter benchmarks. */
+final class ExporterBenchmarksUtil {
+  private static final String SPAN_NAME = "ExporterBenchmark.span";
+  private static final AttributeValue STRING_VALUE =
+      AttributeValue.stringAttributeValue("/api/v1/resource");
+  private static final AttributeValue LONG_VALUE = AttributeValue.longAttributeValue(200);
+  private static final AttributeValue BOOLEAN_VALUE = AttributeValue.booleanAttributeValue(true);
+  private static final String DROPPED_SPANS_METRIC = "oc_worker_spans_dropped";
+  private static final String GAUGE_NAME = "exporter_benchmark_gauge";
+  private static final List<LabelKey> GAUGE_LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("series", "The index of the time series."));
+
+  private static final Function<Long, Long> LONG_VALUE_FUNCTION =
+      new Function<Long, Long>() {
+        @Override
+        public Long apply(Long value) {
+          return value;
+        }
+      };
+
+  /** Starts and ends a sampled span, which is exported by the registered exporters. */
+  static Span recordSpan() {
+    Tracer tracer = Tracing.getTracer();
+    Span span =
+        tracer
+            .spanBuilderWithExplicitParent(SPAN_NAME, null)
+            .setSampler(Samplers.alwaysSample())
+            .startSpan();
+    span.putAttribute("http.path", STRING_VALUE);
+    span.putAttribute("http.status_code", LONG_VALUE);
+    span.putAttribute("cache.hit", BOOLEAN_VALUE);
+    span.addAnnotation("Response sent.");
+    span.end();
+    return span;
+  }
+
+  /**
+   * Adds a gauge with {@code count} time series to the global {@code MetricRegistry}, and returns
+   * the time series so the caller can update their values.
+   */
+  static List<LongPoint> addTimeSeries(int count) {
+    LongGauge gauge =
+        Metrics.getMetricRegistry()
+            .addLongGauge(
+                GAUGE_NAME,
+                MetricOptions.builder()
+                    .setDescription("Time series of the exporter benchmarks.")
+                    .setUnit("1")
+                    .setLabelKeys(GAUGE_LABEL_KEYS)
+                    .build());
+    List<LongPoint> timeSeries = new ArrayList<LongPoint>(count);
+    for (int i = 0; i < count; i++) {
+      LongPoint point =
+          gauge.getOrCreateTimeSeries(
+              Collections.singletonList(LabelValue.create(Integer.toString(i))));
+      point.set(i);
+      timeSeries.add(point);
+    }
+    return timeSeries;
+  }
+
+  /** Returns the number of sampled spans that the export worker dropped. */
+  static long getDroppedSpans() {
+    long droppedSpans = 0;
+    for (MetricProducer producer :
+        Metrics.getExportComponent().getMetricProducerManager().getAllMetricProducer()) {
+      for (Metric metric : producer.getMetrics()) {
+        if (!metric.getMetricDescriptor().getName().equals(DROPPED_SPANS_METRIC)) {
+          continue;
+        }
+        for (TimeSeries timeSeries : metric.getTimeSeriesList()) {
+          for (Point point : timeSeries.getPoints()) {
+            droppedSpans +=
+                point
+                    .getValue()
+                    .match(
+                        Functions.<Long>returnConstant(0L),
+                        LONG_VALUE_FUNCTION,
+                        Functions.<Long>returnConstant(0L),
+                        Functions.<Long>returnConstant(0L),
+                        Functions.<Long>returnConstant(0L));
+          }
+        }
+      }
+    }
+    return droppedSpans;
+  }
+
+  // Avoid instances of this class.
+  private ExporterBenchmarksUtil() {}
+}
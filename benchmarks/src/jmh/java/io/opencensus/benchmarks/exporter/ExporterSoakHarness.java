@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.opencensus.common.Duration;
+import io.opencensus.exporter.metrics.ocagent.OcAgentMetricsExporter;
+import io.opencensus.exporter.metrics.ocagent.OcAgentMetricsExporterConfiguration;
+import io.opencensus.exporter.metrics.util.IntervalMetricReader;
+import io.opencensus.exporter.metrics.util.MetricReader;
+import io.opencensus.metrics.LongGauge.LongPoint;
+import io.opencensus.metrics.Metrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long-running harness that drives an exporter against its stand-in backend, and periodically
+ * reports the throughput, the bytes per item, the dropped spans and the export backlog.
+ *
+ * <p>Usage: {@code ExporterSoakHarness <mode> [durationSeconds] [rate] [threads] [latencyMillis]}
+ *
+ * <ul>
+ *   <li>{@code mode} is one of the trace backends ({@code zipkin}, {@code jaeger-http}, {@code
+ *       jaeger-udp}, {@code elasticsearch}, {@code ocagent}), or {@code ocagent-metrics}, {@code
+ *       prometheus} or {@code interval-reader}.
+ *   <li>{@code rate} is the number of spans ended per second for the trace backends, 0 for as fast
+ *       as possible, or the number of time series for the metrics modes.
+ *   <li>{@code threads} is the number of threads that end spans or update the time series.
+ *   <li>{@code latencyMillis} is the time the HTTP backends take to handle each request.
+ * </ul>
+ *
+ * <p>Each mode registers exporters to the global components, so run one mode per process.
+ */
+public final class ExporterSoakHarness {
+  private static final long REPORT_INTERVAL_SECONDS = 5;
+  private static final long DRAIN_TIMEOUT_SECONDS = 30;
+  private static final Duration METRICS_EXPORT_INTERVAL = Duration.create(1, 0);
+
+  private final String mode;
+  private final long durationSeconds;
+  private final long rate;
+  private final int threads;
+  private final long latencyMillis;
+  private final AtomicLong produced = new AtomicLong();
+  private volatile boolean running = true;
+
+  private ExporterSoakHarness(
+      String mode, long durationSeconds, long rate, int threads, long latencyMillis) {
+    this.mode = mode;
+    this.durationSeconds = durationSeconds;
+    this.rate = rate;
+    this.threads = threads;
+    this.latencyMillis = latencyMillis;
+  }
+
+  /** Runs the harness, see the class documentation for the arguments. */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println(
+          "Usage: ExporterSoakHarness <mode> [durationSeconds] [rate] [threads] [latencyMillis]");
+      System.exit(1);
+    }
+    boolean metrics = isMetricsMode(args[0]);
+    new ExporterSoakHarness(
+            args[0],
+            args.length > 1 ? Long.parseLong(args[1]) : 60,
+            args.length > 2 ? Long.parseLong(args[2]) : (metrics ? 1000 : 0),
+            args.length > 3 ? Integer.parseInt(args[3]) : 1,
+            args.length > 4 ? Long.parseLong(args[4]) : 0)
+        .run(metrics);
+    // The OC-Agent metrics exporter cannot be unregistered, and keeps its threads running.
+    System.exit(0);
+  }
+
+  private static boolean isMetricsMode(String mode) {
+    return mode.equals("ocagent-metrics")
+        || mode.equals("prometheus")
+        || mode.equals("interval-reader");
+  }
+
+  private void run(boolean metrics) throws Exception {
+    System.out.printf(
+        "mode=%s duration=%ds rate=%d threads=%d latency=%dms%n",
+        mode, durationSeconds, rate, threads, latencyMillis);
+    if (metrics) {
+      runMetrics();
+    } else {
+      runTrace(TraceBackend.fromName(mode));
+    }
+  }
+
+  private void runTrace(TraceBackend traceBackend) throws IOException, InterruptedException {
+    FakeBackend fakeBackend = traceBackend.start(latencyMillis);
+    try {
+      final RateLimiter rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+      List<Thread> producers =
+          startProducers(
+              new Runnable() {
+                @Override
+                public void run() {
+                  if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                  }
+                  ExporterBenchmarksUtil.recordSpan();
+                  produced.incrementAndGet();
+                }
+              });
+      long startNanos = System.nanoTime();
+      Report report = new Report(fakeBackend);
+      while (elapsedSeconds(startNanos) < durationSeconds) {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL_SECONDS));
+        report.print(startNanos);
+      }
+      stopProducers(producers);
+
+      // Waits for the export worker and the exporter to drain the spans ended so far.
+      long drainStartNanos = System.nanoTime();
+      while (produced.get() > fakeBackend.getItems() + ExporterBenchmarksUtil.getDroppedSpans()
+          && elapsedSeconds(drainStartNanos) < DRAIN_TIMEOUT_SECONDS) {
+        Thread.sleep(10);
+      }
+      System.out.printf(
+          "drained in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStartNanos));
+      report.print(startNanos);
+    } finally {
+      traceBackend.unregister();
+      fakeBackend.close();
+    }
+  }
+
+  private void runMetrics() throws IOException, InterruptedException {
+    final List<LongPoint> timeSeries = ExporterBenchmarksUtil.addTimeSeries((int) rate);
+    List<Thread> producers =
+        startProducers(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (LongPoint point : timeSeries) {
+                  point.add(1);
+                }
+                produced.addAndGet(timeSeries.size());
+              }
+            });
+    FakeBackend fakeBackend = null;
+    IntervalMetricReader intervalMetricReader = null;
+    MetricExporterBenchmark.CountingMetricExporter metricExporter = null;
+    try {
+      if (mode.equals("ocagent-metrics")) {
+        FakeOcAgent agent = new FakeOcAgent();
+        fakeBackend = agent;
+        OcAgentMetricsExporter.createAndRegister(
+            OcAgentMetricsExporterConfiguration.builder()
+                .setServiceName("opencensus-benchmark")
+                .setEndPoint(agent.getEndpoint())
+                .setUseInsecure(true)
+                .setExportInterval(METRICS_EXPORT_INTERVAL)
+                .build());
+      } else if (mode.equals("prometheus")) {
+        fakeBackend = new PrometheusScraper();
+      } else {
+        metricExporter = new MetricExporterBenchmark.CountingMetricExporter();
+        intervalMetricReader =
+            IntervalMetricReader.create(
+                metricExporter,
+                MetricReader.create(
+                    MetricReader.Options.builder()
+                        .setMetricProducerManager(
+                            Metrics.getExportComponent().getMetricProducerManager())
+                        .build()),
+                IntervalMetricReader.Options.builder()
+                    .setExportInterval(METRICS_EXPORT_INTERVAL)
+                    .build());
+      }
+
+      long startNanos = System.nanoTime();
+      long lastReportNanos = startNanos;
+      long scrapes = 0;
+      long maxScrapeNanos = 0;
+      long totalScrapeNanos = 0;
+      while (elapsedSeconds(startNanos) < durationSeconds) {
+        if (fakeBackend instanceof PrometheusScraper) {
+          long scrapeStartNanos = System.nanoTime();
+          ((PrometheusScraper) fakeBackend).scrape();
+          long scrapeNanos = System.nanoTime() - scrapeStartNanos;
+          scrapes++;
+          totalScrapeNanos += scrapeNanos;
+          maxScrapeNanos = Math.max(maxScrapeNanos, scrapeNanos);
+          Thread.sleep(TimeUnit.SECONDS.toMillis(METRICS_EXPORT_INTERVAL.getSeconds()));
+        } else {
+          Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+        }
+        if (elapsedSeconds(lastReportNanos) >= REPORT_INTERVAL_SECONDS) {
+          lastReportNanos = System.nanoTime();
+          long exported =
+              metricExporter != null ? metricExporter.timeSeries.get() : fakeBackend.getItems();
+          System.out.printf(
+              "%5ds: updates=%d exported=%d series (%.1f series/s)",
+              elapsedSeconds(startNanos),
+              produced.get(),
+              exported,
+              exported / (double) Math.max(1, elapsedSeconds(startNanos)));
+          if (fakeBackend != null) {
+            System.out.printf(
+                " requests=%d bytes=%d errors=%d",
+                fakeBackend.getRequests(), fakeBackend.getBytes(), fakeBackend.getErrors());
+          }
+          if (scrapes > 0) {
+            System.out.printf(
+                " scrape avg=%.1fms max=%.1fms",
+                totalScrapeNanos / 1e6 / scrapes, maxScrapeNanos / 1e6);
+          }
+          System.out.println();
+        }
+      }
+    } finally {
+      stopProducers(producers);
+      if (intervalMetricReader != null) {
+        intervalMetricReader.stop();
+      }
+      if (fakeBackend != null) {
+        fakeBackend.close();
+      }
+    }
+  }
+
+  private List<Thread> startProducers(final Runnable operation) {
+    List<Thread> producers = new ArrayList<Thread>(threads);
+    for (int i = 0; i < threads; i++) {
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  while (running) {
+                    operation.run();
+                  }
+                }
+              },
+              "ExporterSoakHarness-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      producers.add(thread);
+    }
+    return producers;
+  }
+
+  private void stopProducers(List<Thread> producers) throws InterruptedException {
+    running = false;
+    for (Thread thread : producers) {
+      thread.join();
+    }
+  }
+
+  private static long elapsedSeconds(long startNanos) {
+    return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+  }
+
+  // Prints the trace export progress, and the rates since the previous report.
+  private final class Report {
+    private final FakeBackend fakeBackend;
+    private long lastNanos = System.nanoTime();
+    private long lastProduced;
+    private long lastReceived;
+
+    private Report(FakeBackend fakeBackend) {
+      this.fakeBackend = fakeBackend;
+    }
+
+    private void print(long startNanos) {
+      long nowNanos = System.nanoTime();
+      double seconds = Math.max(1e-9, (nowNanos - lastNanos) / 1e9);
+      long ended = produced.get();
+      long received = fakeBackend.getItems();
+      long dropped = ExporterBenchmarksUtil.getDroppedSpans();
+      System.out.printf(
+          "%5ds: ended=%d (%.1f/s) received=%d (%.1f/s) requests=%d bytes/span=%.1f "
+              + "dropped=%d errors=%d backlog=%d%n",
+          TimeUnit.NANOSECONDS.toSeconds(nowNanos - startNanos),
+          ended,
+          (ended - lastProduced) / seconds,
+          received,
+          (received - lastReceived) / seconds,
+          fakeBackend.getRequests(),
+          received == 0 ? 0.0 : (double) fakeBackend.getBytes() / received,
+          dropped,
+          fakeBackend.getErrors(),
+          Math.max(0, ended - received - dropped));
+      lastNanos = nowNanos;
+      lastProduced = ended;
+      lastReceived = received;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stand-in for the backend of an exporter, running in the benchmark process. It decodes what it
+ * receives just enough to count the spans or time series.
+ */
+abstract class FakeBackend implements Closeable {
+  private final AtomicLong items = new AtomicLong();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+
+  /** Records a request of {@code bytes} bytes that carried {@code items} spans or time series. */
+  final void recordRequest(long items, long bytes) {
+    this.items.addAndGet(items);
+    this.bytes.addAndGet(bytes);
+    requests.incrementAndGet();
+  }
+
+  /** Records a request that could not be decoded. */
+  final void recordError() {
+    errors.incrementAndGet();
+  }
+
+  /** Returns the number of spans or time series received. */
+  final long getItems() {
+    return items.get();
+  }
+
+  final long getRequests() {
+    return requests.get();
+  }
+
+  /** Returns the number of bytes received, before decompression. */
+  final long getBytes() {
+    return bytes.get();
+  }
+
+  final long getErrors() {
+    return errors.get();
+  }
+
+  @Override
+  public abstract void close();
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.jaegertracing.thriftjava.Batch;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+
+/**
+ * A stand-in HTTP collector: a Zipkin v2 JSON endpoint, a Jaeger Thrift collector or the
+ * Elasticsearch {@code _bulk} API. Request bodies are decompressed if needed and their spans are
+ * counted; every request is accepted.
+ */
+final class FakeHttpCollector extends FakeBackend {
+
+  /** The wire format of the collector. */
+  enum Format {
+    /** Zipkin JSON v2 list of spans, each span has one {@code traceId} field. */
+    ZIPKIN_JSON_V2("/api/v2/spans", 202, "") {
+      @Override
+      int countSpans(byte[] body) {
+        return countOccurrences(body, TRACE_ID_FIELD);
+      }
+    },
+    /** Jaeger Thrift {@code Batch} in the binary protocol. */
+    JAEGER_THRIFT("/api/traces", 202, "") {
+      @Override
+      int countSpans(byte[] body) throws TException {
+        Batch batch = new Batch();
+        new TDeserializer(new TBinaryProtocol.Factory()).deserialize(batch, body);
+        return batch.getSpansSize();
+      }
+    },
+    /** Elasticsearch bulk request, an action line and a document line per span. */
+    ELASTICSEARCH_BULK("/_bulk", 200, "{\"errors\":false}") {
+      @Override
+      int countSpans(byte[] body) {
+        return countOccurrences(body, NEWLINE) / 2;
+      }
+    };
+
+    private static final byte[] TRACE_ID_FIELD = "\"traceId\":".getBytes(UTF_8);
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final String path;
+    private final int responseCode;
+    private final byte[] responseBody;
+
+    Format(String path, int responseCode, String responseBody) {
+      this.path = path;
+      this.responseCode = responseCode;
+      this.responseBody = responseBody.getBytes(UTF_8);
+    }
+
+    abstract int countSpans(byte[] body) throws TException;
+  }
+
+  private final Format format;
+  private final long latencyMillis;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Starts a collector on a free port of the loopback interface.
+   *
+   * @param format the wire format of the collector.
+   * @param latencyMillis the time taken to handle each request, to stand in for a remote backend.
+   */
+  FakeHttpCollector(Format format, long latencyMillis) throws IOException {
+    this.format = format;
+    this.latencyMillis = latencyMillis;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", new CollectorHandler());
+    executor =
+        Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("FakeHttpCollector-%d")
+                .build());
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /** Returns the base URL of the collector, without the path of the API. */
+  String getBaseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /** Returns the URL of the API of the collector. */
+  String getUrl() {
+    return getBaseUrl() + format.path;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private final class CollectorHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+        byte[] decoded = body;
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+          InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body));
+          decoded = ByteStreams.toByteArray(inputStream);
+        }
+        try {
+          recordRequest(format.countSpans(decoded), body.length);
+        } catch (TException e) {
+          recordError();
+        }
+        if (latencyMillis > 0) {
+          TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        }
+        exchange.sendResponseHeaders(
+            format.responseCode, format.responseBody.length == 0 ? -1 : format.responseBody.length);
+        if (format.responseBody.length > 0) {
+          OutputStream outputStream = exchange.getResponseBody();
+          outputStream.write(format.responseBody);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+  private static int countOccurrences(byte[] bytes, byte[] pattern) {
+    int count = 0;
+    outer:
+    for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      count++;
+      i += pattern.length - 1;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.jaegertracing.agent.thrift.Agent;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TMemoryInputTransport;
+
+/**
+ * A stand-in Jaeger agent, which receives {@code Agent.emitBatch} calls in compact Thrift UDP
+ * packets and counts their spans.
+ */
+final class FakeJaegerAgent extends FakeBackend {
+  private static final int MAX_PACKET_SIZE = 65535;
+
+  private final DatagramSocket socket;
+  private final Thread thread;
+
+  /** Starts an agent on a free port of the loopback interface. */
+  FakeJaegerAgent() throws IOException {
+    socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+    // Large enough to not drop packets while a packet is decoded.
+    socket.setReceiveBufferSize(8 * 1024 * 1024);
+    thread = new Thread(new Receiver(), "FakeJaegerAgent");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Returns the address of the agent, as {@code host:port}. */
+  String getEndpoint() {
+    return "127.0.0.1:" + socket.getLocalPort();
+  }
+
+  @Override
+  public void close() {
+    socket.close();
+  }
+
+  private final class Receiver implements Runnable {
+    @Override
+    public void run() {
+      byte[] buffer = new byte[MAX_PACKET_SIZE];
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      TMemoryInputTransport transport = new TMemoryInputTransport();
+      TCompactProtocol protocol = new TCompactProtocol(transport);
+      while (!socket.isClosed()) {
+        try {
+          socket.receive(packet);
+        } catch (IOException e) {
+          // The socket was closed.
+          return;
+        }
+        transport.reset(buffer, 0, packet.getLength());
+        try {
+          protocol.readMessageBegin();
+          Agent.emitBatch_args args = new Agent.emitBatch_args();
+          args.read(protocol);
+          protocol.readMessageEnd();
+          recordRequest(args.getBatch().getSpansSize(), packet.getLength());
+        } catch (TException e) {
+          recordError();
+        }
+      }
+    }
+  }
+}
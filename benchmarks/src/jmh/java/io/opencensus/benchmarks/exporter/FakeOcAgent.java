@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.grpc.Server;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.opencensus.proto.agent.metrics.v1.ExportMetricsServiceRequest;
+import io.opencensus.proto.agent.metrics.v1.ExportMetricsServiceResponse;
+import io.opencensus.proto.agent.metrics.v1.MetricsServiceGrpc;
+import io.opencensus.proto.agent.trace.v1.CurrentLibraryConfig;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceResponse;
+import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc;
+import io.opencensus.proto.agent.trace.v1.UpdatedLibraryConfig;
+import io.opencensus.proto.metrics.v1.Metric;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stand-in OC-Agent, which counts the spans and time series exported to its trace and metrics
+ * services.
+ *
+ * <p>The exporters connect to an agent by its address, so the agent is served on the loopback
+ * interface instead of an in-process transport.
+ */
+final class FakeOcAgent extends FakeBackend {
+  private final Server server;
+
+  /** Starts an agent on a free port of the loopback interface. */
+  FakeOcAgent() throws IOException {
+    server =
+        NettyServerBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+            .addService(new TraceService())
+            .addService(new MetricsService())
+            .build()
+            .start();
+  }
+
+  /** Returns the address of the agent, as {@code host:port}. */
+  String getEndpoint() {
+    return "127.0.0.1:" + server.getPort();
+  }
+
+  @Override
+  public void close() {
+    server.shutdownNow();
+    try {
+      server.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final class TraceService extends TraceServiceGrpc.TraceServiceImplBase {
+    @Override
+    public StreamObserver<CurrentLibraryConfig> config(
+        StreamObserver<UpdatedLibraryConfig> responseObserver) {
+      return new IgnoringObserver<CurrentLibraryConfig>();
+    }
+
+    @Override
+    public StreamObserver<ExportTraceServiceRequest> export(
+        StreamObserver<ExportTraceServiceResponse> responseObserver) {
+      return new IgnoringObserver<ExportTraceServiceRequest>() {
+        @Override
+        public void onNext(ExportTraceServiceRequest request) {
+          recordRequest(request.getSpansCount(), request.getSerializedSize());
+        }
+      };
+    }
+  }
+
+  private final class MetricsService extends MetricsServiceGrpc.MetricsServiceImplBase {
+    @Override
+    public StreamObserver<ExportMetricsServiceRequest> export(
+        StreamObserver<ExportMetricsServiceResponse> responseObserver) {
+      return new IgnoringObserver<ExportMetricsServiceRequest>() {
+        @Override
+        public void onNext(ExportMetricsServiceRequest request) {
+          long timeSeries = 0;
+          for (Metric metric : request.getMetricsList()) {
+            timeSeries += metric.getTimeseriesCount();
+          }
+          recordRequest(timeSeries, request.getSerializedSize());
+        }
+      };
+    }
+  }
+
+  private static class IgnoringObserver<T> implements StreamObserver<T> {
+    @Override
+    public void onNext(T value) {}
+
+    @Override
+    public void onError(Throwable t) {}
+
+    @Override
+    public void onCompleted() {}
+  }
+}
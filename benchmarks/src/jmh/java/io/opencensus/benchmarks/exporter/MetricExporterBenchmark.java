@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.opencensus.common.Duration;
+import io.opencensus.exporter.metrics.util.IntervalMetricReader;
+import io.opencensus.exporter.metrics.util.MetricExporter;
+import io.opencensus.exporter.metrics.util.MetricReader;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.Metric;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks the metrics export paths, with a gauge of {@code timeSeries} time series. */
+@State(Scope.Benchmark)
+public class MetricExporterBenchmark {
+  // Long enough that only the benchmark reads the metrics.
+  private static final Duration EXPORT_INTERVAL = Duration.create(3600, 0);
+
+  @Param({"100", "10000"})
+  int timeSeries;
+
+  private PrometheusScraper scraper;
+  private IntervalMetricReader intervalMetricReader;
+  private final CountingMetricExporter metricExporter = new CountingMetricExporter();
+
+  @Setup
+  public void setup() throws IOException {
+    ExporterBenchmarksUtil.addTimeSeries(timeSeries);
+    scraper = new PrometheusScraper();
+    intervalMetricReader =
+        IntervalMetricReader.create(
+            metricExporter,
+            MetricReader.create(
+                MetricReader.Options.builder()
+                    .setMetricProducerManager(
+                        Metrics.getExportComponent().getMetricProducerManager())
+                    .build()),
+            IntervalMetricReader.Options.builder().setExportInterval(EXPORT_INTERVAL).build());
+  }
+
+  @TearDown
+  public void tearDown() {
+    intervalMetricReader.stop();
+    scraper.close();
+  }
+
+  /** Scrapes the Prometheus exporter, and returns the number of samples. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int scrapePrometheus() throws IOException {
+    return scraper.scrape();
+  }
+
+  /** Reads the metrics through an {@code IntervalMetricReader}, and exports them. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long readAndExportNow() {
+    intervalMetricReader.readAndExportNow();
+    return metricExporter.timeSeries.get();
+  }
+
+  /** A {@link MetricExporter} that only counts the time series. */
+  static final class CountingMetricExporter extends MetricExporter {
+    final AtomicLong timeSeries = new AtomicLong();
+    final AtomicLong exports = new AtomicLong();
+
+    @Override
+    public void export(Collection<Metric> metrics) {
+      long count = 0;
+      for (Metric metric : metrics) {
+        count += metric.getTimeSeriesList().size();
+      }
+      timeSeries.addAndGet(count);
+      exports.incrementAndGet();
+    }
+  }
+}
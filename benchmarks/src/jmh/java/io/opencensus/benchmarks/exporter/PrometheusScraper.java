@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import com.google.common.io.ByteStreams;
+import io.opencensus.exporter.stats.prometheus.PrometheusHttpServer;
+import io.opencensus.exporter.stats.prometheus.PrometheusStatsConfiguration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+/**
+ * Stands in for Prometheus: starts a {@link PrometheusHttpServer} and scrapes it, counting the
+ * samples of each scrape.
+ */
+final class PrometheusScraper extends FakeBackend {
+  private final PrometheusHttpServer server;
+  private final URL url;
+
+  PrometheusScraper() throws IOException {
+    server =
+        PrometheusHttpServer.create(
+            PrometheusStatsConfiguration.builder().build(),
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    url = new URL("http://127.0.0.1:" + server.getPort() + "/metrics");
+  }
+
+  /** Scrapes the server once, and returns the number of samples. */
+  int scrape() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    byte[] body;
+    InputStream inputStream = connection.getInputStream();
+    try {
+      body = ByteStreams.toByteArray(inputStream);
+    } finally {
+      inputStream.close();
+    }
+    int samples = countSamples(body);
+    recordRequest(samples, body.length);
+    return samples;
+  }
+
+  @Override
+  public void close() {
+    server.close();
+  }
+
+  // Counts the lines that are not comments.
+  private static int countSamples(byte[] body) {
+    int samples = 0;
+    boolean lineStart = true;
+    for (byte b : body) {
+      if (lineStart && b != '#' && b != '\n') {
+        samples++;
+      }
+      lineStart = b == '\n';
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.opencensus.exporter.trace.elasticsearch.ElasticsearchTraceConfiguration;
+import io.opencensus.exporter.trace.elasticsearch.ElasticsearchTraceExporter;
+import io.opencensus.exporter.trace.jaeger.JaegerExporterConfiguration;
+import io.opencensus.exporter.trace.jaeger.JaegerTraceExporter;
+import io.opencensus.exporter.trace.ocagent.OcAgentTraceExporter;
+import io.opencensus.exporter.trace.ocagent.OcAgentTraceExporterConfiguration;
+import io.opencensus.exporter.trace.zipkin.ZipkinExporterConfiguration;
+import io.opencensus.exporter.trace.zipkin.ZipkinTraceExporter;
+import java.io.IOException;
+
+/**
+ * The trace exporters that can be benchmarked, each with the stand-in for its backend.
+ *
+ * <p>{@link #start} registers the exporter to the global {@code SpanExporter}, so sampled spans go
+ * through the export worker of the implementation and the exporter to the stand-in backend.
+ */
+enum TraceBackend {
+  ZIPKIN("zipkin") {
+    @Override
+    FakeBackend start(long latencyMillis) throws IOException {
+      FakeHttpCollector collector =
+          new FakeHttpCollector(FakeHttpCollector.Format.ZIPKIN_JSON_V2, latencyMillis);
+      ZipkinTraceExporter.createAndRegister(
+          ZipkinExporterConfiguration.builder()
+              .setServiceName(SERVICE_NAME)
+              .setV2Url(collector.getUrl())
+              .build());
+      return collector;
+    }
+
+    @Override
+    void unregister() {
+      ZipkinTraceExporter.unregister();
+    }
+  },
+  JAEGER_HTTP("jaeger-http") {
+    @Override
+    FakeBackend start(long latencyMillis) throws IOException {
+      FakeHttpCollector collector =
+          new FakeHttpCollector(FakeHttpCollector.Format.JAEGER_THRIFT, latencyMillis);
+      JaegerTraceExporter.createAndRegister(
+          JaegerExporterConfiguration.builder()
+              .setServiceName(SERVICE_NAME)
+              .setThriftEndpoint(collector.getUrl())
+              .build());
+      return collector;
+    }
+
+    @Override
+    void unregister() {
+      JaegerTraceExporter.unregister();
+    }
+  },
+  JAEGER_UDP("jaeger-udp") {
+    @Override
+    FakeBackend start(long latencyMillis) throws IOException {
+      FakeJaegerAgent agent = new FakeJaegerAgent();
+      JaegerTraceExporter.createAndRegister(
+          JaegerExporterConfiguration.builder()
+              .setServiceName(SERVICE_NAME)
+              .setAgentEndpoint(agent.getEndpoint())
+              .build());
+      return agent;
+    }
+
+    @Override
+    void unregister() {
+      JaegerTraceExporter.unregister();
+    }
+  },
+  ELASTICSEARCH("elasticsearch") {
+    @Override
+    FakeBackend start(long latencyMillis) throws IOException {
+      FakeHttpCollector collector =
+          new FakeHttpCollector(FakeHttpCollector.Format.ELASTICSEARCH_BULK, latencyMillis);
+      ElasticsearchTraceExporter.createAndRegister(
+          ElasticsearchTraceConfiguration.builder()
+              .setAppName(SERVICE_NAME)
+              .setElasticsearchUrl(collector.getBaseUrl())
+              .setElasticsearchIndex("opencensus")
+              .setElasticsearchType("trace")
+              .build());
+      return collector;
+    }
+
+    @Override
+    void unregister() {
+      ElasticsearchTraceExporter.unregister();
+    }
+  },
+  OCAGENT("ocagent") {
+    @Override
+    FakeBackend start(long latencyMillis) throws IOException {
+      FakeOcAgent agent = new FakeOcAgent();
+      OcAgentTraceExporter.createAndRegister(
+          OcAgentTraceExporterConfiguration.builder()
+              .setServiceName(SERVICE_NAME)
+              .setEndPoint(agent.getEndpoint())
+              .setUseInsecure(true)
+              .setEnableConfig(false)
+              .build());
+      return agent;
+    }
+
+    @Override
+    void unregister() {
+      OcAgentTraceExporter.unregister();
+    }
+  };
+
+  private static final String SERVICE_NAME = "opencensus-benchmark";
+
+  private final String name;
+
+  TraceBackend(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Starts the stand-in backend and registers the exporter to it.
+   *
+   * @param latencyMillis the time the backend takes to handle each request, ignored by the backends
+   *     that do not reply.
+   * @return the started backend.
+   */
+  abstract FakeBackend start(long latencyMillis) throws IOException;
+
+  /** Unregisters the exporter, the backend is closed separately. */
+  abstract void unregister();
+
+  /** Returns the backend with the given name, as used in the benchmark parameters. */
+  static TraceBackend fromName(String name) {
+    for (TraceBackend backend : values()) {
+      if (backend.name.equals(name)) {
+        return backend;
+      }
+    }
+    throw new IllegalArgumentException("Unknown trace backend: " + name);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
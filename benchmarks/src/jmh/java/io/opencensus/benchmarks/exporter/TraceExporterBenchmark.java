@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.exporter;
+
+import io.opencensus.trace.Span;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks sampled spans exported through each trace exporter to a stand-in backend.
+ *
+ * <p>The score is the rate at which spans are ended. The rate at which the backend received them,
+ * the bytes per span and the spans dropped by the export worker are printed when the trial ends.
+ * Run with {@code -prof gc} to also measure the allocations per span.
+ */
+@State(Scope.Benchmark)
+public class TraceExporterBenchmark {
+  @Param({"zipkin", "jaeger-http", "jaeger-udp", "elasticsearch", "ocagent"})
+  String backend;
+
+  @Param({"0"})
+  long latencyMillis;
+
+  private TraceBackend traceBackend;
+  private FakeBackend fakeBackend;
+  private long startNanos;
+  private long droppedSpansAtStart;
+
+  @Setup
+  public void setup() throws IOException {
+    traceBackend = TraceBackend.fromName(backend);
+    fakeBackend = traceBackend.start(latencyMillis);
+    droppedSpansAtStart = ExporterBenchmarksUtil.getDroppedSpans();
+    startNanos = System.nanoTime();
+  }
+
+  @TearDown
+  public void tearDown() {
+    double seconds = (System.nanoTime() - startNanos) / 1e9;
+    long spans = fakeBackend.getItems();
+    System.out.printf(
+        "%n%s: received %d spans (%.1f spans/s) in %d requests, %.1f bytes/span, "
+            + "%d spans dropped, %d requests failed%n",
+        traceBackend,
+        spans,
+        spans / seconds,
+        fakeBackend.getRequests(),
+        spans == 0 ? 0.0 : (double) fakeBackend.getBytes() / spans,
+        ExporterBenchmarksUtil.getDroppedSpans() - droppedSpansAtStart,
+        fakeBackend.getErrors());
+    traceBackend.unregister();
+    fakeBackend.close();
+  }
+
+  /** Ends a sampled span, which is then exported to the backend. */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public Span endSampledSpan() {
+    return ExporterBenchmarksUtil.recordSpan();
+  }
+}
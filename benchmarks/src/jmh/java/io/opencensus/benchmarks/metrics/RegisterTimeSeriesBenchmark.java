@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.metrics;
+
+import io.opencensus.common.ToLongFunction;
+import io.opencensus.impl.metrics.MetricsComponentImpl;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongCumulative;
+import io.opencensus.metrics.LongGauge;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.metrics.MetricsComponent;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for registering time series in the {@link MetricRegistry}. Each operation registers
+ * {@code numTimeSeries} time series in a new metric.
+ */
+public class RegisterTimeSeriesBenchmark {
+  private static final MetricOptions METRIC_OPTIONS =
+      MetricOptions.builder()
+          .setDescription("description")
+          .setUnit("1")
+          .setLabelKeys(Collections.singletonList(LabelKey.create("key", "description")))
+          .build();
+  private static final ToLongFunction<Object> LONG_FUNCTION =
+      new ToLongFunction<Object>() {
+        @Override
+        public long applyAsLong(Object value) {
+          return 1;
+        }
+      };
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class Data {
+    @Param({"1", "10", "100", "1000", "10000", "100000"})
+    int numTimeSeries;
+
+    private List<List<LabelValue>> labelValues;
+    private MetricsComponent metricsComponent;
+    private MetricRegistry metricRegistry;
+
+    @Setup
+    public void setup() {
+      labelValues = new ArrayList<List<LabelValue>>(numTimeSeries);
+      for (int i = 0; i < numTimeSeries; i++) {
+        labelValues.add(Collections.singletonList(LabelValue.create("value" + i)));
+      }
+    }
+
+    // A new registry for each operation, so that the metric names can be reused.
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+      metricsComponent = new MetricsComponentImpl();
+      metricRegistry = metricsComponent.getMetricRegistry();
+    }
+  }
+
+  /** Registers the time series in a {@link LongGauge}. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public LongGauge registerLongGauge(Data data) {
+    LongGauge longGauge = data.metricRegistry.addLongGauge("gauge", METRIC_OPTIONS);
+    for (List<LabelValue> labelValues : data.labelValues) {
+      longGauge.getOrCreateTimeSeries(labelValues);
+    }
+    return longGauge;
+  }
+
+  /** Registers the time series in a {@link LongCumulative}. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public LongCumulative registerLongCumulative(Data data) {
+    LongCumulative longCumulative =
+        data.metricRegistry.addLongCumulative("cumulative", METRIC_OPTIONS);
+    for (List<LabelValue> labelValues : data.labelValues) {
+      longCumulative.getOrCreateTimeSeries(labelValues);
+    }
+    return longCumulative;
+  }
+
+  /** Registers the time series in a {@link DerivedLongGauge}. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public DerivedLongGauge registerDerivedLongGauge(Data data) {
+    DerivedLongGauge derivedLongGauge =
+        data.metricRegistry.addDerivedLongGauge("derived_gauge", METRIC_OPTIONS);
+    for (List<LabelValue> labelValues : data.labelValues) {
+      derivedLongGauge.createTimeSeries(labelValues, null, LONG_FUNCTION);
+    }
+    return derivedLongGauge;
+  }
+
+  /** Registers the time series in a {@link LongGauge}, then reads them for the export. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Metric> registerAndExportLongGauge(Data data) {
+    registerLongGauge(data);
+    List<Metric> metrics = new ArrayList<Metric>();
+    for (MetricProducer metricProducer :
+        data.metricsComponent
+            .getExportComponent()
+            .getMetricProducerManager()
+            .getAllMetricProducer()) {
+      metrics.addAll(metricProducer.getMetrics());
+    }
+    return metrics;
+  }
+}
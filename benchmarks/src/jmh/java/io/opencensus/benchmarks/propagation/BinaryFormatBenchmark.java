@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.propagation;
+
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.Tracing;
+import io.opencensus.trace.propagation.BinaryFormat;
+import io.opencensus.trace.propagation.SpanContextParseException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for the {@link BinaryFormat} implementation. */
+public class BinaryFormatBenchmark {
+  @State(Scope.Thread)
+  public static class Data {
+    private BinaryFormat binaryFormat;
+    private SpanContext spanContext;
+    private byte[] bytes;
+    private byte[] truncatedBytes;
+    private byte[] unknownVersionBytes;
+
+    @Setup
+    public void setup() {
+      binaryFormat = Tracing.getPropagationComponent().getBinaryFormat();
+      spanContext = PropagationBenchmarksUtil.createSpanContext(0);
+      bytes = binaryFormat.toByteArray(spanContext);
+      truncatedBytes = Arrays.copyOf(bytes, bytes.length / 2);
+      unknownVersionBytes = Arrays.copyOf(bytes, bytes.length);
+      unknownVersionBytes[0] = 66;
+    }
+  }
+
+  /** Serialize a span context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public byte[] toByteArray(Data data) {
+    return data.binaryFormat.toByteArray(data.spanContext);
+  }
+
+  /** Deserialize a span context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public SpanContext fromByteArray(Data data) throws SpanContextParseException {
+    return data.binaryFormat.fromByteArray(data.bytes);
+  }
+
+  /** Deserialize a span context that was truncated in the middle of the trace id. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Nullable
+  public Object fromByteArrayTruncated(Data data) {
+    try {
+      return data.binaryFormat.fromByteArray(data.truncatedBytes);
+    } catch (SpanContextParseException e) {
+      return e;
+    }
+  }
+
+  /** Deserialize a span context with an unsupported version. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Nullable
+  public Object fromByteArrayUnknownVersion(Data data) {
+    try {
+      return data.binaryFormat.fromByteArray(data.unknownVersionBytes);
+    } catch (SpanContextParseException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.propagation;
+
+import io.opencensus.benchmarks.tags.TagsBenchmarksUtil;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.Tags;
+import io.opencensus.tags.propagation.TagContextDeserializationException;
+import io.opencensus.tags.propagation.TagContextSerializationException;
+import io.opencensus.tags.propagation.TagContextTextFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for the W3C correlation context {@link TagContextTextFormat}. */
+public class CorrelationContextFormatBenchmark {
+  @State(Scope.Thread)
+  public static class Data {
+    @Param({"0", "1", "8", "16"})
+    int numTags;
+
+    private TagContextTextFormat textFormat;
+    private TagContext tagContext;
+    private Map<String, String> carrier;
+    private Map<String, String> headers;
+    private Map<String, String> malformedHeaders;
+
+    @Setup
+    public void setup() throws TagContextSerializationException {
+      textFormat = Tags.getTagPropagationComponent().getCorrelationContextFormat();
+      tagContext = TagsBenchmarksUtil.createTagContext(Tags.getTagger().emptyBuilder(), numTags);
+      carrier = PropagationBenchmarksUtil.createBackgroundHeaders();
+      headers = PropagationBenchmarksUtil.createBackgroundHeaders();
+      textFormat.inject(tagContext, headers, PropagationBenchmarksUtil.TAG_CONTEXT_SETTER);
+      // A tag without the key-value delimiter fails to parse regardless of numTags.
+      malformedHeaders = PropagationBenchmarksUtil.createBackgroundHeaders();
+      malformedHeaders.put(textFormat.fields().get(0), "key-without-value");
+    }
+  }
+
+  /** Inject a tag context with 'numTags' tags. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Map<String, String> inject(Data data) throws TagContextSerializationException {
+    data.textFormat.inject(
+        data.tagContext, data.carrier, PropagationBenchmarksUtil.TAG_CONTEXT_SETTER);
+    return data.carrier;
+  }
+
+  /** Extract a tag context with 'numTags' tags. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext extract(Data data) throws TagContextDeserializationException {
+    return data.textFormat.extract(data.headers, PropagationBenchmarksUtil.TAG_CONTEXT_GETTER);
+  }
+
+  /** Extract a tag context from a malformed header. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Nullable
+  public Object extractMalformed(Data data) {
+    try {
+      return data.textFormat.extract(
+          data.malformedHeaders, PropagationBenchmarksUtil.TAG_CONTEXT_GETTER);
+    } catch (TagContextDeserializationException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.propagation;
+
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.propagation.SpanContextParseException;
+import io.opencensus.trace.propagation.TextFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the {@link TextFormat} implementations: B3, TraceContext and CloudTrace.
+ *
+ * <p>Run with {@code -prof gc} to also report the allocation rate per operation.
+ */
+public class TextFormatBenchmark {
+  @State(Scope.Thread)
+  public static class Data {
+    @Param({"b3", "tracecontext", "cloudtrace"})
+    String format;
+
+    private TextFormat textFormat;
+    private SpanContext spanContext;
+    private Map<String, String> backgroundHeaders;
+    private Map<String, String> headers;
+    private Map<String, String> malformedHeaders;
+
+    @Setup
+    public void setup() {
+      textFormat = PropagationBenchmarksUtil.getTextFormat(format);
+      spanContext = PropagationBenchmarksUtil.createSpanContext(0);
+      backgroundHeaders = PropagationBenchmarksUtil.createBackgroundHeaders();
+      headers = PropagationBenchmarksUtil.createBackgroundHeaders();
+      textFormat.inject(spanContext, headers, PropagationBenchmarksUtil.TEXT_FORMAT_SETTER);
+      malformedHeaders =
+          PropagationBenchmarksUtil.createMalformedHeaders(headers, textFormat.fields());
+    }
+  }
+
+  /** Inject a span context into a carrier that already contains the usual request headers. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Map<String, String> inject(Data data) {
+    // Overwrites the same keys on every invocation, so the carrier does not grow.
+    data.textFormat.inject(
+        data.spanContext, data.backgroundHeaders, PropagationBenchmarksUtil.TEXT_FORMAT_SETTER);
+    return data.backgroundHeaders;
+  }
+
+  /** Extract a span context from a well-formed carrier. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public SpanContext extract(Data data) throws SpanContextParseException {
+    return data.textFormat.extract(data.headers, PropagationBenchmarksUtil.TEXT_FORMAT_GETTER);
+  }
+
+  /** Extract a span context from a carrier where every propagated field is malformed. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Nullable
+  public Object extractMalformed(Data data) {
+    try {
+      return data.textFormat.extract(
+          data.malformedHeaders, PropagationBenchmarksUtil.TEXT_FORMAT_GETTER);
+    } catch (SpanContextParseException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.propagation;
+
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.propagation.SpanContextParseException;
+import io.opencensus.trace.propagation.TextFormat;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the "tracestate" handling of the TraceContext {@link TextFormat}, which is the
+ * only part of text propagation whose cost grows with the input.
+ */
+public class TracestateBenchmark {
+  private static final String TRACESTATE = "tracestate";
+
+  @State(Scope.Thread)
+  public static class Data {
+    // 32 is the maximum number of list-members allowed by the W3C specification.
+    @Param({"1", "8", "32"})
+    int numEntries;
+
+    private TextFormat textFormat;
+    private SpanContext spanContext;
+    private Map<String, String> carrier;
+    private Map<String, String> headers;
+    private Map<String, String> malformedHeaders;
+
+    @Setup
+    public void setup() {
+      textFormat = PropagationBenchmarksUtil.getTextFormat("tracecontext");
+      spanContext = PropagationBenchmarksUtil.createSpanContext(numEntries);
+      carrier = PropagationBenchmarksUtil.createBackgroundHeaders();
+      headers = PropagationBenchmarksUtil.createBackgroundHeaders();
+      textFormat.inject(spanContext, headers, PropagationBenchmarksUtil.TEXT_FORMAT_SETTER);
+      // Keep a valid traceparent so that parsing fails in the tracestate list-members.
+      malformedHeaders =
+          PropagationBenchmarksUtil.createMalformedHeaders(
+              headers, Collections.singletonList(TRACESTATE));
+    }
+  }
+
+  /** Inject a span context with 'numEntries' tracestate entries. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Map<String, String> inject(Data data) {
+    data.textFormat.inject(
+        data.spanContext, data.carrier, PropagationBenchmarksUtil.TEXT_FORMAT_SETTER);
+    return data.carrier;
+  }
+
+  /** Extract a span context with 'numEntries' tracestate entries. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public SpanContext extract(Data data) throws SpanContextParseException {
+    return data.textFormat.extract(data.headers, PropagationBenchmarksUtil.TEXT_FORMAT_GETTER);
+  }
+
+  /** Extract a span context whose tracestate header is malformed. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Nullable
+  public Object extractMalformed(Data data) {
+    try {
+      return data.textFormat.extract(
+          data.malformedHeaders, PropagationBenchmarksUtil.TEXT_FORMAT_GETTER);
+    } catch (SpanContextParseException e) {
+      return e;
+    }
+  }
+}
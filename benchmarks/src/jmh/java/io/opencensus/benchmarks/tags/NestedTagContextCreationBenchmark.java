@@ -34,6 +34,7 @@ public class NestedTagContextCreationBenchmark {
   public static class Data {
     private Tagger tagger;
     private TagContext baseTagContext;
+    private TagContext expectedTagContext;
 
     @Param({"impl", "impl-lite"})
     String implementation;
@@ -48,6 +49,8 @@ public class NestedTagContextCreationBenchmark {
     public void setup() {
       tagger = TagsBenchmarksUtil.getTagger(implementation);
       baseTagContext = TagsBenchmarksUtil.createTagContext(tagger.emptyBuilder(), numBaseTags);
+      expectedTagContext =
+          TagsBenchmarksUtil.createTagContext(tagger.toBuilder(baseTagContext), numTags);
     }
   }
 
@@ -59,4 +62,14 @@ public class NestedTagContextCreationBenchmark {
     return TagsBenchmarksUtil.createTagContext(
         data.tagger.toBuilder(data.baseTagContext), data.numTags);
   }
+
+  /** Build nested tag context and compare it to an equal tag context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean timeNestedTagContextEquals(Data data) {
+    return TagsBenchmarksUtil.createTagContext(
+            data.tagger.toBuilder(data.baseTagContext), data.numTags)
+        .equals(data.expectedTagContext);
+  }
 }
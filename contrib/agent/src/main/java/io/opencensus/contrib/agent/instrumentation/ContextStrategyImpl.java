@@ -20,12 +20,17 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import io.grpc.Context;
+import io.opencensus.common.ContextStorage;
+import io.opencensus.common.Scope;
 import io.opencensus.contrib.agent.bootstrap.ContextStrategy;
+import io.opencensus.tags.TagContext;
+import io.opencensus.trace.Span;
 import java.lang.ref.WeakReference;
+import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link ContextStrategy} for accessing and manipulating the {@link
- * io.grpc.Context}.
+ * io.grpc.Context}, and the current span and tag context of the selected {@link ContextStorage}.
  */
 final class ContextStrategyImpl implements ContextStrategy {
 
@@ -50,29 +55,86 @@ final class ContextStrategyImpl implements ContextStrategy {
    * <p>NB: Using thread IDs as keys was considered: It's unclear how to safely detect and cleanup
    * otherwise unreferenced threads IDs from the map.
    */
-  private final Cache<Thread, Context> savedContexts = CacheBuilder.newBuilder().weakKeys().build();
+  private final Cache<Thread, SavedContext> savedContexts =
+      CacheBuilder.newBuilder().weakKeys().build();
 
   @Override
-  public Runnable wrapInCurrentContext(Runnable runnable) {
-    return Context.current().wrap(runnable);
+  public Runnable wrapInCurrentContext(final Runnable runnable) {
+    final SlotValues slotValues = new SlotValues();
+    return Context.current()
+        .wrap(
+            new Runnable() {
+              @Override
+              public void run() {
+                Scope scope = slotValues.attach();
+                try {
+                  runnable.run();
+                } finally {
+                  scope.close();
+                }
+              }
+            });
   }
 
   @Override
   public void saveContextForThread(Thread thread) {
-    savedContexts.put(thread, Context.current());
+    savedContexts.put(thread, new SavedContext(Context.current(), new SlotValues()));
   }
 
   @Override
   public void attachContextForThread(Thread thread) {
     if (Thread.currentThread() == thread) {
-      Context context = savedContexts.getIfPresent(thread);
-      if (context != null) {
+      SavedContext savedContext = savedContexts.getIfPresent(thread);
+      if (savedContext != null) {
         savedContexts.invalidate(thread);
         // Work around findbugs warning. Context.attach() is marked as @CheckReturnValue so we need
-        // to check the return
-        // value here, otherwise findbugs will fail.
-        Preconditions.checkNotNull(context.attach(), "context.attach()");
+        // to check the return value here, otherwise findbugs will fail.
+        Preconditions.checkNotNull(savedContext.context.attach(), "context.attach()");
+        Preconditions.checkNotNull(savedContext.slotValues.attach(), "slotValues.attach()");
       }
     }
   }
+
+  private static final class SavedContext {
+    private final Context context;
+    private final SlotValues slotValues;
+
+    private SavedContext(Context context, SlotValues slotValues) {
+      this.context = context;
+      this.slotValues = slotValues;
+    }
+  }
+
+  /**
+   * The current span and tag context, which are not stored in the {@link io.grpc.Context} when
+   * another {@link ContextStorage} is selected.
+   */
+  private static final class SlotValues {
+    private static final ContextStorage.Slot<Span> spanSlot =
+        io.opencensus.trace.unsafe.ContextUtils.getCurrentSpanSlot();
+    private static final ContextStorage.Slot<TagContext> tagContextSlot =
+        io.opencensus.tags.unsafe.ContextUtils.getCurrentTagContextSlot();
+
+    @Nullable private final Span span = spanSlot.get();
+    @Nullable private final TagContext tagContext = tagContextSlot.get();
+
+    // Attaches the values that the io.grpc.Context attached before didn't restore, and returns the
+    // Scope that restores the previous values.
+    private Scope attach() {
+      final Scope spanScope = spanSlot.get() == span ? null : spanSlot.attach(span);
+      final Scope tagContextScope =
+          tagContextSlot.get() == tagContext ? null : tagContextSlot.attach(tagContext);
+      return new Scope() {
+        @Override
+        public void close() {
+          if (tagContextScope != null) {
+            tagContextScope.close();
+          }
+          if (spanScope != null) {
+            spanScope.close();
+          }
+        }
+      };
+    }
+  }
 }
@@ -16,7 +16,6 @@
 
 package io.opencensus.contrib.logcorrelation.log4j2;
 
-import io.grpc.Context;
 import io.opencensus.trace.Span;
 import io.opencensus.trace.SpanContext;
 import io.opencensus.trace.unsafe.ContextUtils;
@@ -81,7 +80,7 @@ final class ContextDataUtils {
   }
 
   private static SpanContext getCurrentSpanContext() {
-    Span span = ContextUtils.getValue(Context.current());
+    Span span = ContextUtils.getCurrentValue();
     return span == null ? SpanContext.INVALID : span.getContext();
   }
 }
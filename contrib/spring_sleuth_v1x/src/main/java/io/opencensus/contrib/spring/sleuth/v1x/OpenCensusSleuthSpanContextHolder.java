@@ -16,8 +16,8 @@
 
 package io.opencensus.contrib.spring.sleuth.v1x;
 
-import io.grpc.Context;
 import io.opencensus.common.ExperimentalApi;
+import io.opencensus.common.Scope;
 import io.opencensus.trace.unsafe.ContextUtils;
 import org.apache.commons.logging.Log;
 import org.springframework.cloud.sleuth.Span;
@@ -56,18 +56,20 @@ final class OpenCensusSleuthSpanContextHolder {
     removeCurrentSpanInternal(null);
   }
 
-  @SuppressWarnings("CheckReturnValue")
   @javax.annotation.Nullable
   private static SpanContext removeCurrentSpanInternal(
       @javax.annotation.Nullable SpanContext toRestore) {
+    // Restores the OpenCensus span that was current when toRestore was the current span, by
+    // closing the scopes of the spans pushed after it, newest first.
+    SpanContext current = CURRENT_SPAN.get();
+    while (current != null && current != toRestore) {
+      current.ocScope.close();
+      current = current.parent;
+    }
     if (toRestore != null) {
-      setSpanContextInternal(toRestore);
+      CURRENT_SPAN.set(toRestore);
     } else {
       CURRENT_SPAN.remove();
-      // This is a big hack and can cause other data in the io.grpc.Context to be lost. But
-      // Spring 1.5 does not use io.grpc.Context and because the framework does not accept any
-      // gRPC context, the context will always be ROOT anyway.
-      Context.ROOT.attach();
     }
     return toRestore;
   }
@@ -104,7 +106,8 @@ final class OpenCensusSleuthSpanContextHolder {
     if (isCurrent(span)) {
       return;
     }
-    setSpanContextInternal(new SpanContext(span, autoClose));
+    SpanContext spanContext = new SpanContext(span, autoClose);
+    CURRENT_SPAN.set(spanContext);
   }
 
   interface SpanFunction {
@@ -117,12 +120,6 @@ final class OpenCensusSleuthSpanContextHolder {
         public void apply(Span span) {}
       };
 
-  @SuppressWarnings("CheckReturnValue")
-  private static void setSpanContextInternal(SpanContext spanContext) {
-    CURRENT_SPAN.set(spanContext);
-    spanContext.ocCurrentContext.attach();
-  }
-
   private static boolean isCurrent(Span span) {
     if (span == null) {
       return false;
@@ -136,14 +133,15 @@ final class OpenCensusSleuthSpanContextHolder {
     final boolean autoClose;
     @javax.annotation.Nullable final SpanContext parent;
     final OpenCensusSleuthSpan ocSpan;
-    final Context ocCurrentContext;
+    // Restores the previous OpenCensus span when this span stops being current.
+    final Scope ocScope;
 
     private SpanContext(Span span, boolean autoClose) {
       this.span = span;
       this.autoClose = autoClose;
       this.parent = CURRENT_SPAN.get();
       this.ocSpan = new OpenCensusSleuthSpan(span);
-      this.ocCurrentContext = ContextUtils.withValue(Context.current(), this.ocSpan);
+      this.ocScope = ContextUtils.getCurrentSpanSlot().attach(this.ocSpan);
     }
   }
 
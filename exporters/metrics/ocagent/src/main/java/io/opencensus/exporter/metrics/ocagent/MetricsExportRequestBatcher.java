@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.metrics.ocagent;
+
+import com.google.common.base.Objects;
+import com.google.protobuf.CodedOutputStream;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.opencensus.proto.agent.metrics.v1.ExportMetricsServiceRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Converts {@link Metric}s to {@link ExportMetricsServiceRequest}s for one export stream.
+ *
+ * <ul>
+ *   <li>The full {@link MetricDescriptor} is sent with every metric, and once for a metric that has
+ *       no time series yet. If {@code sendMetricDescriptorsOnce} is set, it is only sent the first
+ *       time a metric is exported on the stream and afterwards the descriptor only has the name of
+ *       the metric. The receiver must then remember the descriptors of the stream.
+ *   <li>A time series is only sent if its last point has a different value or start timestamp than
+ *       the last time it was sent, or if it was skipped for {@code maxSkippedExports} exports.
+ *   <li>The metrics are split in as many requests as needed to keep each request under {@code
+ *       maxRequestBytes}, unless a single time series is larger than that.
+ * </ul>
+ *
+ * <p>{@link #reset()} must be called when a new stream is started.
+ */
+@NotThreadSafe
+final class MetricsExportRequestBatcher {
+
+  // Field numbers of ExportMetricsServiceRequest.metrics, Metric.metric_descriptor and
+  // Metric.timeseries.
+  private static final int REQUEST_METRICS_FIELD_NUMBER = 2;
+  private static final int METRIC_DESCRIPTOR_FIELD_NUMBER = 1;
+  private static final int METRIC_TIMESERIES_FIELD_NUMBER = 2;
+
+  private final int maxRequestBytes;
+  private final int maxSkippedExports;
+  private final boolean sendMetricDescriptorsOnce;
+
+  // The state of the metrics exported on the current stream, by metric name.
+  private final Map<String, MetricState> metricStates = new HashMap<String, MetricState>();
+  private long generation;
+
+  // The requests being built by createRequests.
+  private final List<ExportMetricsServiceRequest> requests =
+      new ArrayList<ExportMetricsServiceRequest>();
+  @Nullable private ExportMetricsServiceRequest.Builder requestBuilder;
+  private int requestBytes;
+
+  MetricsExportRequestBatcher(
+      int maxRequestBytes, int maxSkippedExports, boolean sendMetricDescriptorsOnce) {
+    this.maxRequestBytes = maxRequestBytes;
+    this.maxSkippedExports = maxSkippedExports;
+    this.sendMetricDescriptorsOnce = sendMetricDescriptorsOnce;
+  }
+
+  /** Forgets what was sent, so that the next requests contain all the descriptors and series. */
+  void reset() {
+    metricStates.clear();
+  }
+
+  /**
+   * Returns the requests to send for the current metrics. The list is empty if nothing changed
+   * since the last export.
+   *
+   * @param metrics all the current metrics.
+   * @return the requests to send.
+   */
+  List<ExportMetricsServiceRequest> createRequests(Collection<Metric> metrics) {
+    long currentGeneration = ++generation;
+    try {
+      for (Metric metric : metrics) {
+        addMetric(metric, currentGeneration);
+      }
+      flushRequest();
+      return new ArrayList<ExportMetricsServiceRequest>(requests);
+    } finally {
+      requests.clear();
+      requestBuilder = null;
+      requestBytes = 0;
+      // Forget the metrics and series that are gone, so they are sent again if they come back.
+      for (Iterator<MetricState> i = metricStates.values().iterator(); i.hasNext(); ) {
+        MetricState metricState = i.next();
+        if (metricState.generation != currentGeneration) {
+          i.remove();
+        } else {
+          metricState.removeStaleSeries(currentGeneration);
+        }
+      }
+    }
+  }
+
+  private void addMetric(Metric metric, long currentGeneration) {
+    MetricDescriptor metricDescriptor = metric.getMetricDescriptor();
+    MetricState metricState = metricStates.get(metricDescriptor.getName());
+    if (metricState == null || !metricState.metricDescriptor.equals(metricDescriptor)) {
+      // New metric, or the descriptor changed: send the full descriptor again.
+      metricState = new MetricState(metricDescriptor);
+      metricStates.put(metricDescriptor.getName(), metricState);
+    }
+    metricState.generation = currentGeneration;
+
+    io.opencensus.proto.metrics.v1.Metric.Builder metricBuilder = null;
+    int metricBytes = 0;
+    for (TimeSeries timeSeries : metric.getTimeSeriesList()) {
+      if (!metricState.shouldExport(timeSeries, currentGeneration, maxSkippedExports)) {
+        continue;
+      }
+      io.opencensus.proto.metrics.v1.TimeSeries timeSeriesProto =
+          MetricsProtoUtils.toTimeSeriesProto(timeSeries);
+      int timeSeriesBytes =
+          fieldSize(METRIC_TIMESERIES_FIELD_NUMBER, timeSeriesProto.getSerializedSize());
+      if (metricBuilder != null
+          && requestBytes + fieldSize(REQUEST_METRICS_FIELD_NUMBER, metricBytes + timeSeriesBytes)
+              > maxRequestBytes) {
+        // Continue the metric in the next request.
+        addToRequest(metricBuilder.build(), metricBytes);
+        flushRequest();
+        metricBuilder = null;
+      }
+      if (metricBuilder == null) {
+        io.opencensus.proto.metrics.v1.MetricDescriptor descriptorProto =
+            sendMetricDescriptorsOnce && metricState.descriptorSent
+                ? io.opencensus.proto.metrics.v1.MetricDescriptor.newBuilder()
+                    .setName(metricDescriptor.getName())
+                    .build()
+                : metricState.getDescriptorProto();
+        metricState.descriptorSent = true;
+        metricBuilder =
+            io.opencensus.proto.metrics.v1.Metric.newBuilder().setMetricDescriptor(descriptorProto);
+        metricBytes =
+            fieldSize(METRIC_DESCRIPTOR_FIELD_NUMBER, descriptorProto.getSerializedSize());
+        if (requestBytes > 0
+            && requestBytes + fieldSize(REQUEST_METRICS_FIELD_NUMBER, metricBytes + timeSeriesBytes)
+                > maxRequestBytes) {
+          flushRequest();
+        }
+      }
+      metricBuilder.addTimeseries(timeSeriesProto);
+      metricBytes += timeSeriesBytes;
+    }
+    if (metricBuilder != null) {
+      addToRequest(metricBuilder.build(), metricBytes);
+    } else if (!metricState.descriptorSent) {
+      // Registers the descriptor of a metric that has no data yet.
+      io.opencensus.proto.metrics.v1.MetricDescriptor descriptorProto =
+          metricState.getDescriptorProto();
+      metricState.descriptorSent = true;
+      metricBytes = fieldSize(METRIC_DESCRIPTOR_FIELD_NUMBER, descriptorProto.getSerializedSize());
+      if (requestBytes > 0
+          && requestBytes + fieldSize(REQUEST_METRICS_FIELD_NUMBER, metricBytes)
+              > maxRequestBytes) {
+        flushRequest();
+      }
+      addToRequest(
+          io.opencensus.proto.metrics.v1.Metric.newBuilder()
+              .setMetricDescriptor(descriptorProto)
+              .build(),
+          metricBytes);
+    }
+  }
+
+  private void addToRequest(io.opencensus.proto.metrics.v1.Metric metricProto, int metricBytes) {
+    if (requestBuilder == null) {
+      // For now don't include Resource in the following messages, i.e don't allow Resource to
+      // mutate after the initial message.
+      requestBuilder = ExportMetricsServiceRequest.newBuilder();
+    }
+    requestBuilder.addMetrics(metricProto);
+    requestBytes += fieldSize(REQUEST_METRICS_FIELD_NUMBER, metricBytes);
+  }
+
+  private void flushRequest() {
+    if (requestBuilder != null) {
+      requests.add(requestBuilder.build());
+      requestBuilder = null;
+      requestBytes = 0;
+    }
+  }
+
+  // Returns the size of a length-delimited field with the given number and content size.
+  private static int fieldSize(int fieldNumber, int size) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(size)
+        + size;
+  }
+
+  // What was sent for one metric on the current stream.
+  private static final class MetricState {
+    private final MetricDescriptor metricDescriptor;
+    private final Map<List<LabelValue>, SeriesState> seriesStates =
+        new HashMap<List<LabelValue>, SeriesState>();
+    @Nullable private io.opencensus.proto.metrics.v1.MetricDescriptor descriptorProto;
+    private boolean descriptorSent;
+    private long generation;
+
+    private MetricState(MetricDescriptor metricDescriptor) {
+      this.metricDescriptor = metricDescriptor;
+    }
+
+    // The full descriptor is converted once per stream and reused for every request.
+    private io.opencensus.proto.metrics.v1.MetricDescriptor getDescriptorProto() {
+      if (descriptorProto == null) {
+        descriptorProto = MetricsProtoUtils.toMetricDescriptorProto(metricDescriptor);
+      }
+      return descriptorProto;
+    }
+
+    private boolean shouldExport(
+        TimeSeries timeSeries, long currentGeneration, int maxSkippedExports) {
+      List<Point> points = timeSeries.getPoints();
+      if (points.isEmpty()) {
+        return false;
+      }
+      Value value = points.get(points.size() - 1).getValue();
+      Timestamp startTimestamp = timeSeries.getStartTimestamp();
+      SeriesState seriesState = seriesStates.get(timeSeries.getLabelValues());
+      if (seriesState == null) {
+        seriesState = new SeriesState();
+        seriesStates.put(timeSeries.getLabelValues(), seriesState);
+      } else if (value.equals(seriesState.value)
+          && Objects.equal(seriesState.startTimestamp, startTimestamp)
+          && seriesState.skippedExports < maxSkippedExports) {
+        seriesState.generation = currentGeneration;
+        seriesState.skippedExports++;
+        return false;
+      }
+      seriesState.value = value;
+      seriesState.startTimestamp = startTimestamp;
+      seriesState.skippedExports = 0;
+      seriesState.generation = currentGeneration;
+      return true;
+    }
+
+    private void removeStaleSeries(long currentGeneration) {
+      for (Iterator<SeriesState> i = seriesStates.values().iterator(); i.hasNext(); ) {
+        if (i.next().generation != currentGeneration) {
+          i.remove();
+        }
+      }
+    }
+  }
+
+  private static final class SeriesState {
+    @Nullable private Value value;
+    @Nullable private Timestamp startTimestamp;
+    private int skippedExports;
+    private long generation;
+  }
+}
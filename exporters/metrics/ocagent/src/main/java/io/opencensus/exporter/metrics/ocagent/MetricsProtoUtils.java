@@ -42,8 +42,6 @@ import javax.annotation.Nullable;
 /** Utilities for converting Metrics APIs in OpenCensus Java to OpenCensus Metrics Proto. */
 final class MetricsProtoUtils {
 
-  // TODO(songya): determine if we should make the optimization on not sending already-existed
-  // MetricDescriptors.
   static Metric toMetricProto(
       io.opencensus.metrics.export.Metric metric,
       @Nullable io.opencensus.resource.Resource resource) {
@@ -58,7 +56,7 @@ final class MetricsProtoUtils {
     return builder.build();
   }
 
-  private static MetricDescriptor toMetricDescriptorProto(
+  static MetricDescriptor toMetricDescriptorProto(
       io.opencensus.metrics.export.MetricDescriptor metricDescriptor) {
     MetricDescriptor.Builder builder = MetricDescriptor.newBuilder();
     builder
@@ -109,7 +107,7 @@ final class MetricsProtoUtils {
     return builder.build();
   }
 
-  private static TimeSeries toTimeSeriesProto(io.opencensus.metrics.export.TimeSeries timeSeries) {
+  static TimeSeries toTimeSeriesProto(io.opencensus.metrics.export.TimeSeries timeSeries) {
     TimeSeries.Builder builder = TimeSeries.newBuilder();
     if (timeSeries.getStartTimestamp() != null) {
       builder.setStartTimestamp(toTimestampProto(timeSeries.getStartTimestamp()));
@@ -69,7 +69,8 @@ public final class OcAgentMetricsExporter {
         configuration.getSslContext(),
         configuration.getServiceName(),
         configuration.getExportInterval(),
-        configuration.getRetryInterval());
+        configuration.getRetryInterval(),
+        configuration.getSendMetricDescriptorsOnce());
   }
 
   private static void createInternal(
@@ -78,7 +79,8 @@ public final class OcAgentMetricsExporter {
       @Nullable SslContext sslContext,
       String serviceName,
       Duration exportInterval,
-      Duration retryInterval) {
+      Duration retryInterval,
+      boolean sendMetricDescriptorsOnce) {
     checkArgument(
         useInsecure == (sslContext == null), "Either use insecure or provide a valid SslContext.");
     synchronized (monitor) {
@@ -91,6 +93,7 @@ public final class OcAgentMetricsExporter {
               serviceName,
               exportInterval,
               retryInterval,
+              sendMetricDescriptorsOnce,
               Metrics.getExportComponent().getMetricProducerManager());
       exporter.workerThread.start();
     }
@@ -103,6 +106,7 @@ public final class OcAgentMetricsExporter {
       String serviceName,
       Duration exportInterval,
       Duration retryInterval,
+      boolean sendMetricDescriptorsOnce,
       MetricProducerManager metricProducerManager) {
     OcAgentMetricsExporterWorker worker =
         new OcAgentMetricsExporterWorker(
@@ -112,6 +116,7 @@ public final class OcAgentMetricsExporter {
             exportInterval,
             retryInterval,
             serviceName,
+            sendMetricDescriptorsOnce,
             metricProducerManager);
     workerThread = new Thread(worker);
     workerThread.setDaemon(true);
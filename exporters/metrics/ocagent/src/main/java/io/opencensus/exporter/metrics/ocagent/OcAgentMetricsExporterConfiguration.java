@@ -102,6 +102,19 @@ public abstract class OcAgentMetricsExporterConfiguration {
    */
   public abstract Duration getExportInterval();
 
+  /**
+   * Returns whether the full metric descriptors are only sent the first time a metric is exported
+   * on a stream. Later exports of the metric then only carry the name of the metric in its
+   * descriptor, so this must only be enabled if the Agent remembers the descriptors it received on
+   * each stream.
+   *
+   * <p>Default value is false.
+   *
+   * @return whether the full metric descriptors are only sent once per stream.
+   * @since 0.24
+   */
+  public abstract boolean getSendMetricDescriptorsOnce();
+
   /**
    * Returns a new {@link Builder}.
    *
@@ -114,7 +127,8 @@ public abstract class OcAgentMetricsExporterConfiguration {
         .setServiceName(DEFAULT_SERVICE_NAME)
         .setRetryInterval(DEFAULT_RETRY_INTERVAL)
         .setExportInterval(DEFAULT_EXPORT_INTERVAL)
-        .setUseInsecure(true);
+        .setUseInsecure(true)
+        .setSendMetricDescriptorsOnce(false);
   }
 
   /**
@@ -182,6 +196,17 @@ public abstract class OcAgentMetricsExporterConfiguration {
      */
     public abstract Builder setExportInterval(Duration exportInterval);
 
+    /**
+     * Sets whether the full metric descriptors are only sent the first time a metric is exported on
+     * a stream. Only enable this if the Agent remembers the descriptors of each stream.
+     *
+     * @param sendMetricDescriptorsOnce whether the full metric descriptors are only sent once per
+     *     stream.
+     * @return this.
+     * @since 0.24
+     */
+    public abstract Builder setSendMetricDescriptorsOnce(boolean sendMetricDescriptorsOnce);
+
     // TODO(songya): add an option that controls whether to always keep the RPC connection alive.
 
     abstract Duration getRetryInterval();
@@ -16,21 +16,20 @@
 
 package io.opencensus.exporter.metrics.ocagent;
 
-import com.google.common.collect.Lists;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.netty.NegotiationType;
 import io.grpc.netty.NettyChannelBuilder;
 import io.netty.handler.ssl.SslContext;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.metrics.util.MetricExportRecorder;
+import io.opencensus.exporter.metrics.util.MetricProducerCollector;
 import io.opencensus.metrics.export.Metric;
-import io.opencensus.metrics.export.MetricProducer;
 import io.opencensus.metrics.export.MetricProducerManager;
 import io.opencensus.proto.agent.metrics.v1.ExportMetricsServiceRequest;
 import io.opencensus.proto.agent.metrics.v1.MetricsServiceGrpc;
 import io.opencensus.proto.resource.v1.Resource;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -50,6 +49,12 @@ final class OcAgentMetricsExporterWorker implements Runnable {
   private static final Logger logger =
       Logger.getLogger(OcAgentMetricsExporterWorker.class.getName());
 
+  // Keeps each request well under the default 4 MiB maximum message size of gRPC servers.
+  private static final int MAX_REQUEST_BYTES = 1024 * 1024;
+  // Unchanged time series are still sent every 10 exports, so that they don't go stale in the
+  // backends.
+  private static final int MAX_SKIPPED_EXPORTS = 9;
+
   private final String endPoint;
   private final boolean useInsecure;
   @Nullable private final SslContext sslContext;
@@ -57,8 +62,11 @@ final class OcAgentMetricsExporterWorker implements Runnable {
   private final long retryIntervalMillis;
   private final String serviceName;
   private final MetricProducerManager metricProducerManager;
+  private final MetricProducerCollector metricProducerCollector;
+  private final MetricsExportRequestBatcher requestBatcher;
+  private final MetricExportRecorder exportRecorder =
+      MetricExportRecorder.create(OcAgentMetricsExporter.class.getName());
   private OcAgentMetricsServiceExportRpcHandler exportRpcHandler;
-  // private final Set<MetricDescriptor> registeredDescriptors = new HashSet<>();
 
   OcAgentMetricsExporterWorker(
       String endPoint,
@@ -67,6 +75,7 @@ final class OcAgentMetricsExporterWorker implements Runnable {
       Duration exportInterval,
       Duration retryInterval,
       String serviceName,
+      boolean sendMetricDescriptorsOnce,
       MetricProducerManager metricProducerManager) {
     this.endPoint = endPoint;
     this.useInsecure = useInsecure;
@@ -75,6 +84,11 @@ final class OcAgentMetricsExporterWorker implements Runnable {
     this.retryIntervalMillis = retryInterval.toMillis();
     this.serviceName = serviceName;
     this.metricProducerManager = metricProducerManager;
+    this.requestBatcher =
+        new MetricsExportRequestBatcher(
+            MAX_REQUEST_BYTES, MAX_SKIPPED_EXPORTS, sendMetricDescriptorsOnce);
+    // A slow MetricProducer must not delay the export of the others past the next export.
+    this.metricProducerCollector = MetricProducerCollector.create(exportInterval);
   }
 
   @Override
@@ -107,6 +121,8 @@ final class OcAgentMetricsExporterWorker implements Runnable {
     ManagedChannel channel = channelBuilder.build();
     MetricsServiceGrpc.MetricsServiceStub stub = MetricsServiceGrpc.newStub(channel);
     exportRpcHandler = OcAgentMetricsServiceExportRpcHandler.create(stub);
+    // The new stream doesn't know any MetricDescriptor yet.
+    requestBatcher.reset();
     ExportMetricsServiceRequest.Builder builder =
         ExportMetricsServiceRequest.newBuilder().setNode(OcAgentNodeUtils.getNodeInfo(serviceName));
     @Nullable Resource resourceProto = OcAgentNodeUtils.getAutoDetectedResourceProto();
@@ -117,33 +133,22 @@ final class OcAgentMetricsExporterWorker implements Runnable {
   }
 
   // Polls MetricProducerManager from Metrics library for all registered MetricDescriptors,
-  // converts them to proto, then exports them to OC-Agent.
+  // converts the new and changed time series to proto, then exports them to OC-Agent. The export
+  // failed if the stream was disconnected before all the requests were sent.
   private void export() {
     if (exportRpcHandler == null || exportRpcHandler.isCompleted()) {
       return;
     }
-
-    ArrayList<Metric> metricsList = Lists.newArrayList();
-    for (MetricProducer metricProducer : metricProducerManager.getAllMetricProducer()) {
-      metricsList.addAll(metricProducer.getMetrics());
+    Collection<Metric> metrics =
+        metricProducerCollector.collect(metricProducerManager.getAllMetricProducer());
+    long startNanos = System.nanoTime();
+    for (ExportMetricsServiceRequest request : requestBatcher.createRequests(metrics)) {
+      exportRpcHandler.onExport(request);
     }
-
-    List<io.opencensus.proto.metrics.v1.Metric> metricProtos = Lists.newArrayList();
-    for (Metric metric : metricsList) {
-      // TODO(songya): determine if we should make the optimization on not sending already-existed
-      // MetricDescriptors.
-      // boolean registered = true;
-      // if (!registeredDescriptors.contains(metric.getMetricDescriptor())) {
-      //   registered = false;
-      //   registeredDescriptors.add(metric.getMetricDescriptor());
-      // }
-      metricProtos.add(MetricsProtoUtils.toMetricProto(metric, null));
+    exportRecorder.recordLatency(startNanos);
+    if (exportRpcHandler.isCompleted()) {
+      exportRecorder.recordFailure();
     }
-
-    exportRpcHandler.onExport(
-        // For now don't include Resource in the following messages, i.e don't allow Resource to
-        // mutate after the initial message.
-        ExportMetricsServiceRequest.newBuilder().addAllMetrics(metricProtos).build());
   }
 
   private static void sleep(long timeInMillis) {
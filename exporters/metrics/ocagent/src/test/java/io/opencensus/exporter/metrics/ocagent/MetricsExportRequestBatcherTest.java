@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.metrics.ocagent;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.opencensus.proto.agent.metrics.v1.ExportMetricsServiceRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MetricsExportRequestBatcher}. */
+@RunWith(JUnit4.class)
+public class MetricsExportRequestBatcherTest {
+  private static final int MAX_SKIPPED_EXPORTS = 2;
+  private static final Timestamp START = Timestamp.fromMillis(1000);
+  private static final Timestamp NOW = Timestamp.fromMillis(5000);
+  private static final MetricDescriptor DESCRIPTOR =
+      MetricDescriptor.create(
+          "requests",
+          "Number of requests",
+          "1",
+          Type.CUMULATIVE_INT64,
+          Collections.singletonList(LabelKey.create("method", "The method")));
+
+  private final FakeMetricProducer metricProducer = new FakeMetricProducer();
+  private final MetricsExportRequestBatcher batcher =
+      new MetricsExportRequestBatcher(1024 * 1024, MAX_SKIPPED_EXPORTS, false);
+  private final MetricsExportRequestBatcher elidingBatcher =
+      new MetricsExportRequestBatcher(1024 * 1024, MAX_SKIPPED_EXPORTS, true);
+
+  @Test
+  public void sendsFullDescriptorEveryTime() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    batcher.createRequests(metricProducer.getMetrics());
+
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 2)));
+    List<ExportMetricsServiceRequest> requests =
+        batcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+  }
+
+  @Test
+  public void sendsFullDescriptorOnce_WhenEnabled() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    List<ExportMetricsServiceRequest> requests =
+        elidingBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 2)));
+    requests = elidingBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(
+            io.opencensus.proto.metrics.v1.MetricDescriptor.newBuilder()
+                .setName("requests")
+                .build());
+  }
+
+  @Test
+  public void sendsDescriptorOfMetricWithoutTimeSeries() {
+    metricProducer.setMetrics(metric(DESCRIPTOR));
+    List<ExportMetricsServiceRequest> requests =
+        batcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetricsList())
+        .containsExactly(
+            io.opencensus.proto.metrics.v1.Metric.newBuilder()
+                .setMetricDescriptor(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR))
+                .build());
+    assertThat(batcher.createRequests(metricProducer.getMetrics())).isEmpty();
+  }
+
+  @Test
+  public void resendsFullDescriptorAfterReset() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    elidingBatcher.createRequests(metricProducer.getMetrics());
+    elidingBatcher.reset();
+    List<ExportMetricsServiceRequest> requests =
+        elidingBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+  }
+
+  @Test
+  public void resendsFullDescriptorWhenChanged() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    elidingBatcher.createRequests(metricProducer.getMetrics());
+    MetricDescriptor changed =
+        MetricDescriptor.create(
+            "requests",
+            "Number of requests",
+            "1",
+            Type.CUMULATIVE_INT64,
+            Collections.singletonList(LabelKey.create("path", "The path")));
+    metricProducer.setMetrics(metric(changed, timeSeries("/", 1)));
+    List<ExportMetricsServiceRequest> requests =
+        elidingBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(changed));
+  }
+
+  @Test
+  public void skipsUnchangedTimeSeries() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1), timeSeries("PUT", 1)));
+    assertThat(getTimeSeries(batcher.createRequests(metricProducer.getMetrics()))).hasSize(2);
+
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1), timeSeries("PUT", 2)));
+    List<io.opencensus.proto.metrics.v1.TimeSeries> timeSeries =
+        getTimeSeries(batcher.createRequests(metricProducer.getMetrics()));
+    assertThat(timeSeries)
+        .containsExactly(MetricsProtoUtils.toTimeSeriesProto(timeSeries("PUT", 2)));
+
+    // Nothing changed.
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1), timeSeries("PUT", 2)));
+    assertThat(batcher.createRequests(metricProducer.getMetrics())).isEmpty();
+  }
+
+  @Test
+  public void resendsTimeSeriesWithNewStartTimestamp() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    batcher.createRequests(metricProducer.getMetrics());
+    TimeSeries restarted =
+        TimeSeries.createWithOnePoint(
+            Collections.singletonList(LabelValue.create("GET")),
+            Point.create(Value.longValue(1), NOW),
+            Timestamp.fromMillis(4000));
+    metricProducer.setMetrics(metric(DESCRIPTOR, restarted));
+    assertThat(getTimeSeries(batcher.createRequests(metricProducer.getMetrics()))).hasSize(1);
+  }
+
+  @Test
+  public void resendsUnchangedTimeSeriesAfterMaxSkippedExports() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    assertThat(batcher.createRequests(metricProducer.getMetrics())).hasSize(1);
+    for (int i = 0; i < MAX_SKIPPED_EXPORTS; i++) {
+      assertThat(batcher.createRequests(metricProducer.getMetrics())).isEmpty();
+    }
+    assertThat(batcher.createRequests(metricProducer.getMetrics())).hasSize(1);
+    assertThat(batcher.createRequests(metricProducer.getMetrics())).isEmpty();
+  }
+
+  @Test
+  public void resendsTimeSeriesThatCameBack() {
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    elidingBatcher.createRequests(metricProducer.getMetrics());
+    metricProducer.setMetrics();
+    assertThat(elidingBatcher.createRequests(metricProducer.getMetrics())).isEmpty();
+    metricProducer.setMetrics(metric(DESCRIPTOR, timeSeries("GET", 1)));
+    List<ExportMetricsServiceRequest> requests =
+        elidingBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+  }
+
+  @Test
+  public void splitsLargeExportsInMultipleRequests() {
+    int maxRequestBytes = 1000;
+    MetricsExportRequestBatcher smallBatcher =
+        new MetricsExportRequestBatcher(maxRequestBytes, MAX_SKIPPED_EXPORTS, false);
+    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+    for (int i = 0; i < 200; i++) {
+      timeSeriesList.add(timeSeries("method" + i, i));
+    }
+    metricProducer.setMetrics(
+        Metric.create(DESCRIPTOR, timeSeriesList),
+        metric(
+            MetricDescriptor.create(
+                "other", "", "1", Type.GAUGE_INT64, Collections.<LabelKey>emptyList()),
+            TimeSeries.createWithOnePoint(
+                Collections.<LabelValue>emptyList(), Point.create(Value.longValue(1), NOW), null)));
+
+    List<ExportMetricsServiceRequest> requests =
+        smallBatcher.createRequests(metricProducer.getMetrics());
+    assertThat(requests.size()).isGreaterThan(1);
+    for (ExportMetricsServiceRequest request : requests) {
+      assertThat(request.getSerializedSize()).isAtMost(maxRequestBytes);
+    }
+    assertThat(getTimeSeries(requests)).hasSize(201);
+    // Each part of a metric has the full descriptor.
+    assertThat(requests.get(0).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+    assertThat(requests.get(1).getMetrics(0).getMetricDescriptor())
+        .isEqualTo(MetricsProtoUtils.toMetricDescriptorProto(DESCRIPTOR));
+    ExportMetricsServiceRequest last = requests.get(requests.size() - 1);
+    assertThat(last.getMetrics(last.getMetricsCount() - 1).getMetricDescriptor().getType())
+        .isEqualTo(io.opencensus.proto.metrics.v1.MetricDescriptor.Type.GAUGE_INT64);
+  }
+
+  private static List<io.opencensus.proto.metrics.v1.TimeSeries> getTimeSeries(
+      List<ExportMetricsServiceRequest> requests) {
+    List<io.opencensus.proto.metrics.v1.TimeSeries> timeSeries =
+        new ArrayList<io.opencensus.proto.metrics.v1.TimeSeries>();
+    for (ExportMetricsServiceRequest request : requests) {
+      for (io.opencensus.proto.metrics.v1.Metric metric : request.getMetricsList()) {
+        timeSeries.addAll(metric.getTimeseriesList());
+      }
+    }
+    return timeSeries;
+  }
+
+  private static TimeSeries timeSeries(String method, long value) {
+    return TimeSeries.createWithOnePoint(
+        Collections.singletonList(LabelValue.create(method)),
+        Point.create(Value.longValue(value), NOW),
+        START);
+  }
+
+  private static Metric metric(MetricDescriptor descriptor, TimeSeries... timeSeries) {
+    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+    Collections.addAll(timeSeriesList, timeSeries);
+    return Metric.create(descriptor, timeSeriesList);
+  }
+
+  private static final class FakeMetricProducer extends MetricProducer {
+    private List<Metric> metrics = Collections.emptyList();
+
+    private void setMetrics(Metric... metrics) {
+      List<Metric> list = new ArrayList<Metric>();
+      Collections.addAll(list, metrics);
+      this.metrics = list;
+    }
+
+    @Override
+    public Collection<Metric> getMetrics() {
+      return metrics;
+    }
+  }
+}
@@ -44,6 +44,7 @@ public class OcAgentMetricsExporterConfigurationTest {
         .isEqualTo(OcAgentMetricsExporterConfiguration.DEFAULT_RETRY_INTERVAL);
     assertThat(configuration.getExportInterval())
         .isEqualTo(OcAgentMetricsExporterConfiguration.DEFAULT_EXPORT_INTERVAL);
+    assertThat(configuration.getSendMetricDescriptorsOnce()).isFalse();
   }
 
   @Test
@@ -59,6 +60,7 @@ public class OcAgentMetricsExporterConfigurationTest {
             .setSslContext(sslContext)
             .setRetryInterval(fiveMinutes)
             .setExportInterval(oneMinute)
+            .setSendMetricDescriptorsOnce(true)
             .build();
     assertThat(configuration.getEndPoint()).isEqualTo("192.168.0.1:50051");
     assertThat(configuration.getServiceName()).isEqualTo("service");
@@ -66,5 +68,6 @@ public class OcAgentMetricsExporterConfigurationTest {
     assertThat(configuration.getSslContext()).isEqualTo(sslContext);
     assertThat(configuration.getRetryInterval()).isEqualTo(fiveMinutes);
     assertThat(configuration.getExportInterval()).isEqualTo(oneMinute);
+    assertThat(configuration.getSendMetricDescriptorsOnce()).isTrue();
   }
 }
@@ -21,32 +21,85 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.common.Clock;
 import io.opencensus.common.Duration;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.DoubleGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongCumulative;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.Immutable;
 
 /**
  * Wrapper of the {@link MetricReader} which automatically reads and exports the metrics every
  * export interval.
  *
+ * <p>The export times of all the readers are computed on one shared daemon thread, and each reader
+ * runs its exports on its own daemon thread, so a slow exporter does not delay the others. Each
+ * export is scheduled at a fixed rate from the previous one, so the interval does not drift by the
+ * duration of the exports. When the previous export of the reader, or an export started by {@link
+ * #readAndExportNow()}, is still running at an export time, that run is skipped rather than queued.
+ *
+ * <p>Exports can be aligned to the multiples of the export interval since the epoch, and delayed by
+ * a random per-reader jitter, see {@link Options.Builder#setAlignToInterval} and {@link
+ * Options.Builder#setJitter}.
+ *
  * @since 0.19
  */
 public final class IntervalMetricReader {
   @VisibleForTesting static final Duration DEFAULT_INTERVAL = Duration.create(60, 0);
+  @VisibleForTesting static final Duration DEFAULT_JITTER = Duration.create(0, 0);
   private static final Duration ZERO = Duration.create(0, 0);
 
-  private final Thread workerThread;
+  @VisibleForTesting static final String RUN_DURATION_METRIC_NAME = "oc_metric_reader_run_duration";
+
+  @VisibleForTesting static final String SKIPPED_RUNS_METRIC_NAME = "oc_metric_reader_skipped_runs";
+
+  private static final double NANOS_PER_MILLI = 1e6;
+  private static final List<LabelKey> EXPORTER_LABEL_KEYS =
+      Collections.singletonList(
+          LabelKey.create("exporter", "The class name of the metric exporter."));
+  private static final DoubleGauge runDuration =
+      Metrics.getMetricRegistry()
+          .addDoubleGauge(
+              RUN_DURATION_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription(
+                      "Duration of the last scheduled read and export of each metric exporter.")
+                  .setUnit("ms")
+                  .setLabelKeys(EXPORTER_LABEL_KEYS)
+                  .build());
+  private static final LongCumulative skippedRuns =
+      Metrics.getMetricRegistry()
+          .addLongCumulative(
+              SKIPPED_RUNS_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription(
+                      "Number of scheduled reads and exports skipped because an export overran.")
+                  .setUnit("1")
+                  .setLabelKeys(EXPORTER_LABEL_KEYS)
+                  .build());
+
   private final Worker worker;
 
   private IntervalMetricReader(Worker worker) {
     this.worker = worker;
-    this.workerThread = new Thread(worker);
-    try {
-      this.workerThread.setName("ExportWorkerThread");
-      this.workerThread.setDaemon(true);
-    } catch (SecurityException e) {
-      // OK if we can't set the name or daemon in this environment.
-    }
-    workerThread.start();
+    worker.start();
   }
 
   /**
@@ -68,6 +121,23 @@ public final class IntervalMetricReader {
      */
     public abstract Duration getExportInterval();
 
+    /**
+     * Returns whether the exports are aligned to the multiples of the export interval since the
+     * epoch.
+     *
+     * @return whether the exports are aligned to the export interval.
+     * @since 0.24
+     */
+    public abstract boolean getAlignToInterval();
+
+    /**
+     * Returns the maximum jitter added to the export times.
+     *
+     * @return the maximum jitter added to the export times.
+     * @since 0.24
+     */
+    public abstract Duration getJitter();
+
     /**
      * Returns a new {@link Builder}.
      *
@@ -76,7 +146,9 @@ public final class IntervalMetricReader {
      */
     public static Builder builder() {
       return new AutoValue_IntervalMetricReader_Options.Builder()
-          .setExportInterval(DEFAULT_INTERVAL);
+          .setExportInterval(DEFAULT_INTERVAL)
+          .setAlignToInterval(false)
+          .setJitter(DEFAULT_JITTER);
     }
 
     /**
@@ -95,6 +167,31 @@ public final class IntervalMetricReader {
        */
       public abstract Builder setExportInterval(Duration exportInterval);
 
+      /**
+       * Sets whether the exports are aligned to the multiples of the export interval since the
+       * epoch, e.g. at the start of every minute for an interval of 60 seconds, instead of every
+       * interval since the reader was created. Defaults to {@code false}.
+       *
+       * <p>Aligned exports of different processes cover the same periods; use {@link #setJitter} to
+       * spread them over the interval.
+       *
+       * @param alignToInterval whether the exports are aligned to the export interval.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setAlignToInterval(boolean alignToInterval);
+
+      /**
+       * Sets the maximum jitter added to the export times. Each reader delays all its exports by
+       * the same random duration in {@code [0, jitter)}, so that processes started together do not
+       * export together. Must be smaller than the export interval, defaults to zero.
+       *
+       * @param jitter the maximum jitter added to the export times.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setJitter(Duration jitter);
+
       /**
        * Builds a new {@link Options} with current settings.
        *
@@ -116,15 +213,43 @@ public final class IntervalMetricReader {
    */
   public static IntervalMetricReader create(
       MetricExporter metricExporter, MetricReader metricReader, Options options) {
+    return create(
+        metricExporter,
+        metricReader,
+        options,
+        SystemClock.INSTANCE,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("ExportWorkerThread")
+                .build()));
+  }
+
+  @VisibleForTesting
+  static IntervalMetricReader create(
+      MetricExporter metricExporter,
+      MetricReader metricReader,
+      Options options,
+      Clock clock,
+      ExecutorService exportExecutor) {
     checkNotNull(options, "options");
     Duration exportInterval = checkNotNull(options.getExportInterval(), "exportInterval");
     checkArgument(exportInterval.compareTo(ZERO) > 0, "Export interval must be positive");
+    Duration jitter = checkNotNull(options.getJitter(), "jitter");
+    checkArgument(jitter.compareTo(ZERO) >= 0, "Jitter must not be negative");
+    checkArgument(
+        jitter.compareTo(exportInterval) < 0, "Jitter must be smaller than the export interval");
 
+    long jitterMillis = jitter.toMillis();
     return new IntervalMetricReader(
         new Worker(
             checkNotNull(metricExporter, "metricExporter"),
             exportInterval.toMillis(),
-            checkNotNull(metricReader, "metricReader")));
+            options.getAlignToInterval(),
+            jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0,
+            checkNotNull(metricReader, "metricReader"),
+            clock,
+            exportExecutor));
   }
 
   /**
@@ -133,48 +258,219 @@ public final class IntervalMetricReader {
    * @since 0.19
    */
   public void readAndExportNow() {
-    worker.readAndExport();
+    worker.readAndExportNow();
   }
 
   /**
-   * Stops the worker thread by calling {@link Thread#interrupt()}.
+   * Stops the scheduled exports, and does one last read and export.
    *
    * @since 0.19
    */
   public void stop() {
-    workerThread.interrupt();
+    worker.stop();
+  }
+
+  @VisibleForTesting
+  long getSkippedRuns() {
+    return worker.skippedRunCount.get();
+  }
+
+  // Runs the next scheduled export now, as if its time had come.
+  @VisibleForTesting
+  void runScheduledExport() {
+    worker.run();
+  }
+
+  /**
+   * Returns the first export time after {@code nowMillis}, for exports aligned to the multiples of
+   * {@code intervalMillis} and delayed by {@code offsetMillis}.
+   */
+  @VisibleForTesting
+  static long alignedExportMillis(long nowMillis, long intervalMillis, long offsetMillis) {
+    long sinceBoundary = (nowMillis - offsetMillis) % intervalMillis;
+    if (sinceBoundary < 0) {
+      sinceBoundary += intervalMillis;
+    }
+    return nowMillis - sinceBoundary + intervalMillis;
+  }
+
+  private static long toMillis(Timestamp timestamp) {
+    return TimeUnit.SECONDS.toMillis(timestamp.getSeconds())
+        + TimeUnit.NANOSECONDS.toMillis(timestamp.getNanos());
+  }
+
+  // Holder for the scheduler shared by all the readers, created when the first reader is. It only
+  // computes the export times and hands the exports over to the readers.
+  private static final class SchedulerHolder {
+    private static final ScheduledThreadPoolExecutor scheduler = createScheduler();
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+      ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("ExportSchedulerThread")
+                  .build());
+      // Stopped readers do not leave their next run in the queue.
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
+    }
+  }
+
+  private static final class SystemClock extends Clock {
+    private static final SystemClock INSTANCE = new SystemClock();
+
+    @Override
+    public Timestamp now() {
+      return Timestamp.fromMillis(System.currentTimeMillis());
+    }
+
+    @Override
+    public long nowNanos() {
+      return System.nanoTime();
+    }
   }
 
   private static final class Worker implements Runnable {
 
     private final MetricExporter metricExporter;
     private final long exportInterval;
+    private final boolean alignToInterval;
+    private final long offset;
     private final MetricReader metricReader;
+    private final Clock clock;
+    private final ExecutorService exportExecutor;
+    private final List<LabelValue> labelValues;
+    private final ScheduledThreadPoolExecutor scheduler = SchedulerHolder.scheduler;
+    private final AtomicInteger exportsInProgress = new AtomicInteger();
+    private final AtomicLong skippedRunCount = new AtomicLong();
+    private final Runnable scheduledExport =
+        new Runnable() {
+          @Override
+          public void run() {
+            long startNanos = clock.nowNanos();
+            try {
+              metricReader.readAndExport(metricExporter);
+            } finally {
+              exportsInProgress.decrementAndGet();
+              runDuration
+                  .getOrCreateTimeSeries(labelValues)
+                  .set((clock.nowNanos() - startNanos) / NANOS_PER_MILLI);
+            }
+          }
+        };
+
+    @GuardedBy("this")
+    private long nextExportMillis;
+
+    @GuardedBy("this")
+    @Nullable
+    private ScheduledFuture<?> future;
 
-    private Worker(MetricExporter metricExporter, long exportInterval, MetricReader metricReader) {
+    @GuardedBy("this")
+    private boolean stopped;
+
+    private Worker(
+        MetricExporter metricExporter,
+        long exportInterval,
+        boolean alignToInterval,
+        long offset,
+        MetricReader metricReader,
+        Clock clock,
+        ExecutorService exportExecutor) {
       this.metricExporter = metricExporter;
       this.exportInterval = exportInterval;
+      this.alignToInterval = alignToInterval;
+      this.offset = offset;
       this.metricReader = metricReader;
+      this.clock = clock;
+      this.exportExecutor = exportExecutor;
+      this.labelValues =
+          Collections.singletonList(LabelValue.create(metricExporter.getClass().getName()));
+    }
+
+    private synchronized void start() {
+      long nowMillis = toMillis(clock.now());
+      nextExportMillis =
+          alignToInterval
+              ? alignedExportMillis(nowMillis, exportInterval, offset)
+              : nowMillis + exportInterval + offset;
+      schedule(nextExportMillis - nowMillis);
     }
 
+    // Runs on the shared scheduler thread, so it only hands the export over.
     @Override
-    public void run() {
-      while (true) {
-        try {
-          Thread.sleep(exportInterval);
-        } catch (InterruptedException ie) {
-          // Preserve the interruption status as per guidance and stop doing any work.
-          Thread.currentThread().interrupt();
-          break;
+    public synchronized void run() {
+      if (stopped) {
+        return;
+      }
+      if (exportsInProgress.getAndIncrement() == 0) {
+        exportExecutor.execute(scheduledExport);
+      } else {
+        // The previous export, or an export started by readAndExportNow(), is still running.
+        exportsInProgress.decrementAndGet();
+        recordSkippedRuns(1);
+      }
+
+      long expectedMillis = nextExportMillis + exportInterval;
+      long nowMillis = toMillis(clock.now());
+      long nextMillis;
+      if (alignToInterval) {
+        // Realigns to the clock, which may have been adjusted since the previous run.
+        nextMillis =
+            alignedExportMillis(Math.max(nowMillis, nextExportMillis), exportInterval, offset);
+      } else {
+        nextMillis = expectedMillis;
+        if (nextMillis <= nowMillis) {
+          nextMillis += ((nowMillis - nextMillis) / exportInterval + 1) * exportInterval;
         }
-        readAndExport();
       }
-      // Do one last readAndExport before stop.
-      readAndExport();
+      if (nextMillis > expectedMillis) {
+        recordSkippedRuns((nextMillis - expectedMillis) / exportInterval);
+      }
+      nextExportMillis = nextMillis;
+      schedule(nextMillis - nowMillis);
+    }
+
+    @GuardedBy("this")
+    private void schedule(long delayMillis) {
+      future = scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
     }
 
-    private void readAndExport() {
-      metricReader.readAndExport(metricExporter);
+    private void readAndExportNow() {
+      exportsInProgress.incrementAndGet();
+      try {
+        metricReader.readAndExport(metricExporter);
+      } finally {
+        exportsInProgress.decrementAndGet();
+      }
+    }
+
+    private synchronized void stop() {
+      if (stopped) {
+        return;
+      }
+      stopped = true;
+      if (future != null) {
+        future.cancel(false);
+      }
+      // Do one last readAndExport before stop, after the running export if any.
+      exportExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              readAndExportNow();
+            }
+          });
+      exportExecutor.shutdown();
+    }
+
+    private void recordSkippedRuns(long runs) {
+      if (runs > 0) {
+        skippedRunCount.addAndGet(runs);
+        skippedRuns.getOrCreateTimeSeries(labelValues).add(runs);
+      }
     }
   }
 }
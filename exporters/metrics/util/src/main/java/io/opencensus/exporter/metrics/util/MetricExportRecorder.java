@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.metrics.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.metrics.DoubleGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongCumulative;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Records the duration and the failures of the exports of a metric exporter, in the {@value
+ * #LATENCY_METRIC_NAME} and {@value #FAILURES_METRIC_NAME} metrics labeled with the name of the
+ * exporter.
+ *
+ * <p>{@link MetricReader} records the exports of the {@link MetricExporter}s it calls. Exporters
+ * that send their metrics without a {@code MetricReader}, or that drop part of an export without
+ * throwing, record their exports themselves.
+ *
+ * @since 0.24
+ */
+@ThreadSafe
+public final class MetricExportRecorder {
+  @VisibleForTesting static final String LATENCY_METRIC_NAME = "oc_metric_export_latency";
+  @VisibleForTesting static final String FAILURES_METRIC_NAME = "oc_metric_export_failures";
+
+  private static final double NANOS_PER_MILLI = 1e6;
+  private static final List<LabelKey> EXPORTER_LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("exporter", "The name of the metric exporter."));
+  private static final DoubleGauge exportLatency =
+      Metrics.getMetricRegistry()
+          .addDoubleGauge(
+              LATENCY_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription("Duration of the last export of each metric exporter.")
+                  .setUnit("ms")
+                  .setLabelKeys(EXPORTER_LABEL_KEYS)
+                  .build());
+  private static final LongCumulative exportFailures =
+      Metrics.getMetricRegistry()
+          .addLongCumulative(
+              FAILURES_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription("Number of failed exports, by metric exporter.")
+                  .setUnit("1")
+                  .setLabelKeys(EXPORTER_LABEL_KEYS)
+                  .build());
+
+  private final List<LabelValue> labelValues;
+
+  private MetricExportRecorder(String exporterName) {
+    this.labelValues = Collections.singletonList(LabelValue.create(exporterName));
+  }
+
+  /**
+   * Returns a {@code MetricExportRecorder} for the exporter with the given name.
+   *
+   * @param exporterName the name of the exporter, usually its class name.
+   * @return a {@code MetricExportRecorder}.
+   * @since 0.24
+   */
+  public static MetricExportRecorder create(String exporterName) {
+    return new MetricExportRecorder(checkNotNull(exporterName, "exporterName"));
+  }
+
+  /**
+   * Records the duration of an export.
+   *
+   * @param startNanos the value of {@link System#nanoTime()} when the export started.
+   * @since 0.24
+   */
+  public void recordLatency(long startNanos) {
+    exportLatency
+        .getOrCreateTimeSeries(labelValues)
+        .set((System.nanoTime() - startNanos) / NANOS_PER_MILLI);
+  }
+
+  /**
+   * Records a failed export.
+   *
+   * @since 0.24
+   */
+  public void recordFailure() {
+    exportFailures.getOrCreateTimeSeries(labelValues).add(1);
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.metrics.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.common.Duration;
+import io.opencensus.metrics.DoubleGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Reads the {@link Metric}s of several {@link MetricProducer}s in parallel, so that a slow producer
+ * does not delay the others.
+ *
+ * <p>The producers are called on a bounded pool of daemon threads shared by all the collectors.
+ * Each call to {@link #collect} waits at most the timeout of the collector for the producers. If a
+ * producer did not return in time, it is skipped, and it is not called again until the pending call
+ * returns. The metrics of that call are returned by the next call to {@code collect}. The metrics
+ * of each call are only returned once, because some producers, such as the {@link
+ * QueueMetricProducer}, return each metric once.
+ *
+ * <p>The duration of each call to a producer is recorded in the {@value #LATENCY_METRIC_NAME}
+ * gauge, labeled with the class name of the producer.
+ *
+ * @since 0.24
+ */
+@ThreadSafe
+public final class MetricProducerCollector {
+  private static final Logger logger = Logger.getLogger(MetricProducerCollector.class.getName());
+
+  @VisibleForTesting static final String LATENCY_METRIC_NAME = "oc_metric_producer_latency";
+  private static final int MAX_THREADS = 4;
+  private static final int MAX_QUEUED_CALLS = 1024;
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private static final DoubleGauge latencyGauge =
+      Metrics.getMetricRegistry()
+          .addDoubleGauge(
+              LATENCY_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription("Duration of the last call to each metric producer.")
+                  .setUnit("ms")
+                  .setLabelKeys(
+                      Collections.singletonList(
+                          LabelKey.create("producer", "The class name of the metric producer.")))
+                  .build());
+
+  private static final ExecutorService sharedExecutor = createSharedExecutor();
+
+  private final ExecutorService executor;
+  private final long timeoutNanos;
+
+  // The state of the producers seen in the last call to collect.
+  @GuardedBy("this")
+  private Map<MetricProducer, ProducerState> producerStates =
+      new IdentityHashMap<MetricProducer, ProducerState>();
+
+  /**
+   * Creates a new {@link MetricProducerCollector}.
+   *
+   * @param timeout the maximum time {@link #collect} waits for the producers.
+   * @return a new {@code MetricProducerCollector}.
+   * @throws IllegalArgumentException if {@code timeout} is not positive.
+   * @since 0.24
+   */
+  public static MetricProducerCollector create(Duration timeout) {
+    return new MetricProducerCollector(sharedExecutor, timeout);
+  }
+
+  @VisibleForTesting
+  MetricProducerCollector(ExecutorService executor, Duration timeout) {
+    checkNotNull(timeout, "timeout");
+    checkArgument(timeout.compareTo(Duration.create(0, 0)) > 0, "timeout must be positive.");
+    this.executor = checkNotNull(executor, "executor");
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout.toMillis());
+  }
+
+  /**
+   * Returns the metrics of the given producers. Waits at most the timeout of this collector.
+   *
+   * @param metricProducers the producers to read the metrics from.
+   * @return the metrics of all the producers.
+   * @since 0.24
+   */
+  public synchronized Collection<Metric> collect(Collection<MetricProducer> metricProducers) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    Map<MetricProducer, ProducerState> states =
+        new IdentityHashMap<MetricProducer, ProducerState>(metricProducers.size());
+    List<ProducerState> orderedStates = new ArrayList<ProducerState>(metricProducers.size());
+    for (MetricProducer metricProducer : metricProducers) {
+      ProducerState state = producerStates.get(metricProducer);
+      if (state == null) {
+        state = new ProducerState(metricProducer, this);
+      }
+      states.put(metricProducer, state);
+      orderedStates.add(state);
+      state.start(executor);
+    }
+    // Forget the producers that were removed.
+    producerStates = states;
+
+    List<Metric> metrics = new ArrayList<Metric>();
+    for (ProducerState state : orderedStates) {
+      metrics.addAll(state.await(deadline));
+    }
+    return metrics;
+  }
+
+  private static ExecutorService createSharedExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            MAX_THREADS,
+            MAX_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(MAX_QUEUED_CALLS),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("MetricProducerCollector-%d")
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  // Only accessed while holding the lock of the MetricProducerCollector. The pool threads only run
+  // call(), which doesn't touch the state.
+  private static final class ProducerState implements Callable<Collection<Metric>> {
+    private final MetricProducer metricProducer;
+    // The consumer of the pushed metrics of the QueueMetricProducers.
+    private final MetricProducerCollector collector;
+    private final LabelValue labelValue;
+    @Nullable private Future<Collection<Metric>> pendingCall;
+
+    private ProducerState(MetricProducer metricProducer, MetricProducerCollector collector) {
+      this.metricProducer = metricProducer;
+      this.collector = collector;
+      this.labelValue = LabelValue.create(metricProducer.getClass().getName());
+    }
+
+    @Override
+    public Collection<Metric> call() {
+      long startNanos = System.nanoTime();
+      Object previousConsumer = QueueMetricProducer.enterConsumer(collector);
+      try {
+        return metricProducer.getMetrics();
+      } finally {
+        QueueMetricProducer.restoreConsumer(previousConsumer);
+        latencyGauge
+            .getOrCreateTimeSeries(Collections.singletonList(labelValue))
+            .set((System.nanoTime() - startNanos) / NANOS_PER_MILLI);
+      }
+    }
+
+    // Calls the producer, unless the previous call is still pending.
+    private void start(ExecutorService executor) {
+      if (pendingCall != null) {
+        return;
+      }
+      try {
+        pendingCall = executor.submit(this);
+      } catch (RejectedExecutionException e) {
+        logger.log(Level.WARNING, "Too many pending calls, skipping " + metricProducer, e);
+      }
+    }
+
+    // Returns the metrics of the pending call if it returns before the deadline, otherwise no
+    // metrics.
+    private Collection<Metric> await(long deadline) {
+      Future<Collection<Metric>> call = pendingCall;
+      if (call == null) {
+        return Collections.<Metric>emptyList();
+      }
+      try {
+        Collection<Metric> metrics =
+            call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        pendingCall = null;
+        return metrics;
+      } catch (TimeoutException e) {
+        logger.log(
+            Level.FINE, "Timed out reading metrics from " + metricProducer + ", skipping it.");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        pendingCall = null;
+        logger.log(Level.WARNING, "Exception thrown by the metric producer " + metricProducer, e);
+      }
+      return Collections.<Metric>emptyList();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getProducerCount() {
+    return producerStates.size();
+  }
+}
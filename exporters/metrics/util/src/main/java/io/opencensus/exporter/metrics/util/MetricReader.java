@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Duration;
 import io.opencensus.common.Scope;
 import io.opencensus.metrics.Metrics;
 import io.opencensus.metrics.export.Metric;
@@ -32,8 +33,10 @@ import io.opencensus.trace.Tracer;
 import io.opencensus.trace.Tracing;
 import io.opencensus.trace.samplers.Samplers;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 /**
@@ -47,13 +50,17 @@ public class MetricReader {
   private static final Logger logger = Logger.getLogger(MetricReader.class.getName());
   private static final Sampler probabilitySampler = Samplers.probabilitySampler(0.0001);
   @VisibleForTesting static final String DEFAULT_SPAN_NAME = "ExportMetrics";
-
   private final MetricProducerManager metricProducerManager;
   private final String spanName;
+  @Nullable private final MetricProducerCollector metricProducerCollector;
 
-  private MetricReader(MetricProducerManager metricProducerManager, String spanName) {
+  private MetricReader(
+      MetricProducerManager metricProducerManager,
+      String spanName,
+      @Nullable MetricProducerCollector metricProducerCollector) {
     this.metricProducerManager = metricProducerManager;
     this.spanName = spanName;
+    this.metricProducerCollector = metricProducerCollector;
   }
 
   /**
@@ -83,6 +90,17 @@ public class MetricReader {
      */
     public abstract String getSpanName();
 
+    /**
+     * Returns the maximum time to wait for the {@link MetricProducer}s, or {@code null} if the
+     * producers are read one after the other without timeout.
+     *
+     * @return the maximum time to wait for the {@code MetricProducer}s.
+     * @see MetricProducerCollector
+     * @since 0.24
+     */
+    @Nullable
+    public abstract Duration getProducerTimeout();
+
     /**
      * Returns a new {@link Options.Builder}.
      *
@@ -120,6 +138,17 @@ public class MetricReader {
        */
       public abstract Builder setSpanName(String spanName);
 
+      /**
+       * Sets the maximum time to wait for the {@link MetricProducer}s. If set, the producers are
+       * read in parallel with a {@link MetricProducerCollector}, and a producer that doesn't return
+       * in time is skipped until it returns.
+       *
+       * @param producerTimeout the maximum time to wait for the {@code MetricProducer}s.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setProducerTimeout(Duration producerTimeout);
+
       /**
        * Builds a new {@link Options} with current settings.
        *
@@ -139,9 +168,11 @@ public class MetricReader {
    */
   public static MetricReader create(Options options) {
     checkNotNull(options, "options");
+    Duration producerTimeout = options.getProducerTimeout();
     return new MetricReader(
         checkNotNull(options.getMetricProducerManager(), "metricProducerManager"),
-        checkNotNull(options.getSpanName(), "spanName"));
+        checkNotNull(options.getSpanName(), "spanName"),
+        producerTimeout == null ? null : MetricProducerCollector.create(producerTimeout));
   }
 
   /**
@@ -159,13 +190,33 @@ public class MetricReader {
             .setSampler(probabilitySampler)
             .startSpan();
     Scope scope = tracer.withSpan(span);
+    MetricExportRecorder exportRecorder =
+        MetricExportRecorder.create(metricExporter.getClass().getName());
     try {
-      ArrayList<Metric> metricsList = new ArrayList<>();
-      for (MetricProducer metricProducer : metricProducerManager.getAllMetricProducer()) {
-        metricsList.addAll(metricProducer.getMetrics());
+      Collection<Metric> metrics;
+      if (metricProducerCollector != null) {
+        metrics = metricProducerCollector.collect(metricProducerManager.getAllMetricProducer());
+      } else {
+        ArrayList<Metric> metricsList = new ArrayList<>();
+        // Reads the pushed metrics of the QueueMetricProducers from the cursors of this reader.
+        Object previousConsumer = QueueMetricProducer.enterConsumer(this);
+        try {
+          for (MetricProducer metricProducer : metricProducerManager.getAllMetricProducer()) {
+            metricsList.addAll(metricProducer.getMetrics());
+          }
+        } finally {
+          QueueMetricProducer.restoreConsumer(previousConsumer);
+        }
+        metrics = metricsList;
+      }
+      long startNanos = System.nanoTime();
+      try {
+        metricExporter.export(metrics);
+      } finally {
+        exportRecorder.recordLatency(startNanos);
       }
-      metricExporter.export(metricsList);
     } catch (Throwable e) {
+      exportRecorder.recordFailure();
       logger.log(Level.WARNING, "Exception thrown by the metrics exporter.", e);
       span.setStatus(
           Status.UNKNOWN.withDescription("Exception when export metrics: " + exceptionMessage(e)));
@@ -20,35 +20,70 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.auto.value.AutoValue;
-import com.google.common.collect.EvictingQueue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongCumulative;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricProducer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.Immutable;
 
 /**
  * Wrapper of {@link MetricProducer} which allows metrics to be pushed and buffered.
  *
+ * <p>The pushed metrics are kept in a bounded ring, which pushers write to without locking. Each
+ * consumer reads the ring from its own cursor, so every {@link MetricReader} and {@link
+ * MetricProducerCollector} that reads this producer gets every pushed metric once, as long as it
+ * reads before the metric is overwritten. Other callers of {@link #getMetrics()} share one cursor.
+ *
+ * <p>The number of metrics overwritten before a consumer read them is recorded in the {@value
+ * #DROPPED_METRICS_METRIC_NAME} cumulative.
+ *
  * @since 0.20
  */
 public final class QueueMetricProducer extends MetricProducer {
 
-  private static final Object monitor = new Object();
-
   private static final int DEFAULT_BUFFER_SIZE = 32;
 
-  @GuardedBy("monitor")
-  private final Queue<Metric> bufferedMetrics;
+  @VisibleForTesting
+  static final String DROPPED_METRICS_METRIC_NAME = "oc_queue_metric_producer_dropped";
+
+  private static final LongCumulative droppedMetricsCumulative =
+      Metrics.getMetricRegistry()
+          .addLongCumulative(
+              DROPPED_METRICS_METRIC_NAME,
+              MetricOptions.builder()
+                  .setDescription(
+                      "Number of pushed metrics overwritten before a consumer read them.")
+                  .setUnit("1")
+                  .build());
+
+  // The consumer reading the metrics on the current thread, if any.
+  private static final ThreadLocal<Object> currentConsumer = new ThreadLocal<Object>();
+
+  private final int bufferSize;
+  private final AtomicReferenceArray<Entry> ring;
+  // The sequence number of the next pushed metric.
+  private final AtomicLong nextSequence = new AtomicLong();
+  private final AtomicLong droppedMetrics = new AtomicLong();
+  private final Cursor defaultCursor = new Cursor(0);
+  // The cursors of the consumers, removed when the consumers are garbage collected.
+  private final ConcurrentMap<Object, Cursor> consumerCursors = new MapMaker().weakKeys().makeMap();
 
   private QueueMetricProducer(int bufferSize) {
-    synchronized (monitor) {
-      bufferedMetrics = EvictingQueue.<Metric>create(bufferSize);
-    }
+    this.bufferSize = bufferSize;
+    this.ring = new AtomicReferenceArray<Entry>(bufferSize);
   }
 
   /**
@@ -74,19 +109,119 @@ public final class QueueMetricProducer extends MetricProducer {
    * @since 0.20
    */
   public void pushMetrics(Collection<Metric> metrics) {
-    synchronized (monitor) {
-      bufferedMetrics.addAll(metrics);
+    for (Metric metric : metrics) {
+      long sequence = nextSequence.getAndIncrement();
+      int index = (int) (sequence % bufferSize);
+      Entry entry = new Entry(sequence, metric);
+      while (true) {
+        Entry current = ring.get(index);
+        // Don't overwrite a newer metric pushed concurrently to the same slot.
+        if ((current != null && current.sequence > sequence)
+            || ring.compareAndSet(index, current, entry)) {
+          break;
+        }
+      }
     }
   }
 
   @Override
   public Collection<Metric> getMetrics() {
-    List<Metric> metricsToExport;
-    synchronized (monitor) {
-      metricsToExport = new ArrayList<>(bufferedMetrics);
-      bufferedMetrics.clear();
+    Object consumer = currentConsumer.get();
+    Cursor cursor;
+    if (consumer == null) {
+      cursor = defaultCursor;
+    } else {
+      cursor = consumerCursors.get(consumer);
+      if (cursor == null) {
+        // A new consumer starts from the oldest metric still buffered.
+        Cursor newCursor = new Cursor(Math.max(0, nextSequence.get() - bufferSize));
+        cursor = consumerCursors.putIfAbsent(consumer, newCursor);
+        if (cursor == null) {
+          cursor = newCursor;
+        }
+      }
+    }
+    return Collections.unmodifiableList(read(cursor));
+  }
+
+  // Returns the metrics pushed since the last read from the cursor, and advances it.
+  private List<Metric> read(Cursor cursor) {
+    List<Metric> metrics = new ArrayList<Metric>();
+    long dropped = 0;
+    synchronized (cursor) {
+      long end = nextSequence.get();
+      long sequence = cursor.nextSequence;
+      if (end - sequence > bufferSize) {
+        dropped += end - bufferSize - sequence;
+        sequence = end - bufferSize;
+      }
+      for (; sequence < end; sequence++) {
+        Entry entry = ring.get((int) (sequence % bufferSize));
+        if (entry == null || entry.sequence < sequence) {
+          // Still being pushed, read it the next time.
+          break;
+        }
+        if (entry.sequence > sequence) {
+          dropped++;
+        } else {
+          metrics.add(entry.metric);
+        }
+      }
+      cursor.nextSequence = sequence;
+    }
+    if (dropped > 0) {
+      droppedMetrics.addAndGet(dropped);
+      droppedMetricsCumulative
+          .getOrCreateTimeSeries(Collections.<LabelValue>emptyList())
+          .add(dropped);
+    }
+    return metrics;
+  }
+
+  @VisibleForTesting
+  long getDroppedMetrics() {
+    return droppedMetrics.get();
+  }
+
+  /**
+   * Sets the consumer reading the metrics on the current thread, so that it reads the pushed
+   * metrics from its own cursor.
+   *
+   * @return the previous consumer, to restore with {@link #restoreConsumer}.
+   */
+  @Nullable
+  static Object enterConsumer(Object consumer) {
+    Object previous = currentConsumer.get();
+    currentConsumer.set(consumer);
+    return previous;
+  }
+
+  /** Restores the consumer returned by {@link #enterConsumer}. */
+  static void restoreConsumer(@Nullable Object previous) {
+    if (previous == null) {
+      currentConsumer.remove();
+    } else {
+      currentConsumer.set(previous);
+    }
+  }
+
+  private static final class Entry {
+    private final long sequence;
+    private final Metric metric;
+
+    private Entry(long sequence, Metric metric) {
+      this.sequence = sequence;
+      this.metric = metric;
+    }
+  }
+
+  private static final class Cursor {
+    @GuardedBy("this")
+    private long nextSequence;
+
+    private Cursor(long nextSequence) {
+      this.nextSequence = nextSequence;
     }
-    return Collections.unmodifiableList(metricsToExport);
   }
 
   /**
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.mockito.Mockito.when;
 
+import io.opencensus.common.Clock;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
 import io.opencensus.metrics.LabelKey;
@@ -30,12 +31,22 @@ import io.opencensus.metrics.export.MetricProducer;
 import io.opencensus.metrics.export.MetricProducerManager;
 import io.opencensus.metrics.export.Point;
 import io.opencensus.metrics.export.Value;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
@@ -78,9 +89,59 @@ public class IntervalMetricReaderTest {
     when(metricProducerManager.getAllMetricProducer()).thenReturn(metricProducerSet);
   }
 
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
   @Test
   public void testConstants() {
     assertThat(IntervalMetricReader.DEFAULT_INTERVAL).isEqualTo(Duration.create(60, 0));
+    assertThat(IntervalMetricReader.DEFAULT_JITTER).isEqualTo(Duration.create(0, 0));
+    assertThat(IntervalMetricReader.RUN_DURATION_METRIC_NAME)
+        .isEqualTo("oc_metric_reader_run_duration");
+    assertThat(IntervalMetricReader.SKIPPED_RUNS_METRIC_NAME)
+        .isEqualTo("oc_metric_reader_skipped_runs");
+  }
+
+  @Test
+  public void defaultOptions() {
+    IntervalMetricReader.Options options = IntervalMetricReader.Options.builder().build();
+    assertThat(options.getExportInterval()).isEqualTo(IntervalMetricReader.DEFAULT_INTERVAL);
+    assertThat(options.getAlignToInterval()).isFalse();
+    assertThat(options.getJitter()).isEqualTo(IntervalMetricReader.DEFAULT_JITTER);
+  }
+
+  @Test
+  public void create_NegativeJitter() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Jitter must not be negative");
+    IntervalMetricReader.create(
+        new FakeMetricExporter(),
+        MetricReader.create(
+            MetricReader.Options.builder().setMetricProducerManager(metricProducerManager).build()),
+        IntervalMetricReader.Options.builder().setJitter(Duration.create(-1, 0)).build());
+  }
+
+  @Test
+  public void create_JitterNotSmallerThanInterval() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Jitter must be smaller than the export interval");
+    IntervalMetricReader.create(
+        new FakeMetricExporter(),
+        MetricReader.create(
+            MetricReader.Options.builder().setMetricProducerManager(metricProducerManager).build()),
+        IntervalMetricReader.Options.builder()
+            .setExportInterval(Duration.create(10, 0))
+            .setJitter(Duration.create(10, 0))
+            .build());
+  }
+
+  @Test
+  public void alignedExportMillis() {
+    assertThat(IntervalMetricReader.alignedExportMillis(60000, 60000, 0)).isEqualTo(120000);
+    assertThat(IntervalMetricReader.alignedExportMillis(61234, 60000, 0)).isEqualTo(120000);
+    assertThat(IntervalMetricReader.alignedExportMillis(119999, 60000, 0)).isEqualTo(120000);
+    assertThat(IntervalMetricReader.alignedExportMillis(61234, 60000, 5000)).isEqualTo(65000);
+    assertThat(IntervalMetricReader.alignedExportMillis(65000, 60000, 5000)).isEqualTo(125000);
+    assertThat(IntervalMetricReader.alignedExportMillis(1000, 60000, 5000)).isEqualTo(5000);
   }
 
   @Test
@@ -103,6 +164,94 @@ public class IntervalMetricReaderTest {
     intervalMetricReader.stop();
   }
 
+  @Test
+  public void alignedIntervalExport() {
+    FakeMetricExporter fakeMetricExporter = new FakeMetricExporter();
+    IntervalMetricReader intervalMetricReader =
+        IntervalMetricReader.create(
+            fakeMetricExporter,
+            MetricReader.create(
+                MetricReader.Options.builder()
+                    .setMetricProducerManager(metricProducerManager)
+                    .build()),
+            IntervalMetricReader.Options.builder()
+                .setExportInterval(Duration.create(0, (int) MILLISECONDS.toNanos(100)))
+                .setAlignToInterval(true)
+                .setJitter(Duration.create(0, (int) MILLISECONDS.toNanos(50)))
+                .build());
+    assertThat(fakeMetricExporter.waitForNumberOfExports(2))
+        .containsExactly(Collections.singletonList(METRIC), Collections.singletonList(METRIC));
+    intervalMetricReader.stop();
+  }
+
+  @Test
+  public void readersExportOnTheirOwnThreads() throws InterruptedException {
+    BlockingMetricExporter exporter1 = new BlockingMetricExporter();
+    ThreadRecordingMetricExporter exporter2 = new ThreadRecordingMetricExporter();
+    IntervalMetricReader intervalMetricReader1 = createReader(exporter1, 50);
+    IntervalMetricReader intervalMetricReader2 = createReader(exporter2, 50);
+    exporter1.started.await();
+    // The second reader keeps exporting while the first one is blocked.
+    Thread thread1 = exporter2.threads.take();
+    Thread thread2 = exporter2.threads.take();
+    exporter1.release.countDown();
+    intervalMetricReader1.stop();
+    intervalMetricReader2.stop();
+    assertThat(thread1).isSameInstanceAs(thread2);
+    assertThat(thread1.getName()).isEqualTo("ExportWorkerThread");
+    assertThat(thread1.isDaemon()).isTrue();
+  }
+
+  @Test
+  public void skipsRunsOverrunByExport() throws Exception {
+    BlockingMetricExporter exporter = new BlockingMetricExporter();
+    ManualClock clock = new ManualClock();
+    ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+    IntervalMetricReader intervalMetricReader = createReader(exporter, clock, exportExecutor);
+    clock.millis = 10000;
+    intervalMetricReader.runScheduledExport();
+    exporter.started.await();
+    // The export at 20s finds the first one running, and the ones at 30s and 40s were missed.
+    clock.millis = 45000;
+    intervalMetricReader.runScheduledExport();
+    assertThat(intervalMetricReader.getSkippedRuns()).isEqualTo(3);
+
+    exporter.release.countDown();
+    waitForExports(exportExecutor);
+    clock.millis = 50000;
+    intervalMetricReader.runScheduledExport();
+    waitForExports(exportExecutor);
+    assertThat(exporter.exports.get()).isEqualTo(2);
+    assertThat(intervalMetricReader.getSkippedRuns()).isEqualTo(3);
+    intervalMetricReader.stop();
+  }
+
+  @Test
+  public void skipsRunsOverlappingReadAndExportNow() throws Exception {
+    BlockingMetricExporter exporter = new BlockingMetricExporter();
+    ManualClock clock = new ManualClock();
+    ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+    final IntervalMetricReader intervalMetricReader = createReader(exporter, clock, exportExecutor);
+    Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                intervalMetricReader.readAndExportNow();
+              }
+            });
+    thread.start();
+    exporter.started.await();
+    clock.millis = 10000;
+    intervalMetricReader.runScheduledExport();
+    assertThat(intervalMetricReader.getSkippedRuns()).isEqualTo(1);
+    exporter.release.countDown();
+    thread.join();
+    waitForExports(exportExecutor);
+    assertThat(exporter.exports.get()).isEqualTo(1);
+    intervalMetricReader.stop();
+  }
+
   @Test
   public void exportAfterStop() {
     FakeMetricExporter fakeMetricExporter = new FakeMetricExporter();
@@ -121,4 +270,78 @@ public class IntervalMetricReaderTest {
     assertThat(fakeMetricExporter.waitForNumberOfExports(1))
         .containsExactly(Collections.singletonList(METRIC));
   }
+
+  private IntervalMetricReader createReader(MetricExporter metricExporter, long intervalMillis) {
+    return IntervalMetricReader.create(
+        metricExporter,
+        MetricReader.create(
+            MetricReader.Options.builder().setMetricProducerManager(metricProducerManager).build()),
+        IntervalMetricReader.Options.builder()
+            .setExportInterval(Duration.create(0, (int) MILLISECONDS.toNanos(intervalMillis)))
+            .build());
+  }
+
+  // Creates a reader with an export interval of 10 seconds, which is only run by the test.
+  private IntervalMetricReader createReader(
+      MetricExporter metricExporter, Clock clock, ExecutorService exportExecutor) {
+    return IntervalMetricReader.create(
+        metricExporter,
+        MetricReader.create(
+            MetricReader.Options.builder().setMetricProducerManager(metricProducerManager).build()),
+        IntervalMetricReader.Options.builder().setExportInterval(Duration.create(10, 0)).build(),
+        clock,
+        exportExecutor);
+  }
+
+  // Waits for the exports already handed to the executor to complete.
+  private static void waitForExports(ExecutorService exportExecutor) throws Exception {
+    exportExecutor
+        .submit(
+            new Runnable() {
+              @Override
+              public void run() {}
+            })
+        .get();
+  }
+
+  private static final class ManualClock extends Clock {
+    private volatile long millis;
+
+    @Override
+    public Timestamp now() {
+      return Timestamp.fromMillis(millis);
+    }
+
+    @Override
+    public long nowNanos() {
+      return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+  }
+
+  private static final class ThreadRecordingMetricExporter extends MetricExporter {
+    private final BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+
+    @Override
+    public void export(Collection<Metric> metrics) {
+      threads.add(Thread.currentThread());
+    }
+  }
+
+  // Blocks the exports until released.
+  private static final class BlockingMetricExporter extends MetricExporter {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger exports = new AtomicInteger();
+
+    @Override
+    public void export(Collection<Metric> metrics) {
+      exports.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.metrics.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Duration;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.TimeSeries;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MetricProducerCollector}. */
+@RunWith(JUnit4.class)
+public class MetricProducerCollectorTest {
+  private static final Duration TIMEOUT = Duration.create(0, 100 * 1000 * 1000);
+  private static final Metric METRIC_1 = metric("metric1");
+  private static final Metric METRIC_2 = metric("metric2");
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final MetricProducerCollector collector = new MetricProducerCollector(executor, TIMEOUT);
+  private final CountDownLatch unblock = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    unblock.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void create_NonPositiveTimeout() {
+    thrown.expect(IllegalArgumentException.class);
+    MetricProducerCollector.create(Duration.create(0, 0));
+  }
+
+  @Test
+  public void collect_KeepsProducerOrder() {
+    assertThat(
+            collector.collect(
+                Arrays.<MetricProducer>asList(
+                    new FakeMetricProducer(METRIC_1), new FakeMetricProducer(METRIC_2))))
+        .containsExactly(METRIC_1, METRIC_2)
+        .inOrder();
+  }
+
+  @Test
+  public void collect_SkipsSlowProducer() throws InterruptedException {
+    BlockingMetricProducer slow = new BlockingMetricProducer(METRIC_1);
+    FakeMetricProducer fast = new FakeMetricProducer(METRIC_2);
+    Collection<MetricProducer> producers = Arrays.<MetricProducer>asList(slow, fast);
+    assertThat(collector.collect(producers)).containsExactly(METRIC_1, METRIC_2).inOrder();
+
+    slow.block = true;
+    // The slow producer times out, and its metrics are not exported twice.
+    assertThat(collector.collect(producers)).containsExactly(METRIC_2);
+    assertThat(collector.collect(producers)).containsExactly(METRIC_2);
+    // The slow producer is not called again while the first call is pending.
+    assertThat(slow.calls.get()).isEqualTo(2);
+
+    slow.block = false;
+    unblock.countDown();
+    slow.returned.await();
+    // The metrics of the late call are exported once, then the producer is called again.
+    assertThat(collector.collect(producers)).containsExactly(METRIC_1, METRIC_2).inOrder();
+    assertThat(slow.calls.get()).isEqualTo(2);
+    assertThat(collector.collect(producers)).containsExactly(METRIC_1, METRIC_2).inOrder();
+    assertThat(slow.calls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void collect_FailingProducerHasNoMetrics() {
+    MetricProducer failing =
+        new MetricProducer() {
+          @Override
+          public Collection<Metric> getMetrics() {
+            throw new IllegalStateException("failed");
+          }
+        };
+    assertThat(
+            collector.collect(
+                Arrays.<MetricProducer>asList(failing, new FakeMetricProducer(METRIC_2))))
+        .containsExactly(METRIC_2);
+  }
+
+  @Test
+  public void collect_ForgetsRemovedProducers() {
+    FakeMetricProducer producer1 = new FakeMetricProducer(METRIC_1);
+    FakeMetricProducer producer2 = new FakeMetricProducer(METRIC_2);
+    collector.collect(Arrays.<MetricProducer>asList(producer1, producer2));
+    assertThat(collector.getProducerCount()).isEqualTo(2);
+    assertThat(collector.collect(Collections.<MetricProducer>singletonList(producer2)))
+        .containsExactly(METRIC_2);
+    assertThat(collector.getProducerCount()).isEqualTo(1);
+  }
+
+  private static Metric metric(String name) {
+    return Metric.create(
+        MetricDescriptor.create(name, "", "1", Type.GAUGE_INT64, Collections.<LabelKey>emptyList()),
+        Collections.<TimeSeries>emptyList());
+  }
+
+  private static class FakeMetricProducer extends MetricProducer {
+    private final Metric metric;
+
+    private FakeMetricProducer(Metric metric) {
+      this.metric = metric;
+    }
+
+    @Override
+    public Collection<Metric> getMetrics() {
+      return Collections.singletonList(metric);
+    }
+  }
+
+  private final class BlockingMetricProducer extends FakeMetricProducer {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch returned = new CountDownLatch(1);
+    private volatile boolean block;
+
+    private BlockingMetricProducer(Metric metric) {
+      super(metric);
+    }
+
+    @Override
+    public Collection<Metric> getMetrics() {
+      calls.incrementAndGet();
+      if (block) {
+        try {
+          unblock.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        returned.countDown();
+      }
+      return super.getMetrics();
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.opencensus.common.Duration;
 import io.opencensus.exporter.metrics.util.MetricReader.Options;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricProducer;
@@ -50,6 +51,8 @@ public class MetricReaderTest {
   @Test
   public void testConstants() {
     assertThat(MetricReader.DEFAULT_SPAN_NAME).isEqualTo("ExportMetrics");
+    assertThat(MetricExportRecorder.LATENCY_METRIC_NAME).isEqualTo("oc_metric_export_latency");
+    assertThat(MetricExportRecorder.FAILURES_METRIC_NAME).isEqualTo("oc_metric_export_failures");
   }
 
   @Test
@@ -64,4 +67,20 @@ public class MetricReaderTest {
     metricReader.readAndExport(metricExporter);
     verify(metricExporter).export(eq(Collections.<Metric>emptyList()));
   }
+
+  @Test
+  public void readAndExport_WithProducerTimeout() {
+    Set<MetricProducer> metricProducerSet = new HashSet<>();
+    metricProducerSet.add(metricProducer);
+    when(metricProducer.getMetrics()).thenReturn(Collections.<Metric>emptyList());
+    when(metricProducerManager.getAllMetricProducer()).thenReturn(metricProducerSet);
+    MetricReader metricReader =
+        MetricReader.create(
+            Options.builder()
+                .setMetricProducerManager(metricProducerManager)
+                .setProducerTimeout(Duration.create(1, 0))
+                .build());
+    metricReader.readAndExport(metricExporter);
+    verify(metricExporter).export(eq(Collections.<Metric>emptyList()));
+  }
 }
@@ -17,17 +17,25 @@
 package io.opencensus.exporter.metrics.util;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
 import io.opencensus.exporter.metrics.util.QueueMetricProducer.Options;
 import io.opencensus.metrics.LabelKey;
 import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.MetricProducerManager;
 import io.opencensus.metrics.export.Point;
 import io.opencensus.metrics.export.Value;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -73,6 +81,12 @@ public class QueueMetricProducerTest {
 
   @Rule public final ExpectedException thrown = ExpectedException.none();
 
+  @Test
+  public void testConstants() {
+    assertThat(QueueMetricProducer.DROPPED_METRICS_METRIC_NAME)
+        .isEqualTo("oc_queue_metric_producer_dropped");
+  }
+
   @Test
   public void createWithNegativeBufferSize() {
     Options options = Options.builder().setBufferSize(-1).build();
@@ -104,4 +118,95 @@ public class QueueMetricProducerTest {
     producer.pushMetrics(Collections.singleton(METRIC_2));
     assertThat(producer.getMetrics()).containsExactly(METRIC_2);
   }
+
+  @Test
+  public void pushMetrics_ExceedBufferSize_CountsDroppedMetrics() {
+    Options options = Options.builder().setBufferSize(2).build();
+    QueueMetricProducer producer = QueueMetricProducer.create(options);
+    producer.pushMetrics(Arrays.asList(METRIC_1, METRIC_2, METRIC_1, METRIC_2, METRIC_1));
+    assertThat(producer.getMetrics()).containsExactly(METRIC_2, METRIC_1).inOrder();
+    assertThat(producer.getDroppedMetrics()).isEqualTo(3);
+  }
+
+  @Test
+  public void eachReaderReadsEveryMetric() {
+    QueueMetricProducer producer = QueueMetricProducer.create(Options.builder().build());
+    MetricProducerManager metricProducerManager = mock(MetricProducerManager.class);
+    when(metricProducerManager.getAllMetricProducer())
+        .thenReturn(Collections.<MetricProducer>singleton(producer));
+    MetricReader metricReader1 = createMetricReader(metricProducerManager, null);
+    MetricReader metricReader2 = createMetricReader(metricProducerManager, Duration.create(1, 0));
+    FakeMetricExporter metricExporter1 = new FakeMetricExporter();
+    FakeMetricExporter metricExporter2 = new FakeMetricExporter();
+
+    producer.pushMetrics(Collections.singleton(METRIC_1));
+    metricReader1.readAndExport(metricExporter1);
+    producer.pushMetrics(Collections.singleton(METRIC_2));
+    metricReader1.readAndExport(metricExporter1);
+    metricReader2.readAndExport(metricExporter2);
+    metricReader2.readAndExport(metricExporter2);
+
+    assertThat(metricExporter1.waitForNumberOfExports(2))
+        .containsExactly(Collections.singletonList(METRIC_1), Collections.singletonList(METRIC_2))
+        .inOrder();
+    assertThat(metricExporter2.waitForNumberOfExports(2))
+        .containsExactly(Arrays.asList(METRIC_1, METRIC_2), Collections.<Metric>emptyList())
+        .inOrder();
+    // The readers don't take the metrics from the other callers.
+    assertThat(producer.getMetrics()).containsExactly(METRIC_1, METRIC_2).inOrder();
+  }
+
+  @Test
+  public void newReaderStartsFromOldestBufferedMetric() {
+    QueueMetricProducer producer =
+        QueueMetricProducer.create(Options.builder().setBufferSize(2).build());
+    producer.pushMetrics(Arrays.asList(METRIC_1, METRIC_1, METRIC_2));
+    MetricProducerManager metricProducerManager = mock(MetricProducerManager.class);
+    when(metricProducerManager.getAllMetricProducer())
+        .thenReturn(Collections.<MetricProducer>singleton(producer));
+    FakeMetricExporter metricExporter = new FakeMetricExporter();
+    createMetricReader(metricProducerManager, null).readAndExport(metricExporter);
+    assertThat(metricExporter.waitForNumberOfExports(1))
+        .containsExactly(Arrays.asList(METRIC_1, METRIC_2));
+    assertThat(producer.getDroppedMetrics()).isEqualTo(0);
+  }
+
+  @Test
+  public void pushMetrics_Concurrently() throws InterruptedException {
+    final int threadCount = 4;
+    final int metricsPerThread = 1000;
+    final QueueMetricProducer producer =
+        QueueMetricProducer.create(
+            Options.builder().setBufferSize(threadCount * metricsPerThread).build());
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int j = 0; j < metricsPerThread; j++) {
+                    producer.pushMetrics(Collections.singleton(METRIC_1));
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(producer.getMetrics()).hasSize(threadCount * metricsPerThread);
+    assertThat(producer.getDroppedMetrics()).isEqualTo(0);
+  }
+
+  private static MetricReader createMetricReader(
+      MetricProducerManager metricProducerManager, @Nullable Duration producerTimeout) {
+    MetricReader.Options.Builder builder =
+        MetricReader.Options.builder().setMetricProducerManager(metricProducerManager);
+    if (producerTimeout != null) {
+      builder.setProducerTimeout(producerTimeout);
+    }
+    return MetricReader.create(builder.build());
+  }
 }
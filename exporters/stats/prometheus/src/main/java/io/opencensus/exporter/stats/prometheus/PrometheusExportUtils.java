@@ -116,7 +116,7 @@ final class PrometheusExportUtils {
         name, type, metricDescriptor.getDescription(), Collections.<Sample>emptyList());
   }
 
-  private static String getNamespacedName(String metricName, String namespace) {
+  static String getNamespacedName(String metricName, String namespace) {
     if (!namespace.isEmpty()) {
       if (!namespace.endsWith("/") && !namespace.endsWith("_")) {
         namespace += '_';
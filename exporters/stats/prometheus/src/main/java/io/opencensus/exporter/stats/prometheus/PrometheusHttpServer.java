@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.prometheus;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.exporter.metrics.util.MetricExporter;
+import io.opencensus.exporter.metrics.util.MetricReader;
+import io.opencensus.exporter.stats.prometheus.PrometheusTextWriter.Format;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducerManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * A lightweight HTTP server that exposes the OpenCensus metrics to Prometheus.
+ *
+ * <p>Unlike {@link PrometheusStatsCollector}, the server does not use a Prometheus {@code
+ * CollectorRegistry}: every scrape reads the metrics from OpenCensus and writes them directly to
+ * the response, in the Prometheus text format or, if the scraper asks for it in the {@code Accept}
+ * header, in the OpenMetrics text format. The response is compressed with gzip if the scraper
+ * accepts it.
+ *
+ * <p>The metrics are served on the {@code /metrics} and {@code /} paths. Connections are accepted
+ * on a daemon thread and handled by a small pool of daemon threads, so that a slow client does not
+ * block the other scrapes.
+ *
+ * <p>Example of usage:
+ *
+ * <pre>{@code
+ * PrometheusHttpServer server =
+ *     PrometheusHttpServer.create(
+ *         PrometheusStatsConfiguration.builder().build(), new InetSocketAddress(9091));
+ * // Your code here.
+ * server.close();
+ * }</pre>
+ *
+ * @since 0.24
+ */
+public final class PrometheusHttpServer implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(PrometheusHttpServer.class.getName());
+  private static final String EXPORT_METRICS_TO_PROMETHEUS = "ExportMetricsToPrometheusHttp";
+  private static final String THREAD_NAME = "PrometheusHttpServer";
+  private static final String OPEN_METRICS_MEDIA_TYPE = "application/openmetrics-text";
+  // Scrapers send their request right after connecting, so a client that stalls is dropped soon.
+  private static final int SOCKET_TIMEOUT_MILLIS = 2000;
+  private static final int MAX_THREADS = 4;
+  private static final int MAX_QUEUED_CONNECTIONS = 64;
+  private static final int MAX_LINE_LENGTH = 8192;
+  private static final int MAX_HEADER_LINES = 100;
+
+  private final ServerSocket serverSocket;
+  private final ThreadPoolExecutor executor;
+  private final MetricReader metricReader;
+  private final PrometheusTextWriter writer;
+
+  /**
+   * Creates a {@link PrometheusHttpServer} that serves the metrics of {@link
+   * Metrics#getExportComponent()} on the given address, and starts it.
+   *
+   * <p>The {@code CollectorRegistry} of the configuration is not used.
+   *
+   * @param configuration the configuration, only the namespace is used.
+   * @param address the address to listen on, use port {@code 0} to pick a free port.
+   * @return the started {@code PrometheusHttpServer}.
+   * @throws IOException if the server socket could not be bound.
+   * @since 0.24
+   */
+  public static PrometheusHttpServer create(
+      PrometheusStatsConfiguration configuration, InetSocketAddress address) throws IOException {
+    Preconditions.checkNotNull(configuration, "configuration");
+    Preconditions.checkNotNull(address, "address");
+    return new PrometheusHttpServer(
+        Metrics.getExportComponent().getMetricProducerManager(),
+        configuration.getNamespace(),
+        address);
+  }
+
+  @VisibleForTesting
+  PrometheusHttpServer(
+      MetricProducerManager metricProducerManager, String namespace, InetSocketAddress address)
+      throws IOException {
+    this.metricReader =
+        MetricReader.create(
+            MetricReader.Options.builder()
+                .setMetricProducerManager(metricProducerManager)
+                .setSpanName(EXPORT_METRICS_TO_PROMETHEUS)
+                .build());
+    this.writer = new PrometheusTextWriter(namespace);
+    this.serverSocket = new ServerSocket();
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(address);
+    this.executor =
+        new ThreadPoolExecutor(
+            MAX_THREADS,
+            MAX_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(MAX_QUEUED_CONNECTIONS),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat(THREAD_NAME + "-%d").build());
+    // The threads are only kept while Prometheus is scraping.
+    executor.allowCoreThreadTimeOut(true);
+    Thread thread = new Thread(new Acceptor(), THREAD_NAME);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   *
+   * @return the port the server is listening on.
+   * @since 0.24
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Stops the server. Requests that are being handled are completed.
+   *
+   * @since 0.24
+   */
+  @Override
+  public void close() {
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Exception thrown when closing the server socket.", e);
+    }
+    executor.shutdown();
+  }
+
+  private final class Acceptor implements Runnable {
+    @Override
+    public void run() {
+      while (!serverSocket.isClosed()) {
+        Socket socket;
+        try {
+          socket = serverSocket.accept();
+        } catch (SocketException e) {
+          // The server socket was closed.
+          break;
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Exception thrown when accepting a connection.", e);
+          continue;
+        }
+        try {
+          executor.execute(new ConnectionHandler(socket));
+        } catch (RejectedExecutionException e) {
+          logger.log(Level.FINE, "Too many pending connections, closing the connection.", e);
+          closeQuietly(socket);
+        }
+      }
+    }
+  }
+
+  private final class ConnectionHandler implements Runnable {
+    private final Socket socket;
+
+    private ConnectionHandler(Socket socket) {
+      this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+      try {
+        socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+        handle(socket.getInputStream(), socket.getOutputStream());
+      } catch (IOException e) {
+        logger.log(Level.FINE, "Exception thrown when handling a request.", e);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Exception thrown when handling a request.", e);
+      } finally {
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // Ignore.
+    }
+  }
+
+  private void handle(InputStream rawIn, OutputStream rawOut) throws IOException {
+    InputStream in = new BufferedInputStream(rawIn);
+    OutputStream out = new BufferedOutputStream(rawOut);
+    String requestLine = readLine(in);
+    String[] parts = requestLine == null ? new String[0] : requestLine.split(" ");
+    if (parts.length != 3) {
+      writeError(out, "400 Bad Request");
+      return;
+    }
+    boolean openMetrics = false;
+    boolean gzip = false;
+    for (int i = 0; i < MAX_HEADER_LINES; i++) {
+      String header = readLine(in);
+      if (header == null || header.isEmpty()) {
+        break;
+      }
+      int colon = header.indexOf(':');
+      if (colon <= 0) {
+        continue;
+      }
+      String name = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      String value = header.substring(colon + 1).toLowerCase(Locale.ROOT);
+      if ("accept".equals(name)) {
+        openMetrics = value.contains(OPEN_METRICS_MEDIA_TYPE);
+      } else if ("accept-encoding".equals(name)) {
+        gzip = value.contains("gzip");
+      }
+    }
+
+    String method = parts[0];
+    boolean head = "HEAD".equals(method);
+    if (!head && !"GET".equals(method)) {
+      writeError(out, "405 Method Not Allowed");
+      return;
+    }
+    String path = parts[1];
+    int query = path.indexOf('?');
+    if (query >= 0) {
+      path = path.substring(0, query);
+    }
+    if (!"/metrics".equals(path) && !"/".equals(path)) {
+      writeError(out, "404 Not Found");
+      return;
+    }
+
+    Format format = openMetrics ? Format.OPEN_METRICS : Format.TEXT;
+    StringBuilder headers = new StringBuilder();
+    headers.append("HTTP/1.1 200 OK\r\n");
+    headers.append("Content-Type: ").append(format.getContentType()).append("\r\n");
+    if (gzip) {
+      headers.append("Content-Encoding: gzip\r\n");
+    }
+    headers.append("Connection: close\r\n\r\n");
+    out.write(ascii(headers));
+    if (head) {
+      out.flush();
+      return;
+    }
+    Collection<Metric> metrics = readMetrics();
+    if (gzip) {
+      GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+      writer.write(metrics, format, gzipOut);
+      gzipOut.finish();
+    } else {
+      writer.write(metrics, format, out);
+    }
+    out.flush();
+  }
+
+  private Collection<Metric> readMetrics() {
+    CollectingMetricExporter exporter = new CollectingMetricExporter();
+    metricReader.readAndExport(exporter);
+    return exporter.metrics;
+  }
+
+  private static final class CollectingMetricExporter extends MetricExporter {
+    private Collection<Metric> metrics = Collections.<Metric>emptyList();
+
+    @Override
+    public void export(Collection<Metric> metrics) {
+      this.metrics = metrics;
+    }
+  }
+
+  private static void writeError(OutputStream out, String status) throws IOException {
+    out.write(
+        ascii(
+            new StringBuilder()
+                .append("HTTP/1.1 ")
+                .append(status)
+                .append("\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")));
+    out.flush();
+  }
+
+  // Reads an ascii line terminated by "\n" or "\r\n". Returns null at the end of the stream.
+  private static /*@Nullable*/ String readLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) != '\n') {
+      if (c == -1) {
+        return line.length() == 0 ? null : line.toString();
+      }
+      if (line.length() >= MAX_LINE_LENGTH) {
+        throw new IOException("Request line is too long.");
+      }
+      line.append((char) c);
+    }
+    int length = line.length();
+    if (length > 0 && line.charAt(length - 1) == '\r') {
+      line.setLength(length - 1);
+    }
+    return line.toString();
+  }
+
+  private static byte[] ascii(CharSequence s) {
+    byte[] bytes = new byte[s.length()];
+    for (int i = 0; i < s.length(); i++) {
+      bytes[i] = (byte) s.charAt(i);
+    }
+    return bytes;
+  }
+}
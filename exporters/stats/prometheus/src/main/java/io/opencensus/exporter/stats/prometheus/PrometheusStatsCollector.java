@@ -22,6 +22,7 @@ import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.conv
 import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.getType;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.exporter.metrics.util.MetricExportRecorder;
 import io.opencensus.exporter.metrics.util.MetricExporter;
 import io.opencensus.exporter.metrics.util.MetricReader;
 import io.opencensus.metrics.Metrics;
@@ -95,6 +96,11 @@ public final class PrometheusStatsCollector extends Collector implements Collect
   }
 
   private static final class ExportMetricExporter extends MetricExporter {
+    // The MetricReader records the duration of the exports under the same exporter name. Metrics
+    // that cannot be converted are skipped, so they are recorded as failures here.
+    private static final MetricExportRecorder exportRecorder =
+        MetricExportRecorder.create(ExportMetricExporter.class.getName());
+
     private final ArrayList<MetricFamilySamples> samples = new ArrayList<>();
     private final String namespace;
 
@@ -105,6 +111,7 @@ public final class PrometheusStatsCollector extends Collector implements Collect
     @Override
     public void export(Collection<Metric> metrics) {
       samples.ensureCapacity(metrics.size());
+      boolean failed = false;
       for (Metric metric : metrics) {
         MetricDescriptor metricDescriptor = metric.getMetricDescriptor();
         if (containsDisallowedLeLabelForHistogram(
@@ -120,6 +127,7 @@ public final class PrometheusStatsCollector extends Collector implements Collect
         try {
           samples.add(PrometheusExportUtils.createMetricFamilySamples(metric, namespace));
         } catch (Throwable e) {
+          failed = true;
           logger.log(Level.WARNING, "Exception thrown when collecting metric samples.", e);
           tracer
               .getCurrentSpan()
@@ -129,6 +137,9 @@ public final class PrometheusStatsCollector extends Collector implements Collect
                           + exceptionMessage(e)));
         }
       }
+      if (failed) {
+        exportRecorder.recordFailure();
+      }
     }
   }
 
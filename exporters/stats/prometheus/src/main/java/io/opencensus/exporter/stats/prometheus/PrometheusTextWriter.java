@@ -0,0 +1,563 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.prometheus;
+
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.LABEL_NAME_BUCKET_BOUND;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.LABEL_NAME_QUANTILE;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.SAMPLE_SUFFIX_BUCKET;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.SAMPLE_SUFFIX_COUNT;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.SAMPLE_SUFFIX_SUM;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.containsDisallowedLeLabelForHistogram;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.containsDisallowedQuantileLabelForSummary;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.convertToLabelNames;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.getNamespacedName;
+import static io.opencensus.exporter.stats.prometheus.PrometheusExportUtils.getType;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Distribution;
+import io.opencensus.metrics.export.Distribution.BucketOptions;
+import io.opencensus.metrics.export.Distribution.BucketOptions.ExplicitOptions;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.Summary;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.Type;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Writes OpenCensus {@link Metric}s in the Prometheus text exposition format or in the OpenMetrics
+ * text format, without converting them to the Prometheus {@code MetricFamilySamples} model.
+ *
+ * <p>The output is written to a byte buffer that is reused across calls. The sanitized metric and
+ * label names of each {@link MetricDescriptor} are encoded once and cached until the descriptor is
+ * no longer exported.
+ *
+ * <p>Metrics are converted the same way as in {@link PrometheusExportUtils}. In the OpenMetrics
+ * format, counter samples have the {@code _total} suffix, and {@code GAUGE_DISTRIBUTION} metrics
+ * are written as gauge histograms.
+ *
+ * <p>This class is thread-safe, calls to {@link #write} are serialized.
+ */
+final class PrometheusTextWriter {
+
+  /** The exposition formats supported by {@link PrometheusTextWriter}. */
+  enum Format {
+    /** The Prometheus text exposition format, version 0.0.4. */
+    TEXT("text/plain; version=0.0.4; charset=utf-8"),
+    /** The OpenMetrics text format, version 1.0.0. */
+    OPEN_METRICS("application/openmetrics-text; version=1.0.0; charset=utf-8");
+
+    private final String contentType;
+
+    Format(String contentType) {
+      this.contentType = contentType;
+    }
+
+    /**
+     * Returns the HTTP content type of this format.
+     *
+     * @return the HTTP content type.
+     */
+    String getContentType() {
+      return contentType;
+    }
+  }
+
+  private static final byte[] EOF = ascii("# EOF\n");
+  private static final byte[] LABELS_END = ascii("\"}");
+  private static final byte[] LE_FIRST = ascii("{" + LABEL_NAME_BUCKET_BOUND + "=\"");
+  private static final byte[] LE_NEXT = ascii("\"," + LABEL_NAME_BUCKET_BOUND + "=\"");
+  private static final byte[] QUANTILE_FIRST = ascii("{" + LABEL_NAME_QUANTILE + "=\"");
+  private static final byte[] QUANTILE_NEXT = ascii("\"," + LABEL_NAME_QUANTILE + "=\"");
+  private static final byte[] POSITIVE_INFINITY = ascii("+Inf");
+  private static final byte[] NEGATIVE_INFINITY = ascii("-Inf");
+  private static final byte[] NAN = ascii("NaN");
+
+  private final String namespace;
+
+  @GuardedBy("this")
+  private final ByteBuffer buffer = new ByteBuffer();
+
+  // Cached encodings per MetricDescriptor, for the descriptors that were exported recently.
+  @GuardedBy("this")
+  private final Map<MetricDescriptor, MetricFamily> families =
+      new HashMap<MetricDescriptor, MetricFamily>();
+
+  @GuardedBy("this")
+  private long generation;
+
+  PrometheusTextWriter(String namespace) {
+    this.namespace = namespace;
+  }
+
+  /**
+   * Writes the given metrics to the output stream in the given format.
+   *
+   * @param metrics the metrics to write.
+   * @param format the exposition format.
+   * @param out the output stream.
+   * @throws IOException if writing to the output stream fails.
+   */
+  synchronized void write(Collection<Metric> metrics, Format format, OutputStream out)
+      throws IOException {
+    buffer.reset();
+    try {
+      encode(metrics, format);
+      buffer.writeTo(out);
+    } finally {
+      // Don't hold on to the memory of an unusually large scrape.
+      buffer.trim();
+    }
+  }
+
+  /**
+   * Returns the given metrics in the given format.
+   *
+   * @param metrics the metrics to write.
+   * @param format the exposition format.
+   * @return the encoded metrics.
+   */
+  @VisibleForTesting
+  synchronized byte[] toByteArray(Collection<Metric> metrics, Format format) {
+    buffer.reset();
+    encode(metrics, format);
+    return buffer.toByteArray();
+  }
+
+  @GuardedBy("this")
+  private void encode(Collection<Metric> metrics, Format format) {
+    long currentGeneration = ++generation;
+    for (Metric metric : metrics) {
+      MetricFamily family = getMetricFamily(metric.getMetricDescriptor());
+      family.generation = currentGeneration;
+      if (family.disallowed) {
+        // Same as PrometheusStatsCollector: silently skip Distribution metrics with an "le" label
+        // key and Summary metrics with a "quantile" label key.
+        continue;
+      }
+      buffer.write(format == Format.OPEN_METRICS ? family.openMetricsHeader : family.textHeader);
+      for (TimeSeries timeSeries : metric.getTimeSeriesList()) {
+        List<LabelValue> labelValues = timeSeries.getLabelValues();
+        if (labelValues.size() != family.labelPrefixes.length) {
+          throw new IllegalArgumentException("Keys and Values don't have same size.");
+        }
+        for (Point point : timeSeries.getPoints()) {
+          writeValue(family, format, labelValues, point.getValue());
+        }
+      }
+    }
+    if (format == Format.OPEN_METRICS) {
+      buffer.write(EOF);
+    }
+    // Forget the descriptors that were not exported in this call.
+    for (Iterator<MetricFamily> i = families.values().iterator(); i.hasNext(); ) {
+      if (i.next().generation != currentGeneration) {
+        i.remove();
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private MetricFamily getMetricFamily(MetricDescriptor metricDescriptor) {
+    MetricFamily family = families.get(metricDescriptor);
+    if (family == null) {
+      family = new MetricFamily(metricDescriptor, namespace);
+      families.put(metricDescriptor, family);
+    }
+    return family;
+  }
+
+  @GuardedBy("this")
+  private void writeValue(
+      final MetricFamily family,
+      final Format format,
+      final List<LabelValue> labelValues,
+      Value value) {
+    value.match(
+        new Function<Double, Void>() {
+          @Override
+          public Void apply(Double arg) {
+            writeSampleStart(family.getSampleName(format), family, labelValues);
+            writeLabelsEnd(labelValues);
+            writeSampleEnd(arg);
+            return null;
+          }
+        },
+        new Function<Long, Void>() {
+          @Override
+          public Void apply(Long arg) {
+            writeSampleStart(family.getSampleName(format), family, labelValues);
+            writeLabelsEnd(labelValues);
+            writeSampleEnd(arg);
+            return null;
+          }
+        },
+        new Function<Distribution, Void>() {
+          @Override
+          public Void apply(Distribution arg) {
+            writeDistribution(family, format, labelValues, arg);
+            return null;
+          }
+        },
+        new Function<Summary, Void>() {
+          @Override
+          public Void apply(Summary arg) {
+            writeSummary(family, labelValues, arg);
+            return null;
+          }
+        },
+        Functions.<Void>throwIllegalArgumentException());
+  }
+
+  @GuardedBy("this")
+  private void writeDistribution(
+      MetricFamily family, Format format, List<LabelValue> labelValues, Distribution distribution) {
+    List<Double> boundaries = Collections.<Double>emptyList();
+    BucketOptions bucketOptions = distribution.getBucketOptions();
+    if (bucketOptions != null) {
+      boundaries =
+          bucketOptions.match(
+              new Function<ExplicitOptions, List<Double>>() {
+                @Override
+                public List<Double> apply(ExplicitOptions arg) {
+                  return arg.getBucketBoundaries();
+                }
+              },
+              Functions.<List<Double>>throwIllegalArgumentException());
+    }
+    List<Distribution.Bucket> buckets = distribution.getBuckets();
+    long cumulativeCount = 0;
+    for (int i = 0; i < buckets.size(); i++) {
+      writeSampleStart(family.bucketName, family, labelValues);
+      buffer.write(labelValues.isEmpty() ? LE_FIRST : LE_NEXT);
+      // The label value of "le" is the upper inclusive bound. For the last bucket, it should be
+      // "+Inf".
+      buffer.writeDouble(i < boundaries.size() ? boundaries.get(i) : Double.POSITIVE_INFINITY);
+      buffer.write(LABELS_END);
+      cumulativeCount += buckets.get(i).getCount();
+      writeSampleEnd(cumulativeCount);
+    }
+    boolean gaugeHistogram = format == Format.OPEN_METRICS && family.gauge;
+    writeSampleStart(gaugeHistogram ? family.gcountName : family.countName, family, labelValues);
+    writeLabelsEnd(labelValues);
+    writeSampleEnd(distribution.getCount());
+    writeSampleStart(gaugeHistogram ? family.gsumName : family.sumName, family, labelValues);
+    writeLabelsEnd(labelValues);
+    writeSampleEnd(distribution.getSum());
+  }
+
+  @GuardedBy("this")
+  private void writeSummary(MetricFamily family, List<LabelValue> labelValues, Summary summary) {
+    Long count = summary.getCount();
+    if (count != null) {
+      writeSampleStart(family.countName, family, labelValues);
+      writeLabelsEnd(labelValues);
+      writeSampleEnd(count);
+    }
+    Double sum = summary.getSum();
+    if (sum != null) {
+      writeSampleStart(family.sumName, family, labelValues);
+      writeLabelsEnd(labelValues);
+      writeSampleEnd(sum);
+    }
+    for (ValueAtPercentile valueAtPercentile : summary.getSnapshot().getValueAtPercentiles()) {
+      writeSampleStart(family.name, family, labelValues);
+      buffer.write(labelValues.isEmpty() ? QUANTILE_FIRST : QUANTILE_NEXT);
+      buffer.writeDouble(valueAtPercentile.getPercentile() / 100);
+      buffer.write(LABELS_END);
+      writeSampleEnd(valueAtPercentile.getValue());
+    }
+  }
+
+  // Writes the sample name and the label pairs, without closing the last label value.
+  @GuardedBy("this")
+  private void writeSampleStart(byte[] name, MetricFamily family, List<LabelValue> labelValues) {
+    buffer.write(name);
+    for (int i = 0; i < labelValues.size(); i++) {
+      buffer.write(family.labelPrefixes[i]);
+      LabelValue labelValue = labelValues.get(i);
+      String value = labelValue == null ? null : labelValue.getValue();
+      if (value != null) {
+        buffer.writeEscaped(value, /* escapeQuote= */ true);
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private void writeLabelsEnd(List<LabelValue> labelValues) {
+    if (!labelValues.isEmpty()) {
+      buffer.write(LABELS_END);
+    }
+  }
+
+  @GuardedBy("this")
+  private void writeSampleEnd(long value) {
+    buffer.write((byte) ' ');
+    buffer.writeLong(value);
+    buffer.write((byte) '\n');
+  }
+
+  @GuardedBy("this")
+  private void writeSampleEnd(double value) {
+    buffer.write((byte) ' ');
+    buffer.writeDouble(value);
+    buffer.write((byte) '\n');
+  }
+
+  // The cached encodings of one MetricDescriptor.
+  private static final class MetricFamily {
+    private final boolean disallowed;
+    private final boolean gauge;
+    private final byte[] textHeader;
+    private final byte[] openMetricsHeader;
+    private final byte[] name;
+    private final byte[] totalName;
+    private final byte[] bucketName;
+    private final byte[] countName;
+    private final byte[] sumName;
+    private final byte[] gcountName;
+    private final byte[] gsumName;
+    // For the label at index i: '{' or ',' followed by the sanitized label name and '="'.
+    private final byte[][] labelPrefixes;
+    private final boolean counter;
+
+    // The generation of the last call that exported this descriptor.
+    private long generation;
+
+    private MetricFamily(MetricDescriptor metricDescriptor, String namespace) {
+      String sanitizedName = getNamespacedName(metricDescriptor.getName(), namespace);
+      Type type = getType(metricDescriptor.getType());
+      List<String> labelNames = convertToLabelNames(metricDescriptor.getLabelKeys());
+      disallowed =
+          containsDisallowedLeLabelForHistogram(labelNames, type)
+              || containsDisallowedQuantileLabelForSummary(labelNames, type);
+      counter = type == Type.COUNTER;
+      gauge = metricDescriptor.getType() == MetricDescriptor.Type.GAUGE_DISTRIBUTION;
+      // In OpenMetrics the name of a counter family doesn't have the _total suffix, but the name of
+      // its samples does.
+      String openMetricsName =
+          counter && sanitizedName.endsWith("_total")
+              ? sanitizedName.substring(0, sanitizedName.length() - "_total".length())
+              : sanitizedName;
+      String description = metricDescriptor.getDescription();
+      textHeader = header(sanitizedName, description, textTypeName(type), /* openMetrics= */ false);
+      openMetricsHeader =
+          header(
+              openMetricsName,
+              description,
+              gauge ? "gaugehistogram" : openMetricsTypeName(type),
+              /* openMetrics= */ true);
+      name = ascii(sanitizedName);
+      totalName = ascii(openMetricsName + "_total");
+      bucketName = ascii(sanitizedName + SAMPLE_SUFFIX_BUCKET);
+      countName = ascii(sanitizedName + SAMPLE_SUFFIX_COUNT);
+      sumName = ascii(sanitizedName + SAMPLE_SUFFIX_SUM);
+      gcountName = ascii(sanitizedName + "_gcount");
+      gsumName = ascii(sanitizedName + "_gsum");
+      labelPrefixes = new byte[labelNames.size()][];
+      for (int i = 0; i < labelNames.size(); i++) {
+        labelPrefixes[i] = ascii((i == 0 ? "{" : "\",") + labelNames.get(i) + "=\"");
+      }
+    }
+
+    private byte[] getSampleName(Format format) {
+      return format == Format.OPEN_METRICS && counter ? totalName : name;
+    }
+
+    // OpenMetrics also escapes double quotes in the HELP text.
+    private static byte[] header(
+        String name, String description, String typeName, boolean openMetrics) {
+      ByteBuffer header = new ByteBuffer();
+      header.write(ascii("# HELP "));
+      header.write(ascii(name));
+      header.write((byte) ' ');
+      header.writeEscaped(description, /* escapeQuote= */ openMetrics);
+      header.write(ascii("\n# TYPE "));
+      header.write(ascii(name));
+      header.write((byte) ' ');
+      header.write(ascii(typeName));
+      header.write((byte) '\n');
+      return header.toByteArray();
+    }
+
+    private static String textTypeName(Type type) {
+      return type == Type.UNTYPED ? "untyped" : openMetricsTypeName(type);
+    }
+
+    private static String openMetricsTypeName(Type type) {
+      switch (type) {
+        case COUNTER:
+          return "counter";
+        case GAUGE:
+          return "gauge";
+        case HISTOGRAM:
+          return "histogram";
+        case SUMMARY:
+          return "summary";
+        default:
+          return "unknown";
+      }
+    }
+  }
+
+  // Names are sanitized to [a-zA-Z0-9_:], so they are ascii.
+  private static byte[] ascii(String s) {
+    byte[] bytes = new byte[s.length()];
+    for (int i = 0; i < s.length(); i++) {
+      bytes[i] = (byte) s.charAt(i);
+    }
+    return bytes;
+  }
+
+  // A growable byte array that encodes strings as UTF-8.
+  private static final class ByteBuffer {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    void reset() {
+      size = 0;
+    }
+
+    void trim() {
+      if (bytes.length > MAX_RETAINED_CAPACITY) {
+        bytes = new byte[INITIAL_CAPACITY];
+      }
+      size = 0;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+      out.write(bytes, 0, size);
+    }
+
+    void write(byte b) {
+      ensureCapacity(1);
+      bytes[size++] = b;
+    }
+
+    void write(byte[] b) {
+      ensureCapacity(b.length);
+      System.arraycopy(b, 0, bytes, size, b.length);
+      size += b.length;
+    }
+
+    void writeLong(long value) {
+      if (value == Long.MIN_VALUE) {
+        write(ascii(Long.toString(value)));
+        return;
+      }
+      ensureCapacity(20);
+      if (value < 0) {
+        bytes[size++] = '-';
+        value = -value;
+      }
+      int start = size;
+      do {
+        bytes[size++] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value != 0);
+      // The digits were written in reverse order.
+      for (int i = start, j = size - 1; i < j; i++, j--) {
+        byte tmp = bytes[i];
+        bytes[i] = bytes[j];
+        bytes[j] = tmp;
+      }
+    }
+
+    // Same as Collector.doubleToGoString.
+    void writeDouble(double value) {
+      if (value == Double.POSITIVE_INFINITY) {
+        write(POSITIVE_INFINITY);
+      } else if (value == Double.NEGATIVE_INFINITY) {
+        write(NEGATIVE_INFINITY);
+      } else if (Double.isNaN(value)) {
+        write(NAN);
+      } else {
+        write(ascii(Collector.doubleToGoString(value)));
+      }
+    }
+
+    // Writes the string as UTF-8, escaping backslashes, new lines and optionally double quotes.
+    void writeEscaped(String s, boolean escapeQuote) {
+      ensureCapacity(s.length());
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '\\') {
+          write((byte) '\\');
+          write((byte) '\\');
+        } else if (c == '\n') {
+          write((byte) '\\');
+          write((byte) 'n');
+        } else if (c == '"' && escapeQuote) {
+          write((byte) '\\');
+          write((byte) '"');
+        } else if (c < 0x80) {
+          write((byte) c);
+        } else if (c < 0x800) {
+          ensureCapacity(2);
+          bytes[size++] = (byte) (0xc0 | (c >> 6));
+          bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < s.length()
+            && Character.isLowSurrogate(s.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, s.charAt(++i));
+          ensureCapacity(4);
+          bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+          bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+          bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+          bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+          // Unpaired surrogate, same replacement as String#getBytes.
+          write((byte) '?');
+        } else {
+          ensureCapacity(3);
+          bytes[size++] = (byte) (0xe0 | (c >> 12));
+          bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        }
+      }
+    }
+
+    private void ensureCapacity(int extra) {
+      if (size + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+      }
+    }
+  }
+}
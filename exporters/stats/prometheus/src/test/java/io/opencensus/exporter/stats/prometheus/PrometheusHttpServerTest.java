@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.prometheus;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.MetricProducerManager;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/** Unit tests for {@link PrometheusHttpServer}. */
+@RunWith(JUnit4.class)
+public class PrometheusHttpServerTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final Metric METRIC =
+      Metric.createWithOneTimeSeries(
+          MetricDescriptor.create(
+              "requests",
+              "Number of requests",
+              "1",
+              MetricDescriptor.Type.CUMULATIVE_INT64,
+              Collections.singletonList(LabelKey.create("method", ""))),
+          TimeSeries.createWithOnePoint(
+              Collections.singletonList(LabelValue.create("GET")),
+              Point.create(Value.longValue(7), Timestamp.fromMillis(3000)),
+              null));
+  private static final String TEXT_BODY =
+      "# HELP requests Number of requests\n"
+          + "# TYPE requests counter\n"
+          + "requests{method=\"GET\"} 7\n";
+
+  @Mock private MetricProducerManager mockMetricProducerManager;
+  @Mock private MetricProducer mockMetricProducer;
+
+  private PrometheusHttpServer server;
+
+  @Before
+  public void setUp() throws IOException {
+    MockitoAnnotations.initMocks(this);
+    doReturn(ImmutableSet.of(mockMetricProducer))
+        .when(mockMetricProducerManager)
+        .getAllMetricProducer();
+    doReturn(Collections.singletonList(METRIC)).when(mockMetricProducer).getMetrics();
+    server = new PrometheusHttpServer(mockMetricProducerManager, "", new InetSocketAddress(0));
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  @Test
+  public void scrape_TextFormat() throws IOException {
+    HttpURLConnection connection = open("/metrics");
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(connection.getContentType()).isEqualTo("text/plain; version=0.0.4; charset=utf-8");
+    assertThat(read(connection.getInputStream())).isEqualTo(TEXT_BODY);
+  }
+
+  @Test
+  public void scrape_RootPathWithQuery() throws IOException {
+    HttpURLConnection connection = open("/?name[]=requests");
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(read(connection.getInputStream())).isEqualTo(TEXT_BODY);
+  }
+
+  @Test
+  public void scrape_OpenMetricsFormat() throws IOException {
+    HttpURLConnection connection = open("/metrics");
+    connection.setRequestProperty(
+        "Accept", "application/openmetrics-text; version=1.0.0,text/plain;version=0.0.4;q=0.5");
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(connection.getContentType())
+        .isEqualTo("application/openmetrics-text; version=1.0.0; charset=utf-8");
+    assertThat(read(connection.getInputStream()))
+        .isEqualTo(
+            "# HELP requests Number of requests\n"
+                + "# TYPE requests counter\n"
+                + "requests_total{method=\"GET\"} 7\n"
+                + "# EOF\n");
+  }
+
+  @Test
+  public void scrape_Gzip() throws IOException {
+    HttpURLConnection connection = open("/metrics");
+    connection.setRequestProperty("Accept-Encoding", "gzip");
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+    assertThat(read(new GZIPInputStream(connection.getInputStream()))).isEqualTo(TEXT_BODY);
+  }
+
+  @Test
+  public void scrape_Head() throws IOException {
+    HttpURLConnection connection = open("/metrics");
+    connection.setRequestMethod("HEAD");
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(read(connection.getInputStream())).isEmpty();
+  }
+
+  @Test
+  public void unknownPath() throws IOException {
+    assertThat(open("/other").getResponseCode()).isEqualTo(404);
+  }
+
+  @Test
+  public void unsupportedMethod() throws IOException {
+    HttpURLConnection connection = open("/metrics");
+    connection.setRequestMethod("DELETE");
+    assertThat(connection.getResponseCode()).isEqualTo(405);
+  }
+
+  @Test
+  public void stalledClient_DoesNotBlockScrapes() throws IOException {
+    // Connects without sending a request.
+    Socket stalledClient = new Socket("localhost", server.getPort());
+    try {
+      HttpURLConnection connection = open("/metrics");
+      // Shorter than the read timeout of the server.
+      connection.setReadTimeout(1000);
+      assertThat(connection.getResponseCode()).isEqualTo(200);
+      assertThat(read(connection.getInputStream())).isEqualTo(TEXT_BODY);
+    } finally {
+      stalledClient.close();
+    }
+  }
+
+  private HttpURLConnection open(String path) throws IOException {
+    URL url = new URL("http", "localhost", server.getPort(), path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(5000);
+    connection.setReadTimeout(5000);
+    return connection;
+  }
+
+  private static String read(InputStream in) throws IOException {
+    try {
+      return new String(ByteStreams.toByteArray(in), UTF_8);
+    } finally {
+      in.close();
+    }
+  }
+}
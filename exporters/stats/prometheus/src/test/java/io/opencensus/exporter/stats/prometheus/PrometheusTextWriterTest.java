@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.prometheus;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.stats.prometheus.PrometheusTextWriter.Format;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Distribution;
+import io.opencensus.metrics.export.Distribution.Bucket;
+import io.opencensus.metrics.export.Distribution.BucketOptions;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.Summary;
+import io.opencensus.metrics.export.Summary.Snapshot;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PrometheusTextWriter}. */
+@RunWith(JUnit4.class)
+public class PrometheusTextWriterTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final Timestamp TIMESTAMP = Timestamp.fromMillis(3000);
+  private static final LabelKey K1 = LabelKey.create("k1", "");
+  private static final LabelKey K2 = LabelKey.create("k-2", "");
+  private static final List<LabelKey> LABEL_KEYS = Arrays.asList(K1, K2);
+  private static final List<LabelValue> LABEL_VALUES =
+      Arrays.asList(LabelValue.create("v1"), LabelValue.create("v2"));
+
+  private static final MetricDescriptor COUNTER_DESCRIPTOR =
+      MetricDescriptor.create(
+          "requests_total", "Number of requests", "1", Type.CUMULATIVE_INT64, LABEL_KEYS);
+  private static final MetricDescriptor GAUGE_DESCRIPTOR =
+      MetricDescriptor.create(
+          "queue/size", "Queue size", "1", Type.GAUGE_DOUBLE, Collections.singletonList(K1));
+  private static final MetricDescriptor HISTOGRAM_DESCRIPTOR =
+      MetricDescriptor.create(
+          "latency", "Latency", "ms", Type.CUMULATIVE_DISTRIBUTION, Collections.singletonList(K1));
+  private static final MetricDescriptor GAUGE_HISTOGRAM_DESCRIPTOR =
+      MetricDescriptor.create(
+          "size", "Size", "By", Type.GAUGE_DISTRIBUTION, Collections.<LabelKey>emptyList());
+  private static final MetricDescriptor SUMMARY_DESCRIPTOR =
+      MetricDescriptor.create(
+          "rpc", "RPC latency", "ms", Type.SUMMARY, Collections.<LabelKey>emptyList());
+
+  private static final Distribution DISTRIBUTION =
+      Distribution.create(
+          5,
+          22,
+          135.22,
+          BucketOptions.explicitOptions(Arrays.asList(1.0, 2.0, 5.0)),
+          Arrays.asList(Bucket.create(0), Bucket.create(2), Bucket.create(2), Bucket.create(1)));
+  private static final Summary SUMMARY =
+      Summary.create(
+          22L,
+          74.8,
+          Snapshot.create(
+              null,
+              null,
+              Arrays.asList(
+                  ValueAtPercentile.create(50, 3.0), ValueAtPercentile.create(99, 12.5))));
+
+  private static final Metric COUNTER =
+      metric(COUNTER_DESCRIPTOR, LABEL_VALUES, Value.longValue(123));
+  private static final Metric HISTOGRAM =
+      metric(
+          HISTOGRAM_DESCRIPTOR,
+          Collections.singletonList(LabelValue.create("v1")),
+          Value.distributionValue(DISTRIBUTION));
+  private static final Metric GAUGE_HISTOGRAM =
+      metric(
+          GAUGE_HISTOGRAM_DESCRIPTOR,
+          Collections.<LabelValue>emptyList(),
+          Value.distributionValue(DISTRIBUTION));
+  private static final Metric SUMMARY_METRIC =
+      metric(SUMMARY_DESCRIPTOR, Collections.<LabelValue>emptyList(), Value.summaryValue(SUMMARY));
+
+  private final PrometheusTextWriter writer = new PrometheusTextWriter("");
+
+  @Test
+  public void writeCounter() {
+    assertThat(write(Collections.singletonList(COUNTER), Format.TEXT))
+        .isEqualTo(
+            "# HELP requests_total Number of requests\n"
+                + "# TYPE requests_total counter\n"
+                + "requests_total{k1=\"v1\",k_2=\"v2\"} 123\n");
+    assertThat(write(Collections.singletonList(COUNTER), Format.OPEN_METRICS))
+        .isEqualTo(
+            "# HELP requests Number of requests\n"
+                + "# TYPE requests counter\n"
+                + "requests_total{k1=\"v1\",k_2=\"v2\"} 123\n"
+                + "# EOF\n");
+  }
+
+  @Test
+  public void writeGauge_EscapesLabelValues() {
+    Metric gauge =
+        metric(
+            GAUGE_DESCRIPTOR,
+            Collections.singletonList(LabelValue.create("a\\b\"c\ndé€😀")),
+            Value.doubleValue(-1.5));
+    assertThat(write(Collections.singletonList(gauge), Format.TEXT))
+        .isEqualTo(
+            "# HELP queue_size Queue size\n"
+                + "# TYPE queue_size gauge\n"
+                + "queue_size{k1=\"a\\\\b\\\"c\\ndé€😀\"} -1.5\n");
+  }
+
+  @Test
+  public void writeGauge_NullLabelValue() {
+    Metric gauge =
+        metric(
+            GAUGE_DESCRIPTOR,
+            Collections.singletonList(LabelValue.create(null)),
+            Value.doubleValue(Double.NaN));
+    assertThat(write(Collections.singletonList(gauge), Format.TEXT))
+        .isEqualTo(
+            "# HELP queue_size Queue size\n"
+                + "# TYPE queue_size gauge\n"
+                + "queue_size{k1=\"\"} NaN\n");
+  }
+
+  @Test
+  public void writeHistogram() {
+    assertThat(write(Collections.singletonList(HISTOGRAM), Format.TEXT))
+        .isEqualTo(
+            "# HELP latency Latency\n"
+                + "# TYPE latency histogram\n"
+                + "latency_bucket{k1=\"v1\",le=\"1.0\"} 0\n"
+                + "latency_bucket{k1=\"v1\",le=\"2.0\"} 2\n"
+                + "latency_bucket{k1=\"v1\",le=\"5.0\"} 4\n"
+                + "latency_bucket{k1=\"v1\",le=\"+Inf\"} 5\n"
+                + "latency_count{k1=\"v1\"} 5\n"
+                + "latency_sum{k1=\"v1\"} 22.0\n");
+  }
+
+  @Test
+  public void writeGaugeHistogram() {
+    assertThat(write(Collections.singletonList(GAUGE_HISTOGRAM), Format.TEXT))
+        .isEqualTo(
+            "# HELP size Size\n"
+                + "# TYPE size histogram\n"
+                + "size_bucket{le=\"1.0\"} 0\n"
+                + "size_bucket{le=\"2.0\"} 2\n"
+                + "size_bucket{le=\"5.0\"} 4\n"
+                + "size_bucket{le=\"+Inf\"} 5\n"
+                + "size_count 5\n"
+                + "size_sum 22.0\n");
+    assertThat(write(Collections.singletonList(GAUGE_HISTOGRAM), Format.OPEN_METRICS))
+        .isEqualTo(
+            "# HELP size Size\n"
+                + "# TYPE size gaugehistogram\n"
+                + "size_bucket{le=\"1.0\"} 0\n"
+                + "size_bucket{le=\"2.0\"} 2\n"
+                + "size_bucket{le=\"5.0\"} 4\n"
+                + "size_bucket{le=\"+Inf\"} 5\n"
+                + "size_gcount 5\n"
+                + "size_gsum 22.0\n"
+                + "# EOF\n");
+  }
+
+  @Test
+  public void writeSummary() {
+    assertThat(write(Collections.singletonList(SUMMARY_METRIC), Format.TEXT))
+        .isEqualTo(
+            "# HELP rpc RPC latency\n"
+                + "# TYPE rpc summary\n"
+                + "rpc_count 22\n"
+                + "rpc_sum 74.8\n"
+                + "rpc{quantile=\"0.5\"} 3.0\n"
+                + "rpc{quantile=\"0.99\"} 12.5\n");
+  }
+
+  @Test
+  public void skipsDisallowedLabels() {
+    Metric leHistogram =
+        metric(
+            MetricDescriptor.create(
+                "latency",
+                "Latency",
+                "ms",
+                Type.CUMULATIVE_DISTRIBUTION,
+                Collections.singletonList(LabelKey.create("le", ""))),
+            Collections.singletonList(LabelValue.create("v1")),
+            Value.distributionValue(DISTRIBUTION));
+    assertThat(write(Arrays.asList(leHistogram, COUNTER), Format.TEXT))
+        .isEqualTo(write(Collections.singletonList(COUNTER), Format.TEXT));
+  }
+
+  @Test
+  public void writeWithNamespace() {
+    PrometheusTextWriter namespacedWriter = new PrometheusTextWriter("opencensus");
+    assertThat(
+            new String(
+                namespacedWriter.toByteArray(Collections.singletonList(COUNTER), Format.TEXT),
+                UTF_8))
+        .isEqualTo(
+            "# HELP opencensus_requests_total Number of requests\n"
+                + "# TYPE opencensus_requests_total counter\n"
+                + "opencensus_requests_total{k1=\"v1\",k_2=\"v2\"} 123\n");
+  }
+
+  @Test
+  public void writeIsRepeatable() throws IOException {
+    List<Metric> metrics = Arrays.asList(COUNTER, HISTOGRAM, SUMMARY_METRIC);
+    String expected = write(metrics, Format.TEXT);
+    // Drops the cached descriptors that are not exported.
+    write(Collections.singletonList(COUNTER), Format.TEXT);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.write(metrics, Format.TEXT, out);
+    assertThat(new String(out.toByteArray(), UTF_8)).isEqualTo(expected);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void labelValuesSizeMismatch() {
+    write(
+        Collections.singletonList(
+            metric(COUNTER_DESCRIPTOR, Collections.<LabelValue>emptyList(), Value.longValue(1))),
+        Format.TEXT);
+  }
+
+  private String write(Collection<Metric> metrics, Format format) {
+    return new String(writer.toByteArray(metrics, format), UTF_8);
+  }
+
+  private static Metric metric(
+      MetricDescriptor metricDescriptor, List<LabelValue> labelValues, Value value) {
+    return Metric.createWithOneTimeSeries(
+        metricDescriptor,
+        TimeSeries.createWithOnePoint(labelValues, Point.create(value, TIMESTAMP), null));
+  }
+}
@@ -37,6 +37,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,21 +49,23 @@ final class CreateTimeSeriesExporter extends MetricExporter {
 
   private final ProjectName projectName;
   private final MetricServiceClient metricServiceClient;
-  private final MonitoredResource monitoredResource;
-  private final String domain;
-  private final Map<LabelKey, LabelValue> constantLabels;
+  private final MetricConversionCache conversionCache;
+  // Sends the batches of an export concurrently, or null to send them one after the other.
+  @javax.annotation.Nullable private final ExecutorService requestExecutor;
 
   CreateTimeSeriesExporter(
       String projectId,
       MetricServiceClient metricServiceClient,
       MonitoredResource monitoredResource,
       @javax.annotation.Nullable String metricNamePrefix,
-      Map<LabelKey, LabelValue> constantLabels) {
+      Map<LabelKey, LabelValue> constantLabels,
+      @javax.annotation.Nullable ExecutorService requestExecutor) {
     projectName = ProjectName.newBuilder().setProject(projectId).build();
     this.metricServiceClient = metricServiceClient;
-    this.monitoredResource = monitoredResource;
-    this.domain = StackdriverExportUtils.getDomain(metricNamePrefix);
-    this.constantLabels = constantLabels;
+    this.conversionCache =
+        new MetricConversionCache(
+            monitoredResource, StackdriverExportUtils.getDomain(metricNamePrefix), constantLabels);
+    this.requestExecutor = requestExecutor;
   }
 
   @Override
@@ -69,36 +74,64 @@ final class CreateTimeSeriesExporter extends MetricExporter {
     for (Metric metric : metrics) {
       timeSeriesList.addAll(
           StackdriverExportUtils.createTimeSeriesList(
-              metric, monitoredResource, domain, projectName.getProject(), constantLabels));
+              metric, projectName.getProject(), conversionCache));
     }
 
-    Span span = tracer.getCurrentSpan();
-    for (List<TimeSeries> batchedTimeSeries :
-        Lists.partition(timeSeriesList, MAX_BATCH_EXPORT_SIZE)) {
-      span.addAnnotation("Export Stackdriver TimeSeries.");
-      try {
-        CreateTimeSeriesRequest request =
-            CreateTimeSeriesRequest.newBuilder()
-                .setName(projectName.toString())
-                .addAllTimeSeries(batchedTimeSeries)
-                .build();
-        metricServiceClient.createTimeSeries(request);
-        span.addAnnotation("Finish exporting TimeSeries.");
-      } catch (ApiException e) {
-        logger.log(Level.WARNING, "ApiException thrown when exporting TimeSeries.", e);
-        span.setStatus(
-            Status.CanonicalCode.valueOf(e.getStatusCode().getCode().name())
-                .toStatus()
-                .withDescription(
-                    "ApiException thrown when exporting TimeSeries: "
-                        + StackdriverExportUtils.exceptionMessage(e)));
-      } catch (Throwable e) {
-        logger.log(Level.WARNING, "Exception thrown when exporting TimeSeries.", e);
-        span.setStatus(
-            Status.UNKNOWN.withDescription(
-                "Exception thrown when exporting TimeSeries: "
-                    + StackdriverExportUtils.exceptionMessage(e)));
+    final Span span = tracer.getCurrentSpan();
+    List<List<TimeSeries>> batches = Lists.partition(timeSeriesList, MAX_BATCH_EXPORT_SIZE);
+    if (requestExecutor == null || batches.size() < 2) {
+      for (List<TimeSeries> batchedTimeSeries : batches) {
+        createTimeSeries(span, batchedTimeSeries);
       }
+      return;
+    }
+    List<Callable<Void>> requests = new ArrayList<>(batches.size());
+    for (final List<TimeSeries> batchedTimeSeries : batches) {
+      requests.add(
+          new Callable<Void>() {
+            @Override
+            public Void call() {
+              createTimeSeries(span, batchedTimeSeries);
+              return null;
+            }
+          });
+    }
+    try {
+      // Waits for all the requests, the next export must not overlap with this one.
+      requestExecutor.invokeAll(requests);
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted when exporting TimeSeries.", e);
+      Thread.currentThread().interrupt();
+    } catch (RejectedExecutionException e) {
+      // The exporter is being unregistered.
+      logger.log(Level.WARNING, "Exception thrown when exporting TimeSeries.", e);
+    }
+  }
+
+  private void createTimeSeries(Span span, List<TimeSeries> batchedTimeSeries) {
+    span.addAnnotation("Export Stackdriver TimeSeries.");
+    try {
+      CreateTimeSeriesRequest request =
+          CreateTimeSeriesRequest.newBuilder()
+              .setName(projectName.toString())
+              .addAllTimeSeries(batchedTimeSeries)
+              .build();
+      metricServiceClient.createTimeSeries(request);
+      span.addAnnotation("Finish exporting TimeSeries.");
+    } catch (ApiException e) {
+      logger.log(Level.WARNING, "ApiException thrown when exporting TimeSeries.", e);
+      span.setStatus(
+          Status.CanonicalCode.valueOf(e.getStatusCode().getCode().name())
+              .toStatus()
+              .withDescription(
+                  "ApiException thrown when exporting TimeSeries: "
+                      + StackdriverExportUtils.exceptionMessage(e)));
+    } catch (Throwable e) {
+      logger.log(Level.WARNING, "Exception thrown when exporting TimeSeries.", e);
+      span.setStatus(
+          Status.UNKNOWN.withDescription(
+              "Exception thrown when exporting TimeSeries: "
+                  + StackdriverExportUtils.exceptionMessage(e)));
     }
   }
 }
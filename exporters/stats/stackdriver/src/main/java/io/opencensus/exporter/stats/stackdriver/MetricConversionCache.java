@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.stackdriver;
+
+import com.google.api.Metric;
+import com.google.api.MonitoredResource;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.monitoring.v3.TimeSeries;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.MetricDescriptor;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Caches the Stackdriver protos that only depend on the metric descriptors and the label values of
+ * the time series, which mostly stay the same from one export to the next.
+ *
+ * <p>The monitored resource, domain and constant labels are the same for all the metrics of an
+ * exporter, so they are given once to the cache.
+ */
+@ThreadSafe
+final class MetricConversionCache {
+
+  @VisibleForTesting static final int DEFAULT_MAX_METRIC_DESCRIPTORS = 1000;
+  @VisibleForTesting static final int DEFAULT_MAX_TIME_SERIES = 10000;
+
+  private final MonitoredResource monitoredResource;
+  private final String domain;
+  private final Map<LabelKey, LabelValue> constantLabels;
+  // The TimeSeries without metric nor points, shared by all the time series of a metric.
+  private final Cache<MetricDescriptor, TimeSeries> sharedTimeSeries;
+  private final Cache<MetricKey, Metric> metrics;
+
+  MetricConversionCache(
+      MonitoredResource monitoredResource,
+      String domain,
+      Map<LabelKey, LabelValue> constantLabels) {
+    this(
+        monitoredResource,
+        domain,
+        constantLabels,
+        DEFAULT_MAX_METRIC_DESCRIPTORS,
+        DEFAULT_MAX_TIME_SERIES);
+  }
+
+  @VisibleForTesting
+  MetricConversionCache(
+      MonitoredResource monitoredResource,
+      String domain,
+      Map<LabelKey, LabelValue> constantLabels,
+      int maxMetricDescriptors,
+      int maxTimeSeries) {
+    this.monitoredResource = monitoredResource;
+    this.domain = domain;
+    this.constantLabels = constantLabels;
+    this.sharedTimeSeries = CacheBuilder.newBuilder().maximumSize(maxMetricDescriptors).build();
+    this.metrics = CacheBuilder.newBuilder().maximumSize(maxTimeSeries).build();
+  }
+
+  TimeSeries getSharedTimeSeries(MetricDescriptor metricDescriptor) {
+    TimeSeries timeSeries = sharedTimeSeries.getIfPresent(metricDescriptor);
+    if (timeSeries == null) {
+      timeSeries =
+          TimeSeries.newBuilder()
+              .setMetricKind(StackdriverExportUtils.createMetricKind(metricDescriptor.getType()))
+              .setResource(monitoredResource)
+              .setValueType(StackdriverExportUtils.createValueType(metricDescriptor.getType()))
+              .build();
+      sharedTimeSeries.put(metricDescriptor, timeSeries);
+    }
+    return timeSeries;
+  }
+
+  Metric getMetric(MetricDescriptor metricDescriptor, List<LabelValue> labelValues) {
+    MetricKey key = new MetricKey(metricDescriptor, labelValues);
+    Metric metric = metrics.getIfPresent(key);
+    if (metric == null) {
+      metric =
+          StackdriverExportUtils.createMetric(
+              metricDescriptor, labelValues, domain, constantLabels);
+      metrics.put(key, metric);
+    }
+    return metric;
+  }
+
+  @VisibleForTesting
+  int getMetricCount() {
+    return (int) metrics.size();
+  }
+
+  private static final class MetricKey {
+    private final MetricDescriptor metricDescriptor;
+    private final List<LabelValue> labelValues;
+    private final int hashCode;
+
+    private MetricKey(MetricDescriptor metricDescriptor, List<LabelValue> labelValues) {
+      this.metricDescriptor = metricDescriptor;
+      this.labelValues = labelValues;
+      this.hashCode = 31 * metricDescriptor.hashCode() + labelValues.hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MetricKey)) {
+        return false;
+      }
+      MetricKey that = (MetricKey) obj;
+      return hashCode == that.hashCode
+          && metricDescriptor.equals(that.metricDescriptor)
+          && labelValues.equals(that.labelValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -290,7 +290,17 @@ final class StackdriverExportUtils {
       String domain,
       String projectId,
       Map<LabelKey, LabelValue> constantLabels) {
-    List<TimeSeries> timeSeriesList = Lists.newArrayList();
+    return createTimeSeriesList(
+        metric, projectId, new MetricConversionCache(monitoredResource, domain, constantLabels));
+  }
+
+  // Convert metric's timeseries to a list of TimeSeries, re-using the protos of the cache that
+  // only depend on the metric descriptor and label values.
+  static List<TimeSeries> createTimeSeriesList(
+      io.opencensus.metrics.export.Metric metric,
+      String projectId,
+      MetricConversionCache conversionCache) {
+    List<TimeSeries> timeSeriesList = new ArrayList<>(metric.getTimeSeriesList().size());
     io.opencensus.metrics.export.MetricDescriptor metricDescriptor = metric.getMetricDescriptor();
 
     if (!projectId.equals(cachedProjectIdForExemplar)) {
@@ -298,17 +308,13 @@ final class StackdriverExportUtils {
     }
 
     // Shared fields for all TimeSeries generated from the same Metric
-    TimeSeries.Builder shared = TimeSeries.newBuilder();
-    shared.setMetricKind(createMetricKind(metricDescriptor.getType()));
-    shared.setResource(monitoredResource);
-    shared.setValueType(createValueType(metricDescriptor.getType()));
+    TimeSeries shared = conversionCache.getSharedTimeSeries(metricDescriptor);
 
     // Each entry in timeSeriesList will be converted into an independent TimeSeries object
     for (io.opencensus.metrics.export.TimeSeries timeSeries : metric.getTimeSeriesList()) {
       // TODO(mayurkale): Consider using setPoints instead of builder clone and addPoints.
-      TimeSeries.Builder builder = shared.clone();
-      builder.setMetric(
-          createMetric(metricDescriptor, timeSeries.getLabelValues(), domain, constantLabels));
+      TimeSeries.Builder builder = shared.toBuilder();
+      builder.setMetric(conversionCache.getMetric(metricDescriptor, timeSeries.getLabelValues()));
 
       io.opencensus.common.Timestamp startTimeStamp = timeSeries.getStartTimestamp();
       for (io.opencensus.metrics.export.Point point : timeSeries.getPoints()) {
@@ -49,6 +49,7 @@ public abstract class StackdriverStatsConfiguration {
   static final String DEFAULT_PROJECT_ID =
       Strings.nullToEmpty(ServiceOptions.getDefaultProjectId());
   static final Duration DEFAULT_DEADLINE = Duration.create(60, 0);
+  static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 1;
 
   StackdriverStatsConfiguration() {}
 
@@ -122,6 +123,17 @@ public abstract class StackdriverStatsConfiguration {
   @Nullable
   public abstract MetricServiceStub getMetricServiceStub();
 
+  /**
+   * Returns the max number of CreateTimeSeries requests sent concurrently. The time series of an
+   * export are sent in batches of at most 200, one batch after the other by default.
+   *
+   * <p>Default value is 1.
+   *
+   * @return the max number of CreateTimeSeries requests sent concurrently.
+   * @since 0.24
+   */
+  public abstract int getMaxConcurrentRequests();
+
   /**
    * Returns a new {@link Builder}.
    *
@@ -134,7 +146,8 @@ public abstract class StackdriverStatsConfiguration {
         .setConstantLabels(DEFAULT_CONSTANT_LABELS)
         .setExportInterval(DEFAULT_INTERVAL)
         .setMonitoredResource(DEFAULT_RESOURCE)
-        .setDeadline(DEFAULT_DEADLINE);
+        .setDeadline(DEFAULT_DEADLINE)
+        .setMaxConcurrentRequests(DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   /**
@@ -240,12 +253,23 @@ public abstract class StackdriverStatsConfiguration {
      */
     public abstract Builder setMetricServiceStub(MetricServiceStub stub);
 
+    /**
+     * Sets the max number of CreateTimeSeries requests sent concurrently.
+     *
+     * @param maxConcurrentRequests the max number of CreateTimeSeries requests sent concurrently.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setMaxConcurrentRequests(int maxConcurrentRequests);
+
     abstract String getProjectId();
 
     abstract Map<LabelKey, LabelValue> getConstantLabels();
 
     abstract Duration getDeadline();
 
+    abstract int getMaxConcurrentRequests();
+
     abstract StackdriverStatsConfiguration autoBuild();
 
     /**
@@ -267,6 +291,8 @@ public abstract class StackdriverStatsConfiguration {
         Preconditions.checkNotNull(constantLabel.getValue(), "constant label value");
       }
       Preconditions.checkArgument(getDeadline().compareTo(ZERO) > 0, "Deadline must be positive.");
+      Preconditions.checkArgument(
+          getMaxConcurrentRequests() > 0, "Max concurrent requests must be positive.");
       return autoBuild();
     }
   }
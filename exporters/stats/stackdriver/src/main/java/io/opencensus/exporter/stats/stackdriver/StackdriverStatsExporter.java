@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static io.opencensus.exporter.stats.stackdriver.StackdriverExportUtils.DEFAULT_CONSTANT_LABELS;
 import static io.opencensus.exporter.stats.stackdriver.StackdriverStatsConfiguration.DEFAULT_DEADLINE;
+import static io.opencensus.exporter.stats.stackdriver.StackdriverStatsConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS;
 import static io.opencensus.exporter.stats.stackdriver.StackdriverStatsConfiguration.DEFAULT_PROJECT_ID;
 import static io.opencensus.exporter.stats.stackdriver.StackdriverStatsConfiguration.DEFAULT_RESOURCE;
 
@@ -36,6 +37,7 @@ import com.google.cloud.monitoring.v3.MetricServiceClient;
 import com.google.cloud.monitoring.v3.MetricServiceSettings;
 import com.google.cloud.monitoring.v3.stub.MetricServiceStub;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opencensus.common.Duration;
 import io.opencensus.common.OpenCensusLibraryInformation;
 import io.opencensus.exporter.metrics.util.IntervalMetricReader;
@@ -45,6 +47,8 @@ import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.Metrics;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
@@ -87,6 +91,7 @@ public final class StackdriverStatsExporter {
       FixedHeaderProvider.create(USER_AGENT_KEY, USER_AGENT);
 
   private final IntervalMetricReader intervalMetricReader;
+  @Nullable private final ExecutorService requestExecutor;
 
   private StackdriverStatsExporter(
       String projectId,
@@ -94,7 +99,20 @@ public final class StackdriverStatsExporter {
       Duration exportInterval,
       MonitoredResource monitoredResource,
       @Nullable String metricNamePrefix,
-      Map<LabelKey, LabelValue> constantLabels) {
+      Map<LabelKey, LabelValue> constantLabels,
+      int maxConcurrentRequests) {
+    // Checked before the MetricReader is created with the interval as producer timeout.
+    checkArgument(
+        exportInterval.compareTo(Duration.create(0, 0)) > 0, "Export interval must be positive");
+    requestExecutor =
+        maxConcurrentRequests > 1
+            ? Executors.newFixedThreadPool(
+                maxConcurrentRequests,
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("StackdriverCreateTimeSeries-%d")
+                    .build())
+            : null;
     IntervalMetricReader.Options.Builder intervalMetricReaderOptionsBuilder =
         IntervalMetricReader.Options.builder();
     intervalMetricReaderOptionsBuilder.setExportInterval(exportInterval);
@@ -110,12 +128,14 @@ public final class StackdriverStatsExporter {
                     metricServiceClient,
                     monitoredResource,
                     metricNamePrefix,
-                    constantLabels)),
+                    constantLabels,
+                    requestExecutor)),
             MetricReader.create(
                 MetricReader.Options.builder()
                     .setMetricProducerManager(
                         Metrics.getExportComponent().getMetricProducerManager())
                     .setSpanName(EXPORTER_SPAN_NAME)
+                    .setProducerTimeout(exportInterval)
                     .build()),
             intervalMetricReaderOptionsBuilder.build());
   }
@@ -147,7 +167,8 @@ public final class StackdriverStatsExporter {
         null,
         DEFAULT_CONSTANT_LABELS,
         DEFAULT_DEADLINE,
-        null);
+        null,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   /**
@@ -185,7 +206,8 @@ public final class StackdriverStatsExporter {
         null,
         DEFAULT_CONSTANT_LABELS,
         DEFAULT_DEADLINE,
-        null);
+        null,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   /**
@@ -226,7 +248,8 @@ public final class StackdriverStatsExporter {
         configuration.getMetricNamePrefix(),
         configuration.getConstantLabels(),
         configuration.getDeadline(),
-        configuration.getMetricServiceStub());
+        configuration.getMetricServiceStub(),
+        configuration.getMaxConcurrentRequests());
   }
 
   /**
@@ -293,7 +316,8 @@ public final class StackdriverStatsExporter {
         null,
         DEFAULT_CONSTANT_LABELS,
         DEFAULT_DEADLINE,
-        null);
+        null,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   /**
@@ -330,7 +354,8 @@ public final class StackdriverStatsExporter {
         null,
         DEFAULT_CONSTANT_LABELS,
         DEFAULT_DEADLINE,
-        null);
+        null,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   /**
@@ -367,7 +392,8 @@ public final class StackdriverStatsExporter {
         null,
         DEFAULT_CONSTANT_LABELS,
         DEFAULT_DEADLINE,
-        null);
+        null,
+        DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   // Use createInternal() (instead of constructor) to enforce singleton.
@@ -379,7 +405,8 @@ public final class StackdriverStatsExporter {
       @Nullable String metricNamePrefix,
       Map<LabelKey, LabelValue> constantLabels,
       Duration deadline,
-      @Nullable MetricServiceStub stub)
+      @Nullable MetricServiceStub stub,
+      int maxConcurrentRequests)
       throws IOException {
     synchronized (monitor) {
       checkState(instance == null, "Stackdriver stats exporter is already created.");
@@ -394,7 +421,8 @@ public final class StackdriverStatsExporter {
               exportInterval,
               monitoredResource,
               metricNamePrefix,
-              constantLabels);
+              constantLabels,
+              maxConcurrentRequests);
     }
   }
 
@@ -433,6 +461,9 @@ public final class StackdriverStatsExporter {
     synchronized (monitor) {
       if (instance != null) {
         instance.intervalMetricReader.stop();
+        if (instance.requestExecutor != null) {
+          instance.requestExecutor.shutdown();
+        }
       }
       instance = null;
     }
@@ -41,6 +41,8 @@ import io.opencensus.metrics.export.Value;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -105,7 +107,8 @@ public class CreateTimeSeriesExporterTest {
             new FakeMetricServiceClient(mockStub),
             DEFAULT_RESOURCE,
             null,
-            DEFAULT_CONSTANT_LABELS);
+            DEFAULT_CONSTANT_LABELS,
+            null);
     exporter.export(Collections.singletonList(METRIC));
     verify(mockStub, times(1)).createTimeSeriesCallable();
 
@@ -134,7 +137,8 @@ public class CreateTimeSeriesExporterTest {
             new FakeMetricServiceClient(mockStub),
             DEFAULT_RESOURCE,
             null,
-            DEFAULT_CONSTANT_LABELS);
+            DEFAULT_CONSTANT_LABELS,
+            null);
     final int numExportedTimeSeries = 4 * StackdriverExportUtils.MAX_BATCH_EXPORT_SIZE;
     ArrayList<Metric> exportedMetrics = new ArrayList<>(numExportedTimeSeries);
     for (int i = 0; i < numExportedTimeSeries; i++) {
@@ -144,6 +148,31 @@ public class CreateTimeSeriesExporterTest {
     verify(mockStub, times(4)).createTimeSeriesCallable();
   }
 
+  @Test
+  public void splitInMultipleBatches_SentConcurrently() {
+    ExecutorService requestExecutor = Executors.newFixedThreadPool(4);
+    try {
+      CreateTimeSeriesExporter exporter =
+          new CreateTimeSeriesExporter(
+              PROJECT_ID,
+              new FakeMetricServiceClient(mockStub),
+              DEFAULT_RESOURCE,
+              null,
+              DEFAULT_CONSTANT_LABELS,
+              requestExecutor);
+      final int numExportedTimeSeries = 4 * StackdriverExportUtils.MAX_BATCH_EXPORT_SIZE;
+      ArrayList<Metric> exportedMetrics = new ArrayList<>(numExportedTimeSeries);
+      for (int i = 0; i < numExportedTimeSeries; i++) {
+        exportedMetrics.add(METRIC);
+      }
+      exporter.export(exportedMetrics);
+      // All the batches are sent when export returns.
+      verify(mockCreateTimeSeriesCallable, times(4)).call(any(CreateTimeSeriesRequest.class));
+    } finally {
+      requestExecutor.shutdown();
+    }
+  }
+
   @Test
   public void doNotExportForEmptyMetrics() {
     CreateTimeSeriesExporter exporter =
@@ -152,7 +181,8 @@ public class CreateTimeSeriesExporterTest {
             new FakeMetricServiceClient(mockStub),
             DEFAULT_RESOURCE,
             null,
-            DEFAULT_CONSTANT_LABELS);
+            DEFAULT_CONSTANT_LABELS,
+            null);
     exporter.export(Collections.<Metric>emptyList());
     verify(mockStub, times(0)).createTimeSeriesCallable();
   }
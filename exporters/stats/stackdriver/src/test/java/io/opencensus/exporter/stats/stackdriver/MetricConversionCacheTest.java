@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.stats.stackdriver;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.opencensus.exporter.stats.stackdriver.StackdriverExportUtils.CUSTOM_OPENCENSUS_DOMAIN;
+import static io.opencensus.exporter.stats.stackdriver.StackdriverExportUtils.DEFAULT_CONSTANT_LABELS;
+
+import com.google.api.Metric;
+import com.google.api.MetricDescriptor.MetricKind;
+import com.google.api.MonitoredResource;
+import com.google.monitoring.v3.TimeSeries;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MetricConversionCache}. */
+@RunWith(JUnit4.class)
+public class MetricConversionCacheTest {
+  private static final MonitoredResource RESOURCE =
+      MonitoredResource.newBuilder().setType("global").build();
+  private static final MetricDescriptor METRIC_DESCRIPTOR =
+      MetricDescriptor.create(
+          "my metric",
+          "metric description",
+          "us",
+          Type.CUMULATIVE_INT64,
+          Collections.singletonList(LabelKey.create("KEY", "key description")));
+  private static final List<LabelValue> LABEL_VALUE =
+      Collections.singletonList(LabelValue.create("VALUE"));
+  private static final List<LabelValue> LABEL_VALUE_2 =
+      Collections.singletonList(LabelValue.create("VALUE2"));
+
+  private final MetricConversionCache cache =
+      new MetricConversionCache(RESOURCE, CUSTOM_OPENCENSUS_DOMAIN, DEFAULT_CONSTANT_LABELS, 10, 2);
+
+  @Test
+  public void getMetric_ReusesConvertedMetric() {
+    Metric metric = cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE);
+    assertThat(metric)
+        .isEqualTo(
+            StackdriverExportUtils.createMetric(
+                METRIC_DESCRIPTOR, LABEL_VALUE, CUSTOM_OPENCENSUS_DOMAIN, DEFAULT_CONSTANT_LABELS));
+    assertThat(
+            cache.getMetric(
+                METRIC_DESCRIPTOR, Collections.singletonList(LabelValue.create("VALUE"))))
+        .isSameInstanceAs(metric);
+    assertThat(cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE_2)).isNotEqualTo(metric);
+  }
+
+  @Test
+  public void getMetric_EvictsLeastRecentlyUsed() {
+    Metric metric = cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE);
+    cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE_2);
+    cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE);
+    cache.getMetric(METRIC_DESCRIPTOR, Collections.singletonList(LabelValue.create("VALUE3")));
+    assertThat(cache.getMetricCount()).isEqualTo(2);
+    // LABEL_VALUE was used more recently than LABEL_VALUE_2.
+    assertThat(cache.getMetric(METRIC_DESCRIPTOR, LABEL_VALUE)).isSameInstanceAs(metric);
+  }
+
+  @Test
+  public void getSharedTimeSeries() {
+    TimeSeries timeSeries = cache.getSharedTimeSeries(METRIC_DESCRIPTOR);
+    assertThat(timeSeries)
+        .isEqualTo(
+            TimeSeries.newBuilder()
+                .setMetricKind(MetricKind.CUMULATIVE)
+                .setValueType(com.google.api.MetricDescriptor.ValueType.INT64)
+                .setResource(RESOURCE)
+                .build());
+    assertThat(cache.getSharedTimeSeries(METRIC_DESCRIPTOR)).isSameInstanceAs(timeSeries);
+  }
+}
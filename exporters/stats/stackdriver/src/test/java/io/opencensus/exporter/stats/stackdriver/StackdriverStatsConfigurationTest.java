@@ -78,6 +78,7 @@ public class StackdriverStatsConfigurationTest {
             .setConstantLabels(Collections.<LabelKey, LabelValue>emptyMap())
             .setDeadline(DURATION)
             .setMetricServiceStub(mockStub)
+            .setMaxConcurrentRequests(4)
             .build();
     assertThat(configuration.getCredentials()).isEqualTo(FAKE_CREDENTIALS);
     assertThat(configuration.getProjectId()).isEqualTo(PROJECT_ID);
@@ -87,6 +88,7 @@ public class StackdriverStatsConfigurationTest {
     assertThat(configuration.getConstantLabels()).isEmpty();
     assertThat(configuration.getDeadline()).isEqualTo(DURATION);
     assertThat(configuration.getMetricServiceStub()).isEqualTo(mockStub);
+    assertThat(configuration.getMaxConcurrentRequests()).isEqualTo(4);
   }
 
   @Test
@@ -106,6 +108,8 @@ public class StackdriverStatsConfigurationTest {
     assertThat(configuration.getConstantLabels()).isEqualTo(DEFAULT_CONSTANT_LABELS);
     assertThat(configuration.getDeadline()).isEqualTo(DEFAULT_DEADLINE);
     assertThat(configuration.getMetricServiceStub()).isNull();
+    assertThat(configuration.getMaxConcurrentRequests())
+        .isEqualTo(StackdriverStatsConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS);
   }
 
   @Test
@@ -214,4 +218,13 @@ public class StackdriverStatsConfigurationTest {
     thrown.expect(IllegalArgumentException.class);
     builder.build();
   }
+
+  @Test
+  public void disallowNonPositiveMaxConcurrentRequests() {
+    StackdriverStatsConfiguration.Builder builder =
+        StackdriverStatsConfiguration.builder().setProjectId("test");
+    builder.setMaxConcurrentRequests(0);
+    thrown.expect(IllegalArgumentException.class);
+    builder.build();
+  }
 }
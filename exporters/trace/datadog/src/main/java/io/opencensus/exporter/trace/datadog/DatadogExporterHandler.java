@@ -22,6 +22,7 @@ import com.google.gson.GsonBuilder;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.trace.util.HttpTransport;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.trace.AttributeValue;
 import io.opencensus.trace.SpanContext;
@@ -29,11 +30,11 @@ import io.opencensus.trace.SpanId;
 import io.opencensus.trace.Status;
 import io.opencensus.trace.Tracing;
 import io.opencensus.trace.export.SpanData;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -57,14 +58,20 @@ final class DatadogExporterHandler extends TimeLimitedHandler {
           .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
           .create();
 
-  private final URL agentEndpoint;
+  private final HttpTransport transport;
   private final String service;
   private final String type;
 
-  DatadogExporterHandler(String agentEndpoint, String service, String type, Duration deadline)
+  DatadogExporterHandler(
+      String agentEndpoint, String service, String type, Duration deadline, boolean gzipRequests)
       throws MalformedURLException {
     super(deadline, EXPORT_SPAN_NAME);
-    this.agentEndpoint = new URL(agentEndpoint);
+    this.transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(new URL(agentEndpoint))
+                .setGzip(gzipRequests)
+                .setReadTimeout(deadline)
+                .build());
     this.service = service;
     this.type = type;
   }
@@ -113,6 +120,10 @@ final class DatadogExporterHandler extends TimeLimitedHandler {
   }
 
   String convertToJson(Collection<SpanData> spanDataList) {
+    return gson.toJson(convertToTraces(spanDataList));
+  }
+
+  private Collection<List<DatadogSpan>> convertToTraces(Collection<SpanData> spanDataList) {
     final ArrayList<DatadogSpan> datadogSpans = new ArrayList<>();
     for (SpanData sd : spanDataList) {
       SpanContext sc = sd.getContext();
@@ -150,28 +161,19 @@ final class DatadogExporterHandler extends TimeLimitedHandler {
       datadogSpans.add(span);
     }
 
-    final Collection<List<DatadogSpan>> traces =
-        datadogSpans.stream()
-            .collect(Collectors.groupingBy(DatadogSpan::getTraceId, Collectors.toList()))
-            .values();
-
-    return gson.toJson(traces);
+    return datadogSpans.stream()
+        .collect(Collectors.groupingBy(DatadogSpan::getTraceId, Collectors.toList()))
+        .values();
   }
 
   @Override
   public void timeLimitedExport(Collection<SpanData> spanDataList) throws Exception {
-    final String data = convertToJson(spanDataList);
-
-    final HttpURLConnection connection = (HttpURLConnection) agentEndpoint.openConnection();
-    connection.setRequestMethod("POST");
-    connection.setRequestProperty("Content-Type", "application/json");
-    connection.setDoOutput(true);
-    OutputStream outputStream = connection.getOutputStream();
-    outputStream.write(data.getBytes(Charset.defaultCharset()));
-    outputStream.flush();
-    outputStream.close();
-    if (connection.getResponseCode() != 200) {
-      throw new Exception("Response " + connection.getResponseCode());
-    }
+    final Collection<List<DatadogSpan>> traces = convertToTraces(spanDataList);
+    transport.send(
+        outputStream -> {
+          Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+          gson.toJson(traces, writer);
+          writer.flush();
+        });
   }
 }
@@ -70,6 +70,17 @@ public abstract class DatadogTraceConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns whether the requests sent to the Datadog agent are gzip compressed. Only enable it if
+   * the agent accepts gzip compressed request bodies.
+   *
+   * <p>Default value is false.
+   *
+   * @return whether the requests are gzip compressed.
+   * @since 0.24
+   */
+  public abstract boolean getGzipRequests();
+
   /**
    * Return a new {@link Builder}.
    *
@@ -77,7 +88,9 @@ public abstract class DatadogTraceConfiguration {
    * @since 0.19
    */
   public static Builder builder() {
-    return new AutoValue_DatadogTraceConfiguration.Builder().setDeadline(DEFAULT_DEADLINE);
+    return new AutoValue_DatadogTraceConfiguration.Builder()
+        .setDeadline(DEFAULT_DEADLINE)
+        .setGzipRequests(false);
   }
 
   /**
@@ -126,6 +139,15 @@ public abstract class DatadogTraceConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets whether the requests sent to the Datadog agent are gzip compressed.
+     *
+     * @param gzipRequests whether the requests are gzip compressed.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setGzipRequests(boolean gzipRequests);
+
     abstract Duration getDeadline();
 
     abstract DatadogTraceConfiguration autoBuild();
@@ -72,7 +72,12 @@ public final class DatadogTraceExporter {
       String type = configuration.getType();
 
       final DatadogExporterHandler exporterHandler =
-          new DatadogExporterHandler(agentEndpoint, service, type, configuration.getDeadline());
+          new DatadogExporterHandler(
+              agentEndpoint,
+              service,
+              type,
+              configuration.getDeadline(),
+              configuration.getGzipRequests());
       handler = exporterHandler;
       Tracing.getExportComponent()
           .getSpanExporter()
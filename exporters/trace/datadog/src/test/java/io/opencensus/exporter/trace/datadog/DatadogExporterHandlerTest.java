@@ -58,7 +58,7 @@ public class DatadogExporterHandlerTest {
   @Before
   public void setup() throws Exception {
     this.handler =
-        new DatadogExporterHandler("http://localhost", "service", "web", DEFAULT_DEADLINE);
+        new DatadogExporterHandler("http://localhost", "service", "web", DEFAULT_DEADLINE, false);
   }
 
   @Test
@@ -35,6 +35,7 @@ public abstract class ElasticsearchTraceConfiguration {
 
   @VisibleForTesting static final Duration DEFAULT_DEADLINE = Duration.create(10, 0);
   @VisibleForTesting static final Duration ZERO = Duration.fromMillis(0);
+  @VisibleForTesting static final int DEFAULT_MAX_BULK_BYTES = 5 * 1024 * 1024;
 
   /**
    * Returns a new {@link Builder}.
@@ -43,7 +44,10 @@ public abstract class ElasticsearchTraceConfiguration {
    * @since 0.20.0
    */
   public static Builder builder() {
-    return new AutoValue_ElasticsearchTraceConfiguration.Builder().setDeadline(DEFAULT_DEADLINE);
+    return new AutoValue_ElasticsearchTraceConfiguration.Builder()
+        .setDeadline(DEFAULT_DEADLINE)
+        .setMaxBulkBytes(DEFAULT_MAX_BULK_BYTES)
+        .setGzipRequests(false);
   }
 
   /**
@@ -106,6 +110,29 @@ public abstract class ElasticsearchTraceConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns the maximum size in bytes of a request to the Elasticsearch bulk API. A span that does
+   * not fit in a request is sent in the next one, so a request only exceeds this size if it has a
+   * single span larger than it.
+   *
+   * <p>Default value is 5 MiB.
+   *
+   * @return the maximum size of the bulk requests.
+   * @since 0.24
+   */
+  public abstract int getMaxBulkBytes();
+
+  /**
+   * Returns whether the requests sent to Elasticsearch are gzip compressed. Only enable it if the
+   * cluster accepts gzip compressed request bodies.
+   *
+   * <p>Default value is false.
+   *
+   * @return whether the requests are gzip compressed.
+   * @since 0.24
+   */
+  public abstract boolean getGzipRequests();
+
   /**
    * Builds a {@link ElasticsearchTraceConfiguration}.
    *
@@ -181,6 +208,24 @@ public abstract class ElasticsearchTraceConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets the maximum size in bytes of a request to the Elasticsearch bulk API.
+     *
+     * @param maxBulkBytes the maximum size of the bulk requests.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setMaxBulkBytes(int maxBulkBytes);
+
+    /**
+     * Sets whether the requests sent to Elasticsearch are gzip compressed.
+     *
+     * @param gzipRequests whether the requests are gzip compressed.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setGzipRequests(boolean gzipRequests);
+
     /**
      * Builder for {@link ElasticsearchTraceConfiguration}.
      *
@@ -201,6 +246,9 @@ public abstract class ElasticsearchTraceConfiguration {
       Preconditions.checkArgument(
           elasticsearchTraceConfiguration.getDeadline().compareTo(ZERO) > 0,
           "Deadline must be positive.");
+      Preconditions.checkArgument(
+          elasticsearchTraceConfiguration.getMaxBulkBytes() > 0,
+          "Max bulk bytes must be positive.");
       return elasticsearchTraceConfiguration;
     }
   }
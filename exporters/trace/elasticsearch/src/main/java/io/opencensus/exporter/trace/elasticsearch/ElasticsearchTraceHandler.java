@@ -17,40 +17,68 @@
 package io.opencensus.exporter.trace.elasticsearch;
 
 import com.google.common.io.BaseEncoding;
+import io.opencensus.exporter.trace.util.HttpTransport;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.trace.export.SpanData;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.Collection;
-import java.util.List;
-import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Exports spans with the Elasticsearch bulk API. Spans are encoded straight into a reusable buffer
+ * as newline-delimited JSON, and a request is sent whenever the buffer reaches the configured size.
+ */
 final class ElasticsearchTraceHandler extends TimeLimitedHandler {
 
-  private final ElasticsearchTraceConfiguration elasticsearchTraceConfiguration;
-  private final String appName;
-  private final URL indexUrl;
-  private static final String CONTENT_TYPE = "application/json";
-  private static final String REQUEST_METHOD = "POST";
-  private static final int CONNECTION_TIMEOUT_MILLISECONDS = 6000;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String CONTENT_TYPE = "application/x-ndjson";
   private static final String EXPORT_SPAN_NAME = "ExportElasticsearchTraces";
+  // Only asks for whether any document failed, rather than a result for each document.
+  private static final String BULK_PATH = "/_bulk?filter_path=errors";
+  private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+  private final String appName;
+  private final HttpTransport transport;
+  private final byte[] bulkIndexAction;
+  private final int maxBulkBytes;
+  // The buffer is taken by an export and given back when it completes. An export that times out
+  // may still be running when the next one starts, which then allocates its own buffer.
+  private final AtomicReference<JsonBuffer> reusableBuffer = new AtomicReference<JsonBuffer>();
 
   ElasticsearchTraceHandler(ElasticsearchTraceConfiguration elasticsearchTraceConfiguration)
       throws MalformedURLException {
     super(elasticsearchTraceConfiguration.getDeadline(), EXPORT_SPAN_NAME);
-    this.elasticsearchTraceConfiguration = elasticsearchTraceConfiguration;
-    StringBuilder sb = new StringBuilder();
-    sb.append(elasticsearchTraceConfiguration.getElasticsearchUrl()).append("/");
-    sb.append(elasticsearchTraceConfiguration.getElasticsearchIndex()).append("/");
-    sb.append(elasticsearchTraceConfiguration.getElasticsearchType()).append("/");
-    indexUrl = new URL(sb.toString());
     appName = elasticsearchTraceConfiguration.getAppName();
+    String userName = elasticsearchTraceConfiguration.getUserName();
+    Map<String, String> headers =
+        userName == null
+            ? Collections.<String, String>emptyMap()
+            : Collections.singletonMap(
+                "Authorization",
+                "Basic "
+                    + BaseEncoding.base64()
+                        .encode(
+                            (userName + ":" + elasticsearchTraceConfiguration.getPassword())
+                                .getBytes(UTF_8)));
+    transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(
+                    new URL(elasticsearchTraceConfiguration.getElasticsearchUrl() + BULK_PATH))
+                .setContentType(CONTENT_TYPE)
+                .setHeaders(headers)
+                .setGzip(elasticsearchTraceConfiguration.getGzipRequests())
+                .setReadTimeout(elasticsearchTraceConfiguration.getDeadline())
+                .build());
+    bulkIndexAction =
+        JsonConversionUtils.createBulkIndexAction(
+            elasticsearchTraceConfiguration.getElasticsearchIndex(),
+            elasticsearchTraceConfiguration.getElasticsearchType());
+    maxBulkBytes = elasticsearchTraceConfiguration.getMaxBulkBytes();
   }
 
   /**
@@ -60,53 +88,35 @@ final class ElasticsearchTraceHandler extends TimeLimitedHandler {
    */
   @Override
   public void timeLimitedExport(Collection<SpanData> spanDataList) throws Exception {
-    List<String> jsonList = JsonConversionUtils.convertToJson(appName, spanDataList);
-    if (jsonList.isEmpty()) {
-      return;
+    JsonBuffer buffer = reusableBuffer.getAndSet(null);
+    if (buffer == null) {
+      buffer = new JsonBuffer(Math.min(INITIAL_BUFFER_BYTES, maxBulkBytes));
     }
-    for (String json : jsonList) {
-
-      OutputStream outputStream = null;
-      InputStream inputStream = null;
-
-      try {
-        HttpURLConnection connection = (HttpURLConnection) indexUrl.openConnection();
-        if (elasticsearchTraceConfiguration.getUserName() != null) {
-          String parameters =
-              BaseEncoding.base64()
-                  .encode(
-                      (elasticsearchTraceConfiguration.getUserName()
-                              + ":"
-                              + elasticsearchTraceConfiguration.getPassword())
-                          .getBytes("UTF-8"));
-          connection.setRequestProperty("Authorization", "Basic " + parameters);
-        }
-        connection.setRequestMethod(REQUEST_METHOD);
-        connection.setDoOutput(true);
-        connection.setConnectTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
-        connection.setRequestProperty("Content-Type", CONTENT_TYPE);
-        outputStream = connection.getOutputStream();
-        outputStream.write(json.getBytes(Charset.defaultCharset()));
-        outputStream.flush();
-        inputStream = connection.getInputStream();
-        if (connection.getResponseCode() != 200) {
-          throw new Exception("Response " + connection.getResponseCode());
+    try {
+      for (SpanData span : spanDataList) {
+        int previousSize = buffer.size();
+        JsonConversionUtils.writeBulkIndexRequest(bulkIndexAction, appName, span, buffer);
+        if (buffer.size() > maxBulkBytes && previousSize > 0) {
+          // The span doesn't fit in the request: send the spans before it, and start the next
+          // request with it.
+          sendBulkRequest(buffer.head(previousSize));
+          buffer.discardHead(previousSize);
         }
-      } finally {
-        closeStream(inputStream);
-        closeStream(outputStream);
       }
+      if (buffer.size() > 0) {
+        sendBulkRequest(buffer);
+      }
+    } finally {
+      buffer.reset();
+      reusableBuffer.set(buffer);
     }
   }
 
-  // Closes an input or output stream and ignores potential IOException.
-  private static void closeStream(@Nullable Closeable stream) {
-    if (stream != null) {
-      try {
-        stream.close();
-      } catch (IOException e) {
-        // ignore
-      }
+  private void sendBulkRequest(HttpTransport.BodyWriter body)
+      throws IOException, InterruptedException {
+    String response = transport.send(body);
+    if (response.contains("\"errors\":true")) {
+      throw new IOException("Some spans failed to be indexed.");
     }
   }
 }
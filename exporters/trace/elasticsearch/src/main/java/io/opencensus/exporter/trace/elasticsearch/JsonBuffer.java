@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.elasticsearch;
+
+import io.opencensus.exporter.trace.util.HttpTransport;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A growable buffer that JSON is written to as UTF-8 bytes, without intermediate {@code String}s.
+ * It can be reset and reused for the next request.
+ */
+final class JsonBuffer implements HttpTransport.BodyWriter {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final byte[] HEX = "0123456789abcdef".getBytes(UTF_8);
+  // Used to write the digits of a long, from the least significant one.
+  private final byte[] digits = new byte[20];
+
+  private byte[] bytes;
+  private int size;
+
+  JsonBuffer(int initialCapacity) {
+    bytes = new byte[initialCapacity];
+  }
+
+  /** Returns the number of bytes written since the last {@link #reset()}. */
+  int size() {
+    return size;
+  }
+
+  /** Discards the written bytes, keeping the allocated capacity. */
+  void reset() {
+    size = 0;
+  }
+
+  /** Writes the written bytes to the given stream. */
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    outputStream.write(bytes, 0, size);
+  }
+
+  /**
+   * Returns a body with only the first {@code length} written bytes. It must be sent before this
+   * buffer is written to again.
+   */
+  HttpTransport.BodyWriter head(final int length) {
+    return new HttpTransport.BodyWriter() {
+      @Override
+      public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes, 0, length);
+      }
+    };
+  }
+
+  /** Discards the first {@code length} written bytes, and moves the next ones to the start. */
+  void discardHead(int length) {
+    System.arraycopy(bytes, length, bytes, 0, size - length);
+    size -= length;
+  }
+
+  /** Returns a copy of the written bytes. */
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  /** Returns the written bytes decoded as UTF-8. */
+  @Override
+  public String toString() {
+    return new String(bytes, 0, size, UTF_8);
+  }
+
+  void writeByte(char c) {
+    ensureCapacity(1);
+    bytes[size++] = (byte) c;
+  }
+
+  void writeBytes(byte[] b) {
+    ensureCapacity(b.length);
+    System.arraycopy(b, 0, bytes, size, b.length);
+    size += b.length;
+  }
+
+  /** Writes a string that is known to only contain ASCII characters that need no escaping. */
+  void writeAscii(String s) {
+    int length = s.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      bytes[size++] = (byte) s.charAt(i);
+    }
+  }
+
+  /** Writes a string as a quoted and escaped JSON string. */
+  void writeString(String s) {
+    int length = s.length();
+    // Most strings are ASCII, so this is usually the only call to ensureCapacity.
+    ensureCapacity(length + 2);
+    bytes[size++] = '"';
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        if (c < 0x20 || c == '"' || c == '\\') {
+          writeEscaped(c);
+        } else {
+          ensureCapacity(1);
+          bytes[size++] = (byte) c;
+        }
+      } else if (c < 0x800) {
+        ensureCapacity(2);
+        bytes[size++] = (byte) (0xc0 | (c >> 6));
+        bytes[size++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        ensureCapacity(4);
+        bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        // Unpaired surrogate, replaced like String.getBytes does.
+        ensureCapacity(1);
+        bytes[size++] = '?';
+      } else {
+        ensureCapacity(3);
+        bytes[size++] = (byte) (0xe0 | (c >> 12));
+        bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        bytes[size++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    ensureCapacity(1);
+    bytes[size++] = '"';
+  }
+
+  /** Writes a long as a JSON number. */
+  void writeLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      writeAscii(Long.toString(value));
+      return;
+    }
+    if (value < 0) {
+      writeByte('-');
+      value = -value;
+    }
+    int length = 0;
+    do {
+      digits[length++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    ensureCapacity(length);
+    while (length > 0) {
+      bytes[size++] = digits[--length];
+    }
+  }
+
+  /** Writes a non-negative int with at least {@code width} digits, padded with zeros. */
+  void writePaddedInt(int value, int width) {
+    int length = 0;
+    do {
+      digits[length++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    while (length < width) {
+      digits[length++] = '0';
+    }
+    ensureCapacity(length);
+    while (length > 0) {
+      bytes[size++] = digits[--length];
+    }
+  }
+
+  private void writeEscaped(char c) {
+    ensureCapacity(6);
+    bytes[size++] = '\\';
+    switch (c) {
+      case '"':
+      case '\\':
+        bytes[size++] = (byte) c;
+        return;
+      case '\n':
+        bytes[size++] = 'n';
+        return;
+      case '\r':
+        bytes[size++] = 'r';
+        return;
+      case '\t':
+        bytes[size++] = 't';
+        return;
+      default:
+        bytes[size++] = 'u';
+        bytes[size++] = '0';
+        bytes[size++] = '0';
+        bytes[size++] = HEX[c >> 4];
+        bytes[size++] = HEX[c & 0xf];
+    }
+  }
+
+  private void ensureCapacity(int extra) {
+    if (size + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+  }
+}
@@ -19,6 +19,7 @@ package io.opencensus.exporter.trace.elasticsearch;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
@@ -30,13 +31,9 @@ import io.opencensus.trace.SpanId;
 import io.opencensus.trace.Status;
 import io.opencensus.trace.TraceId;
 import io.opencensus.trace.export.SpanData;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TimeZone;
 import javax.annotation.Nullable;
 
 /**
@@ -46,7 +43,13 @@ import javax.annotation.Nullable;
  */
 final class JsonConversionUtils {
 
-  private static final String ELASTICSEARCH_DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZZ";
+  // dateStarted and dateEnded are written like SimpleDateFormat formats this pattern in the
+  // default time zone, e.g. 2019-06-12T10:20:30.456+0200.
+  @VisibleForTesting static final String ELASTICSEARCH_DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZZ";
+
+  private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+  private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+  private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
 
   private JsonConversionUtils() {}
 
@@ -71,12 +74,49 @@ final class JsonConversionUtils {
     return duration.toMillis();
   }
 
-  private static Date toDate(Timestamp timestamp) {
-    return new Date(toMillis(timestamp));
-  }
-
-  private static String formatDate(Timestamp timestamp) {
-    return new SimpleDateFormat(ELASTICSEARCH_DATE_PATTERN).format(toDate(timestamp));
+  // Writes the timestamp as a JSON string in the ELASTICSEARCH_DATE_PATTERN format. Unlike
+  // SimpleDateFormat, this is thread-safe and doesn't allocate.
+  @VisibleForTesting
+  static void writeDate(long millis, JsonBuffer buffer) {
+    int offsetMillis = TIME_ZONE.getOffset(millis);
+    long localMillis = millis + offsetMillis;
+    long days = localMillis / MILLIS_PER_DAY;
+    long millisOfDay = localMillis % MILLIS_PER_DAY;
+    if (millisOfDay < 0) {
+      days--;
+      millisOfDay += MILLIS_PER_DAY;
+    }
+    // Converts the days since the epoch to a date of the proleptic Gregorian calendar, see
+    // http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+    long z = days + 719468;
+    long era = (z >= 0 ? z : z - 146096) / 146097;
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+    buffer.writeByte('"');
+    buffer.writePaddedInt(year, 4);
+    buffer.writeByte('-');
+    buffer.writePaddedInt(month, 2);
+    buffer.writeByte('-');
+    buffer.writePaddedInt(day, 2);
+    buffer.writeByte('T');
+    buffer.writePaddedInt((int) (millisOfDay / (60 * MILLIS_PER_MINUTE)), 2);
+    buffer.writeByte(':');
+    buffer.writePaddedInt((int) (millisOfDay / MILLIS_PER_MINUTE % 60), 2);
+    buffer.writeByte(':');
+    buffer.writePaddedInt((int) (millisOfDay / 1000 % 60), 2);
+    buffer.writeByte('.');
+    buffer.writePaddedInt((int) (millisOfDay % 1000), 3);
+    buffer.writeByte(offsetMillis < 0 ? '-' : '+');
+    int offsetMinutes = Math.abs(offsetMillis) / (int) MILLIS_PER_MINUTE;
+    buffer.writePaddedInt(offsetMinutes / 60, 2);
+    buffer.writePaddedInt(offsetMinutes % 60, 2);
+    buffer.writeByte('"');
   }
 
   @Nullable
@@ -102,66 +142,90 @@ final class JsonConversionUtils {
   }
 
   /**
-   * Converts a collection of {@link SpanData} to a Collection of json string.
+   * Returns the action line of the Elasticsearch bulk API that indexes the following document in
+   * the given index and type.
+   *
+   * @param index the Elasticsearch index.
+   * @param type the Elasticsearch type.
+   * @return the UTF-8 encoded action line, including its trailing newline.
+   */
+  static byte[] createBulkIndexAction(String index, String type) {
+    JsonBuffer buffer = new JsonBuffer(64);
+    buffer.writeAscii("{\"index\":{\"_index\":");
+    buffer.writeString(index);
+    buffer.writeAscii(",\"_type\":");
+    buffer.writeString(type);
+    buffer.writeAscii("}}\n");
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Writes a {@link SpanData} as a request of the Elasticsearch bulk API: the given action line
+   * followed by the span as a JSON document on one line. Spans that have not ended are skipped.
    *
+   * @param bulkIndexAction the action line returned by {@link #createBulkIndexAction}.
    * @param appName the name of app to include in traces.
-   * @param spanDataList Collection of {@code SpanData} to be converted to json.
-   * @return Collection of {@code SpanData} converted to JSON to be indexed.
+   * @param span the {@code SpanData} to be converted to json.
+   * @param buffer the buffer the request is written to.
+   * @return whether the span was written.
    */
-  static List<String> convertToJson(String appName, Collection<SpanData> spanDataList) {
-    List<String> spanJson = new ArrayList<String>();
-    if (spanDataList == null) {
-      return spanJson;
+  static boolean writeBulkIndexRequest(
+      byte[] bulkIndexAction, String appName, SpanData span, JsonBuffer buffer) {
+    final SpanContext spanContext = span.getContext();
+    final SpanId parentSpanId = span.getParentSpanId();
+    final Timestamp startTimestamp = span.getStartTimestamp();
+    final Timestamp endTimestamp = span.getEndTimestamp();
+    final Status status = span.getStatus();
+    if (endTimestamp == null) {
+      return false;
     }
-    StringBuilder sb = new StringBuilder();
-    for (final SpanData span : spanDataList) {
-      final SpanContext spanContext = span.getContext();
-      final SpanId parentSpanId = span.getParentSpanId();
-      final Timestamp startTimestamp = span.getStartTimestamp();
-      final Timestamp endTimestamp = span.getEndTimestamp();
-      final Status status = span.getStatus();
-      if (endTimestamp == null) {
-        continue;
-      }
-      sb.append('{');
-      sb.append("\"appName\":\"").append(appName).append("\",");
-      sb.append("\"spanId\":\"").append(encodeSpanId(spanContext.getSpanId())).append("\",");
-      sb.append("\"traceId\":\"").append(encodeTraceId(spanContext.getTraceId())).append("\",");
-      if (parentSpanId != null) {
-        sb.append("\"parentId\":\"").append(encodeSpanId(parentSpanId)).append("\",");
-      }
-      sb.append("\"timestamp\":").append(toMillis(startTimestamp)).append(',');
-      sb.append("\"duration\":").append(toMillis(startTimestamp, endTimestamp)).append(',');
-      sb.append("\"name\":\"").append(toSpanName(span)).append("\",");
-      sb.append("\"kind\":\"").append(toSpanKind(span)).append("\",");
-      sb.append("\"dateStarted\":\"").append(formatDate(startTimestamp)).append("\",");
-      sb.append("\"dateEnded\":\"").append(formatDate(endTimestamp)).append('"');
-      if (status == null) {
-        sb.append(",\"status\":").append("\"ok\"");
-      } else if (!status.isOk()) {
-        sb.append(",\"error\":").append("true");
-      }
-      Map<String, AttributeValue> attributeMap = span.getAttributes().getAttributeMap();
-      if (attributeMap.size() > 0) {
-        StringBuilder builder = new StringBuilder();
-        builder.append('{');
-        for (Entry<String, AttributeValue> entry : attributeMap.entrySet()) {
-          if (builder.length() > 1) {
-            builder.append(',');
-          }
-          builder
-              .append("\"")
-              .append(entry.getKey())
-              .append("\":\"")
-              .append(attributeValueToString(entry.getValue()))
-              .append("\"");
+    buffer.writeBytes(bulkIndexAction);
+    buffer.writeAscii("{\"appName\":");
+    buffer.writeString(appName);
+    buffer.writeAscii(",\"spanId\":\"");
+    buffer.writeAscii(encodeSpanId(spanContext.getSpanId()));
+    buffer.writeAscii("\",\"traceId\":\"");
+    buffer.writeAscii(encodeTraceId(spanContext.getTraceId()));
+    buffer.writeByte('"');
+    if (parentSpanId != null) {
+      buffer.writeAscii(",\"parentId\":\"");
+      buffer.writeAscii(encodeSpanId(parentSpanId));
+      buffer.writeByte('"');
+    }
+    buffer.writeAscii(",\"timestamp\":");
+    buffer.writeLong(toMillis(startTimestamp));
+    buffer.writeAscii(",\"duration\":");
+    buffer.writeLong(toMillis(startTimestamp, endTimestamp));
+    buffer.writeAscii(",\"name\":");
+    buffer.writeString(toSpanName(span));
+    buffer.writeAscii(",\"kind\":");
+    buffer.writeString(toSpanKind(span));
+    buffer.writeAscii(",\"dateStarted\":");
+    writeDate(toMillis(startTimestamp), buffer);
+    buffer.writeAscii(",\"dateEnded\":");
+    writeDate(toMillis(endTimestamp), buffer);
+    if (status == null) {
+      buffer.writeAscii(",\"status\":\"ok\"");
+    } else if (!status.isOk()) {
+      buffer.writeAscii(",\"error\":true");
+    }
+    Map<String, AttributeValue> attributeMap = span.getAttributes().getAttributeMap();
+    if (attributeMap.size() > 0) {
+      buffer.writeAscii(",\"data\":{");
+      boolean first = true;
+      for (Entry<String, AttributeValue> entry : attributeMap.entrySet()) {
+        if (!first) {
+          buffer.writeByte(',');
         }
-        builder.append('}');
-        sb.append(",\"data\":").append(builder);
+        first = false;
+        buffer.writeString(entry.getKey());
+        buffer.writeByte(':');
+        String value = attributeValueToString(entry.getValue());
+        buffer.writeString(value == null ? "" : value);
       }
-      sb.append('}');
-      spanJson.add(sb.toString());
+      buffer.writeByte('}');
     }
-    return spanJson;
+    buffer.writeAscii("}\n");
+    return true;
   }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.elasticsearch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.Attributes;
+import io.opencensus.trace.export.SpanData.Links;
+import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link ElasticsearchTraceHandler}, against a stub of the bulk API. */
+@RunWith(JUnit4.class)
+public class ElasticsearchTraceHandlerTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String SAMPLE_APP_NAME = "test-app";
+  private static final String ELASTICSEARCH_INDEX = "opencensus";
+  private static final String ELASTICSEARCH_TYPE = "type";
+
+  private final List<String> requestBodies = new CopyOnWriteArrayList<String>();
+  private final List<String> requestUris = new CopyOnWriteArrayList<String>();
+  private final List<String> authorizations = new CopyOnWriteArrayList<String>();
+  private volatile String response = "{\"errors\":false}";
+  // Like a cluster without request compression, the stub rejects gzip compressed requests unless
+  // set.
+  private volatile boolean acceptGzip;
+  private HttpServer server;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        new HttpHandler() {
+          @Override
+          public void handle(HttpExchange exchange) throws IOException {
+            requestUris.add(exchange.getRequestURI().toString());
+            InputStream requestBody = exchange.getRequestBody();
+            boolean gzip = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            if (gzip) {
+              requestBody = new GZIPInputStream(requestBody);
+            }
+            requestBodies.add(new String(ByteStreams.toByteArray(requestBody), UTF_8));
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            authorizations.add(authorization == null ? "" : authorization);
+            byte[] body = response.getBytes(UTF_8);
+            exchange.sendResponseHeaders(gzip && !acceptGzip ? 415 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+          }
+        });
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void export_SendsOneBulkRequest() throws Exception {
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(
+            configurationBuilder().setUserName("user").setPassword("password").build());
+    handler.timeLimitedExport(createSpans(3));
+
+    assertThat(requestUris).containsExactly("/_bulk?filter_path=errors");
+    assertThat(authorizations).containsExactly("Basic dXNlcjpwYXNzd29yZA==");
+    String[] lines = requestBodies.get(0).split("\n", -1);
+    assertThat(lines).hasLength(7);
+    for (int i = 0; i < 3; i++) {
+      assertThat(lines[2 * i])
+          .isEqualTo("{\"index\":{\"_index\":\"opencensus\",\"_type\":\"type\"}}");
+      assertThat(lines[2 * i + 1]).contains("\"name\":\"span" + i + "\"");
+    }
+    assertThat(lines[6]).isEmpty();
+  }
+
+  @Test
+  public void export_SplitsBulkRequestsBySize() throws Exception {
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().setMaxBulkBytes(1).build());
+    handler.timeLimitedExport(createSpans(3));
+    // The buffer is reused by the next export.
+    handler.timeLimitedExport(createSpans(2));
+
+    assertThat(requestBodies).hasSize(5);
+    for (int i = 0; i < 5; i++) {
+      assertThat(requestBodies.get(i).split("\n")).hasLength(2);
+    }
+    assertThat(requestBodies.get(4)).contains("\"name\":\"span1\"");
+  }
+
+  @Test
+  public void export_RequestsDontExceedMaxBulkBytes() throws Exception {
+    new ElasticsearchTraceHandler(configurationBuilder().build()).timeLimitedExport(createSpans(1));
+    int spanBytes = requestBodies.get(0).getBytes(UTF_8).length;
+    requestBodies.clear();
+    // Two and a half spans fit in a request.
+    int maxBulkBytes = spanBytes * 5 / 2;
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().setMaxBulkBytes(maxBulkBytes).build());
+    handler.timeLimitedExport(createSpans(5));
+
+    assertThat(requestBodies).hasSize(3);
+    int spans = 0;
+    for (String requestBody : requestBodies) {
+      assertThat(requestBody.getBytes(UTF_8).length).isAtMost(maxBulkBytes);
+      spans += requestBody.split("\n").length / 2;
+    }
+    assertThat(spans).isEqualTo(5);
+    assertThat(requestBodies.get(2)).contains("\"name\":\"span4\"");
+  }
+
+  @Test
+  public void export_GzipRequests() throws Exception {
+    acceptGzip = true;
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().setGzipRequests(true).build());
+    handler.timeLimitedExport(createSpans(1));
+
+    assertThat(requestBodies).hasSize(1);
+    assertThat(requestBodies.get(0)).contains("\"name\":\"span0\"");
+  }
+
+  @Test(expected = IOException.class)
+  public void export_GzipRequestsRejected() throws Exception {
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().setGzipRequests(true).build());
+    handler.timeLimitedExport(createSpans(1));
+  }
+
+  @Test
+  public void export_NoSpans() throws Exception {
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().build());
+    handler.timeLimitedExport(Collections.<SpanData>emptyList());
+    assertThat(requestBodies).isEmpty();
+  }
+
+  @Test(expected = IOException.class)
+  public void export_FailsWhenDocumentsFail() throws Exception {
+    response = "{\"errors\":true}";
+    ElasticsearchTraceHandler handler =
+        new ElasticsearchTraceHandler(configurationBuilder().build());
+    handler.timeLimitedExport(createSpans(1));
+  }
+
+  private ElasticsearchTraceConfiguration.Builder configurationBuilder() {
+    return ElasticsearchTraceConfiguration.builder()
+        .setAppName(SAMPLE_APP_NAME)
+        .setElasticsearchUrl("http://localhost:" + server.getAddress().getPort())
+        .setElasticsearchIndex(ELASTICSEARCH_INDEX)
+        .setElasticsearchType(ELASTICSEARCH_TYPE);
+  }
+
+  private static List<SpanData> createSpans(int count) {
+    List<SpanData> spans = new ArrayList<SpanData>();
+    for (int i = 0; i < count; i++) {
+      spans.add(
+          SpanData.create(
+              SpanContext.create(
+                  TraceId.fromLowerBase16("82bbc81f9999543682bbc81f99995436"),
+                  SpanId.fromLowerBase16("82bbc81f99995436"),
+                  TraceOptions.builder().setIsSampled(true).build(),
+                  Tracestate.builder().build()),
+              null,
+              false,
+              "span" + i,
+              null,
+              Timestamp.create(155196336, 194009601),
+              Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0),
+              TimedEvents.create(Collections.<SpanData.TimedEvent<Annotation>>emptyList(), 0),
+              TimedEvents.create(Collections.<SpanData.TimedEvent<MessageEvent>>emptyList(), 0),
+              Links.create(Collections.<Link>emptyList(), 0),
+              null,
+              Status.OK,
+              Timestamp.create(155296336, 465726528)));
+    }
+    return spans;
+  }
+}
@@ -35,8 +35,10 @@ import io.opencensus.trace.export.SpanData.Attributes;
 import io.opencensus.trace.export.SpanData.Links;
 import io.opencensus.trace.export.SpanData.TimedEvent;
 import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
@@ -96,10 +98,67 @@ public class JsonConversionUtilsTest {
   }
 
   @Test
-  public void testConvertToJson() {
-    List<String> json = JsonConversionUtils.convertToJson(SAMPLE_APP_NAME, spanDataList);
-    Assert.assertEquals(json.size(), spanDataList.size());
-    Assert.assertTrue(json.get(0).contains("\"appName\":\"" + SAMPLE_APP_NAME + "\""));
-    Assert.assertTrue(json.get(0).contains("\"spanId\":\"" + SAMPLE_SPAN_ID + "\""));
+  public void testWriteBulkIndexRequest() {
+    JsonBuffer buffer = new JsonBuffer(16);
+    byte[] action = JsonConversionUtils.createBulkIndexAction("index", "type");
+    for (SpanData spanData : spanDataList) {
+      Assert.assertTrue(
+          JsonConversionUtils.writeBulkIndexRequest(action, SAMPLE_APP_NAME, spanData, buffer));
+    }
+    String[] lines = buffer.toString().split("\n", -1);
+    Assert.assertEquals(2 * spanDataList.size() + 1, lines.length);
+    Assert.assertEquals("{\"index\":{\"_index\":\"index\",\"_type\":\"type\"}}", lines[0]);
+    Assert.assertTrue(lines[1].contains("\"appName\":\"" + SAMPLE_APP_NAME + "\""));
+    Assert.assertTrue(lines[1].contains("\"spanId\":\"" + SAMPLE_SPAN_ID + "\""));
+    Assert.assertTrue(lines[1].contains("\"data\":{\"data\":\"d1\"}"));
+    Assert.assertEquals("", lines[2]);
+  }
+
+  @Test
+  public void testWriteBulkIndexRequest_SkipsSpansWithoutEnd() {
+    SpanData spanData = spanDataList.get(0);
+    SpanData unfinished =
+        SpanData.create(
+            spanData.getContext(),
+            spanData.getParentSpanId(),
+            spanData.getHasRemoteParent(),
+            spanData.getName(),
+            null,
+            spanData.getStartTimestamp(),
+            spanData.getAttributes(),
+            spanData.getAnnotations(),
+            spanData.getMessageEvents(),
+            spanData.getLinks(),
+            null,
+            null,
+            null);
+    JsonBuffer buffer = new JsonBuffer(16);
+    Assert.assertFalse(
+        JsonConversionUtils.writeBulkIndexRequest(
+            JsonConversionUtils.createBulkIndexAction("index", "type"),
+            SAMPLE_APP_NAME,
+            unfinished,
+            buffer));
+    Assert.assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void testWriteString_Escapes() {
+    JsonBuffer buffer = new JsonBuffer(1);
+    buffer.writeString("a\"b\\c\nd\u0001\u00e9\u20ac\ud83d\ude00");
+    Assert.assertEquals("\"a\\\"b\\\\c\\nd\\u0001\u00e9\u20ac\ud83d\ude00\"", buffer.toString());
+  }
+
+  @Test
+  public void testWriteDate_SameAsSimpleDateFormat() {
+    SimpleDateFormat dateFormat =
+        new SimpleDateFormat(JsonConversionUtils.ELASTICSEARCH_DATE_PATTERN);
+    JsonBuffer buffer = new JsonBuffer(32);
+    for (long millis :
+        new long[] {0, 1, 999, 86399999, 951782400000L, 1551963360194L, 4102444800123L}) {
+      buffer.reset();
+      JsonConversionUtils.writeDate(millis, buffer);
+      Assert.assertEquals("\"" + dateFormat.format(new Date(millis)) + "\"", buffer.toString());
+    }
   }
 }
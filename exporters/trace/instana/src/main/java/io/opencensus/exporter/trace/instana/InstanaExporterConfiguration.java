@@ -54,6 +54,17 @@ public abstract class InstanaExporterConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns whether the requests sent to the Instana agent are gzip compressed. Only enable it if
+   * the agent accepts gzip compressed request bodies.
+   *
+   * <p>Default value is false.
+   *
+   * @return whether the requests are gzip compressed.
+   * @since 0.24
+   */
+  public abstract boolean getGzipRequests();
+
   /**
    * Return a new {@link Builder}.
    *
@@ -61,7 +72,9 @@ public abstract class InstanaExporterConfiguration {
    * @since 0.22
    */
   public static Builder builder() {
-    return new AutoValue_InstanaExporterConfiguration.Builder().setDeadline(DEFAULT_DEADLINE);
+    return new AutoValue_InstanaExporterConfiguration.Builder()
+        .setDeadline(DEFAULT_DEADLINE)
+        .setGzipRequests(false);
   }
 
   /**
@@ -93,6 +106,15 @@ public abstract class InstanaExporterConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets whether the requests sent to the Instana agent are gzip compressed.
+     *
+     * @param gzipRequests whether the requests are gzip compressed.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setGzipRequests(boolean gzipRequests);
+
     abstract Duration getDeadline();
 
     abstract InstanaExporterConfiguration autoBuild();
@@ -24,6 +24,7 @@ import io.opencensus.common.Duration;
 import io.opencensus.common.Function;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.trace.util.HttpTransport;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.trace.AttributeValue;
 import io.opencensus.trace.Span.Kind;
@@ -32,11 +33,10 @@ import io.opencensus.trace.SpanId;
 import io.opencensus.trace.Status;
 import io.opencensus.trace.TraceId;
 import io.opencensus.trace.export.SpanData;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.Collection;
@@ -52,21 +52,23 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * Uses the Trace SDK documented:
  * https://github.com/instana/instana-java-sdk#instana-trace-webservice
  *
- * Currently does a blocking export using HttpUrlConnection.
- * Also uses a StringBuilder to build JSON.
- * Both can be improved should 3rd party library usage not be a concern.
- *
  * Major TODO is the limitation of Instana to only suport 64bit trace ids, which will be resolved.
  * Until then it is crossing fingers and treating it as 50% sampler :).
  */
 final class InstanaExporterHandler extends TimeLimitedHandler {
 
   private static final String EXPORT_SPAN_NAME = "ExportInstanaTraces";
-  private final URL agentEndpoint;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private final HttpTransport transport;
 
-  InstanaExporterHandler(URL agentEndpoint, Duration deadline) {
+  InstanaExporterHandler(URL agentEndpoint, Duration deadline, boolean gzipRequests) {
     super(deadline, EXPORT_SPAN_NAME);
-    this.agentEndpoint = agentEndpoint;
+    this.transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(agentEndpoint)
+                .setGzip(gzipRequests)
+                .setReadTimeout(deadline)
+                .build());
   }
 
   private static String encodeTraceId(TraceId traceId) {
@@ -124,7 +126,20 @@ final class InstanaExporterHandler extends TimeLimitedHandler {
 
   static String convertToJson(Collection<SpanData> spanDataList) {
     StringBuilder sb = new StringBuilder();
-    sb.append('[');
+    try {
+      writeJson(spanDataList, sb);
+    } catch (IOException e) {
+      // A StringBuilder doesn't throw IOException.
+      throw new AssertionError(e);
+    }
+    return sb.toString();
+  }
+
+  // Writes the spans as a JSON array, straight to the given Appendable.
+  private static void writeJson(Collection<SpanData> spanDataList, Appendable out)
+      throws IOException {
+    out.append('[');
+    boolean first = true;
     for (final SpanData span : spanDataList) {
       final SpanContext spanContext = span.getContext();
       final SpanId parentSpanId = span.getParentSpanId();
@@ -134,78 +149,57 @@ final class InstanaExporterHandler extends TimeLimitedHandler {
       if (status == null || endTimestamp == null) {
         continue;
       }
-      if (sb.length() > 1) {
-        sb.append(',');
+      if (!first) {
+        out.append(',');
       }
-      sb.append('{');
-      sb.append("\"spanId\":\"").append(encodeSpanId(spanContext.getSpanId())).append("\",");
-      sb.append("\"traceId\":\"").append(encodeTraceId(spanContext.getTraceId())).append("\",");
+      first = false;
+      out.append('{');
+      out.append("\"spanId\":\"").append(encodeSpanId(spanContext.getSpanId())).append("\",");
+      out.append("\"traceId\":\"").append(encodeTraceId(spanContext.getTraceId())).append("\",");
       if (parentSpanId != null) {
-        sb.append("\"parentId\":\"").append(encodeSpanId(parentSpanId)).append("\",");
+        out.append("\"parentId\":\"").append(encodeSpanId(parentSpanId)).append("\",");
       }
-      sb.append("\"timestamp\":").append(toMillis(startTimestamp)).append(',');
-      sb.append("\"duration\":").append(toMillis(startTimestamp, endTimestamp)).append(',');
-      sb.append("\"name\":\"").append(toSpanName(span)).append("\",");
-      sb.append("\"type\":\"").append(toSpanType(span)).append('"');
+      out.append("\"timestamp\":").append(String.valueOf(toMillis(startTimestamp))).append(',');
+      out.append("\"duration\":")
+          .append(String.valueOf(toMillis(startTimestamp, endTimestamp)))
+          .append(',');
+      out.append("\"name\":\"").append(toSpanName(span)).append("\",");
+      out.append("\"type\":\"").append(toSpanType(span)).append('"');
       if (!status.isOk()) {
-        sb.append(",\"error\":").append("true");
+        out.append(",\"error\":").append("true");
       }
       Map<String, AttributeValue> attributeMap = span.getAttributes().getAttributeMap();
       if (attributeMap.size() > 0) {
-        StringBuilder dataSb = new StringBuilder();
-        dataSb.append('{');
+        out.append(",\"data\":{");
+        boolean firstAttribute = true;
         for (Entry<String, AttributeValue> entry : attributeMap.entrySet()) {
-          if (dataSb.length() > 1) {
-            dataSb.append(',');
+          if (!firstAttribute) {
+            out.append(',');
           }
-          dataSb
-              .append("\"")
+          firstAttribute = false;
+          out.append("\"")
               .append(entry.getKey())
               .append("\":\"")
-              .append(attributeValueToString(entry.getValue()))
+              .append(String.valueOf(attributeValueToString(entry.getValue())))
               .append("\"");
         }
-        dataSb.append('}');
-
-        sb.append(",\"data\":").append(dataSb);
+        out.append('}');
       }
-      sb.append('}');
+      out.append('}');
     }
-    sb.append(']');
-    return sb.toString();
+    out.append(']');
   }
 
   @Override
-  public void timeLimitedExport(Collection<SpanData> spanDataList) throws Exception {
-    String json = convertToJson(spanDataList);
-
-    OutputStream outputStream = null;
-    InputStream inputStream = null;
-    try {
-      HttpURLConnection connection = (HttpURLConnection) agentEndpoint.openConnection();
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-      outputStream = connection.getOutputStream();
-      outputStream.write(json.getBytes(Charset.defaultCharset()));
-      outputStream.flush();
-      inputStream = connection.getInputStream();
-      if (connection.getResponseCode() != 200) {
-        throw new Exception("Response " + connection.getResponseCode());
-      }
-    } finally {
-      closeStream(inputStream);
-      closeStream(outputStream);
-    }
-  }
-
-  // Closes an input or output stream and ignores potential IOException.
-  private static void closeStream(@javax.annotation.Nullable Closeable stream) {
-    if (stream != null) {
-      try {
-        stream.close();
-      } catch (IOException e) {
-        // ignore
-      }
-    }
+  public void timeLimitedExport(final Collection<SpanData> spanDataList) throws Exception {
+    transport.send(
+        new HttpTransport.BodyWriter() {
+          @Override
+          public void writeTo(OutputStream outputStream) throws IOException {
+            Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+            writeJson(spanDataList, writer);
+            writer.flush();
+          }
+        });
   }
 }
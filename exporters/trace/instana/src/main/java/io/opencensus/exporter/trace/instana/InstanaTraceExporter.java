@@ -69,7 +69,9 @@ public final class InstanaTraceExporter {
       checkState(handler == null, "Instana exporter is already registered.");
       Handler newHandler =
           new InstanaExporterHandler(
-              new URL(configuration.getAgentEndpoint()), configuration.getDeadline());
+              new URL(configuration.getAgentEndpoint()),
+              configuration.getDeadline(),
+              configuration.getGzipRequests());
       handler = newHandler;
       register(Tracing.getExportComponent().getSpanExporter(), newHandler);
     }
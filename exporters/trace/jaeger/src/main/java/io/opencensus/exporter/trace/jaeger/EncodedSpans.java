@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import io.opencensus.trace.export.SpanData;
+import java.util.Arrays;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+
+/**
+ * A reusable buffer of encoded {@code Span} structs, one after the other, that remembers where each
+ * span ends so that senders can split them between requests.
+ */
+@NotThreadSafe
+final class EncodedSpans {
+
+  private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+  private static final int INITIAL_SPANS = 64;
+
+  private final ThriftBuffer buffer = new ThriftBuffer(INITIAL_BUFFER_BYTES);
+  private final JaegerThriftEncoder encoder = new JaegerThriftEncoder();
+  private final TProtocol protocol;
+  private int[] ends = new int[INITIAL_SPANS];
+  private int count;
+
+  EncodedSpans(TProtocolFactory protocolFactory) {
+    this.protocol = protocolFactory.getProtocol(buffer);
+  }
+
+  /** Encodes the given span after the previous ones. */
+  void add(SpanData spanData) throws TException {
+    encoder.writeSpan(spanData, protocol);
+    if (count == ends.length) {
+      ends = Arrays.copyOf(ends, count * 2);
+    }
+    ends[count++] = buffer.size();
+  }
+
+  /** Returns the number of spans encoded since the last {@link #reset()}. */
+  int count() {
+    return count;
+  }
+
+  /** Returns the encoded size of the span at the given index. */
+  int size(int index) {
+    return ends[index] - start(index);
+  }
+
+  /**
+   * Writes the encoded spans from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive, to
+   * the given protocol's transport.
+   */
+  void writeTo(TProtocol destination, int fromIndex, int toIndex) throws TException {
+    int start = start(fromIndex);
+    int end = toIndex == 0 ? 0 : ends[toIndex - 1];
+    destination.getTransport().write(buffer.getArray(), start, end - start);
+  }
+
+  /** Discards the encoded spans, keeping the allocated buffers. */
+  void reset() {
+    buffer.reset();
+    count = 0;
+  }
+
+  private int start(int index) {
+    return index == 0 ? 0 : ends[index - 1];
+  }
+}
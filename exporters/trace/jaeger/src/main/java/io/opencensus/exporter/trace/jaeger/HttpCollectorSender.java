@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import io.jaegertracing.thriftjava.Process;
+import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.HttpTransport;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
+
+/**
+ * Sends spans to a Jaeger collector as one binary protocol {@code Batch} per request, with the
+ * {@link HttpTransport}. The batch is written from the encoded spans straight to the request.
+ */
+final class HttpCollectorSender extends SpanBatchSender {
+
+  private static final String CONTENT_TYPE = "application/x-thrift";
+  private static final String FORMAT_PARAMETER = "format=jaeger.thrift";
+
+  private final HttpTransport transport;
+
+  HttpCollectorSender(String thriftEndpoint, Process process, Duration readTimeout)
+      throws MalformedURLException, TException {
+    super(new TBinaryProtocol.Factory(), process);
+    this.transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(new URL(collectorUrl(thriftEndpoint)))
+                .setContentType(CONTENT_TYPE)
+                .setReadTimeout(readTimeout)
+                .build());
+  }
+
+  @Override
+  void send(final EncodedSpans spans) throws IOException, InterruptedException {
+    transport.send(
+        new HttpTransport.BodyWriter() {
+          @Override
+          public void writeTo(OutputStream outputStream) throws IOException {
+            try {
+              writeBatch(
+                  getProtocolFactory().getProtocol(new TIOStreamTransport(outputStream)),
+                  spans,
+                  0,
+                  spans.count());
+            } catch (TException e) {
+              throw new IOException("Failed to write Jaeger batch.", e);
+            }
+          }
+        });
+  }
+
+  private static String collectorUrl(String thriftEndpoint) {
+    return thriftEndpoint + (thriftEndpoint.indexOf('?') < 0 ? '?' : '&') + FORMAT_PARAMETER;
+  }
+}
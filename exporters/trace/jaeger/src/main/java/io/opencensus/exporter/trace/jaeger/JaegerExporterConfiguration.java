@@ -21,6 +21,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.jaegertracing.thrift.internal.senders.ThriftSender;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
@@ -34,6 +35,8 @@ import javax.annotation.concurrent.Immutable;
 public abstract class JaegerExporterConfiguration {
 
   @VisibleForTesting static final Duration DEFAULT_DEADLINE = Duration.create(10, 0);
+  // The max packet size of the Jaeger clients. Larger UDP packets may be dropped on the way.
+  @VisibleForTesting static final int DEFAULT_MAX_PACKET_SIZE = 65000;
 
   JaegerExporterConfiguration() {}
 
@@ -53,6 +56,24 @@ public abstract class JaegerExporterConfiguration {
    */
   public abstract String getThriftEndpoint();
 
+  /**
+   * Returns the address of the Jaeger agent, e.g. "localhost:6831".
+   *
+   * @return the address of the Jaeger agent.
+   * @since 0.24
+   */
+  public abstract String getAgentEndpoint();
+
+  /**
+   * Returns the max size in bytes of the UDP packets sent to the Jaeger agent.
+   *
+   * <p>Default value is 65000.
+   *
+   * @return the max packet size.
+   * @since 0.24
+   */
+  public abstract int getMaxPacketSize();
+
   /**
    * Returns the Thrift sender.
    *
@@ -72,6 +93,18 @@ public abstract class JaegerExporterConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns the {@link SpanSpool} that keeps the spans which failed to export, until they can be
+   * replayed to Jaeger.
+   *
+   * <p>Default value is {@code null}, the spans which failed to export are dropped.
+   *
+   * @return the {@code SpanSpool}.
+   * @since 0.24
+   */
+  @Nullable
+  public abstract SpanSpool getSpool();
+
   /**
    * Returns a new {@link Builder}.
    *
@@ -81,6 +114,8 @@ public abstract class JaegerExporterConfiguration {
   public static Builder builder() {
     return new AutoValue_JaegerExporterConfiguration.Builder()
         .setThriftEndpoint("")
+        .setAgentEndpoint("")
+        .setMaxPacketSize(DEFAULT_MAX_PACKET_SIZE)
         .setDeadline(DEFAULT_DEADLINE);
   }
 
@@ -108,9 +143,9 @@ public abstract class JaegerExporterConfiguration {
     /**
      * Sets the Thrift endpoint of your Jaeger instance. e.g.: "http://127.0.0.1:14268/api/traces".
      *
-     * <p>At least one of {@code ThriftEndpoint} and {@code ThriftSender} needs to be specified. If
-     * both {@code ThriftEndpoint} and {@code ThriftSender} are set, {@code ThriftSender} takes
-     * precedence.
+     * <p>At least one of {@code ThriftEndpoint}, {@code AgentEndpoint} and {@code ThriftSender}
+     * needs to be specified. If several of them are set, {@code ThriftSender} takes precedence,
+     * then {@code ThriftEndpoint}.
      *
      * @param thriftEndpoint the Thrift endpoint.
      * @return this.
@@ -118,12 +153,36 @@ public abstract class JaegerExporterConfiguration {
      */
     public abstract Builder setThriftEndpoint(String thriftEndpoint);
 
+    /**
+     * Sets the address of the Jaeger agent, as "host:port", e.g. "localhost:6831". Spans are sent
+     * to the agent as compact Thrift over UDP.
+     *
+     * <p>At least one of {@code ThriftEndpoint}, {@code AgentEndpoint} and {@code ThriftSender}
+     * needs to be specified. If several of them are set, {@code ThriftSender} takes precedence,
+     * then {@code ThriftEndpoint}.
+     *
+     * @param agentEndpoint the address of the Jaeger agent.
+     * @return this.
+     * @since 0.24
+     */
+    public abstract Builder setAgentEndpoint(String agentEndpoint);
+
+    /**
+     * Sets the max size in bytes of the UDP packets sent to the Jaeger agent. Spans are packed into
+     * as few packets as possible, and a span that does not fit in a packet is dropped.
+     *
+     * @param maxPacketSize the max packet size.
+     * @return this.
+     * @since 0.24
+     */
+    public abstract Builder setMaxPacketSize(int maxPacketSize);
+
     /**
      * Sets the Thrift sender.
      *
-     * <p>At least one of {@code ThriftEndpoint} and {@code ThriftSender} needs to be specified. If
-     * both {@code ThriftEndpoint} and {@code ThriftSender} are set, {@code ThriftSender} takes
-     * precedence.
+     * <p>At least one of {@code ThriftEndpoint}, {@code AgentEndpoint} and {@code ThriftSender}
+     * needs to be specified. If several of them are set, {@code ThriftSender} takes precedence,
+     * then {@code ThriftEndpoint}.
      *
      * @param sender the Thrift sender.
      * @return this.
@@ -140,10 +199,23 @@ public abstract class JaegerExporterConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets the {@link SpanSpool} that keeps the spans which failed to export.
+     *
+     * @param spool the {@code SpanSpool}.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setSpool(SpanSpool spool);
+
     abstract Duration getDeadline();
 
     abstract String getThriftEndpoint();
 
+    abstract String getAgentEndpoint();
+
+    abstract int getMaxPacketSize();
+
     @Nullable
     abstract ThriftSender getThriftSender();
 
@@ -157,9 +229,12 @@ public abstract class JaegerExporterConfiguration {
      */
     public JaegerExporterConfiguration build() {
       Preconditions.checkArgument(getDeadline().compareTo(ZERO) > 0, "Deadline must be positive.");
+      Preconditions.checkArgument(getMaxPacketSize() > 0, "Max packet size must be positive.");
       Preconditions.checkArgument(
-          !getThriftEndpoint().isEmpty() || getThriftSender() != null,
-          "Neither Thrift endpoint nor Thrift sender is specified.");
+          !getThriftEndpoint().isEmpty()
+              || !getAgentEndpoint().isEmpty()
+              || getThriftSender() != null,
+          "Neither Thrift endpoint, agent endpoint nor Thrift sender is specified.");
       return autoBuild();
     }
   }
@@ -23,7 +23,6 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import io.jaegertracing.internal.exceptions.SenderException;
 import io.jaegertracing.thrift.internal.senders.ThriftSender;
@@ -37,6 +36,7 @@ import io.jaegertracing.thriftjava.TagType;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Function;
 import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.trace.Annotation;
 import io.opencensus.trace.AttributeValue;
@@ -54,22 +54,22 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
 
-@NotThreadSafe
+@ThreadSafe
 final class JaegerExporterHandler extends TimeLimitedHandler {
   private static final String EXPORT_SPAN_NAME = "ExportJaegerTraces";
   @VisibleForTesting static final String SPAN_KIND = "span.kind";
   private static final Tag SERVER_KIND_TAG = new Tag(SPAN_KIND, TagType.STRING).setVStr("server");
   private static final Tag CLIENT_KIND_TAG = new Tag(SPAN_KIND, TagType.STRING).setVStr("client");
-  private static final String DESCRIPTION = "message";
+  static final String DESCRIPTION = "message";
   private static final Tag RECEIVED_MESSAGE_EVENT_TAG =
       new Tag(DESCRIPTION, TagType.STRING).setVStr("received message");
   private static final Tag SENT_MESSAGE_EVENT_TAG =
       new Tag(DESCRIPTION, TagType.STRING).setVStr("sent message");
-  private static final String MESSAGE_EVENT_ID = "id";
-  private static final String MESSAGE_EVENT_COMPRESSED_SIZE = "compressed_size";
-  private static final String MESSAGE_EVENT_UNCOMPRESSED_SIZE = "uncompressed_size";
+  static final String MESSAGE_EVENT_ID = "id";
+  static final String MESSAGE_EVENT_COMPRESSED_SIZE = "compressed_size";
+  static final String MESSAGE_EVENT_UNCOMPRESSED_SIZE = "uncompressed_size";
   @VisibleForTesting static final String STATUS_CODE = "status.code";
   @VisibleForTesting static final String STATUS_MESSAGE = "status.message";
 
@@ -128,18 +128,19 @@ final class JaegerExporterHandler extends TimeLimitedHandler {
         }
       };
 
-  // Re-usable buffers to avoid too much memory allocation during conversions.
-  // N.B.: these make instances of this class thread-unsafe, hence the above
-  // @NotThreadSafe annotation.
-  private final byte[] spanIdBuffer = new byte[SpanId.SIZE];
-  private final byte[] traceIdBuffer = new byte[TraceId.SIZE];
-  private final byte[] optionsBuffer = new byte[Integer.SIZE / Byte.SIZE];
-
   private final ThriftSender sender;
   private final Process process;
 
   JaegerExporterHandler(final ThriftSender sender, final Process process, Duration deadline) {
-    super(deadline, EXPORT_SPAN_NAME);
+    this(sender, process, deadline, null);
+  }
+
+  JaegerExporterHandler(
+      final ThriftSender sender,
+      final Process process,
+      Duration deadline,
+      @Nullable SpanSpool spool) {
+    super(deadline, EXPORT_SPAN_NAME, spool);
     this.sender = checkNotNull(sender, "Jaeger sender must NOT be null.");
     this.process = checkNotNull(process, "Process sending traces must NOT be null.");
   }
@@ -150,20 +151,26 @@ final class JaegerExporterHandler extends TimeLimitedHandler {
     sender.send(process, spans);
   }
 
-  private List<Span> spanDataToJaegerThriftSpans(final Collection<SpanData> spanDataList) {
+  private static List<Span> spanDataToJaegerThriftSpans(final Collection<SpanData> spanDataList) {
     final List<Span> spans = Lists.newArrayListWithExpectedSize(spanDataList.size());
+    // Re-usable buffer to avoid too much memory allocation during conversions. It is local to each
+    // export, so that concurrent exports do not share it.
+    final byte[] idBuffer = new byte[TraceId.SIZE];
     for (final SpanData spanData : spanDataList) {
-      spans.add(spanDataToJaegerThriftSpan(spanData));
+      spans.add(spanDataToJaegerThriftSpan(spanData, idBuffer));
     }
     return spans;
   }
 
-  private Span spanDataToJaegerThriftSpan(final SpanData spanData) {
+  private static Span spanDataToJaegerThriftSpan(final SpanData spanData, final byte[] idBuffer) {
     final long startTimeInMicros = timestampToMicros(spanData.getStartTimestamp());
     final long endTimeInMicros = timestampToMicros(spanData.getEndTimestamp());
 
     final SpanContext context = spanData.getContext();
-    copyToBuffer(context.getTraceId());
+    // Attempt to minimise allocations, since TraceId#getBytes currently creates a defensive copy:
+    context.getTraceId().copyBytesTo(idBuffer, 0);
+    final long traceIdLow = longFromBytes(idBuffer, 8);
+    final long traceIdHigh = longFromBytes(idBuffer, 0);
 
     List<Tag> tags =
         attributesToTags(
@@ -171,87 +178,69 @@ final class JaegerExporterHandler extends TimeLimitedHandler {
     addStatusTags(tags, spanData.getStatus());
 
     return new io.jaegertracing.thriftjava.Span(
-            traceIdLow(),
-            traceIdHigh(),
-            spanIdToLong(context.getSpanId()),
-            spanIdToLong(spanData.getParentSpanId()),
+            traceIdLow,
+            traceIdHigh,
+            spanIdToLong(context.getSpanId(), idBuffer),
+            spanIdToLong(spanData.getParentSpanId(), idBuffer),
             spanData.getName(),
             optionsToFlags(context.getTraceOptions()),
             startTimeInMicros,
             endTimeInMicros - startTimeInMicros)
-        .setReferences(linksToReferences(spanData.getLinks().getLinks()))
+        .setReferences(linksToReferences(spanData.getLinks().getLinks(), idBuffer))
         .setTags(tags)
         .setLogs(
             timedEventsToLogs(
                 spanData.getAnnotations().getEvents(), spanData.getMessageEvents().getEvents()));
   }
 
-  private void copyToBuffer(final TraceId traceId) {
-    // Attempt to minimise allocations, since TraceId#getBytes currently creates a defensive copy:
-    traceId.copyBytesTo(traceIdBuffer, 0);
-  }
-
-  private long traceIdHigh() {
-    return Longs.fromBytes(
-        traceIdBuffer[0],
-        traceIdBuffer[1],
-        traceIdBuffer[2],
-        traceIdBuffer[3],
-        traceIdBuffer[4],
-        traceIdBuffer[5],
-        traceIdBuffer[6],
-        traceIdBuffer[7]);
-  }
-
-  private long traceIdLow() {
+  private static long longFromBytes(final byte[] bytes, final int offset) {
     return Longs.fromBytes(
-        traceIdBuffer[8],
-        traceIdBuffer[9],
-        traceIdBuffer[10],
-        traceIdBuffer[11],
-        traceIdBuffer[12],
-        traceIdBuffer[13],
-        traceIdBuffer[14],
-        traceIdBuffer[15]);
+        bytes[offset],
+        bytes[offset + 1],
+        bytes[offset + 2],
+        bytes[offset + 3],
+        bytes[offset + 4],
+        bytes[offset + 5],
+        bytes[offset + 6],
+        bytes[offset + 7]);
   }
 
-  private long spanIdToLong(final @Nullable SpanId spanId) {
+  private static long spanIdToLong(final @Nullable SpanId spanId, final byte[] idBuffer) {
     if (spanId == null) {
       return 0L;
     }
     // Attempt to minimise allocations, since SpanId#getBytes currently creates a defensive copy:
-    spanId.copyBytesTo(spanIdBuffer, 0);
-    return Longs.fromByteArray(spanIdBuffer);
+    spanId.copyBytesTo(idBuffer, 0);
+    return longFromBytes(idBuffer, 0);
   }
 
-  private int optionsToFlags(final TraceOptions traceOptions) {
-    // Attempt to minimise allocations, since TraceOptions#getBytes currently creates a defensive
-    // copy:
-    traceOptions.copyBytesTo(optionsBuffer, optionsBuffer.length - 1);
-    return Ints.fromByteArray(optionsBuffer);
+  private static int optionsToFlags(final TraceOptions traceOptions) {
+    return traceOptions.getByte() & 0xff;
   }
 
-  private List<SpanRef> linksToReferences(final List<Link> links) {
+  private static List<SpanRef> linksToReferences(final List<Link> links, final byte[] idBuffer) {
     final List<SpanRef> spanRefs = Lists.newArrayListWithExpectedSize(links.size());
     for (final Link link : links) {
-      copyToBuffer(link.getTraceId());
+      link.getTraceId().copyBytesTo(idBuffer, 0);
+      final long traceIdLow = longFromBytes(idBuffer, 8);
+      final long traceIdHigh = longFromBytes(idBuffer, 0);
       spanRefs.add(
           new SpanRef(
               linkTypeToRefType(link.getType()),
-              traceIdLow(),
-              traceIdHigh(),
-              spanIdToLong(link.getSpanId())));
+              traceIdLow,
+              traceIdHigh,
+              spanIdToLong(link.getSpanId(), idBuffer)));
     }
     return spanRefs;
   }
 
-  private static long timestampToMicros(final @Nullable Timestamp timestamp) {
+  static long timestampToMicros(final @Nullable Timestamp timestamp) {
     return (timestamp == null)
         ? 0L
         : SECONDS.toMicros(timestamp.getSeconds()) + NANOSECONDS.toMicros(timestamp.getNanos());
   }
 
-  private static SpanRefType linkTypeToRefType(final Link.Type type) {
+  static SpanRefType linkTypeToRefType(final Link.Type type) {
     switch (type) {
       case CHILD_LINKED_SPAN:
         return SpanRefType.CHILD_OF;
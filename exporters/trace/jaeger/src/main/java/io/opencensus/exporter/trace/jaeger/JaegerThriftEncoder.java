@@ -0,0 +1,337 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import com.google.common.primitives.Longs;
+import io.jaegertracing.thriftjava.TagType;
+import io.opencensus.common.Function;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.export.SpanData;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+
+/**
+ * Writes {@link SpanData} directly as {@code jaeger.thrift} {@code Span} structs to a {@link
+ * TProtocol}, without creating the intermediate {@code io.jaegertracing.thriftjava} objects. The
+ * result is the same as the conversion of {@link JaegerExporterHandler}.
+ *
+ * <p>The encoding of a struct does not depend on what was written before it, so encoded spans can
+ * be spliced into any {@code Batch}.
+ */
+@NotThreadSafe
+final class JaegerThriftEncoder {
+
+  private static final TStruct SPAN_STRUCT = new TStruct("Span");
+  private static final TField TRACE_ID_LOW_FIELD = new TField("traceIdLow", TType.I64, (short) 1);
+  private static final TField TRACE_ID_HIGH_FIELD = new TField("traceIdHigh", TType.I64, (short) 2);
+  private static final TField SPAN_ID_FIELD = new TField("spanId", TType.I64, (short) 3);
+  private static final TField PARENT_SPAN_ID_FIELD =
+      new TField("parentSpanId", TType.I64, (short) 4);
+  private static final TField OPERATION_NAME_FIELD =
+      new TField("operationName", TType.STRING, (short) 5);
+  private static final TField REFERENCES_FIELD = new TField("references", TType.LIST, (short) 6);
+  private static final TField FLAGS_FIELD = new TField("flags", TType.I32, (short) 7);
+  private static final TField START_TIME_FIELD = new TField("startTime", TType.I64, (short) 8);
+  private static final TField DURATION_FIELD = new TField("duration", TType.I64, (short) 9);
+  private static final TField TAGS_FIELD = new TField("tags", TType.LIST, (short) 10);
+  private static final TField LOGS_FIELD = new TField("logs", TType.LIST, (short) 11);
+
+  private static final TStruct SPAN_REF_STRUCT = new TStruct("SpanRef");
+  private static final TField REF_TYPE_FIELD = new TField("refType", TType.I32, (short) 1);
+  private static final TField REF_TRACE_ID_LOW_FIELD =
+      new TField("traceIdLow", TType.I64, (short) 2);
+  private static final TField REF_TRACE_ID_HIGH_FIELD =
+      new TField("traceIdHigh", TType.I64, (short) 3);
+  private static final TField REF_SPAN_ID_FIELD = new TField("spanId", TType.I64, (short) 4);
+
+  private static final TStruct LOG_STRUCT = new TStruct("Log");
+  private static final TField LOG_TIMESTAMP_FIELD = new TField("timestamp", TType.I64, (short) 1);
+  private static final TField LOG_FIELDS_FIELD = new TField("fields", TType.LIST, (short) 2);
+
+  private static final TStruct TAG_STRUCT = new TStruct("Tag");
+  private static final TField TAG_KEY_FIELD = new TField("key", TType.STRING, (short) 1);
+  private static final TField TAG_V_TYPE_FIELD = new TField("vType", TType.I32, (short) 2);
+  private static final TField TAG_V_STR_FIELD = new TField("vStr", TType.STRING, (short) 3);
+  private static final TField TAG_V_DOUBLE_FIELD = new TField("vDouble", TType.DOUBLE, (short) 4);
+  private static final TField TAG_V_BOOL_FIELD = new TField("vBool", TType.BOOL, (short) 5);
+  private static final TField TAG_V_LONG_FIELD = new TField("vLong", TType.I64, (short) 6);
+
+  private static final String SERVER_KIND = "server";
+  private static final String CLIENT_KIND = "client";
+  private static final String RECEIVED_MESSAGE = "received message";
+  private static final String SENT_MESSAGE = "sent message";
+
+  // Returns the value of an attribute itself, to avoid allocating a Tag per attribute.
+  private static final Function<Object, Object> RETURN_VALUE =
+      new Function<Object, Object>() {
+        @Override
+        public Object apply(Object value) {
+          return value;
+        }
+      };
+
+  // Re-usable buffer to avoid allocations when converting trace ids and span ids. Each encoder is
+  // only used by one thread at a time.
+  private final byte[] idBuffer = new byte[TraceId.SIZE];
+
+  /** Writes a {@code Span} struct for the given {@link SpanData}. */
+  void writeSpan(SpanData spanData, TProtocol protocol) throws TException {
+    long startTimeInMicros = JaegerExporterHandler.timestampToMicros(spanData.getStartTimestamp());
+    long endTimeInMicros = JaegerExporterHandler.timestampToMicros(spanData.getEndTimestamp());
+    SpanContext context = spanData.getContext();
+    context.getTraceId().copyBytesTo(idBuffer, 0);
+
+    protocol.writeStructBegin(SPAN_STRUCT);
+    writeI64Field(protocol, TRACE_ID_LOW_FIELD, longFromIdBuffer(8));
+    writeI64Field(protocol, TRACE_ID_HIGH_FIELD, longFromIdBuffer(0));
+    writeI64Field(protocol, SPAN_ID_FIELD, spanIdToLong(context.getSpanId()));
+    writeI64Field(protocol, PARENT_SPAN_ID_FIELD, spanIdToLong(spanData.getParentSpanId()));
+    protocol.writeFieldBegin(OPERATION_NAME_FIELD);
+    protocol.writeString(spanData.getName());
+    protocol.writeFieldEnd();
+    writeReferences(protocol, spanData.getLinks().getLinks());
+    protocol.writeFieldBegin(FLAGS_FIELD);
+    protocol.writeI32(context.getTraceOptions().getByte() & 0xff);
+    protocol.writeFieldEnd();
+    writeI64Field(protocol, START_TIME_FIELD, startTimeInMicros);
+    writeI64Field(protocol, DURATION_FIELD, endTimeInMicros - startTimeInMicros);
+    writeSpanTags(protocol, spanData);
+    writeLogs(
+        protocol, spanData.getAnnotations().getEvents(), spanData.getMessageEvents().getEvents());
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+  }
+
+  private void writeReferences(TProtocol protocol, List<Link> links) throws TException {
+    protocol.writeFieldBegin(REFERENCES_FIELD);
+    protocol.writeListBegin(new TList(TType.STRUCT, links.size()));
+    for (Link link : links) {
+      link.getTraceId().copyBytesTo(idBuffer, 0);
+      protocol.writeStructBegin(SPAN_REF_STRUCT);
+      protocol.writeFieldBegin(REF_TYPE_FIELD);
+      protocol.writeI32(JaegerExporterHandler.linkTypeToRefType(link.getType()).getValue());
+      protocol.writeFieldEnd();
+      writeI64Field(protocol, REF_TRACE_ID_LOW_FIELD, longFromIdBuffer(8));
+      writeI64Field(protocol, REF_TRACE_ID_HIGH_FIELD, longFromIdBuffer(0));
+      writeI64Field(protocol, REF_SPAN_ID_FIELD, spanIdToLong(link.getSpanId()));
+      protocol.writeFieldStop();
+      protocol.writeStructEnd();
+    }
+    protocol.writeListEnd();
+    protocol.writeFieldEnd();
+  }
+
+  private static void writeSpanTags(TProtocol protocol, SpanData spanData) throws TException {
+    Map<String, AttributeValue> attributes = spanData.getAttributes().getAttributeMap();
+    String kind = spanKindToString(spanData.getKind());
+    Status status = spanData.getStatus();
+    int size = attributes.size();
+    if (kind != null) {
+      size++;
+    }
+    if (status != null) {
+      size += status.getDescription() == null ? 1 : 2;
+    }
+    protocol.writeFieldBegin(TAGS_FIELD);
+    protocol.writeListBegin(new TList(TType.STRUCT, size));
+    writeAttributeTags(protocol, attributes);
+    if (kind != null) {
+      writeStringTag(protocol, JaegerExporterHandler.SPAN_KIND, kind);
+    }
+    if (status != null) {
+      writeLongTag(protocol, JaegerExporterHandler.STATUS_CODE, status.getCanonicalCode().value());
+      String description = status.getDescription();
+      if (description != null) {
+        writeStringTag(protocol, JaegerExporterHandler.STATUS_MESSAGE, description);
+      }
+    }
+    protocol.writeListEnd();
+    protocol.writeFieldEnd();
+  }
+
+  private static void writeLogs(
+      TProtocol protocol,
+      List<SpanData.TimedEvent<Annotation>> annotations,
+      List<SpanData.TimedEvent<MessageEvent>> messageEvents)
+      throws TException {
+    protocol.writeFieldBegin(LOGS_FIELD);
+    protocol.writeListBegin(new TList(TType.STRUCT, annotations.size() + messageEvents.size()));
+    for (SpanData.TimedEvent<Annotation> event : annotations) {
+      Map<String, AttributeValue> attributes = event.getEvent().getAttributes();
+      writeLogBegin(protocol, event.getTimestamp(), attributes.size() + 1);
+      writeAttributeTags(protocol, attributes);
+      writeStringTag(
+          protocol, JaegerExporterHandler.DESCRIPTION, event.getEvent().getDescription());
+      writeLogEnd(protocol);
+    }
+    for (SpanData.TimedEvent<MessageEvent> event : messageEvents) {
+      MessageEvent messageEvent = event.getEvent();
+      writeLogBegin(protocol, event.getTimestamp(), 4);
+      writeStringTag(
+          protocol,
+          JaegerExporterHandler.DESCRIPTION,
+          messageEvent.getType() == MessageEvent.Type.RECEIVED ? RECEIVED_MESSAGE : SENT_MESSAGE);
+      writeLongTag(protocol, JaegerExporterHandler.MESSAGE_EVENT_ID, messageEvent.getMessageId());
+      writeLongTag(
+          protocol,
+          JaegerExporterHandler.MESSAGE_EVENT_COMPRESSED_SIZE,
+          messageEvent.getCompressedMessageSize());
+      writeLongTag(
+          protocol,
+          JaegerExporterHandler.MESSAGE_EVENT_UNCOMPRESSED_SIZE,
+          messageEvent.getUncompressedMessageSize());
+      writeLogEnd(protocol);
+    }
+    protocol.writeListEnd();
+    protocol.writeFieldEnd();
+  }
+
+  private static void writeLogBegin(TProtocol protocol, Timestamp timestamp, int fields)
+      throws TException {
+    protocol.writeStructBegin(LOG_STRUCT);
+    writeI64Field(
+        protocol, LOG_TIMESTAMP_FIELD, JaegerExporterHandler.timestampToMicros(timestamp));
+    protocol.writeFieldBegin(LOG_FIELDS_FIELD);
+    protocol.writeListBegin(new TList(TType.STRUCT, fields));
+  }
+
+  private static void writeLogEnd(TProtocol protocol) throws TException {
+    protocol.writeListEnd();
+    protocol.writeFieldEnd();
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+  }
+
+  private static void writeAttributeTags(TProtocol protocol, Map<String, AttributeValue> attributes)
+      throws TException {
+    for (Map.Entry<String, AttributeValue> entry : attributes.entrySet()) {
+      Object value =
+          entry
+              .getValue()
+              .match(RETURN_VALUE, RETURN_VALUE, RETURN_VALUE, RETURN_VALUE, RETURN_VALUE);
+      if (value instanceof String) {
+        writeStringTag(protocol, entry.getKey(), (String) value);
+      } else if (value instanceof Boolean) {
+        writeTagBegin(protocol, entry.getKey(), TagType.BOOL);
+        protocol.writeFieldBegin(TAG_V_BOOL_FIELD);
+        protocol.writeBool((Boolean) value);
+        writeTagEnd(protocol);
+      } else if (value instanceof Long) {
+        writeLongTag(protocol, entry.getKey(), (Long) value);
+      } else if (value instanceof Double) {
+        writeTagBegin(protocol, entry.getKey(), TagType.DOUBLE);
+        protocol.writeFieldBegin(TAG_V_DOUBLE_FIELD);
+        protocol.writeDouble((Double) value);
+        writeTagEnd(protocol);
+      } else {
+        writeStringTag(protocol, entry.getKey(), String.valueOf(value));
+      }
+    }
+  }
+
+  private static void writeStringTag(TProtocol protocol, String key, String value)
+      throws TException {
+    writeTagBegin(protocol, key, TagType.STRING);
+    protocol.writeFieldBegin(TAG_V_STR_FIELD);
+    protocol.writeString(value);
+    writeTagEnd(protocol);
+  }
+
+  private static void writeLongTag(TProtocol protocol, String key, long value) throws TException {
+    writeTagBegin(protocol, key, TagType.LONG);
+    protocol.writeFieldBegin(TAG_V_LONG_FIELD);
+    protocol.writeI64(value);
+    writeTagEnd(protocol);
+  }
+
+  // Writes the start of a Tag, up to the field of the value.
+  private static void writeTagBegin(TProtocol protocol, String key, TagType type)
+      throws TException {
+    protocol.writeStructBegin(TAG_STRUCT);
+    protocol.writeFieldBegin(TAG_KEY_FIELD);
+    protocol.writeString(key);
+    protocol.writeFieldEnd();
+    protocol.writeFieldBegin(TAG_V_TYPE_FIELD);
+    protocol.writeI32(type.getValue());
+    protocol.writeFieldEnd();
+  }
+
+  // Writes the end of a Tag, after the value.
+  private static void writeTagEnd(TProtocol protocol) throws TException {
+    protocol.writeFieldEnd();
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+  }
+
+  private static void writeI64Field(TProtocol protocol, TField field, long value)
+      throws TException {
+    protocol.writeFieldBegin(field);
+    protocol.writeI64(value);
+    protocol.writeFieldEnd();
+  }
+
+  private long longFromIdBuffer(int offset) {
+    return Longs.fromBytes(
+        idBuffer[offset],
+        idBuffer[offset + 1],
+        idBuffer[offset + 2],
+        idBuffer[offset + 3],
+        idBuffer[offset + 4],
+        idBuffer[offset + 5],
+        idBuffer[offset + 6],
+        idBuffer[offset + 7]);
+  }
+
+  private long spanIdToLong(@Nullable SpanId spanId) {
+    if (spanId == null) {
+      return 0L;
+    }
+    spanId.copyBytesTo(idBuffer, 0);
+    return longFromIdBuffer(0);
+  }
+
+  @Nullable
+  private static String spanKindToString(@Nullable Kind kind) {
+    if (kind == null) {
+      return null;
+    }
+    switch (kind) {
+      case CLIENT:
+        return CLIENT_KIND;
+      case SERVER:
+        return SERVER_KIND;
+    }
+    return null;
+  }
+}
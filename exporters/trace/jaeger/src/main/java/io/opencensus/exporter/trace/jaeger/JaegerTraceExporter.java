@@ -16,16 +16,20 @@
 
 package io.opencensus.exporter.trace.jaeger;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.VisibleForTesting;
-import io.jaegertracing.thrift.internal.senders.HttpSender;
+import com.google.common.net.HostAndPort;
 import io.jaegertracing.thrift.internal.senders.ThriftSender;
 import io.jaegertracing.thriftjava.Process;
 import io.opencensus.trace.Tracing;
 import io.opencensus.trace.export.SpanExporter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
+import org.apache.thrift.TException;
 
 /**
  * An OpenCensus span exporter implementation which exports data to Jaeger. Example of usage:
@@ -60,23 +64,49 @@ public final class JaegerTraceExporter {
    *
    * @param configuration configurations for this exporter.
    * @throws IllegalStateException if a Jaeger exporter is already registered.
+   * @throws IllegalArgumentException if the Jaeger agent or collector address is invalid.
    * @since 0.22
    */
   public static void createAndRegister(JaegerExporterConfiguration configuration) {
     synchronized (monitor) {
       checkState(handler == null, "Jaeger exporter is already registered.");
-      ThriftSender sender = configuration.getThriftSender();
-      if (sender == null) {
-        sender = new HttpSender.Builder(configuration.getThriftEndpoint()).build();
-      }
-      Process process = new Process(configuration.getServiceName());
-      SpanExporter.Handler newHandler =
-          new JaegerExporterHandler(sender, process, configuration.getDeadline());
+      SpanExporter.Handler newHandler = createHandler(configuration);
       JaegerTraceExporter.handler = newHandler;
       register(Tracing.getExportComponent().getSpanExporter(), newHandler);
     }
   }
 
+  private static SpanExporter.Handler createHandler(JaegerExporterConfiguration configuration) {
+    Process process = new Process(configuration.getServiceName());
+    ThriftSender sender = configuration.getThriftSender();
+    if (sender != null) {
+      return new JaegerExporterHandler(
+          sender, process, configuration.getDeadline(), configuration.getSpool());
+    }
+    SpanBatchSender batchSender;
+    try {
+      if (!configuration.getThriftEndpoint().isEmpty()) {
+        batchSender =
+            new HttpCollectorSender(
+                configuration.getThriftEndpoint(), process, configuration.getDeadline());
+      } else {
+        HostAndPort agent = HostAndPort.fromString(configuration.getAgentEndpoint());
+        checkArgument(agent.hasPort(), "Agent endpoint must be host:port.");
+        batchSender =
+            new UdpAgentSender(
+                new InetSocketAddress(agent.getHost(), agent.getPort()),
+                process,
+                configuration.getMaxPacketSize());
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to create the Jaeger sender.", e);
+    } catch (TException e) {
+      throw new IllegalArgumentException("Failed to create the Jaeger sender.", e);
+    }
+    return new PipelinedJaegerExporterHandler(
+        batchSender, configuration.getDeadline(), configuration.getSpool());
+  }
+
   /**
    * Creates and registers the Jaeger Trace exporter to the OpenCensus library. Only one Jaeger
    * exporter can be registered at any point.
@@ -136,6 +166,9 @@ public final class JaegerTraceExporter {
     synchronized (monitor) {
       checkState(handler != null, "Jaeger exporter is not registered.");
       unregister(Tracing.getExportComponent().getSpanExporter());
+      if (handler instanceof PipelinedJaegerExporterHandler) {
+        ((PipelinedJaegerExporterHandler) handler).shutdown();
+      }
       handler = null;
     }
   }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
+import io.opencensus.exporter.trace.util.TimeLimitedHandler;
+import io.opencensus.trace.export.SpanData;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A Jaeger handler that encodes spans directly into pooled Thrift buffers, and sends them in the
+ * background while the next batch is encoded.
+ *
+ * <p>An export returns once its batch is handed over to the sender thread. At most one batch is
+ * sent at a time: an export waits for the previous send to complete before handing its batch over,
+ * so a slow backend slows down exports instead of buffering spans without bounds. A batch that
+ * fails to send is spooled if the handler has a {@link SpanSpool}, and dropped otherwise.
+ */
+@ThreadSafe
+final class PipelinedJaegerExporterHandler extends TimeLimitedHandler {
+
+  private static final String EXPORT_SPAN_NAME = "ExportJaegerTraces";
+
+  private final SpanBatchSender sender;
+  private final ExecutorService sendExecutor;
+  // Encoded batches that are neither being encoded nor sent. There are at most as many as the
+  // concurrent exports, plus the one being sent.
+  private final ConcurrentLinkedQueue<EncodedSpans> pool =
+      new ConcurrentLinkedQueue<EncodedSpans>();
+  private final Object pipelineLock = new Object();
+
+  @GuardedBy("pipelineLock")
+  @Nullable
+  private Future<?> lastSend;
+
+  PipelinedJaegerExporterHandler(SpanBatchSender sender, Duration deadline) {
+    this(sender, deadline, null);
+  }
+
+  PipelinedJaegerExporterHandler(
+      SpanBatchSender sender, Duration deadline, @Nullable SpanSpool spool) {
+    super(deadline, EXPORT_SPAN_NAME, spool);
+    this.sender = checkNotNull(sender, "sender");
+    this.sendExecutor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("OpenCensus.JaegerExporter-%d")
+                .build());
+  }
+
+  @Override
+  public void timeLimitedExport(Collection<SpanData> spanDataList) throws Exception {
+    if (spanDataList.isEmpty()) {
+      return;
+    }
+    EncodedSpans spans = pool.poll();
+    if (spans == null) {
+      spans = new EncodedSpans(sender.getProtocolFactory());
+    }
+    boolean handedOver = false;
+    try {
+      for (SpanData spanData : spanDataList) {
+        spans.add(spanData);
+      }
+      synchronized (pipelineLock) {
+        awaitLastSend();
+        lastSend = sendExecutor.submit(new SendTask(spans, spanDataList));
+        handedOver = true;
+      }
+    } finally {
+      if (!handedOver) {
+        release(spans);
+      }
+    }
+  }
+
+  // Waits until the batch handed over by the last export is sent.
+  @GuardedBy("pipelineLock")
+  private void awaitLastSend() throws InterruptedException {
+    if (lastSend != null) {
+      try {
+        lastSend.get();
+      } catch (ExecutionException e) {
+        // The send task reports its own failures.
+      }
+    }
+  }
+
+  /** Waits until the batches already handed over are sent. */
+  @VisibleForTesting
+  void flush() throws InterruptedException {
+    synchronized (pipelineLock) {
+      awaitLastSend();
+    }
+  }
+
+  /**
+   * Closes the sender once the batches already handed over are sent, and stops the sender thread.
+   */
+  void shutdown() {
+    sendExecutor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            sender.close();
+          }
+        });
+    sendExecutor.shutdown();
+  }
+
+  private void release(EncodedSpans spans) {
+    spans.reset();
+    pool.offer(spans);
+  }
+
+  private final class SendTask implements Runnable {
+    private final EncodedSpans spans;
+    // The spans that were encoded, to spool them if the send fails. The exporter doesn't reuse the
+    // collections it exports.
+    private final Collection<SpanData> spanDataList;
+
+    SendTask(EncodedSpans spans, Collection<SpanData> spanDataList) {
+      this.spans = spans;
+      this.spanDataList = spanDataList;
+    }
+
+    @Override
+    public void run() {
+      try {
+        sender.send(spans);
+      } catch (Exception e) {
+        onBackgroundExportFailure(spanDataList, e);
+      } finally {
+        release(spans);
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import io.jaegertracing.thriftjava.Process;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+
+/**
+ * Sends {@link EncodedSpans} to Jaeger as {@code Batch} structs. The process is encoded once, and
+ * the batches are assembled from the already encoded bytes.
+ *
+ * <p>Implementations are only called from one thread at a time.
+ */
+abstract class SpanBatchSender {
+
+  private static final TStruct BATCH_STRUCT = new TStruct("Batch");
+  private static final TField PROCESS_FIELD = new TField("process", TType.STRUCT, (short) 1);
+  private static final TField SPANS_FIELD = new TField("spans", TType.LIST, (short) 2);
+
+  private final TProtocolFactory protocolFactory;
+  private final byte[] encodedProcess;
+
+  SpanBatchSender(TProtocolFactory protocolFactory, Process process) throws TException {
+    this.protocolFactory = protocolFactory;
+    ThriftBuffer buffer = new ThriftBuffer(256);
+    process.write(protocolFactory.getProtocol(buffer));
+    this.encodedProcess = buffer.toByteArray();
+  }
+
+  /** Returns the factory of the protocol that spans must be encoded with. */
+  final TProtocolFactory getProtocolFactory() {
+    return protocolFactory;
+  }
+
+  /** Sends the given spans, in one or more requests. */
+  abstract void send(EncodedSpans spans) throws Exception;
+
+  /** Releases the resources of this sender. No batch is sent after it is closed. */
+  void close() {}
+
+  /**
+   * Writes a {@code Batch} struct with the spans from {@code fromIndex}, inclusive, to {@code
+   * toIndex}, exclusive.
+   */
+  final void writeBatch(TProtocol protocol, EncodedSpans spans, int fromIndex, int toIndex)
+      throws TException {
+    protocol.writeStructBegin(BATCH_STRUCT);
+    protocol.writeFieldBegin(PROCESS_FIELD);
+    protocol.getTransport().write(encodedProcess, 0, encodedProcess.length);
+    protocol.writeFieldEnd();
+    protocol.writeFieldBegin(SPANS_FIELD);
+    protocol.writeListBegin(new TList(TType.STRUCT, toIndex - fromIndex));
+    spans.writeTo(protocol, fromIndex, toIndex);
+    protocol.writeListEnd();
+    protocol.writeFieldEnd();
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+  }
+}
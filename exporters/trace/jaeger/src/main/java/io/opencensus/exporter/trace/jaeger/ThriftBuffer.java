@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import java.util.Arrays;
+import org.apache.thrift.transport.TTransport;
+
+/**
+ * A growable, write-only {@link TTransport} that Thrift protocols encode into. It can be reset and
+ * reused, and its bytes can be spliced into other buffers without copies.
+ */
+final class ThriftBuffer extends TTransport {
+
+  private byte[] bytes;
+  private int size;
+
+  ThriftBuffer(int initialCapacity) {
+    bytes = new byte[initialCapacity];
+  }
+
+  /** Returns the number of bytes written since the last {@link #reset()}. */
+  int size() {
+    return size;
+  }
+
+  /** Discards the written bytes, keeping the allocated capacity. */
+  void reset() {
+    size = 0;
+  }
+
+  /** Returns the backing array. Only the first {@link #size()} bytes are valid. */
+  byte[] getArray() {
+    return bytes;
+  }
+
+  /** Returns a copy of the written bytes. */
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) {
+    if (size + len > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + len));
+    }
+    System.arraycopy(buf, off, bytes, size, len);
+    size += len;
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) {
+    throw new UnsupportedOperationException("ThriftBuffer is write-only.");
+  }
+
+  @Override
+  public boolean isOpen() {
+    return true;
+  }
+
+  @Override
+  public void open() {}
+
+  @Override
+  public void close() {}
+}
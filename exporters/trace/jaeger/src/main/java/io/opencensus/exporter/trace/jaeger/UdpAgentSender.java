@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import io.jaegertracing.thriftjava.Process;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+
+/**
+ * Sends spans to a Jaeger agent as {@code Agent.emitBatch} one-way calls over UDP, encoded with the
+ * compact protocol. Spans are packed into as few packets as possible, each of them at most {@code
+ * maxPacketSize} bytes.
+ */
+@NotThreadSafe
+final class UdpAgentSender extends SpanBatchSender {
+
+  private static final Logger logger = Logger.getLogger(UdpAgentSender.class.getName());
+
+  private static final TMessage EMIT_BATCH_MESSAGE =
+      new TMessage("emitBatch", TMessageType.ONEWAY, 0);
+  private static final TStruct EMIT_BATCH_ARGS_STRUCT = new TStruct("emitBatch_args");
+  private static final TField BATCH_FIELD = new TField("batch", TType.STRUCT, (short) 1);
+  // The list header of a packet with no span is 1 byte, and up to 6 bytes with more spans.
+  private static final int MAX_LIST_HEADER_GROWTH = 5;
+
+  private final DatagramSocket socket;
+  private final int maxPacketSize;
+  private final ThriftBuffer packetBuffer;
+  private final TProtocol packetProtocol;
+  // The size of a packet without spans, plus the growth of the list header.
+  private final int packetOverhead;
+
+  UdpAgentSender(SocketAddress agentAddress, Process process, int maxPacketSize)
+      throws IOException, TException {
+    super(new TCompactProtocol.Factory(), process);
+    this.maxPacketSize = maxPacketSize;
+    this.packetBuffer = new ThriftBuffer(maxPacketSize);
+    this.packetProtocol = getProtocolFactory().getProtocol(packetBuffer);
+    writePacket(new EncodedSpans(getProtocolFactory()), 0, 0);
+    this.packetOverhead = packetBuffer.size() + MAX_LIST_HEADER_GROWTH;
+    this.socket = new DatagramSocket();
+    socket.connect(agentAddress);
+  }
+
+  @Override
+  void send(EncodedSpans spans) throws IOException, TException {
+    int count = spans.count();
+    int droppedSpans = 0;
+    int from = 0;
+    while (from < count) {
+      int to = from;
+      int packetSize = packetOverhead;
+      while (to < count && packetSize + spans.size(to) <= maxPacketSize) {
+        packetSize += spans.size(to);
+        to++;
+      }
+      if (to == from) {
+        // A single span does not fit in a packet, the agent would not be able to read it.
+        droppedSpans++;
+        from++;
+        continue;
+      }
+      writePacket(spans, from, to);
+      socket.send(new DatagramPacket(packetBuffer.getArray(), packetBuffer.size()));
+      from = to;
+    }
+    if (droppedSpans > 0) {
+      logger.log(
+          Level.WARNING,
+          "Dropped {0} spans larger than the max packet size of {1} bytes.",
+          new Object[] {droppedSpans, maxPacketSize});
+    }
+  }
+
+  @Override
+  void close() {
+    socket.close();
+  }
+
+  private void writePacket(EncodedSpans spans, int fromIndex, int toIndex) throws TException {
+    packetBuffer.reset();
+    packetProtocol.writeMessageBegin(EMIT_BATCH_MESSAGE);
+    packetProtocol.writeStructBegin(EMIT_BATCH_ARGS_STRUCT);
+    packetProtocol.writeFieldBegin(BATCH_FIELD);
+    writeBatch(packetProtocol, spans, fromIndex, toIndex);
+    packetProtocol.writeFieldEnd();
+    packetProtocol.writeFieldStop();
+    packetProtocol.writeStructEnd();
+    packetProtocol.writeMessageEnd();
+  }
+}
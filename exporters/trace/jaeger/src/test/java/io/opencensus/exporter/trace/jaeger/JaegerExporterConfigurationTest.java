@@ -20,9 +20,12 @@ import static com.google.common.truth.Truth.assertThat;
 
 import io.jaegertracing.thrift.internal.senders.ThriftSender;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
+import java.io.IOException;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
@@ -40,6 +43,7 @@ public class JaegerExporterConfigurationTest {
   @Mock private static final ThriftSender mockSender = Mockito.mock(ThriftSender.class);
 
   @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
 
   @Test
   public void updateConfigs() {
@@ -56,6 +60,45 @@ public class JaegerExporterConfigurationTest {
     assertThat(configuration.getThriftSender()).isEqualTo(mockSender);
   }
 
+  @Test
+  public void defaultConfigs() {
+    JaegerExporterConfiguration configuration =
+        JaegerExporterConfiguration.builder()
+            .setServiceName(SERVICE)
+            .setAgentEndpoint("localhost:6831")
+            .build();
+    assertThat(configuration.getThriftEndpoint()).isEmpty();
+    assertThat(configuration.getAgentEndpoint()).isEqualTo("localhost:6831");
+    assertThat(configuration.getMaxPacketSize())
+        .isEqualTo(JaegerExporterConfiguration.DEFAULT_MAX_PACKET_SIZE);
+    assertThat(configuration.getDeadline()).isEqualTo(JaegerExporterConfiguration.DEFAULT_DEADLINE);
+    assertThat(configuration.getSpool()).isNull();
+  }
+
+  @Test
+  public void setSpool() throws IOException {
+    SpanSpool spool = SpanSpool.create(SpanSpool.Options.builder(tempFolder.getRoot()).build());
+    JaegerExporterConfiguration configuration =
+        JaegerExporterConfiguration.builder()
+            .setServiceName(SERVICE)
+            .setAgentEndpoint("localhost:6831")
+            .setSpool(spool)
+            .build();
+    assertThat(configuration.getSpool()).isEqualTo(spool);
+    spool.close();
+  }
+
+  @Test
+  public void disallowZeroMaxPacketSize() {
+    JaegerExporterConfiguration.Builder builder =
+        JaegerExporterConfiguration.builder()
+            .setServiceName(SERVICE)
+            .setAgentEndpoint("localhost:6831")
+            .setMaxPacketSize(0);
+    thrown.expect(IllegalArgumentException.class);
+    builder.build();
+  }
+
   @Test
   public void needEitherThriftEndpointOrSender() {
     JaegerExporterConfiguration.Builder builder =
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.jaeger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.opencensus.exporter.trace.jaeger.JaegerExporterConfiguration.DEFAULT_DEADLINE;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.jaegertracing.agent.thrift.Agent;
+import io.jaegertracing.thrift.internal.senders.ThriftSender;
+import io.jaegertracing.thriftjava.Batch;
+import io.jaegertracing.thriftjava.Process;
+import io.jaegertracing.thriftjava.Span;
+import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.trace.util.SpanSpool;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+/** Unit tests for {@link PipelinedJaegerExporterHandler} and its senders. */
+@RunWith(JUnit4.class)
+public class PipelinedJaegerExporterHandlerTest {
+
+  private final Process process = new Process("test");
+  private final List<Batch> collectorBatches = new CopyOnWriteArrayList<Batch>();
+  private final List<String> collectorQueries = new CopyOnWriteArrayList<String>();
+  private final List<String> collectorContentTypes = new CopyOnWriteArrayList<String>();
+  private HttpServer collector;
+  private DatagramSocket agent;
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Before
+  public void setUp() throws IOException {
+    collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    collector.createContext(
+        "/",
+        new HttpHandler() {
+          @Override
+          public void handle(HttpExchange exchange) throws IOException {
+            collectorQueries.add(exchange.getRequestURI().getQuery());
+            collectorContentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+            Batch batch = new Batch();
+            try {
+              batch.read(new TBinaryProtocol(new TIOStreamTransport(exchange.getRequestBody())));
+            } catch (TException e) {
+              throw new IOException(e);
+            }
+            collectorBatches.add(batch);
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+          }
+        });
+    collector.start();
+    agent = new DatagramSocket(0, InetAddress.getByName("localhost"));
+    agent.setSoTimeout(5000);
+  }
+
+  @After
+  public void tearDown() {
+    collector.stop(0);
+    agent.close();
+  }
+
+  @Test
+  public void httpCollector_EncodesLikeThriftObjects() throws Exception {
+    List<SpanData> spanDataList = sampleSpans(3);
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(
+            new HttpCollectorSender(
+                "http://localhost:" + collector.getAddress().getPort() + "/api/traces",
+                process,
+                DEFAULT_DEADLINE),
+            DEFAULT_DEADLINE);
+    handler.timeLimitedExport(spanDataList);
+    handler.flush();
+
+    assertThat(collectorQueries).containsExactly("format=jaeger.thrift");
+    assertThat(collectorContentTypes).containsExactly("application/x-thrift");
+    assertThat(collectorBatches).hasSize(1);
+    assertThat(collectorBatches.get(0).getProcess()).isEqualTo(process);
+    assertThat(collectorBatches.get(0).getSpans())
+        .containsExactlyElementsIn(convertWithThriftObjects(spanDataList))
+        .inOrder();
+  }
+
+  @Test
+  public void udpAgent_EncodesLikeThriftObjects() throws Exception {
+    List<SpanData> spanDataList = sampleSpans(3);
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(
+            new UdpAgentSender(agent.getLocalSocketAddress(), process, 65000), DEFAULT_DEADLINE);
+    handler.timeLimitedExport(spanDataList);
+
+    Batch batch = receiveBatch();
+    assertThat(batch.getProcess()).isEqualTo(process);
+    assertThat(batch.getSpans())
+        .containsExactlyElementsIn(convertWithThriftObjects(spanDataList))
+        .inOrder();
+  }
+
+  @Test
+  public void udpAgent_SplitsPacketsByMaxPacketSize() throws Exception {
+    List<SpanData> spanDataList = sampleSpans(10);
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(
+            new UdpAgentSender(agent.getLocalSocketAddress(), process, 2000), DEFAULT_DEADLINE);
+    handler.timeLimitedExport(spanDataList);
+    // The buffers are reused by the next export.
+    handler.timeLimitedExport(spanDataList);
+
+    List<Span> received = new ArrayList<Span>();
+    int packets = 0;
+    while (received.size() < 2 * spanDataList.size()) {
+      received.addAll(receiveBatch().getSpans());
+      packets++;
+    }
+    assertThat(packets).isGreaterThan(2);
+    List<Span> expected = convertWithThriftObjects(spanDataList);
+    assertThat(received.subList(0, expected.size())).containsExactlyElementsIn(expected).inOrder();
+    assertThat(received.subList(expected.size(), received.size()))
+        .containsExactlyElementsIn(expected)
+        .inOrder();
+  }
+
+  @Test
+  public void udpAgent_DropsSpansLargerThanPackets() throws Exception {
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(
+            new UdpAgentSender(agent.getLocalSocketAddress(), process, 100), DEFAULT_DEADLINE);
+    handler.timeLimitedExport(sampleSpans(1));
+
+    agent.setSoTimeout(100);
+    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+    try {
+      agent.receive(packet);
+      throw new AssertionError("Received an unexpected packet.");
+    } catch (SocketTimeoutException expected) {
+      // Nothing was sent.
+    }
+  }
+
+  @Test
+  public void export_ReturnsBeforeBatchIsSent() throws Exception {
+    FakeSender sender = new FakeSender(null);
+    sender.blocked = new CountDownLatch(1);
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(sender, DEFAULT_DEADLINE);
+    handler.timeLimitedExport(sampleSpans(2));
+    assertThat(sender.sentSpans).isEqualTo(0);
+
+    sender.blocked.countDown();
+    handler.flush();
+    assertThat(sender.sentSpans).isEqualTo(2);
+  }
+
+  @Test
+  public void export_SpoolsBatchWhenSendFails() throws Exception {
+    SpanSpool spool = SpanSpool.create(SpanSpool.Options.builder(tempFolder.getRoot()).build());
+    try {
+      FakeSender sender = new FakeSender(new IOException("Connection refused"));
+      PipelinedJaegerExporterHandler handler =
+          new PipelinedJaegerExporterHandler(sender, DEFAULT_DEADLINE, spool);
+      handler.timeLimitedExport(sampleSpans(1));
+      handler.flush();
+      assertThat(spool.getBatchCount()).isEqualTo(1);
+    } finally {
+      spool.close();
+    }
+  }
+
+  @Test
+  public void shutdown_ClosesSenderAfterPendingSends() throws Exception {
+    FakeSender sender = new FakeSender(null);
+    PipelinedJaegerExporterHandler handler =
+        new PipelinedJaegerExporterHandler(sender, DEFAULT_DEADLINE);
+    handler.timeLimitedExport(sampleSpans(2));
+    handler.shutdown();
+
+    assertThat(sender.closed.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(sender.sentSpans).isEqualTo(2);
+  }
+
+  @Test
+  public void udpAgent_CloseClosesSocket() throws Exception {
+    UdpAgentSender sender = new UdpAgentSender(agent.getLocalSocketAddress(), process, 65000);
+    sender.close();
+    try {
+      sender.send(encode(sender, sampleSpans(1)));
+      throw new AssertionError("Expected the send to fail.");
+    } catch (SocketException expected) {
+      // The socket is closed.
+    }
+  }
+
+  private static EncodedSpans encode(SpanBatchSender sender, List<SpanData> spanDataList)
+      throws TException {
+    EncodedSpans spans = new EncodedSpans(sender.getProtocolFactory());
+    for (SpanData spanData : spanDataList) {
+      spans.add(spanData);
+    }
+    return spans;
+  }
+
+  private final class FakeSender extends SpanBatchSender {
+    private final CountDownLatch closed = new CountDownLatch(1);
+    @Nullable private final Exception failure;
+    @Nullable private volatile CountDownLatch blocked;
+    private volatile int sentSpans;
+
+    FakeSender(@Nullable Exception failure) throws TException {
+      super(new TCompactProtocol.Factory(), process);
+      this.failure = failure;
+    }
+
+    @Override
+    void send(EncodedSpans spans) throws Exception {
+      CountDownLatch blocked = this.blocked;
+      if (blocked != null) {
+        blocked.await();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      sentSpans += spans.count();
+    }
+
+    @Override
+    void close() {
+      closed.countDown();
+    }
+  }
+
+  private Batch receiveBatch() throws IOException, TException {
+    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+    agent.receive(packet);
+    assertThat(packet.getLength()).isAtMost(65000);
+    TProtocol protocol =
+        new TCompactProtocol(
+            new TMemoryInputTransport(packet.getData(), packet.getOffset(), packet.getLength()));
+    TMessage message = protocol.readMessageBegin();
+    assertThat(message.name).isEqualTo("emitBatch");
+    assertThat(message.type).isEqualTo(TMessageType.ONEWAY);
+    Agent.emitBatch_args args = new Agent.emitBatch_args();
+    args.read(protocol);
+    protocol.readMessageEnd();
+    return args.getBatch();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Span> convertWithThriftObjects(List<SpanData> spanDataList) throws Exception {
+    ThriftSender sender = mock(ThriftSender.class);
+    new JaegerExporterHandler(sender, process, DEFAULT_DEADLINE).timeLimitedExport(spanDataList);
+    ArgumentCaptor<List<Span>> captor =
+        (ArgumentCaptor<List<Span>>) (ArgumentCaptor<?>) ArgumentCaptor.forClass(List.class);
+    verify(sender).send(eq(process), captor.capture());
+    return captor.getValue();
+  }
+
+  private static List<SpanData> sampleSpans(int count) {
+    List<SpanData> spans = new ArrayList<SpanData>();
+    for (int i = 0; i < count; i++) {
+      spans.add(
+          SpanData.create(
+              SpanContext.create(
+                  TraceId.fromLowerBase16("ff000000000000000000000000000" + (100 + i)),
+                  SpanId.fromLowerBase16("00000000000001" + (10 + i)),
+                  TraceOptions.builder().setIsSampled(true).build(),
+                  Tracestate.builder().build()),
+              i == 0 ? null : SpanId.fromLowerBase16("7fffffffffffffff"),
+              true,
+              "span" + i,
+              i % 2 == 0 ? Kind.SERVER : Kind.CLIENT,
+              Timestamp.create(1519629870L, 1000 * i),
+              SpanData.Attributes.create(
+                  ImmutableMap.of(
+                      "bool", AttributeValue.booleanAttributeValue(true),
+                      "long", AttributeValue.longAttributeValue(i),
+                      "double", AttributeValue.doubleAttributeValue(0.5 * i),
+                      "string", AttributeValue.stringAttributeValue("\u00e9t\u00e9 " + i)),
+                  0),
+              SpanData.TimedEvents.create(
+                  Collections.singletonList(
+                      SpanData.TimedEvent.create(
+                          Timestamp.create(1519629871L, 987654321),
+                          Annotation.fromDescriptionAndAttributes(
+                              "annotation",
+                              ImmutableMap.of(
+                                  "key", AttributeValue.stringAttributeValue("value"))))),
+                  0),
+              SpanData.TimedEvents.create(
+                  Collections.singletonList(
+                      SpanData.TimedEvent.create(
+                          Timestamp.create(1519629871L, 123456789),
+                          MessageEvent.builder(MessageEvent.Type.RECEIVED, 42L)
+                              .setCompressedMessageSize(69)
+                              .setUncompressedMessageSize(96)
+                              .build())),
+                  0),
+              SpanData.Links.create(
+                  Collections.singletonList(
+                      Link.fromSpanContext(
+                          SpanContext.create(
+                              TraceId.fromLowerBase16("ffffffffffffffffffffffffffffff00"),
+                              SpanId.fromLowerBase16("0000000000000200"),
+                              TraceOptions.DEFAULT,
+                              Tracestate.builder().build()),
+                          Link.Type.PARENT_LINKED_SPAN)),
+                  0),
+              0,
+              i == 1 ? Status.DEADLINE_EXCEEDED.withDescription("timeout") : Status.OK,
+              Timestamp.create(1519630148L, 2000)));
+    }
+    return spans;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.ocagent;
+
+import com.google.protobuf.CodedOutputStream;
+import io.opencensus.common.Timestamp;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link SpanProtoEncoder}, against building the request with {@link
+ * TraceProtoUtils#toSpanProto(SpanData)} and serializing it.
+ */
+@State(Scope.Benchmark)
+public class SpanProtoEncoderBenchmark {
+  @State(Scope.Thread)
+  public static class Data {
+    @Param({"1", "100", "1000"})
+    int spanCount;
+
+    private List<SpanData> spans;
+    private SpanProtoEncoder encoder;
+    private ConcurrentLinkedQueue<EncodedExportRequest> pool;
+
+    @Setup
+    public void setup() {
+      Random random = new Random(1234);
+      spans = new ArrayList<SpanData>(spanCount);
+      for (int i = 0; i < spanCount; i++) {
+        spans.add(createSpanData(random, i));
+      }
+      encoder = new SpanProtoEncoder();
+      pool = new ConcurrentLinkedQueue<EncodedExportRequest>();
+      pool.offer(new EncodedExportRequest(64 * 1024, pool));
+    }
+  }
+
+  /** This benchmark measures the encoding of a request with the generated protobuf messages. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public byte[] toSpanProto(Data data) {
+    ExportTraceServiceRequest.Builder requestBuilder = ExportTraceServiceRequest.newBuilder();
+    for (SpanData spanData : data.spans) {
+      requestBuilder.addSpans(TraceProtoUtils.toSpanProto(spanData));
+    }
+    return requestBuilder.build().toByteArray();
+  }
+
+  /**
+   * This benchmark measures the encoding of a request with {@link SpanProtoEncoder} into a pooled
+   * buffer.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public int spanProtoEncoder(Data data) throws IOException {
+    EncodedExportRequest request = data.pool.poll();
+    for (SpanData spanData : data.spans) {
+      int spanSize = data.encoder.computeSpanSize(spanData);
+      CodedOutputStream output = request.append(SpanProtoEncoder.computeSpanFieldSize(spanSize));
+      data.encoder.writeSpanField(spanData, spanSize, output);
+    }
+    int size = request.size();
+    request.release();
+    return size;
+  }
+
+  private static SpanData createSpanData(Random random, int index) {
+    SpanContext context =
+        SpanContext.create(
+            TraceId.generateRandomId(random),
+            SpanId.generateRandomId(random),
+            TraceOptions.DEFAULT,
+            Tracestate.builder().build());
+    Map<String, AttributeValue> attributes = new HashMap<String, AttributeValue>();
+    attributes.put("http.method", AttributeValue.stringAttributeValue("GET"));
+    attributes.put("http.path", AttributeValue.stringAttributeValue("/users/" + index));
+    attributes.put("http.status_code", AttributeValue.longAttributeValue(200L));
+    attributes.put("retried", AttributeValue.booleanAttributeValue(false));
+    return SpanData.create(
+        context,
+        SpanId.generateRandomId(random),
+        /* hasRemoteParent= */ false,
+        "Sent.io.opencensus.Benchmark" + index,
+        Kind.CLIENT,
+        Timestamp.create(1519629870L, 1000 * index),
+        SpanData.Attributes.create(attributes, 0),
+        TimedEvents.create(
+            Collections.singletonList(
+                TimedEvent.create(
+                    Timestamp.create(1519629871L, 0), Annotation.fromDescription("Request sent"))),
+            0),
+        TimedEvents.create(
+            Collections.singletonList(
+                TimedEvent.create(
+                    Timestamp.create(1519629871L, 500),
+                    MessageEvent.builder(MessageEvent.Type.SENT, 1)
+                        .setUncompressedMessageSize(1024)
+                        .build())),
+            0),
+        SpanData.Links.create(Collections.<Link>emptyList(), 0),
+        0,
+        Status.OK,
+        Timestamp.create(1519629872L, 0));
+  }
+}
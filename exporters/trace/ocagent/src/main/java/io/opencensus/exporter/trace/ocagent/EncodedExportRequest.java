@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.ocagent;
+
+import com.google.protobuf.CodedOutputStream;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An {@code ExportTraceServiceRequest} already in the protobuf wire format. Its bytes are handed to
+ * gRPC as they are, and the buffer goes back to its pool once gRPC has consumed them.
+ */
+@NotThreadSafe
+final class EncodedExportRequest {
+
+  /** Marshaller that writes the encoded bytes of the requests. Requests are never parsed. */
+  static final MethodDescriptor.Marshaller<EncodedExportRequest> MARSHALLER =
+      new MethodDescriptor.Marshaller<EncodedExportRequest>() {
+        @Override
+        public InputStream stream(EncodedExportRequest value) {
+          return value.new RequestStream();
+        }
+
+        @Override
+        public EncodedExportRequest parse(InputStream stream) {
+          throw new UnsupportedOperationException("Export requests are only sent.");
+        }
+      };
+
+  @Nullable private final Queue<EncodedExportRequest> pool;
+  private byte[] bytes;
+  private int size;
+
+  EncodedExportRequest(int initialCapacity, @Nullable Queue<EncodedExportRequest> pool) {
+    this.bytes = new byte[initialCapacity];
+    this.pool = pool;
+  }
+
+  /** Returns the encoding of the given request, which is not returned to any pool. */
+  static EncodedExportRequest of(ExportTraceServiceRequest request) {
+    EncodedExportRequest encoded = new EncodedExportRequest(0, null);
+    encoded.bytes = request.toByteArray();
+    encoded.size = encoded.bytes.length;
+    return encoded;
+  }
+
+  /** Returns the number of bytes of this request. */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Appends {@code length} bytes to this request, and returns the stream to write them with. The
+   * stream must be entirely written before appending again.
+   */
+  CodedOutputStream append(int length) {
+    if (bytes.length - size < length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+    }
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes, size, length);
+    size += length;
+    return output;
+  }
+
+  /** Empties this request and returns it to its pool, if it has one. */
+  void release() {
+    if (pool != null) {
+      size = 0;
+      pool.offer(this);
+    }
+  }
+
+  // The stream gRPC reads the request from. Transports that support it drain the bytes directly to
+  // the network buffers.
+  private final class RequestStream extends InputStream implements KnownLength, Drainable {
+    private int position;
+    private boolean released;
+
+    @Override
+    public int read() {
+      if (released || position >= size) {
+        releaseOnce();
+        return -1;
+      }
+      int value = bytes[position++] & 0xff;
+      releaseIfConsumed();
+      return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (released || position >= size) {
+        releaseOnce();
+        return -1;
+      }
+      int count = Math.min(len, size - position);
+      System.arraycopy(bytes, position, b, off, count);
+      position += count;
+      releaseIfConsumed();
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return released ? 0 : size - position;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int count = available();
+      target.write(bytes, position, count);
+      position = size;
+      releaseOnce();
+      return count;
+    }
+
+    // Readers that rely on the known length do not always read until the end of the stream.
+    private void releaseIfConsumed() {
+      if (position == size) {
+        releaseOnce();
+      }
+    }
+
+    private void releaseOnce() {
+      if (!released) {
+        released = true;
+        release();
+      }
+    }
+  }
+}
@@ -80,7 +80,9 @@ public final class OcAgentTraceExporter {
               configuration.getSslContext(),
               configuration.getRetryInterval(),
               configuration.getEnableConfig(),
-              configuration.getDeadline());
+              configuration.getDeadline(),
+              configuration.getMaxRequestBytes(),
+              configuration.getSpool());
       registerInternal(newHandler);
     }
   }
@@ -21,6 +21,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.netty.handler.ssl.SslContext;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
@@ -38,6 +39,8 @@ public abstract class OcAgentTraceExporterConfiguration {
   @VisibleForTesting static final Duration DEFAULT_RETRY_INTERVAL = Duration.create(300, 0);
   @VisibleForTesting static final Duration DEFAULT_DEADLINE = Duration.create(10, 0);
   @VisibleForTesting static final Duration ZERO = Duration.create(0, 0);
+  // Well below the default max inbound message size of gRPC servers, which is 4 MiB.
+  @VisibleForTesting static final int DEFAULT_MAX_REQUEST_BYTES = 1024 * 1024;
 
   OcAgentTraceExporterConfiguration() {}
 
@@ -112,6 +115,29 @@ public abstract class OcAgentTraceExporterConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns the max size in bytes of an export request. The spans of an export are split into as
+   * many requests as needed, except that a span larger than this size is sent alone.
+   *
+   * <p>Default value is 1 MiB.
+   *
+   * @return the max size in bytes of an export request.
+   * @since 0.24
+   */
+  public abstract int getMaxRequestBytes();
+
+  /**
+   * Returns the {@link SpanSpool} that keeps the spans which failed to export, until they can be
+   * replayed to Agent/Collector.
+   *
+   * <p>Default value is {@code null}, the spans which failed to export are dropped.
+   *
+   * @return the {@code SpanSpool}.
+   * @since 0.24
+   */
+  @Nullable
+  public abstract SpanSpool getSpool();
+
   /**
    * Returns a new {@link Builder}.
    *
@@ -125,7 +151,8 @@ public abstract class OcAgentTraceExporterConfiguration {
         .setEnableConfig(true)
         .setUseInsecure(true)
         .setRetryInterval(DEFAULT_RETRY_INTERVAL)
-        .setDeadline(DEFAULT_DEADLINE);
+        .setDeadline(DEFAULT_DEADLINE)
+        .setMaxRequestBytes(DEFAULT_MAX_REQUEST_BYTES);
   }
 
   /**
@@ -202,6 +229,24 @@ public abstract class OcAgentTraceExporterConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets the max size in bytes of an export request.
+     *
+     * @param maxRequestBytes the max size in bytes of an export request.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setMaxRequestBytes(int maxRequestBytes);
+
+    /**
+     * Sets the {@link SpanSpool} that keeps the spans which failed to export.
+     *
+     * @param spool the {@code SpanSpool}.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setSpool(SpanSpool spool);
+
     // TODO(songya): add an option that controls whether to always keep the RPC connection alive.
 
     abstract Duration getRetryInterval();
@@ -210,6 +255,8 @@ public abstract class OcAgentTraceExporterConfiguration {
 
     abstract Duration getDeadline();
 
+    abstract int getMaxRequestBytes();
+
     /**
      * Builds a {@link OcAgentTraceExporterConfiguration}.
      *
@@ -220,6 +267,7 @@ public abstract class OcAgentTraceExporterConfiguration {
       Preconditions.checkArgument(getDeadline().compareTo(ZERO) > 0, "Deadline must be positive.");
       Preconditions.checkArgument(
           getRetryInterval().compareTo(ZERO) > 0, "Retry interval must be positive.");
+      Preconditions.checkArgument(getMaxRequestBytes() > 0, "Max request bytes must be positive.");
       return autoBuild();
     }
   }
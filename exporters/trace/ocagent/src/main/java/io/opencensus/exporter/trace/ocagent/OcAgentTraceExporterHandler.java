@@ -16,18 +16,23 @@
 
 package io.opencensus.exporter.trace.ocagent;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.CodedOutputStream;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.netty.NegotiationType;
 import io.grpc.netty.NettyChannelBuilder;
 import io.netty.handler.ssl.SslContext;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.proto.agent.common.v1.Node;
 import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
 import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc;
 import io.opencensus.trace.export.SpanData;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
@@ -37,11 +42,19 @@ final class OcAgentTraceExporterHandler extends TimeLimitedHandler {
   private static final Logger logger =
       Logger.getLogger(OcAgentTraceExporterHandler.class.getName());
   private static final String EXPORT_SPAN_NAME = "ExportOpenCensusProtoSpans";
+  // Request buffers start small and grow up to about maxRequestBytes.
+  private static final int INITIAL_REQUEST_CAPACITY = 64 * 1024;
 
   private final String endPoint;
   private final Node node;
   private final Boolean useInsecure;
   @Nullable private final SslContext sslContext;
+  private final int maxRequestBytes;
+  // Whether the exports fail when the RPC is disconnected, so that the spans are spooled.
+  private final boolean failWhenDisconnected;
+  // Buffers of the requests that are neither being encoded nor sent.
+  private final ConcurrentLinkedQueue<EncodedExportRequest> requestPool =
+      new ConcurrentLinkedQueue<EncodedExportRequest>();
 
   @javax.annotation.Nullable
   private OcAgentTraceServiceExportRpcHandler exportRpcHandler; // Thread-safe
@@ -53,16 +66,21 @@ final class OcAgentTraceExporterHandler extends TimeLimitedHandler {
       @Nullable SslContext sslContext,
       Duration retryInterval,
       boolean enableConfig,
-      Duration deadline) {
-    super(deadline, EXPORT_SPAN_NAME);
+      Duration deadline,
+      int maxRequestBytes,
+      @Nullable SpanSpool spool) {
+    super(deadline, EXPORT_SPAN_NAME, spool);
     this.endPoint = endPoint;
     this.node = OcAgentNodeUtils.getNodeInfo(serviceName);
     this.useInsecure = useInsecure;
     this.sslContext = sslContext;
+    this.maxRequestBytes = maxRequestBytes;
+    this.failWhenDisconnected = spool != null;
   }
 
   @Override
-  public void timeLimitedExport(Collection<SpanData> spanDataList) {
+  public void timeLimitedExport(Collection<SpanData> spanDataList)
+      throws IOException, InterruptedException {
     if (exportRpcHandler == null || exportRpcHandler.isCompleted()) {
       // If not connected, try to initiate a new connection when a new batch of spans arrive.
       // Export RPC doesn't respect the retry interval.
@@ -72,14 +90,66 @@ final class OcAgentTraceExporterHandler extends TimeLimitedHandler {
     }
 
     if (exportRpcHandler == null || exportRpcHandler.isCompleted()) { // Failed to connect to Agent.
-      logger.info("Export RPC disconnected, dropping " + spanDataList.size() + " spans.");
       exportRpcHandler = null;
-    } else { // Connection succeeded, send export request.
-      ExportTraceServiceRequest.Builder requestBuilder = ExportTraceServiceRequest.newBuilder();
+      if (failWhenDisconnected) {
+        throw new IOException(
+            "Export RPC disconnected, spooling " + spanDataList.size() + " spans.");
+      }
+      logger.info("Export RPC disconnected, dropping " + spanDataList.size() + " spans.");
+    } else { // Connection succeeded, send export requests.
+      export(exportRpcHandler, spanDataList);
+    }
+  }
+
+  // Encodes the spans directly into pooled request buffers, and sends a request each time the next
+  // span would make it larger than maxRequestBytes. A span larger than that is sent alone.
+  @VisibleForTesting
+  void export(
+      OcAgentTraceServiceExportRpcHandler exportRpcHandler, Collection<SpanData> spanDataList)
+      throws IOException, InterruptedException {
+    SpanProtoEncoder encoder = new SpanProtoEncoder();
+    EncodedExportRequest request = newRequest();
+    try {
       for (SpanData spanData : spanDataList) {
-        requestBuilder.addSpans(TraceProtoUtils.toSpanProto(spanData));
+        int spanSize = encoder.computeSpanSize(spanData);
+        int spanFieldSize = SpanProtoEncoder.computeSpanFieldSize(spanSize);
+        if (request.size() > 0 && request.size() + spanFieldSize > maxRequestBytes) {
+          EncodedExportRequest full = request;
+          request = newRequest();
+          sendOrRelease(exportRpcHandler, full);
+        }
+        CodedOutputStream output = request.append(spanFieldSize);
+        encoder.writeSpanField(spanData, spanSize, output);
+        output.checkNoSpaceLeft();
+      }
+    } catch (IOException e) {
+      request.release();
+      throw e;
+    }
+    if (request.size() > 0) {
+      sendOrRelease(exportRpcHandler, request);
+    } else {
+      request.release();
+    }
+  }
+
+  private EncodedExportRequest newRequest() {
+    EncodedExportRequest request = requestPool.poll();
+    return request != null
+        ? request
+        : new EncodedExportRequest(
+            Math.min(INITIAL_REQUEST_CAPACITY, maxRequestBytes), requestPool);
+  }
+
+  // The buffer of a request handed over to gRPC goes back to the pool once gRPC has consumed it.
+  private void sendOrRelease(
+      OcAgentTraceServiceExportRpcHandler exportRpcHandler, EncodedExportRequest request)
+      throws IOException, InterruptedException {
+    if (!exportRpcHandler.onExport(request)) {
+      request.release();
+      if (failWhenDisconnected) {
+        throw new IOException("Export RPC disconnected while exporting spans.");
       }
-      exportRpcHandler.onExport(requestBuilder.build());
     }
   }
 
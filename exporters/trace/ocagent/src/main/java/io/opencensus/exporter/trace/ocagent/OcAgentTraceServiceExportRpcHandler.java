@@ -17,11 +17,16 @@
 package io.opencensus.exporter.trace.ocagent;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.grpc.ClientCall;
+import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
-import io.grpc.stub.StreamObserver;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
 import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
 import io.opencensus.proto.agent.trace.v1.ExportTraceServiceResponse;
+import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc;
 import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc.TraceServiceStub;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,17 +34,31 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
-/** Handler of export service RPC. */
+/**
+ * Handler of export service RPC.
+ *
+ * <p>Requests are sent already encoded, see {@link EncodedExportRequest}, through the same Export
+ * method as the generated stub.
+ */
 @ThreadSafe
 final class OcAgentTraceServiceExportRpcHandler {
 
   private static final Logger logger =
       Logger.getLogger(OcAgentTraceServiceExportRpcHandler.class.getName());
 
-  // A reference to the exportRequestObserver returned from stub.
+  // The Export method, with requests that are already encoded.
+  private static final MethodDescriptor<EncodedExportRequest, ExportTraceServiceResponse>
+      ENCODED_EXPORT_METHOD =
+          TraceServiceGrpc.getExportMethod()
+              .toBuilder(
+                  EncodedExportRequest.MARSHALLER,
+                  TraceServiceGrpc.getExportMethod().getResponseMarshaller())
+              .build();
+
+  // A reference to the request stream of the export call.
   @GuardedBy("this")
   @Nullable
-  private StreamObserver<ExportTraceServiceRequest> exportRequestObserver;
+  private ClientCallStreamObserver<EncodedExportRequest> exportRequestObserver;
 
   // The RPC status when this stream finishes/disconnects. Null if the stream is still connected.
   @GuardedBy("this")
@@ -49,7 +68,7 @@ final class OcAgentTraceServiceExportRpcHandler {
   private OcAgentTraceServiceExportRpcHandler() {}
 
   private synchronized void setExportRequestObserver(
-      StreamObserver<ExportTraceServiceRequest> exportRequestObserver) {
+      ClientCallStreamObserver<EncodedExportRequest> exportRequestObserver) {
     this.exportRequestObserver = exportRequestObserver;
   }
 
@@ -60,9 +79,10 @@ final class OcAgentTraceServiceExportRpcHandler {
         new OcAgentTraceServiceExportRpcHandler();
     ExportResponseObserver exportResponseObserver = new ExportResponseObserver(exportRpcHandler);
     try {
-      StreamObserver<ExportTraceServiceRequest> exportRequestObserver =
-          stub.export(exportResponseObserver);
-      exportRpcHandler.setExportRequestObserver(exportRequestObserver);
+      ClientCall<EncodedExportRequest, ExportTraceServiceResponse> call =
+          stub.getChannel().newCall(ENCODED_EXPORT_METHOD, stub.getCallOptions());
+      // The response observer receives the request stream before the call starts.
+      ClientCalls.asyncBidiStreamingCall(call, exportResponseObserver);
     } catch (StatusRuntimeException e) {
       exportRpcHandler.onComplete(e);
     }
@@ -71,14 +91,35 @@ final class OcAgentTraceServiceExportRpcHandler {
 
   // Sends the export request to Agent if the stream is still connected, otherwise do nothing.
   synchronized void onExport(ExportTraceServiceRequest request) {
+    send(EncodedExportRequest.of(request));
+  }
+
+  // Sends the encoded export request to Agent once the stream is ready to accept it without
+  // buffering, or drops it if the stream completes in the meantime. Returns whether the request was
+  // handed over to gRPC, which then owns its buffer.
+  synchronized boolean onExport(EncodedExportRequest request) throws InterruptedException {
+    while (!isCompleted() && exportRequestObserver != null && !exportRequestObserver.isReady()) {
+      wait();
+    }
+    return send(request);
+  }
+
+  @GuardedBy("this")
+  private boolean send(EncodedExportRequest request) {
     if (isCompleted() || exportRequestObserver == null) {
-      return;
+      return false;
     }
     try {
       exportRequestObserver.onNext(request);
     } catch (Exception e) { // Catch client side exceptions.
       onComplete(e);
     }
+    return true;
+  }
+
+  // Wakes up the exports that wait for the stream to be ready.
+  private synchronized void onReady() {
+    notifyAll();
   }
 
   // Marks this export stream as completed with an optional error.
@@ -98,6 +139,7 @@ final class OcAgentTraceServiceExportRpcHandler {
       status = Status.UNKNOWN;
     }
     terminateStatus = status;
+    notifyAll();
   }
 
   synchronized boolean isCompleted() {
@@ -111,7 +153,8 @@ final class OcAgentTraceServiceExportRpcHandler {
   }
 
   @VisibleForTesting
-  static class ExportResponseObserver implements StreamObserver<ExportTraceServiceResponse> {
+  static class ExportResponseObserver
+      implements ClientResponseObserver<EncodedExportRequest, ExportTraceServiceResponse> {
 
     private final OcAgentTraceServiceExportRpcHandler exportRpcHandler;
 
@@ -119,6 +162,18 @@ final class OcAgentTraceServiceExportRpcHandler {
       this.exportRpcHandler = exportRpcHandler;
     }
 
+    @Override
+    public void beforeStart(ClientCallStreamObserver<EncodedExportRequest> requestStream) {
+      requestStream.setOnReadyHandler(
+          new Runnable() {
+            @Override
+            public void run() {
+              exportRpcHandler.onReady();
+            }
+          });
+      exportRpcHandler.setExportRequestObserver(requestStream);
+    }
+
     @Override
     public void onNext(ExportTraceServiceResponse value) {
       // Do nothing since ExportTraceServiceResponse is an empty message.
@@ -0,0 +1,638 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.ocagent;
+
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UInt32Value;
+import com.google.protobuf.WireFormat;
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.common.Timestamp;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
+import io.opencensus.proto.trace.v1.AttributeValue;
+import io.opencensus.proto.trace.v1.Span;
+import io.opencensus.proto.trace.v1.Span.Attributes;
+import io.opencensus.proto.trace.v1.Span.Link;
+import io.opencensus.proto.trace.v1.Span.Links;
+import io.opencensus.proto.trace.v1.Span.SpanKind;
+import io.opencensus.proto.trace.v1.Span.TimeEvent;
+import io.opencensus.proto.trace.v1.Span.TimeEvents;
+import io.opencensus.proto.trace.v1.Span.Tracestate;
+import io.opencensus.proto.trace.v1.Status;
+import io.opencensus.proto.trace.v1.TruncatableString;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Writes {@link SpanData} directly in the protobuf wire format of {@link Span}, with a {@link
+ * CodedOutputStream}. The result is the same as the serialization of {@link
+ * TraceProtoUtils#toSpanProto(SpanData)}, without creating the intermediate messages, builders and
+ * {@code ByteString}s.
+ *
+ * <p>Nested messages are prefixed with their size, so each span is encoded in two passes: {@link
+ * #computeSpanSize(SpanData)} computes the sizes of the nested messages in the order they are
+ * written and remembers them, then {@link #writeSpanField(SpanData, int, CodedOutputStream)} writes
+ * the span using the remembered sizes.
+ */
+@NotThreadSafe
+final class SpanProtoEncoder {
+
+  // Field numbers of the entries of the attribute map.
+  private static final int MAP_KEY_FIELD_NUMBER = 1;
+  private static final int MAP_VALUE_FIELD_NUMBER = 2;
+
+  // Returns the value of an attribute itself, or null if it is not supported, like TraceProtoUtils.
+  private static final Function<Object, /*@Nullable*/ Object> RETURN_VALUE =
+      new Function<Object, /*@Nullable*/ Object>() {
+        @Override
+        public Object apply(Object value) {
+          return value;
+        }
+      };
+
+  // Re-usable buffer to avoid allocations when writing trace ids and span ids.
+  private final byte[] idBuffer = new byte[TraceId.SIZE];
+  // The sizes of the nested messages of the last span whose size was computed, in the order they
+  // are written.
+  private int[] sizes = new int[32];
+  private int sizeCount;
+  private int sizeIndex;
+
+  /** Returns the size of the {@code spans} field of a request that contains a span of this size. */
+  static int computeSpanFieldSize(int spanSize) {
+    return computeMessageFieldSize(ExportTraceServiceRequest.SPANS_FIELD_NUMBER, spanSize);
+  }
+
+  /**
+   * Returns the size of the given span. It must be followed by a call to {@link
+   * #writeSpanField(SpanData, int, CodedOutputStream)} for the same span.
+   */
+  int computeSpanSize(SpanData spanData) {
+    sizeCount = 0;
+    sizeIndex = 0;
+    int size =
+        computeBytesFieldSize(Span.TRACE_ID_FIELD_NUMBER, TraceId.SIZE)
+            + computeBytesFieldSize(Span.SPAN_ID_FIELD_NUMBER, SpanId.SIZE);
+    if (hasParentSpanId(spanData)) {
+      size += computeBytesFieldSize(Span.PARENT_SPAN_ID_FIELD_NUMBER, SpanId.SIZE);
+    }
+    size +=
+        computeMessageFieldSize(
+            Span.NAME_FIELD_NUMBER, computeTruncatableStringSize(spanData.getName()));
+    size +=
+        computeMessageFieldSize(
+            Span.START_TIME_FIELD_NUMBER, computeTimestampSize(spanData.getStartTimestamp()));
+    Timestamp end = spanData.getEndTimestamp();
+    if (end != null) {
+      size += computeMessageFieldSize(Span.END_TIME_FIELD_NUMBER, computeTimestampSize(end));
+    }
+    size +=
+        computeMessageFieldSize(
+            Span.ATTRIBUTES_FIELD_NUMBER,
+            computeAttributesSize(
+                spanData.getAttributes().getAttributeMap(),
+                spanData.getAttributes().getDroppedAttributesCount()));
+    size += computeMessageFieldSize(Span.TIME_EVENTS_FIELD_NUMBER, computeTimeEventsSize(spanData));
+    size += computeMessageFieldSize(Span.LINKS_FIELD_NUMBER, computeLinksSize(spanData));
+    io.opencensus.trace.Status status = spanData.getStatus();
+    if (status != null) {
+      size += computeMessageFieldSize(Span.STATUS_FIELD_NUMBER, computeStatusSize(status));
+    }
+    Boolean hasRemoteParent = spanData.getHasRemoteParent();
+    if (hasRemoteParent != null) {
+      size +=
+          computeMessageFieldSize(
+              Span.SAME_PROCESS_AS_PARENT_SPAN_FIELD_NUMBER,
+              computeBoolValueSize(!hasRemoteParent));
+    }
+    Integer childSpanCount = spanData.getChildSpanCount();
+    if (childSpanCount != null) {
+      size +=
+          computeMessageFieldSize(
+              Span.CHILD_SPAN_COUNT_FIELD_NUMBER, computeUInt32ValueSize(childSpanCount));
+    }
+    int kind = toSpanKindNumber(spanData.getKind());
+    if (kind != 0) {
+      size += CodedOutputStream.computeEnumSize(Span.KIND_FIELD_NUMBER, kind);
+    }
+    size +=
+        computeMessageFieldSize(
+            Span.TRACESTATE_FIELD_NUMBER,
+            computeTracestateSize(spanData.getContext().getTracestate()));
+    return size;
+  }
+
+  /**
+   * Writes the given span as a {@code spans} field of an {@code ExportTraceServiceRequest}. The
+   * size must be the one just returned by {@link #computeSpanSize(SpanData)} for this span.
+   */
+  void writeSpanField(SpanData spanData, int spanSize, CodedOutputStream output)
+      throws IOException {
+    writeMessageHeader(output, ExportTraceServiceRequest.SPANS_FIELD_NUMBER, spanSize);
+    SpanContext context = spanData.getContext();
+    context.getTraceId().copyBytesTo(idBuffer, 0);
+    output.writeByteArray(Span.TRACE_ID_FIELD_NUMBER, idBuffer, 0, TraceId.SIZE);
+    context.getSpanId().copyBytesTo(idBuffer, 0);
+    output.writeByteArray(Span.SPAN_ID_FIELD_NUMBER, idBuffer, 0, SpanId.SIZE);
+    SpanId parentSpanId = spanData.getParentSpanId();
+    if (parentSpanId != null && parentSpanId.isValid()) {
+      parentSpanId.copyBytesTo(idBuffer, 0);
+      output.writeByteArray(Span.PARENT_SPAN_ID_FIELD_NUMBER, idBuffer, 0, SpanId.SIZE);
+    }
+    writeTruncatableString(output, Span.NAME_FIELD_NUMBER, spanData.getName());
+    writeTimestamp(output, Span.START_TIME_FIELD_NUMBER, spanData.getStartTimestamp());
+    Timestamp end = spanData.getEndTimestamp();
+    if (end != null) {
+      writeTimestamp(output, Span.END_TIME_FIELD_NUMBER, end);
+    }
+    writeAttributes(
+        output,
+        Span.ATTRIBUTES_FIELD_NUMBER,
+        spanData.getAttributes().getAttributeMap(),
+        spanData.getAttributes().getDroppedAttributesCount());
+    writeTimeEvents(output, spanData);
+    writeLinks(output, spanData);
+    io.opencensus.trace.Status status = spanData.getStatus();
+    if (status != null) {
+      writeStatus(output, status);
+    }
+    Boolean hasRemoteParent = spanData.getHasRemoteParent();
+    if (hasRemoteParent != null) {
+      boolean sameProcess = !hasRemoteParent;
+      writeMessageHeader(
+          output, Span.SAME_PROCESS_AS_PARENT_SPAN_FIELD_NUMBER, computeBoolValueSize(sameProcess));
+      if (sameProcess) {
+        output.writeBool(BoolValue.VALUE_FIELD_NUMBER, true);
+      }
+    }
+    Integer childSpanCount = spanData.getChildSpanCount();
+    if (childSpanCount != null) {
+      writeMessageHeader(
+          output, Span.CHILD_SPAN_COUNT_FIELD_NUMBER, computeUInt32ValueSize(childSpanCount));
+      if (childSpanCount != 0) {
+        output.writeUInt32(UInt32Value.VALUE_FIELD_NUMBER, childSpanCount);
+      }
+    }
+    int kind = toSpanKindNumber(spanData.getKind());
+    if (kind != 0) {
+      output.writeEnum(Span.KIND_FIELD_NUMBER, kind);
+    }
+    writeTracestate(output, spanData.getContext().getTracestate());
+  }
+
+  private int computeAttributesSize(
+      Map<String, io.opencensus.trace.AttributeValue> attributes, int droppedAttributesCount) {
+    int slot = reserveSize();
+    int size = 0;
+    for (Map.Entry<String, io.opencensus.trace.AttributeValue> entry : attributes.entrySet()) {
+      int valueSize = computeAttributeValueSize(toValue(entry.getValue()));
+      if (valueSize >= 0) {
+        size +=
+            computeMessageFieldSize(
+                Attributes.ATTRIBUTE_MAP_FIELD_NUMBER,
+                computeAttributeEntrySize(entry.getKey(), valueSize));
+      }
+    }
+    if (droppedAttributesCount != 0) {
+      size +=
+          CodedOutputStream.computeInt32Size(
+              Attributes.DROPPED_ATTRIBUTES_COUNT_FIELD_NUMBER, droppedAttributesCount);
+    }
+    sizes[slot] = size;
+    return size;
+  }
+
+  private void writeAttributes(
+      CodedOutputStream output,
+      int fieldNumber,
+      Map<String, io.opencensus.trace.AttributeValue> attributes,
+      int droppedAttributesCount)
+      throws IOException {
+    writeMessageHeader(output, fieldNumber, nextSize());
+    for (Map.Entry<String, io.opencensus.trace.AttributeValue> entry : attributes.entrySet()) {
+      Object value = toValue(entry.getValue());
+      int valueSize = computeAttributeValueSize(value);
+      if (valueSize < 0) {
+        continue;
+      }
+      writeMessageHeader(
+          output,
+          Attributes.ATTRIBUTE_MAP_FIELD_NUMBER,
+          computeAttributeEntrySize(entry.getKey(), valueSize));
+      // Map entries always contain both the key and the value.
+      output.writeTag(MAP_KEY_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeStringNoTag(entry.getKey());
+      writeMessageHeader(output, MAP_VALUE_FIELD_NUMBER, valueSize);
+      if (value instanceof String) {
+        writeTruncatableString(output, AttributeValue.STRING_VALUE_FIELD_NUMBER, (String) value);
+      } else if (value instanceof Boolean) {
+        output.writeBool(AttributeValue.BOOL_VALUE_FIELD_NUMBER, (Boolean) value);
+      } else if (value instanceof Long) {
+        output.writeInt64(AttributeValue.INT_VALUE_FIELD_NUMBER, (Long) value);
+      } else {
+        output.writeDouble(AttributeValue.DOUBLE_VALUE_FIELD_NUMBER, (Double) value);
+      }
+    }
+    if (droppedAttributesCount != 0) {
+      output.writeInt32(Attributes.DROPPED_ATTRIBUTES_COUNT_FIELD_NUMBER, droppedAttributesCount);
+    }
+  }
+
+  private int computeTimeEventsSize(SpanData spanData) {
+    int slot = reserveSize();
+    int size = 0;
+    for (TimedEvent<Annotation> timedEvent : spanData.getAnnotations().getEvents()) {
+      size +=
+          computeMessageFieldSize(
+              TimeEvents.TIME_EVENT_FIELD_NUMBER, computeAnnotationTimeEventSize(timedEvent));
+    }
+    for (TimedEvent<MessageEvent> timedEvent : spanData.getMessageEvents().getEvents()) {
+      size +=
+          computeMessageFieldSize(
+              TimeEvents.TIME_EVENT_FIELD_NUMBER, computeMessageEventTimeEventSize(timedEvent));
+    }
+    int droppedAnnotations = spanData.getAnnotations().getDroppedEventsCount();
+    if (droppedAnnotations != 0) {
+      size +=
+          CodedOutputStream.computeInt32Size(
+              TimeEvents.DROPPED_ANNOTATIONS_COUNT_FIELD_NUMBER, droppedAnnotations);
+    }
+    int droppedMessageEvents = spanData.getMessageEvents().getDroppedEventsCount();
+    if (droppedMessageEvents != 0) {
+      size +=
+          CodedOutputStream.computeInt32Size(
+              TimeEvents.DROPPED_MESSAGE_EVENTS_COUNT_FIELD_NUMBER, droppedMessageEvents);
+    }
+    sizes[slot] = size;
+    return size;
+  }
+
+  private void writeTimeEvents(CodedOutputStream output, SpanData spanData) throws IOException {
+    writeMessageHeader(output, Span.TIME_EVENTS_FIELD_NUMBER, nextSize());
+    for (TimedEvent<Annotation> timedEvent : spanData.getAnnotations().getEvents()) {
+      writeMessageHeader(output, TimeEvents.TIME_EVENT_FIELD_NUMBER, nextSize());
+      writeTimestamp(output, TimeEvent.TIME_FIELD_NUMBER, timedEvent.getTimestamp());
+      Annotation annotation = timedEvent.getEvent();
+      writeMessageHeader(output, TimeEvent.ANNOTATION_FIELD_NUMBER, nextSize());
+      writeTruncatableString(
+          output, TimeEvent.Annotation.DESCRIPTION_FIELD_NUMBER, annotation.getDescription());
+      writeAttributes(
+          output, TimeEvent.Annotation.ATTRIBUTES_FIELD_NUMBER, annotation.getAttributes(), 0);
+    }
+    for (TimedEvent<MessageEvent> timedEvent : spanData.getMessageEvents().getEvents()) {
+      writeMessageHeader(output, TimeEvents.TIME_EVENT_FIELD_NUMBER, nextSize());
+      writeTimestamp(output, TimeEvent.TIME_FIELD_NUMBER, timedEvent.getTimestamp());
+      MessageEvent messageEvent = timedEvent.getEvent();
+      writeMessageHeader(
+          output, TimeEvent.MESSAGE_EVENT_FIELD_NUMBER, computeMessageEventSize(messageEvent));
+      output.writeEnum(
+          TimeEvent.MessageEvent.TYPE_FIELD_NUMBER, toMessageEventTypeNumber(messageEvent));
+      if (messageEvent.getMessageId() != 0) {
+        output.writeUInt64(TimeEvent.MessageEvent.ID_FIELD_NUMBER, messageEvent.getMessageId());
+      }
+      if (messageEvent.getUncompressedMessageSize() != 0) {
+        output.writeUInt64(
+            TimeEvent.MessageEvent.UNCOMPRESSED_SIZE_FIELD_NUMBER,
+            messageEvent.getUncompressedMessageSize());
+      }
+      if (messageEvent.getCompressedMessageSize() != 0) {
+        output.writeUInt64(
+            TimeEvent.MessageEvent.COMPRESSED_SIZE_FIELD_NUMBER,
+            messageEvent.getCompressedMessageSize());
+      }
+    }
+    int droppedAnnotations = spanData.getAnnotations().getDroppedEventsCount();
+    if (droppedAnnotations != 0) {
+      output.writeInt32(TimeEvents.DROPPED_ANNOTATIONS_COUNT_FIELD_NUMBER, droppedAnnotations);
+    }
+    int droppedMessageEvents = spanData.getMessageEvents().getDroppedEventsCount();
+    if (droppedMessageEvents != 0) {
+      output.writeInt32(TimeEvents.DROPPED_MESSAGE_EVENTS_COUNT_FIELD_NUMBER, droppedMessageEvents);
+    }
+  }
+
+  private int computeAnnotationTimeEventSize(TimedEvent<Annotation> timedEvent) {
+    int slot = reserveSize();
+    int annotationSlot = reserveSize();
+    Annotation annotation = timedEvent.getEvent();
+    int annotationSize =
+        computeMessageFieldSize(
+                TimeEvent.Annotation.DESCRIPTION_FIELD_NUMBER,
+                computeTruncatableStringSize(annotation.getDescription()))
+            + computeMessageFieldSize(
+                TimeEvent.Annotation.ATTRIBUTES_FIELD_NUMBER,
+                computeAttributesSize(annotation.getAttributes(), 0));
+    sizes[annotationSlot] = annotationSize;
+    int size =
+        computeMessageFieldSize(
+                TimeEvent.TIME_FIELD_NUMBER, computeTimestampSize(timedEvent.getTimestamp()))
+            + computeMessageFieldSize(TimeEvent.ANNOTATION_FIELD_NUMBER, annotationSize);
+    sizes[slot] = size;
+    return size;
+  }
+
+  private int computeMessageEventTimeEventSize(TimedEvent<MessageEvent> timedEvent) {
+    int slot = reserveSize();
+    int size =
+        computeMessageFieldSize(
+                TimeEvent.TIME_FIELD_NUMBER, computeTimestampSize(timedEvent.getTimestamp()))
+            + computeMessageFieldSize(
+                TimeEvent.MESSAGE_EVENT_FIELD_NUMBER,
+                computeMessageEventSize(timedEvent.getEvent()));
+    sizes[slot] = size;
+    return size;
+  }
+
+  private static int computeMessageEventSize(MessageEvent messageEvent) {
+    int size =
+        CodedOutputStream.computeEnumSize(
+            TimeEvent.MessageEvent.TYPE_FIELD_NUMBER, toMessageEventTypeNumber(messageEvent));
+    if (messageEvent.getMessageId() != 0) {
+      size +=
+          CodedOutputStream.computeUInt64Size(
+              TimeEvent.MessageEvent.ID_FIELD_NUMBER, messageEvent.getMessageId());
+    }
+    if (messageEvent.getUncompressedMessageSize() != 0) {
+      size +=
+          CodedOutputStream.computeUInt64Size(
+              TimeEvent.MessageEvent.UNCOMPRESSED_SIZE_FIELD_NUMBER,
+              messageEvent.getUncompressedMessageSize());
+    }
+    if (messageEvent.getCompressedMessageSize() != 0) {
+      size +=
+          CodedOutputStream.computeUInt64Size(
+              TimeEvent.MessageEvent.COMPRESSED_SIZE_FIELD_NUMBER,
+              messageEvent.getCompressedMessageSize());
+    }
+    return size;
+  }
+
+  private int computeLinksSize(SpanData spanData) {
+    int slot = reserveSize();
+    int size = 0;
+    for (io.opencensus.trace.Link link : spanData.getLinks().getLinks()) {
+      int linkSlot = reserveSize();
+      int linkSize =
+          computeBytesFieldSize(Link.TRACE_ID_FIELD_NUMBER, TraceId.SIZE)
+              + computeBytesFieldSize(Link.SPAN_ID_FIELD_NUMBER, SpanId.SIZE)
+              + CodedOutputStream.computeEnumSize(
+                  Link.TYPE_FIELD_NUMBER, toLinkTypeNumber(link.getType()))
+              + computeMessageFieldSize(
+                  Link.ATTRIBUTES_FIELD_NUMBER, computeAttributesSize(link.getAttributes(), 0));
+      sizes[linkSlot] = linkSize;
+      size += computeMessageFieldSize(Links.LINK_FIELD_NUMBER, linkSize);
+    }
+    int droppedLinks = spanData.getLinks().getDroppedLinksCount();
+    if (droppedLinks != 0) {
+      size +=
+          CodedOutputStream.computeInt32Size(Links.DROPPED_LINKS_COUNT_FIELD_NUMBER, droppedLinks);
+    }
+    sizes[slot] = size;
+    return size;
+  }
+
+  private void writeLinks(CodedOutputStream output, SpanData spanData) throws IOException {
+    writeMessageHeader(output, Span.LINKS_FIELD_NUMBER, nextSize());
+    for (io.opencensus.trace.Link link : spanData.getLinks().getLinks()) {
+      writeMessageHeader(output, Links.LINK_FIELD_NUMBER, nextSize());
+      link.getTraceId().copyBytesTo(idBuffer, 0);
+      output.writeByteArray(Link.TRACE_ID_FIELD_NUMBER, idBuffer, 0, TraceId.SIZE);
+      link.getSpanId().copyBytesTo(idBuffer, 0);
+      output.writeByteArray(Link.SPAN_ID_FIELD_NUMBER, idBuffer, 0, SpanId.SIZE);
+      output.writeEnum(Link.TYPE_FIELD_NUMBER, toLinkTypeNumber(link.getType()));
+      writeAttributes(output, Link.ATTRIBUTES_FIELD_NUMBER, link.getAttributes(), 0);
+    }
+    int droppedLinks = spanData.getLinks().getDroppedLinksCount();
+    if (droppedLinks != 0) {
+      output.writeInt32(Links.DROPPED_LINKS_COUNT_FIELD_NUMBER, droppedLinks);
+    }
+  }
+
+  private static int computeTracestateSize(io.opencensus.trace.Tracestate tracestate) {
+    int size = 0;
+    for (io.opencensus.trace.Tracestate.Entry entry : tracestate.getEntries()) {
+      size +=
+          computeMessageFieldSize(
+              Tracestate.ENTRIES_FIELD_NUMBER,
+              computeStringFieldSize(Tracestate.Entry.KEY_FIELD_NUMBER, entry.getKey())
+                  + computeStringFieldSize(Tracestate.Entry.VALUE_FIELD_NUMBER, entry.getValue()));
+    }
+    return size;
+  }
+
+  private static void writeTracestate(
+      CodedOutputStream output, io.opencensus.trace.Tracestate tracestate) throws IOException {
+    writeMessageHeader(output, Span.TRACESTATE_FIELD_NUMBER, computeTracestateSize(tracestate));
+    for (io.opencensus.trace.Tracestate.Entry entry : tracestate.getEntries()) {
+      writeMessageHeader(
+          output,
+          Tracestate.ENTRIES_FIELD_NUMBER,
+          computeStringFieldSize(Tracestate.Entry.KEY_FIELD_NUMBER, entry.getKey())
+              + computeStringFieldSize(Tracestate.Entry.VALUE_FIELD_NUMBER, entry.getValue()));
+      writeStringField(output, Tracestate.Entry.KEY_FIELD_NUMBER, entry.getKey());
+      writeStringField(output, Tracestate.Entry.VALUE_FIELD_NUMBER, entry.getValue());
+    }
+  }
+
+  private static int computeStatusSize(io.opencensus.trace.Status status) {
+    int code = status.getCanonicalCode().value();
+    int size = code == 0 ? 0 : CodedOutputStream.computeInt32Size(Status.CODE_FIELD_NUMBER, code);
+    String description = status.getDescription();
+    if (description != null) {
+      size += computeStringFieldSize(Status.MESSAGE_FIELD_NUMBER, description);
+    }
+    return size;
+  }
+
+  private static void writeStatus(CodedOutputStream output, io.opencensus.trace.Status status)
+      throws IOException {
+    writeMessageHeader(output, Span.STATUS_FIELD_NUMBER, computeStatusSize(status));
+    int code = status.getCanonicalCode().value();
+    if (code != 0) {
+      output.writeInt32(Status.CODE_FIELD_NUMBER, code);
+    }
+    String description = status.getDescription();
+    if (description != null) {
+      writeStringField(output, Status.MESSAGE_FIELD_NUMBER, description);
+    }
+  }
+
+  private static int computeAttributeEntrySize(String key, int valueSize) {
+    return CodedOutputStream.computeTagSize(MAP_KEY_FIELD_NUMBER)
+        + CodedOutputStream.computeStringSizeNoTag(key)
+        + computeMessageFieldSize(MAP_VALUE_FIELD_NUMBER, valueSize);
+  }
+
+  // Returns the size of the AttributeValue message, or -1 if the value is not supported.
+  private static int computeAttributeValueSize(@Nullable Object value) {
+    if (value instanceof String) {
+      return computeMessageFieldSize(
+          AttributeValue.STRING_VALUE_FIELD_NUMBER, computeTruncatableStringSize((String) value));
+    } else if (value instanceof Boolean) {
+      return CodedOutputStream.computeBoolSize(
+          AttributeValue.BOOL_VALUE_FIELD_NUMBER, (Boolean) value);
+    } else if (value instanceof Long) {
+      return CodedOutputStream.computeInt64Size(
+          AttributeValue.INT_VALUE_FIELD_NUMBER, (Long) value);
+    } else if (value instanceof Double) {
+      return CodedOutputStream.computeDoubleSize(
+          AttributeValue.DOUBLE_VALUE_FIELD_NUMBER, (Double) value);
+    }
+    return -1;
+  }
+
+  @Nullable
+  private static Object toValue(io.opencensus.trace.AttributeValue attributeValue) {
+    return attributeValue.match(
+        RETURN_VALUE,
+        RETURN_VALUE,
+        RETURN_VALUE,
+        RETURN_VALUE,
+        Functions.</*@Nullable*/ Object>returnNull());
+  }
+
+  private static int computeTruncatableStringSize(String value) {
+    return computeStringFieldSize(TruncatableString.VALUE_FIELD_NUMBER, value);
+  }
+
+  private static void writeTruncatableString(
+      CodedOutputStream output, int fieldNumber, String value) throws IOException {
+    writeMessageHeader(output, fieldNumber, computeTruncatableStringSize(value));
+    writeStringField(output, TruncatableString.VALUE_FIELD_NUMBER, value);
+  }
+
+  private static int computeTimestampSize(Timestamp timestamp) {
+    int size = 0;
+    if (timestamp.getSeconds() != 0) {
+      size +=
+          CodedOutputStream.computeInt64Size(
+              com.google.protobuf.Timestamp.SECONDS_FIELD_NUMBER, timestamp.getSeconds());
+    }
+    if (timestamp.getNanos() != 0) {
+      size +=
+          CodedOutputStream.computeInt32Size(
+              com.google.protobuf.Timestamp.NANOS_FIELD_NUMBER, timestamp.getNanos());
+    }
+    return size;
+  }
+
+  private static void writeTimestamp(CodedOutputStream output, int fieldNumber, Timestamp timestamp)
+      throws IOException {
+    writeMessageHeader(output, fieldNumber, computeTimestampSize(timestamp));
+    if (timestamp.getSeconds() != 0) {
+      output.writeInt64(com.google.protobuf.Timestamp.SECONDS_FIELD_NUMBER, timestamp.getSeconds());
+    }
+    if (timestamp.getNanos() != 0) {
+      output.writeInt32(com.google.protobuf.Timestamp.NANOS_FIELD_NUMBER, timestamp.getNanos());
+    }
+  }
+
+  private static int computeBoolValueSize(boolean value) {
+    return value ? CodedOutputStream.computeBoolSize(BoolValue.VALUE_FIELD_NUMBER, true) : 0;
+  }
+
+  private static int computeUInt32ValueSize(int value) {
+    return value == 0
+        ? 0
+        : CodedOutputStream.computeUInt32Size(UInt32Value.VALUE_FIELD_NUMBER, value);
+  }
+
+  // Empty strings are the default value of proto3 fields, and are not written.
+  private static int computeStringFieldSize(int fieldNumber, String value) {
+    return value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(fieldNumber, value);
+  }
+
+  private static void writeStringField(CodedOutputStream output, int fieldNumber, String value)
+      throws IOException {
+    if (!value.isEmpty()) {
+      output.writeString(fieldNumber, value);
+    }
+  }
+
+  private static int computeBytesFieldSize(int fieldNumber, int length) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(length)
+        + length;
+  }
+
+  private static int computeMessageFieldSize(int fieldNumber, int messageSize) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(messageSize)
+        + messageSize;
+  }
+
+  private static void writeMessageHeader(CodedOutputStream output, int fieldNumber, int size)
+      throws IOException {
+    output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    output.writeUInt32NoTag(size);
+  }
+
+  private static boolean hasParentSpanId(SpanData spanData) {
+    SpanId parentSpanId = spanData.getParentSpanId();
+    return parentSpanId != null && parentSpanId.isValid();
+  }
+
+  private static int toSpanKindNumber(@Nullable Kind kind) {
+    if (kind == null) {
+      return 0;
+    }
+    switch (kind) {
+      case CLIENT:
+        return SpanKind.CLIENT.getNumber();
+      case SERVER:
+        return SpanKind.SERVER.getNumber();
+    }
+    return 0;
+  }
+
+  private static int toMessageEventTypeNumber(MessageEvent messageEvent) {
+    return messageEvent.getType() == MessageEvent.Type.RECEIVED
+        ? TimeEvent.MessageEvent.Type.RECEIVED.getNumber()
+        : TimeEvent.MessageEvent.Type.SENT.getNumber();
+  }
+
+  private static int toLinkTypeNumber(io.opencensus.trace.Link.Type type) {
+    return type == io.opencensus.trace.Link.Type.PARENT_LINKED_SPAN
+        ? Link.Type.PARENT_LINKED_SPAN.getNumber()
+        : Link.Type.CHILD_LINKED_SPAN.getNumber();
+  }
+
+  // Reserves the next slot for the size of a nested message, before the sizes of its own nested
+  // messages, which is the order they are written in.
+  private int reserveSize() {
+    if (sizeCount == sizes.length) {
+      sizes = Arrays.copyOf(sizes, sizeCount * 2);
+    }
+    return sizeCount++;
+  }
+
+  private int nextSize() {
+    return sizes[sizeIndex++];
+  }
+}
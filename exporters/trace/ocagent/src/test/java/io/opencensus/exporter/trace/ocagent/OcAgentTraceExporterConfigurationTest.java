@@ -21,8 +21,11 @@ import static com.google.common.truth.Truth.assertThat;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.opencensus.common.Duration;
-import javax.net.ssl.SSLException;
+import io.opencensus.exporter.trace.util.SpanSpool;
+import java.io.IOException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -30,6 +33,8 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class OcAgentTraceExporterConfigurationTest {
 
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Test
   public void defaultConfiguration() {
     OcAgentTraceExporterConfiguration configuration =
@@ -45,12 +50,16 @@ public class OcAgentTraceExporterConfigurationTest {
     assertThat(configuration.getEnableConfig()).isTrue();
     assertThat(configuration.getDeadline())
         .isEqualTo(OcAgentTraceExporterConfiguration.DEFAULT_DEADLINE);
+    assertThat(configuration.getMaxRequestBytes())
+        .isEqualTo(OcAgentTraceExporterConfiguration.DEFAULT_MAX_REQUEST_BYTES);
+    assertThat(configuration.getSpool()).isNull();
   }
 
   @Test
-  public void setAndGet() throws SSLException {
+  public void setAndGet() throws IOException {
     Duration oneMinute = Duration.create(60, 0);
     SslContext sslContext = SslContextBuilder.forClient().build();
+    SpanSpool spool = SpanSpool.create(SpanSpool.Options.builder(tempFolder.getRoot()).build());
     OcAgentTraceExporterConfiguration configuration =
         OcAgentTraceExporterConfiguration.builder()
             .setEndPoint("192.168.0.1:50051")
@@ -60,6 +69,8 @@ public class OcAgentTraceExporterConfigurationTest {
             .setRetryInterval(oneMinute)
             .setEnableConfig(false)
             .setDeadline(oneMinute)
+            .setMaxRequestBytes(4096)
+            .setSpool(spool)
             .build();
     assertThat(configuration.getEndPoint()).isEqualTo("192.168.0.1:50051");
     assertThat(configuration.getServiceName()).isEqualTo("service");
@@ -68,5 +79,13 @@ public class OcAgentTraceExporterConfigurationTest {
     assertThat(configuration.getRetryInterval()).isEqualTo(oneMinute);
     assertThat(configuration.getEnableConfig()).isFalse();
     assertThat(configuration.getDeadline()).isEqualTo(oneMinute);
+    assertThat(configuration.getMaxRequestBytes()).isEqualTo(4096);
+    assertThat(configuration.getSpool()).isEqualTo(spool);
+    spool.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void disallowNonPositiveMaxRequestBytes() {
+    OcAgentTraceExporterConfiguration.builder().setMaxRequestBytes(0).build();
   }
 }
@@ -26,6 +26,8 @@ import io.grpc.Server;
 import io.grpc.Status;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.opencensus.common.Duration;
+import io.opencensus.common.Timestamp;
 import io.opencensus.proto.agent.common.v1.LibraryInfo;
 import io.opencensus.proto.agent.common.v1.LibraryInfo.Language;
 import io.opencensus.proto.agent.common.v1.Node;
@@ -33,9 +35,24 @@ import io.opencensus.proto.agent.trace.v1.CurrentLibraryConfig;
 import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
 import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc;
 import io.opencensus.proto.agent.trace.v1.TraceServiceGrpc.TraceServiceStub;
+import io.opencensus.proto.trace.v1.Span;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
 import io.opencensus.trace.config.TraceConfig;
 import io.opencensus.trace.config.TraceParams;
+import io.opencensus.trace.export.SpanData;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import org.junit.After;
 import org.junit.Before;
@@ -160,6 +177,45 @@ public class OcAgentTraceServiceRpcHandlersTest {
     assertThat(traceServiceGrpc.getExportTraceServiceRequests()).containsExactly(request);
   }
 
+  @Test
+  public void export_SplitsRequestsByMaxRequestBytes() throws Exception {
+    List<SpanData> spans = new ArrayList<SpanData>();
+    for (int i = 0; i < 10; i++) {
+      spans.add(createSpanData("span" + i));
+    }
+    int spanFieldSize = TraceProtoUtils.toSpanProto(spans.get(0)).getSerializedSize() + 2;
+    OcAgentTraceExporterHandler handler =
+        new OcAgentTraceExporterHandler(
+            serverName,
+            "test",
+            true,
+            null,
+            Duration.create(300, 0),
+            false,
+            Duration.create(10, 0),
+            3 * spanFieldSize,
+            null);
+    OcAgentTraceServiceExportRpcHandler exportRpcHandler =
+        OcAgentTraceServiceExportRpcHandler.create(getStub(serverName));
+    handler.export(exportRpcHandler, spans);
+    // The request buffers are reused by the next export.
+    handler.export(exportRpcHandler, spans);
+
+    List<ExportTraceServiceRequest> requests = traceServiceGrpc.getExportTraceServiceRequests();
+    assertThat(requests).hasSize(8);
+    List<Span> received = new ArrayList<Span>();
+    for (ExportTraceServiceRequest request : requests) {
+      assertThat(request.getSerializedSize()).isAtMost(3 * spanFieldSize);
+      received.addAll(request.getSpansList());
+    }
+    List<Span> expected = new ArrayList<Span>();
+    for (SpanData spanData : spans) {
+      expected.add(TraceProtoUtils.toSpanProto(spanData));
+    }
+    assertThat(received.subList(0, 10)).containsExactlyElementsIn(expected).inOrder();
+    assertThat(received.subList(10, 20)).containsExactlyElementsIn(expected).inOrder();
+  }
+
   @Test
   public void export_Create_ConnectionFailed() {
     String nonExistingServer = "unknown";
@@ -179,6 +235,27 @@ public class OcAgentTraceServiceRpcHandlersTest {
     assertThat(exportRpcHandler.getTerminateStatus()).isEqualTo(Status.UNKNOWN);
   }
 
+  private static SpanData createSpanData(String name) {
+    return SpanData.create(
+        SpanContext.create(
+            TraceId.fromLowerBase16("4bf92f3577b34da6a3ce929d0e0e4736"),
+            SpanId.fromLowerBase16("24aa0b2d371f48c9"),
+            TraceOptions.DEFAULT,
+            Tracestate.builder().build()),
+        null,
+        null,
+        name,
+        Kind.SERVER,
+        Timestamp.create(123, 456),
+        SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0),
+        SpanData.TimedEvents.create(Collections.<SpanData.TimedEvent<Annotation>>emptyList(), 0),
+        SpanData.TimedEvents.create(Collections.<SpanData.TimedEvent<MessageEvent>>emptyList(), 0),
+        SpanData.Links.create(Collections.<Link>emptyList(), 0),
+        null,
+        null,
+        Timestamp.create(123, 789));
+  }
+
   private static TraceServiceStub getStub(String serverName) {
     ManagedChannel channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
     return TraceServiceGrpc.newStub(channel);
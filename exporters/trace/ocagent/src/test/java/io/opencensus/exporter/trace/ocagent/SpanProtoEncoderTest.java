@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.ocagent;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.CodedOutputStream;
+import io.opencensus.common.Timestamp;
+import io.opencensus.proto.agent.trace.v1.ExportTraceServiceRequest;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SpanProtoEncoder}. */
+@RunWith(JUnit4.class)
+public class SpanProtoEncoderTest {
+
+  private static final SpanContext SPAN_CONTEXT =
+      SpanContext.create(
+          TraceId.fromLowerBase16("4bf92f3577b34da6a3ce929d0e0e4736"),
+          SpanId.fromLowerBase16("24aa0b2d371f48c9"),
+          TraceOptions.DEFAULT,
+          Tracestate.builder().set("key_1", "value.1").set("key_2", "value.2").build());
+  private static final SpanId PARENT_SPAN_ID = SpanId.fromLowerBase16("71da8d631536f5f1");
+
+  private final SpanProtoEncoder encoder = new SpanProtoEncoder();
+
+  @Test
+  public void encodesLikeToSpanProto() throws IOException {
+    SpanData spanData =
+        SpanData.create(
+            SPAN_CONTEXT,
+            PARENT_SPAN_ID,
+            /* hasRemoteParent= */ false,
+            "MySpanName",
+            Kind.CLIENT,
+            Timestamp.create(123, 456),
+            SpanData.Attributes.create(
+                ImmutableMap.of(
+                    "long", AttributeValue.longAttributeValue(-10L),
+                    "bool", AttributeValue.booleanAttributeValue(false),
+                    "double", AttributeValue.doubleAttributeValue(0.0),
+                    "string", AttributeValue.stringAttributeValue("\u00e9t\u00e9"),
+                    "", AttributeValue.stringAttributeValue("")),
+                1),
+            TimedEvents.create(
+                ImmutableList.of(
+                    TimedEvent.create(Timestamp.create(123, 457), Annotation.fromDescription("")),
+                    TimedEvent.create(
+                        Timestamp.create(0, 0),
+                        Annotation.fromDescriptionAndAttributes(
+                            "MyAnnotationText",
+                            ImmutableMap.of("key", AttributeValue.longAttributeValue(1L))))),
+                2),
+            TimedEvents.create(
+                ImmutableList.of(
+                    TimedEvent.create(
+                        Timestamp.create(123, 458),
+                        MessageEvent.builder(MessageEvent.Type.RECEIVED, 0).build()),
+                    TimedEvent.create(
+                        Timestamp.create(123, 459),
+                        MessageEvent.builder(MessageEvent.Type.SENT, 300)
+                            .setCompressedMessageSize(69)
+                            .setUncompressedMessageSize(96)
+                            .build())),
+                3),
+            SpanData.Links.create(
+                ImmutableList.of(
+                    Link.fromSpanContext(SPAN_CONTEXT, Link.Type.CHILD_LINKED_SPAN),
+                    Link.fromSpanContext(
+                        SPAN_CONTEXT,
+                        Link.Type.PARENT_LINKED_SPAN,
+                        ImmutableMap.of("key", AttributeValue.booleanAttributeValue(true)))),
+                4),
+            13,
+            Status.DEADLINE_EXCEEDED.withDescription("TooSlow"),
+            Timestamp.create(123, 460));
+
+    assertEncodesLikeToSpanProto(spanData);
+  }
+
+  @Test
+  public void encodesLikeToSpanProto_DefaultValues() throws IOException {
+    SpanData spanData =
+        SpanData.create(
+            SpanContext.create(
+                SPAN_CONTEXT.getTraceId(),
+                SPAN_CONTEXT.getSpanId(),
+                TraceOptions.DEFAULT,
+                Tracestate.builder().build()),
+            SpanId.INVALID,
+            /* hasRemoteParent= */ true,
+            "",
+            null,
+            Timestamp.create(0, 0),
+            SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0),
+            TimedEvents.create(Collections.<TimedEvent<Annotation>>emptyList(), 0),
+            TimedEvents.create(Collections.<TimedEvent<MessageEvent>>emptyList(), 0),
+            SpanData.Links.create(Collections.<Link>emptyList(), 0),
+            0,
+            Status.OK,
+            null);
+
+    assertEncodesLikeToSpanProto(spanData);
+  }
+
+  @Test
+  public void encodesLikeToSpanProto_NullableFields() throws IOException {
+    SpanData spanData =
+        SpanData.create(
+            SPAN_CONTEXT,
+            null,
+            null,
+            "MySpanName",
+            Kind.SERVER,
+            Timestamp.create(123, 456),
+            SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0),
+            TimedEvents.create(Collections.<TimedEvent<Annotation>>emptyList(), 0),
+            TimedEvents.create(Collections.<TimedEvent<MessageEvent>>emptyList(), 0),
+            SpanData.Links.create(Collections.<Link>emptyList(), 0),
+            null,
+            null,
+            null);
+
+    assertEncodesLikeToSpanProto(spanData);
+  }
+
+  @Test
+  public void encodedExportRequest_DrainsAndReadsBytes() throws IOException {
+    ExportTraceServiceRequest request =
+        ExportTraceServiceRequest.newBuilder()
+            .addSpans(io.opencensus.proto.trace.v1.Span.newBuilder().setKindValue(1))
+            .build();
+    EncodedExportRequest encoded = EncodedExportRequest.of(request);
+    assertThat(ExportTraceServiceRequest.parseFrom(EncodedExportRequest.MARSHALLER.stream(encoded)))
+        .isEqualTo(request);
+    assertThat(ByteStreams.toByteArray(EncodedExportRequest.MARSHALLER.stream(encoded)))
+        .isEqualTo(request.toByteArray());
+  }
+
+  private void assertEncodesLikeToSpanProto(SpanData spanData) throws IOException {
+    // Encodes the span twice, to check that the encoder is re-usable.
+    List<SpanData> spans = ImmutableList.of(spanData, spanData);
+    EncodedExportRequest encoded = new EncodedExportRequest(16, null);
+    for (SpanData span : spans) {
+      int spanSize = encoder.computeSpanSize(span);
+      CodedOutputStream output = encoded.append(SpanProtoEncoder.computeSpanFieldSize(spanSize));
+      encoder.writeSpanField(span, spanSize, output);
+      output.checkNoSpaceLeft();
+    }
+
+    ExportTraceServiceRequest.Builder expected = ExportTraceServiceRequest.newBuilder();
+    for (SpanData span : spans) {
+      expected.addSpans(TraceProtoUtils.toSpanProto(span));
+    }
+    byte[] bytes = ByteStreams.toByteArray(EncodedExportRequest.MARSHALLER.stream(encoded));
+    assertThat(ExportTraceServiceRequest.parseFrom(bytes)).isEqualTo(expected.build());
+    assertThat(bytes).isEqualTo(expected.build().toByteArray());
+  }
+}
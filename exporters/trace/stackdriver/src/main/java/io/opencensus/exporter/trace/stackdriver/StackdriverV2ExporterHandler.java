@@ -23,6 +23,8 @@ import com.google.auth.Credentials;
 import com.google.cloud.trace.v2.TraceServiceClient;
 import com.google.cloud.trace.v2.TraceServiceSettings;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.devtools.cloudtrace.v2.AttributeValue;
 import com.google.devtools.cloudtrace.v2.ProjectName;
@@ -66,7 +68,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /*>>>
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -101,14 +102,28 @@ final class StackdriverV2ExporterHandler extends SpanExporter.Handler {
   private static final Map<String, AttributeValue> RESOURCE_LABELS =
       getResourceLabels(ResourceUtils.detectResource());
 
+  // Span names and string attribute values mostly repeat from one span to the next, so their protos
+  // are converted once and re-used.
+  @VisibleForTesting static final int MAX_CACHED_STRINGS = 4096;
+  private static final Cache<String, TruncatableString> displayNameCache =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_STRINGS).build();
+  private static final Cache<String, AttributeValue> stringAttributeValueCache =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_STRINGS).build();
+
   // Constant functions for AttributeValue.
   private static final Function<String, /*@Nullable*/ AttributeValue> stringAttributeValueFunction =
       new Function<String, /*@Nullable*/ AttributeValue>() {
         @Override
         public AttributeValue apply(String stringValue) {
-          return AttributeValue.newBuilder()
-              .setStringValue(toTruncatableStringProto(stringValue))
-              .build();
+          AttributeValue attributeValue = stringAttributeValueCache.getIfPresent(stringValue);
+          if (attributeValue == null) {
+            attributeValue =
+                AttributeValue.newBuilder()
+                    .setStringValue(toTruncatableStringProto(stringValue))
+                    .build();
+            stringAttributeValueCache.put(stringValue, attributeValue);
+          }
+          return attributeValue;
         }
       };
   private static final Function<Boolean, /*@Nullable*/ AttributeValue>
@@ -204,8 +219,7 @@ final class StackdriverV2ExporterHandler extends SpanExporter.Handler {
         Span.newBuilder()
             .setName(spanName.toString())
             .setSpanId(spanIdHex)
-            .setDisplayName(
-                toTruncatableStringProto(toDisplayName(spanData.getName(), spanData.getKind())))
+            .setDisplayName(toDisplayNameProto(spanData.getName(), spanData.getKind()))
             .setStartTime(toTimestampProto(spanData.getStartTimestamp()))
             .setAttributes(
                 toAttributesProto(spanData.getAttributes(), resourceLabels, fixedAttributes))
@@ -295,12 +309,8 @@ final class StackdriverV2ExporterHandler extends SpanExporter.Handler {
         toAttributesBuilderProto(
             attributes.getAttributeMap(), attributes.getDroppedAttributesCount());
     attributesBuilder.putAttributeMap(AGENT_LABEL_KEY, AGENT_LABEL_VALUE);
-    for (Entry<String, AttributeValue> entry : resourceLabels.entrySet()) {
-      attributesBuilder.putAttributeMap(entry.getKey(), entry.getValue());
-    }
-    for (Entry<String, AttributeValue> entry : fixedAttributes.entrySet()) {
-      attributesBuilder.putAttributeMap(entry.getKey(), entry.getValue());
-    }
+    attributesBuilder.putAllAttributeMap(resourceLabels);
+    attributesBuilder.putAllAttributeMap(fixedAttributes);
     return attributesBuilder.build();
   }
 
@@ -403,6 +413,17 @@ final class StackdriverV2ExporterHandler extends SpanExporter.Handler {
     return spanName;
   }
 
+  private static TruncatableString toDisplayNameProto(
+      String spanName, @javax.annotation.Nullable Kind spanKind) {
+    String displayName = toDisplayName(spanName, spanKind);
+    TruncatableString displayNameProto = displayNameCache.getIfPresent(displayName);
+    if (displayNameProto == null) {
+      displayNameProto = toTruncatableStringProto(displayName);
+      displayNameCache.put(displayName, displayNameProto);
+    }
+    return displayNameProto;
+  }
+
   private static Link toLinkProto(io.opencensus.trace.Link link) {
     checkNotNull(link);
     return Link.newBuilder()
@@ -535,4 +535,40 @@ public final class StackdriverV2ExporterHandlerProtoTest {
     Map<String, AttributeValue> attributeMap = span.getAttributes().getAttributeMapMap();
     assertThat(attributeMap.entrySet()).containsAtLeastElementsIn(fixedAttributes.entrySet());
   }
+
+  @Test
+  public void generateSpan_ReusesDisplayNameAndStringAttributeProtos() {
+    SpanData spanData =
+        SpanData.create(
+            spanContext,
+            parentSpanId,
+            /* hasRemoteParent= */ true,
+            SPAN_NAME,
+            Kind.SERVER,
+            startTimestamp,
+            SpanData.Attributes.create(
+                ImmutableMap.of(
+                    ATTRIBUTE_KEY_1,
+                    io.opencensus.trace.AttributeValue.stringAttributeValue("my-value")),
+                0),
+            annotations,
+            messageEvents,
+            links,
+            CHILD_SPAN_COUNT,
+            status,
+            endTimestamp);
+
+    Span span1 =
+        handler.generateSpan(
+            spanData, EMPTY_RESOURCE_LABELS, Collections.<String, AttributeValue>emptyMap());
+    Span span2 =
+        handler.generateSpan(
+            spanData, EMPTY_RESOURCE_LABELS, Collections.<String, AttributeValue>emptyMap());
+    assertThat(span1.getDisplayName().getValue()).isEqualTo("Recv." + SPAN_NAME);
+    assertThat(span2.getDisplayName()).isSameInstanceAs(span1.getDisplayName());
+    assertThat(span1.getAttributes().getAttributeMapMap().get(ATTRIBUTE_KEY_1))
+        .isEqualTo(toStringAttributeValueProto("my-value"));
+    assertThat(span2.getAttributes().getAttributeMapMap().get(ATTRIBUTE_KEY_1))
+        .isSameInstanceAs(span1.getAttributes().getAttributeMapMap().get(ATTRIBUTE_KEY_1));
+  }
 }
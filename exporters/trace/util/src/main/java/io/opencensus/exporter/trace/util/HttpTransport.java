@@ -0,0 +1,458 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Duration;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Sends request bodies to an HTTP endpoint for trace exporters.
+ *
+ * <ul>
+ *   <li>Connections are kept alive and reused, because each response is read fully.
+ *   <li>Request bodies are written by a {@link BodyWriter} into a reused buffer, gzip compressed if
+ *       enabled, and sent with a fixed length.
+ *   <li>At most {@link Options#getMaxInFlightRequests()} requests are sent at the same time. Other
+ *       calls to {@link #send} wait.
+ *   <li>Requests that fail with an {@link IOException}, a 5xx or a 429 response are retried with an
+ *       exponential backoff.
+ * </ul>
+ *
+ * @since 0.24
+ */
+@ThreadSafe
+public final class HttpTransport {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int INITIAL_BUFFER_BYTES = 8 * 1024;
+
+  private final Options options;
+  private final Semaphore inFlightRequests;
+  // Buffers of the completed requests. There are at most as many as requests in flight.
+  private final ConcurrentLinkedQueue<ByteArrayOutputStream> buffers =
+      new ConcurrentLinkedQueue<ByteArrayOutputStream>();
+
+  private HttpTransport(Options options) {
+    this.options = options;
+    this.inFlightRequests = new Semaphore(options.getMaxInFlightRequests());
+  }
+
+  /**
+   * Creates a new {@link HttpTransport}.
+   *
+   * @param options the options for {@link HttpTransport}.
+   * @return a new {@code HttpTransport}.
+   * @since 0.24
+   */
+  public static HttpTransport create(Options options) {
+    return new HttpTransport(checkNotNull(options, "options"));
+  }
+
+  /**
+   * Writes a request body and POSTs it to the URL of this transport, retrying if needed.
+   *
+   * @param bodyWriter writes the request body. It is called once per request.
+   * @return the body of the successful response, decoded as UTF-8.
+   * @throws IOException if the last attempt failed, or the endpoint rejected the request.
+   * @throws InterruptedException if interrupted while waiting for a request slot or a backoff.
+   * @since 0.24
+   */
+  public String send(BodyWriter bodyWriter) throws IOException, InterruptedException {
+    checkNotNull(bodyWriter, "bodyWriter");
+    inFlightRequests.acquire();
+    ByteArrayOutputStream buffer = buffers.poll();
+    if (buffer == null) {
+      buffer = new ByteArrayOutputStream(INITIAL_BUFFER_BYTES);
+    }
+    try {
+      writeBody(bodyWriter, buffer);
+      long backoffMillis = options.getInitialBackoff().toMillis();
+      for (int attempt = 0; ; attempt++) {
+        try {
+          return post(buffer);
+        } catch (RetriableException e) {
+          if (attempt >= options.getMaxRetries()) {
+            throw e;
+          }
+        }
+        Thread.sleep(backoffMillis);
+        backoffMillis *= 2;
+      }
+    } finally {
+      buffer.reset();
+      buffers.offer(buffer);
+      inFlightRequests.release();
+    }
+  }
+
+  private void writeBody(BodyWriter bodyWriter, ByteArrayOutputStream buffer) throws IOException {
+    if (options.getGzip()) {
+      GZIPOutputStream gzipOutputStream = new GZIPOutputStream(buffer);
+      bodyWriter.writeTo(gzipOutputStream);
+      gzipOutputStream.finish();
+    } else {
+      bodyWriter.writeTo(buffer);
+    }
+  }
+
+  private String post(ByteArrayOutputStream buffer) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) options.getUrl().openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setConnectTimeout((int) options.getConnectTimeout().toMillis());
+    // Otherwise a backend that accepts the connection and never responds holds the request slot.
+    connection.setReadTimeout((int) options.getReadTimeout().toMillis());
+    connection.setRequestProperty("Content-Type", options.getContentType());
+    if (options.getGzip()) {
+      connection.setRequestProperty("Content-Encoding", "gzip");
+    }
+    for (Map.Entry<String, String> header : options.getHeaders().entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+    // Streams the body instead of letting the connection buffer a copy of it.
+    connection.setFixedLengthStreamingMode(buffer.size());
+    int responseCode;
+    try {
+      OutputStream outputStream = connection.getOutputStream();
+      try {
+        buffer.writeTo(outputStream);
+      } finally {
+        outputStream.close();
+      }
+      responseCode = connection.getResponseCode();
+    } catch (IOException e) {
+      throw new RetriableException("Failed to send request to " + options.getUrl(), e);
+    }
+    if (responseCode / 100 != 2) {
+      // The error body must be read too, for the connection to be reused.
+      readFully(connection.getErrorStream());
+      String message = "Response " + responseCode + " from " + options.getUrl();
+      if (responseCode / 100 == 5 || responseCode == 429) {
+        throw new RetriableException(message, null);
+      }
+      throw new IOException(message);
+    }
+    return readFully(connection.getInputStream());
+  }
+
+  // Reads and closes the whole stream, which allows the connection to be reused.
+  private static String readFully(@Nullable InputStream inputStream) throws IOException {
+    if (inputStream == null) {
+      return "";
+    }
+    try {
+      ByteArrayOutputStream response = new ByteArrayOutputStream();
+      byte[] chunk = new byte[1024];
+      int read;
+      while ((read = inputStream.read(chunk)) != -1) {
+        response.write(chunk, 0, read);
+      }
+      return new String(response.toByteArray(), UTF_8);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  /**
+   * Writes the body of a request. Exporters write their encoding straight to the request body,
+   * without building an intermediate {@code String} or array.
+   *
+   * @since 0.24
+   */
+  public interface BodyWriter {
+
+    /**
+     * Writes the body of a request to the given stream. The stream must not be closed.
+     *
+     * @param outputStream the stream of the request body.
+     * @throws IOException if the body cannot be written.
+     * @since 0.24
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+  }
+
+  /**
+   * Options for {@link HttpTransport}.
+   *
+   * @since 0.24
+   */
+  @AutoValue
+  @Immutable
+  public abstract static class Options {
+
+    @VisibleForTesting static final String DEFAULT_CONTENT_TYPE = "application/json";
+    @VisibleForTesting static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 2;
+    @VisibleForTesting static final int DEFAULT_MAX_RETRIES = 2;
+    @VisibleForTesting static final Duration DEFAULT_INITIAL_BACKOFF = Duration.fromMillis(100);
+    @VisibleForTesting static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.create(6, 0);
+    @VisibleForTesting static final Duration DEFAULT_READ_TIMEOUT = Duration.create(10, 0);
+    private static final Duration ZERO = Duration.fromMillis(0);
+
+    Options() {}
+
+    /**
+     * Returns the URL that requests are POSTed to.
+     *
+     * @return the URL that requests are POSTed to.
+     * @since 0.24
+     */
+    public abstract URL getUrl();
+
+    /**
+     * Returns the content type of the request bodies.
+     *
+     * <p>Default value is {@code application/json}.
+     *
+     * @return the content type of the request bodies.
+     * @since 0.24
+     */
+    public abstract String getContentType();
+
+    /**
+     * Returns the additional headers of each request.
+     *
+     * <p>Default value is no headers.
+     *
+     * @return the additional headers of each request.
+     * @since 0.24
+     */
+    public abstract Map<String, String> getHeaders();
+
+    /**
+     * Returns whether request bodies are gzip compressed. Only enable it for backends that accept
+     * gzip compressed request bodies.
+     *
+     * <p>Default value is {@code false}.
+     *
+     * @return whether request bodies are gzip compressed.
+     * @since 0.24
+     */
+    public abstract boolean getGzip();
+
+    /**
+     * Returns the maximum number of requests sent at the same time.
+     *
+     * <p>Default value is 2.
+     *
+     * @return the maximum number of requests sent at the same time.
+     * @since 0.24
+     */
+    public abstract int getMaxInFlightRequests();
+
+    /**
+     * Returns how many times a failed request is retried.
+     *
+     * <p>Default value is 2.
+     *
+     * @return how many times a failed request is retried.
+     * @since 0.24
+     */
+    public abstract int getMaxRetries();
+
+    /**
+     * Returns the time to wait before the first retry. It doubles for each further retry.
+     *
+     * <p>Default value is 100 milliseconds.
+     *
+     * @return the time to wait before the first retry.
+     * @since 0.24
+     */
+    public abstract Duration getInitialBackoff();
+
+    /**
+     * Returns the timeout for opening a connection.
+     *
+     * <p>Default value is 6 seconds.
+     *
+     * @return the timeout for opening a connection.
+     * @since 0.24
+     */
+    public abstract Duration getConnectTimeout();
+
+    /**
+     * Returns the timeout for reading the response of a request, once it is sent. Trace exporters
+     * usually set it to their export deadline.
+     *
+     * <p>Default value is 10 seconds, the default export deadline of the trace exporters.
+     *
+     * @return the timeout for reading the response of a request.
+     * @since 0.24
+     */
+    public abstract Duration getReadTimeout();
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @param url the URL that requests are POSTed to.
+     * @return a {@code Builder}.
+     * @since 0.24
+     */
+    public static Builder builder(URL url) {
+      return new AutoValue_HttpTransport_Options.Builder()
+          .setUrl(url)
+          .setContentType(DEFAULT_CONTENT_TYPE)
+          .setHeaders(Collections.<String, String>emptyMap())
+          .setGzip(false)
+          .setMaxInFlightRequests(DEFAULT_MAX_IN_FLIGHT_REQUESTS)
+          .setMaxRetries(DEFAULT_MAX_RETRIES)
+          .setInitialBackoff(DEFAULT_INITIAL_BACKOFF)
+          .setConnectTimeout(DEFAULT_CONNECT_TIMEOUT)
+          .setReadTimeout(DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Builder for {@link Options}.
+     *
+     * @since 0.24
+     */
+    @AutoValue.Builder
+    public abstract static class Builder {
+
+      Builder() {}
+
+      abstract Builder setUrl(URL url);
+
+      /**
+       * Sets the content type of the request bodies.
+       *
+       * @param contentType the content type of the request bodies.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setContentType(String contentType);
+
+      /**
+       * Sets the additional headers of each request.
+       *
+       * @param headers the additional headers of each request.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setHeaders(Map<String, String> headers);
+
+      /**
+       * Sets whether request bodies are gzip compressed.
+       *
+       * @param gzip whether request bodies are gzip compressed.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setGzip(boolean gzip);
+
+      /**
+       * Sets the maximum number of requests sent at the same time.
+       *
+       * @param maxInFlightRequests the maximum number of requests sent at the same time.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setMaxInFlightRequests(int maxInFlightRequests);
+
+      /**
+       * Sets how many times a failed request is retried.
+       *
+       * @param maxRetries how many times a failed request is retried.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setMaxRetries(int maxRetries);
+
+      /**
+       * Sets the time to wait before the first retry.
+       *
+       * @param initialBackoff the time to wait before the first retry.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setInitialBackoff(Duration initialBackoff);
+
+      /**
+       * Sets the timeout for opening a connection.
+       *
+       * @param connectTimeout the timeout for opening a connection.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setConnectTimeout(Duration connectTimeout);
+
+      /**
+       * Sets the timeout for reading the response of a request.
+       *
+       * @param readTimeout the timeout for reading the response of a request.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setReadTimeout(Duration readTimeout);
+
+      abstract Map<String, String> getHeaders();
+
+      abstract Options autoBuild();
+
+      /**
+       * Builds a new {@link Options} with current settings.
+       *
+       * @return a {@code Options}.
+       * @since 0.24
+       */
+      public Options build() {
+        setHeaders(Collections.unmodifiableMap(new LinkedHashMap<String, String>(getHeaders())));
+        Options options = autoBuild();
+        checkArgument(
+            options.getMaxInFlightRequests() > 0, "maxInFlightRequests must be positive.");
+        checkArgument(options.getMaxRetries() >= 0, "maxRetries must not be negative.");
+        checkArgument(
+            options.getInitialBackoff().compareTo(ZERO) >= 0,
+            "initialBackoff must not be negative.");
+        checkArgument(
+            options.getConnectTimeout().compareTo(ZERO) >= 0,
+            "connectTimeout must not be negative.");
+        checkArgument(
+            options.getReadTimeout().compareTo(ZERO) >= 0, "readTimeout must not be negative.");
+        return options;
+      }
+    }
+  }
+
+  // A failure that may not happen again on the next attempt.
+  private static final class RetriableException extends IOException {
+    private static final long serialVersionUID = 0L;
+
+    private RetriableException(String message, @Nullable Throwable cause) {
+      super(message, cause);
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A first-in first-out log of byte records, stored in memory-mapped segment files of a directory.
+ *
+ * <p>Each record is written as its length, the CRC32 of its bytes, the time it was appended, then
+ * its bytes. Removed records are marked by negating their length in place, so that the log can be
+ * reopened after a restart: records that were neither removed nor expired are read again, and a
+ * record torn by a crash ends its segment. Segments are deleted once all their records are removed.
+ *
+ * <p>When the segments would take more than {@code maxBytes}, the oldest segment is deleted with
+ * its records. Records older than {@code maxAgeMillis} are skipped when read.
+ */
+@NotThreadSafe
+final class SegmentLog {
+
+  private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{20})\\.seg");
+  // Length, CRC32 and append time in milliseconds.
+  static final int RECORD_HEADER_BYTES = 4 + 4 + 8;
+
+  private final File directory;
+  private final int segmentBytes;
+  private final long maxBytes;
+  private final long maxAgeMillis;
+  private final Deque<Segment> segments = new ArrayDeque<Segment>();
+  private final CRC32 crc = new CRC32();
+  private int recordCount;
+  private long droppedRecords;
+
+  private SegmentLog(File directory, int segmentBytes, long maxBytes, long maxAgeMillis) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxBytes = maxBytes;
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /** Opens the log stored in the given directory, creating it if needed. */
+  static SegmentLog open(File directory, int segmentBytes, long maxBytes, long maxAgeMillis)
+      throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create the spool directory " + directory + ".");
+    }
+    SegmentLog log = new SegmentLog(directory, segmentBytes, maxBytes, maxAgeMillis);
+    String[] names = directory.list();
+    if (names == null) {
+      throw new IOException("Cannot list the spool directory " + directory + ".");
+    }
+    // The zero padded sequence numbers sort like the names.
+    Arrays.sort(names);
+    for (String name : names) {
+      Matcher matcher = SEGMENT_NAME.matcher(name);
+      if (matcher.matches()) {
+        log.recover(Long.parseLong(matcher.group(1)), new File(directory, name));
+      }
+    }
+    return log;
+  }
+
+  /** Returns the largest record that fits in a segment. */
+  int getMaxRecordBytes() {
+    return segmentBytes - RECORD_HEADER_BYTES;
+  }
+
+  /** Returns the number of records that can still be read. */
+  int getRecordCount() {
+    return recordCount;
+  }
+
+  /** Returns the number of records deleted because of the size or age caps. */
+  long getDroppedRecords() {
+    return droppedRecords;
+  }
+
+  /** Returns the number of bytes of the segment files. */
+  long getSizeBytes() {
+    return (long) segments.size() * segmentBytes;
+  }
+
+  /**
+   * Appends a record, returns {@code false} if it is empty or larger than {@link
+   * #getMaxRecordBytes()}.
+   */
+  boolean append(byte[] record, long nowMillis) throws IOException {
+    if (record.length == 0 || record.length > getMaxRecordBytes()) {
+      return false;
+    }
+    Segment tail = segments.peekLast();
+    if (tail == null || tail.writePosition + RECORD_HEADER_BYTES + record.length > segmentBytes) {
+      tail = createSegment(tail == null ? 0 : tail.sequence + 1);
+    }
+    crc.reset();
+    crc.update(record, 0, record.length);
+    MappedByteBuffer buffer = tail.buffer;
+    int position = tail.writePosition;
+    buffer.putInt(position + 4, (int) crc.getValue());
+    buffer.putLong(position + 8, nowMillis);
+    buffer.position(position + RECORD_HEADER_BYTES);
+    buffer.put(record);
+    // The length is written last, so that a record is only visible once complete.
+    buffer.putInt(position, record.length);
+    tail.writePosition = position + RECORD_HEADER_BYTES + record.length;
+    tail.liveRecords++;
+    recordCount++;
+    while (getSizeBytes() > maxBytes && segments.size() > 1) {
+      Segment head = segments.peekFirst();
+      droppedRecords += head.liveRecords;
+      deleteHead();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the oldest record that is neither removed nor expired, or {@code null} if there is
+   * none.
+   */
+  @Nullable
+  byte[] peek(long nowMillis) {
+    while (true) {
+      Segment head = segments.peekFirst();
+      if (head == null) {
+        return null;
+      }
+      if (head.liveRecords == 0) {
+        if (head == segments.peekLast()) {
+          return null;
+        }
+        deleteHead();
+        continue;
+      }
+      MappedByteBuffer buffer = head.buffer;
+      int position = head.readPosition;
+      int length = buffer.getInt(position);
+      if (length == 0) {
+        // The end of the segment, its count of records is wrong.
+        recordCount -= head.liveRecords;
+        head.liveRecords = 0;
+        continue;
+      }
+      if (length < 0) {
+        head.readPosition = position + RECORD_HEADER_BYTES - length;
+        continue;
+      }
+      if (buffer.getLong(position + 8) < nowMillis - maxAgeMillis) {
+        droppedRecords++;
+        remove();
+        continue;
+      }
+      byte[] record = new byte[length];
+      buffer.position(position + RECORD_HEADER_BYTES);
+      buffer.get(record);
+      return record;
+    }
+  }
+
+  /** Removes the record last returned by {@link #peek(long)}. */
+  void remove() {
+    Segment head = segments.peekFirst();
+    if (head == null || head.liveRecords == 0) {
+      throw new IllegalStateException("No record to remove.");
+    }
+    MappedByteBuffer buffer = head.buffer;
+    int position = head.readPosition;
+    int length = buffer.getInt(position);
+    buffer.putInt(position, -length);
+    head.readPosition = position + RECORD_HEADER_BYTES + length;
+    head.liveRecords--;
+    recordCount--;
+    if (head.liveRecords == 0 && head != segments.peekLast()) {
+      deleteHead();
+    }
+  }
+
+  /** Flushes the segments to the storage device. */
+  void force() {
+    for (Segment segment : segments) {
+      segment.buffer.force();
+    }
+  }
+
+  // Maps an existing segment, and finds its records.
+  private void recover(long sequence, File file) throws IOException {
+    if (file.length() != segmentBytes) {
+      // Created with another segment size, or truncated.
+      deleteFile(file);
+      return;
+    }
+    Segment segment = new Segment(sequence, file, map(file));
+    MappedByteBuffer buffer = segment.buffer;
+    int position = 0;
+    int readPosition = -1;
+    while (position + RECORD_HEADER_BYTES <= segmentBytes) {
+      int length = buffer.getInt(position);
+      int size = Math.abs(length);
+      if (length == 0 || size > segmentBytes - position - RECORD_HEADER_BYTES) {
+        break;
+      }
+      if (length > 0) {
+        byte[] record = new byte[size];
+        buffer.position(position + RECORD_HEADER_BYTES);
+        buffer.get(record);
+        crc.reset();
+        crc.update(record, 0, size);
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+          // Torn by a crash, this is the end of the segment.
+          buffer.putInt(position, 0);
+          break;
+        }
+        if (readPosition < 0) {
+          readPosition = position;
+        }
+        segment.liveRecords++;
+      }
+      position += RECORD_HEADER_BYTES + size;
+    }
+    segment.readPosition = readPosition < 0 ? position : readPosition;
+    segment.writePosition = position;
+    segments.addLast(segment);
+    recordCount += segment.liveRecords;
+  }
+
+  private Segment createSegment(long sequence) throws IOException {
+    File file = new File(directory, String.format(Locale.ROOT, "%020d.seg", sequence));
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      // A new file is filled with zeros, which is the end of the records.
+      randomAccessFile.setLength(0);
+      randomAccessFile.setLength(segmentBytes);
+    } finally {
+      randomAccessFile.close();
+    }
+    Segment segment = new Segment(sequence, file, map(file));
+    segments.addLast(segment);
+    return segment;
+  }
+
+  private MappedByteBuffer map(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      // The mapping stays valid after the file is closed.
+      return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  private void deleteHead() {
+    Segment head = segments.removeFirst();
+    recordCount -= head.liveRecords;
+    deleteFile(head.file);
+  }
+
+  private static void deleteFile(File file) {
+    // The mapping of a deleted segment is released when it is garbage collected.
+    if (!file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+
+  private static final class Segment {
+    final long sequence;
+    final File file;
+    final MappedByteBuffer buffer;
+    int readPosition;
+    int writePosition;
+    int liveRecords;
+
+    Segment(long sequence, File file, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.file = file;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Binary encoding of batches of {@link SpanData}, for {@link SpanSpool}. Enums are written by name,
+ * so that spooled batches survive reordered enum constants.
+ */
+final class SpanDataCodec {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int VERSION = 1;
+
+  private static final byte STRING_VALUE = 1;
+  private static final byte BOOLEAN_VALUE = 2;
+  private static final byte LONG_VALUE = 3;
+  private static final byte DOUBLE_VALUE = 4;
+
+  // Returns the value of an attribute itself, or null if it is not supported.
+  private static final Function<Object, /*@Nullable*/ Object> RETURN_VALUE =
+      new Function<Object, /*@Nullable*/ Object>() {
+        @Override
+        public Object apply(Object value) {
+          return value;
+        }
+      };
+
+  private SpanDataCodec() {}
+
+  static byte[] encode(Collection<SpanData> spanDataList) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeByte(VERSION);
+    output.writeInt(spanDataList.size());
+    byte[] idBuffer = new byte[TraceId.SIZE];
+    for (SpanData spanData : spanDataList) {
+      writeSpanData(output, spanData, idBuffer);
+    }
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  static List<SpanData> decode(byte[] encoded) throws IOException {
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded));
+    int version = input.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported spooled batch version " + version + ".");
+    }
+    int count = input.readInt();
+    List<SpanData> spanDataList = new ArrayList<SpanData>();
+    byte[] idBuffer = new byte[TraceId.SIZE];
+    try {
+      for (int i = 0; i < count; i++) {
+        spanDataList.add(readSpanData(input, idBuffer));
+      }
+    } catch (IllegalArgumentException e) {
+      // Unknown enum constants, or invalid values.
+      throw new IOException("Invalid spooled batch.", e);
+    }
+    return spanDataList;
+  }
+
+  private static void writeSpanData(DataOutputStream output, SpanData spanData, byte[] idBuffer)
+      throws IOException {
+    SpanContext context = spanData.getContext();
+    writeTraceId(output, context.getTraceId(), idBuffer);
+    writeSpanId(output, context.getSpanId(), idBuffer);
+    context.getTraceOptions().copyBytesTo(idBuffer, 0);
+    output.writeByte(idBuffer[0]);
+    List<Tracestate.Entry> entries = context.getTracestate().getEntries();
+    output.writeInt(entries.size());
+    for (Tracestate.Entry entry : entries) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+    SpanId parentSpanId = spanData.getParentSpanId();
+    output.writeBoolean(parentSpanId != null);
+    if (parentSpanId != null) {
+      writeSpanId(output, parentSpanId, idBuffer);
+    }
+    writeNullableBoolean(output, spanData.getHasRemoteParent());
+    writeString(output, spanData.getName());
+    Kind kind = spanData.getKind();
+    writeString(output, kind == null ? "" : kind.name());
+    writeTimestamp(output, spanData.getStartTimestamp());
+    writeAttributes(output, spanData.getAttributes().getAttributeMap());
+    output.writeInt(spanData.getAttributes().getDroppedAttributesCount());
+
+    List<TimedEvent<Annotation>> annotations = spanData.getAnnotations().getEvents();
+    output.writeInt(annotations.size());
+    for (TimedEvent<Annotation> annotation : annotations) {
+      writeTimestamp(output, annotation.getTimestamp());
+      writeString(output, annotation.getEvent().getDescription());
+      writeAttributes(output, annotation.getEvent().getAttributes());
+    }
+    output.writeInt(spanData.getAnnotations().getDroppedEventsCount());
+
+    List<TimedEvent<MessageEvent>> messageEvents = spanData.getMessageEvents().getEvents();
+    output.writeInt(messageEvents.size());
+    for (TimedEvent<MessageEvent> messageEvent : messageEvents) {
+      writeTimestamp(output, messageEvent.getTimestamp());
+      MessageEvent event = messageEvent.getEvent();
+      writeString(output, event.getType().name());
+      output.writeLong(event.getMessageId());
+      output.writeLong(event.getUncompressedMessageSize());
+      output.writeLong(event.getCompressedMessageSize());
+    }
+    output.writeInt(spanData.getMessageEvents().getDroppedEventsCount());
+
+    List<Link> links = spanData.getLinks().getLinks();
+    output.writeInt(links.size());
+    for (Link link : links) {
+      writeTraceId(output, link.getTraceId(), idBuffer);
+      writeSpanId(output, link.getSpanId(), idBuffer);
+      writeString(output, link.getType().name());
+      writeAttributes(output, link.getAttributes());
+    }
+    output.writeInt(spanData.getLinks().getDroppedLinksCount());
+
+    Integer childSpanCount = spanData.getChildSpanCount();
+    output.writeBoolean(childSpanCount != null);
+    if (childSpanCount != null) {
+      output.writeInt(childSpanCount);
+    }
+    Status status = spanData.getStatus();
+    output.writeBoolean(status != null);
+    if (status != null) {
+      writeString(output, status.getCanonicalCode().name());
+      String description = status.getDescription();
+      output.writeBoolean(description != null);
+      if (description != null) {
+        writeString(output, description);
+      }
+    }
+    Timestamp endTimestamp = spanData.getEndTimestamp();
+    output.writeBoolean(endTimestamp != null);
+    if (endTimestamp != null) {
+      writeTimestamp(output, endTimestamp);
+    }
+  }
+
+  private static SpanData readSpanData(DataInputStream input, byte[] idBuffer) throws IOException {
+    TraceId traceId = readTraceId(input, idBuffer);
+    SpanId spanId = readSpanId(input, idBuffer);
+    TraceOptions traceOptions = TraceOptions.fromByte(input.readByte());
+    int entryCount = input.readInt();
+    String[] entries = new String[2 * entryCount];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = readString(input);
+    }
+    // Tracestate.Builder.set adds entries at the front.
+    Tracestate.Builder tracestate = Tracestate.builder();
+    for (int i = entryCount - 1; i >= 0; i--) {
+      tracestate.set(entries[2 * i], entries[2 * i + 1]);
+    }
+    SpanContext context = SpanContext.create(traceId, spanId, traceOptions, tracestate.build());
+    SpanId parentSpanId = input.readBoolean() ? readSpanId(input, idBuffer) : null;
+    Boolean hasRemoteParent = readNullableBoolean(input);
+    String name = readString(input);
+    String kindName = readString(input);
+    Kind kind = kindName.isEmpty() ? null : Kind.valueOf(kindName);
+    Timestamp startTimestamp = readTimestamp(input);
+    Map<String, AttributeValue> attributes = readAttributes(input);
+    int droppedAttributes = input.readInt();
+
+    int annotationCount = input.readInt();
+    List<TimedEvent<Annotation>> annotations = new ArrayList<TimedEvent<Annotation>>();
+    for (int i = 0; i < annotationCount; i++) {
+      Timestamp timestamp = readTimestamp(input);
+      String description = readString(input);
+      annotations.add(
+          TimedEvent.create(
+              timestamp,
+              Annotation.fromDescriptionAndAttributes(description, readAttributes(input))));
+    }
+    int droppedAnnotations = input.readInt();
+
+    int messageEventCount = input.readInt();
+    List<TimedEvent<MessageEvent>> messageEvents = new ArrayList<TimedEvent<MessageEvent>>();
+    for (int i = 0; i < messageEventCount; i++) {
+      Timestamp timestamp = readTimestamp(input);
+      MessageEvent.Type type = MessageEvent.Type.valueOf(readString(input));
+      MessageEvent event =
+          MessageEvent.builder(type, input.readLong())
+              .setUncompressedMessageSize(input.readLong())
+              .setCompressedMessageSize(input.readLong())
+              .build();
+      messageEvents.add(TimedEvent.create(timestamp, event));
+    }
+    int droppedMessageEvents = input.readInt();
+
+    int linkCount = input.readInt();
+    List<Link> links = new ArrayList<Link>();
+    for (int i = 0; i < linkCount; i++) {
+      TraceId linkTraceId = readTraceId(input, idBuffer);
+      SpanId linkSpanId = readSpanId(input, idBuffer);
+      Link.Type type = Link.Type.valueOf(readString(input));
+      links.add(
+          Link.fromSpanContext(
+              SpanContext.create(
+                  linkTraceId, linkSpanId, TraceOptions.DEFAULT, Tracestate.builder().build()),
+              type,
+              readAttributes(input)));
+    }
+    int droppedLinks = input.readInt();
+
+    Integer childSpanCount = input.readBoolean() ? input.readInt() : null;
+    Status status = null;
+    if (input.readBoolean()) {
+      status = Status.CanonicalCode.valueOf(readString(input)).toStatus();
+      if (input.readBoolean()) {
+        status = status.withDescription(readString(input));
+      }
+    }
+    Timestamp endTimestamp = input.readBoolean() ? readTimestamp(input) : null;
+    return SpanData.create(
+        context,
+        parentSpanId,
+        hasRemoteParent,
+        name,
+        kind,
+        startTimestamp,
+        SpanData.Attributes.create(attributes, droppedAttributes),
+        SpanData.TimedEvents.create(annotations, droppedAnnotations),
+        SpanData.TimedEvents.create(messageEvents, droppedMessageEvents),
+        SpanData.Links.create(links, droppedLinks),
+        childSpanCount,
+        status,
+        endTimestamp);
+  }
+
+  private static void writeAttributes(DataOutputStream output, Map<String, AttributeValue> map)
+      throws IOException {
+    int count = 0;
+    for (AttributeValue value : map.values()) {
+      if (toValue(value) != null) {
+        count++;
+      }
+    }
+    output.writeInt(count);
+    for (Map.Entry<String, AttributeValue> entry : map.entrySet()) {
+      Object value = toValue(entry.getValue());
+      if (value == null) {
+        continue;
+      }
+      writeString(output, entry.getKey());
+      if (value instanceof String) {
+        output.writeByte(STRING_VALUE);
+        writeString(output, (String) value);
+      } else if (value instanceof Boolean) {
+        output.writeByte(BOOLEAN_VALUE);
+        output.writeBoolean((Boolean) value);
+      } else if (value instanceof Long) {
+        output.writeByte(LONG_VALUE);
+        output.writeLong((Long) value);
+      } else {
+        output.writeByte(DOUBLE_VALUE);
+        output.writeDouble((Double) value);
+      }
+    }
+  }
+
+  private static Map<String, AttributeValue> readAttributes(DataInputStream input)
+      throws IOException {
+    int count = input.readInt();
+    Map<String, AttributeValue> attributes = new HashMap<String, AttributeValue>();
+    for (int i = 0; i < count; i++) {
+      String key = readString(input);
+      byte type = input.readByte();
+      switch (type) {
+        case STRING_VALUE:
+          attributes.put(key, AttributeValue.stringAttributeValue(readString(input)));
+          break;
+        case BOOLEAN_VALUE:
+          attributes.put(key, AttributeValue.booleanAttributeValue(input.readBoolean()));
+          break;
+        case LONG_VALUE:
+          attributes.put(key, AttributeValue.longAttributeValue(input.readLong()));
+          break;
+        case DOUBLE_VALUE:
+          attributes.put(key, AttributeValue.doubleAttributeValue(input.readDouble()));
+          break;
+        default:
+          throw new IOException("Unknown attribute value type " + type + ".");
+      }
+    }
+    return attributes;
+  }
+
+  @Nullable
+  private static Object toValue(AttributeValue attributeValue) {
+    return attributeValue.match(
+        RETURN_VALUE,
+        RETURN_VALUE,
+        RETURN_VALUE,
+        RETURN_VALUE,
+        Functions.</*@Nullable*/ Object>returnNull());
+  }
+
+  private static void writeTraceId(DataOutputStream output, TraceId traceId, byte[] idBuffer)
+      throws IOException {
+    traceId.copyBytesTo(idBuffer, 0);
+    output.write(idBuffer, 0, TraceId.SIZE);
+  }
+
+  private static TraceId readTraceId(DataInputStream input, byte[] idBuffer) throws IOException {
+    input.readFully(idBuffer, 0, TraceId.SIZE);
+    return TraceId.fromBytes(idBuffer, 0);
+  }
+
+  private static void writeSpanId(DataOutputStream output, SpanId spanId, byte[] idBuffer)
+      throws IOException {
+    spanId.copyBytesTo(idBuffer, 0);
+    output.write(idBuffer, 0, SpanId.SIZE);
+  }
+
+  private static SpanId readSpanId(DataInputStream input, byte[] idBuffer) throws IOException {
+    input.readFully(idBuffer, 0, SpanId.SIZE);
+    return SpanId.fromBytes(idBuffer, 0);
+  }
+
+  private static void writeTimestamp(DataOutputStream output, Timestamp timestamp)
+      throws IOException {
+    output.writeLong(timestamp.getSeconds());
+    output.writeInt(timestamp.getNanos());
+  }
+
+  private static Timestamp readTimestamp(DataInputStream input) throws IOException {
+    long seconds = input.readLong();
+    return Timestamp.create(seconds, input.readInt());
+  }
+
+  private static void writeNullableBoolean(DataOutputStream output, @Nullable Boolean value)
+      throws IOException {
+    output.writeByte(value == null ? 0 : value ? 1 : 2);
+  }
+
+  @Nullable
+  private static Boolean readNullableBoolean(DataInputStream input) throws IOException {
+    byte value = input.readByte();
+    return value == 0 ? null : value == 1;
+  }
+
+  // DataOutput.writeUTF is limited to 64 KiB strings.
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.opencensus.common.Duration;
+import io.opencensus.trace.export.SpanData;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A durable spool of the batches of spans that a {@link TimeLimitedHandler} failed to export.
+ *
+ * <p>Batches are kept in memory-mapped segment files of {@link Options#getDirectory()}, so that
+ * they survive backend outages and restarts of the process. Once an export succeeds again, the
+ * handler replays the spooled batches, oldest first, at most {@link
+ * Options#getReplayBatchesPerSecond()} batches per second so that the recovering backend is not
+ * flooded.
+ *
+ * <p>The oldest batches are dropped when the spool would take more than {@link
+ * Options#getMaxBytes()}, and batches older than {@link Options#getMaxAge()} are not replayed.
+ *
+ * <p>A spool can be set on the OC-Agent, Zipkin and Jaeger trace exporters. The Stackdriver trace
+ * exporter is not a {@code TimeLimitedHandler} and does not support it.
+ *
+ * @since 0.24
+ */
+@ThreadSafe
+public final class SpanSpool implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(SpanSpool.class.getName());
+
+  private final Options options;
+  private final Ticker ticker;
+  private final double replayBatchesPerNano;
+
+  @GuardedBy("this")
+  private final SegmentLog log;
+
+  @GuardedBy("this")
+  private double replayPermits;
+
+  @GuardedBy("this")
+  private long lastReplayNanos;
+
+  @GuardedBy("this")
+  private long droppedBatches;
+
+  private SpanSpool(Options options, SegmentLog log, Ticker ticker) {
+    this.options = options;
+    this.log = log;
+    this.ticker = ticker;
+    this.replayBatchesPerNano = options.getReplayBatchesPerSecond() / 1e9;
+    this.lastReplayNanos = ticker.read();
+  }
+
+  /**
+   * Opens the spool stored in {@link Options#getDirectory()}, creating the directory if needed.
+   * Batches spooled before a restart are replayed too.
+   *
+   * @param options the options for {@link SpanSpool}.
+   * @return a new {@code SpanSpool}.
+   * @throws IOException if the directory or its segment files cannot be opened.
+   * @since 0.24
+   */
+  public static SpanSpool create(Options options) throws IOException {
+    return create(options, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  static SpanSpool create(Options options, Ticker ticker) throws IOException {
+    checkNotNull(options, "options");
+    return new SpanSpool(
+        options,
+        SegmentLog.open(
+            options.getDirectory(),
+            options.getSegmentBytes(),
+            options.getMaxBytes(),
+            options.getMaxAge().toMillis()),
+        ticker);
+  }
+
+  /**
+   * Returns the number of batches waiting to be replayed.
+   *
+   * @return the number of batches waiting to be replayed.
+   * @since 0.24
+   */
+  public synchronized int getBatchCount() {
+    return log.getRecordCount();
+  }
+
+  /**
+   * Returns the number of batches dropped because of the size or age caps, or because they could
+   * not be spooled or read back.
+   *
+   * @return the number of dropped batches.
+   * @since 0.24
+   */
+  public synchronized long getDroppedBatches() {
+    return droppedBatches + log.getDroppedRecords();
+  }
+
+  /**
+   * Flushes the spooled batches to the storage device. The spool must not be used afterwards.
+   *
+   * @since 0.24
+   */
+  @Override
+  public synchronized void close() {
+    log.force();
+  }
+
+  // Spools a batch that failed to export. Returns whether the batch was spooled.
+  synchronized boolean offer(Collection<SpanData> spanDataList) {
+    if (spanDataList.isEmpty()) {
+      return true;
+    }
+    try {
+      if (log.append(SpanDataCodec.encode(spanDataList), System.currentTimeMillis())) {
+        return true;
+      }
+      logger.log(
+          Level.WARNING,
+          "Dropping a batch of {0} spans larger than the spool segments.",
+          spanDataList.size());
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Failed to spool " + spanDataList.size() + " spans.", e);
+    }
+    droppedBatches++;
+    return false;
+  }
+
+  // Returns the oldest spooled batch, or null if there is none. The batch stays in the spool until
+  // remove() is called, so that a batch that fails to replay is replayed again later.
+  @Nullable
+  synchronized List<SpanData> peek() {
+    while (true) {
+      byte[] record = log.peek(System.currentTimeMillis());
+      if (record == null) {
+        return null;
+      }
+      try {
+        return SpanDataCodec.decode(record);
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Dropping a spooled batch that cannot be read.", e);
+        log.remove();
+        droppedBatches++;
+      }
+    }
+  }
+
+  // Removes the batch returned by the last call to peek().
+  synchronized void remove() {
+    log.remove();
+  }
+
+  // Returns how many batches can be replayed now, without exceeding the replay rate. Unused permits
+  // accumulate up to one second of replays.
+  synchronized int acquireReplayPermits() {
+    return acquireReplayPermits(ticker.read());
+  }
+
+  @VisibleForTesting
+  synchronized int acquireReplayPermits(long nowNanos) {
+    replayPermits =
+        Math.min(
+            options.getReplayBatchesPerSecond(),
+            replayPermits + (nowNanos - lastReplayNanos) * replayBatchesPerNano);
+    lastReplayNanos = nowNanos;
+    int permits = (int) replayPermits;
+    replayPermits -= permits;
+    return permits;
+  }
+
+  /**
+   * Options for {@link SpanSpool}.
+   *
+   * @since 0.24
+   */
+  @AutoValue
+  @Immutable
+  public abstract static class Options {
+
+    @VisibleForTesting static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    @VisibleForTesting static final Duration DEFAULT_MAX_AGE = Duration.create(3600, 0);
+    @VisibleForTesting static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+    @VisibleForTesting static final int DEFAULT_REPLAY_BATCHES_PER_SECOND = 10;
+    private static final Duration ZERO = Duration.create(0, 0);
+
+    Options() {}
+
+    /**
+     * Returns the directory of the segment files. It must not be shared with another spool.
+     *
+     * @return the directory of the segment files.
+     * @since 0.24
+     */
+    public abstract File getDirectory();
+
+    /**
+     * Returns the max total size in bytes of the spool. The oldest segment file is dropped when the
+     * spool would grow larger.
+     *
+     * <p>Default value is 64 MiB.
+     *
+     * @return the max total size in bytes of the spool.
+     * @since 0.24
+     */
+    public abstract long getMaxBytes();
+
+    /**
+     * Returns the max age of the spooled batches. Older batches are dropped instead of replayed.
+     *
+     * <p>Default value is 1 hour.
+     *
+     * @return the max age of the spooled batches.
+     * @since 0.24
+     */
+    public abstract Duration getMaxAge();
+
+    /**
+     * Returns the size in bytes of each segment file. It bounds the size of an encoded batch.
+     *
+     * <p>Default value is 4 MiB.
+     *
+     * @return the size in bytes of each segment file.
+     * @since 0.24
+     */
+    public abstract int getSegmentBytes();
+
+    /**
+     * Returns the max number of spooled batches replayed per second.
+     *
+     * <p>Default value is 10.
+     *
+     * @return the max number of spooled batches replayed per second.
+     * @since 0.24
+     */
+    public abstract int getReplayBatchesPerSecond();
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @param directory the directory of the segment files.
+     * @return a {@code Builder}.
+     * @since 0.24
+     */
+    public static Builder builder(File directory) {
+      return new AutoValue_SpanSpool_Options.Builder()
+          .setDirectory(directory)
+          .setMaxBytes(DEFAULT_MAX_BYTES)
+          .setMaxAge(DEFAULT_MAX_AGE)
+          .setSegmentBytes(DEFAULT_SEGMENT_BYTES)
+          .setReplayBatchesPerSecond(DEFAULT_REPLAY_BATCHES_PER_SECOND);
+    }
+
+    /**
+     * Builder for {@link Options}.
+     *
+     * @since 0.24
+     */
+    @AutoValue.Builder
+    public abstract static class Builder {
+
+      Builder() {}
+
+      abstract Builder setDirectory(File directory);
+
+      /**
+       * Sets the max total size in bytes of the spool. Must be at least the size of a segment file.
+       *
+       * @param maxBytes the max total size in bytes of the spool.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setMaxBytes(long maxBytes);
+
+      /**
+       * Sets the max age of the spooled batches.
+       *
+       * @param maxAge the max age of the spooled batches.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setMaxAge(Duration maxAge);
+
+      /**
+       * Sets the size in bytes of each segment file.
+       *
+       * @param segmentBytes the size in bytes of each segment file.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setSegmentBytes(int segmentBytes);
+
+      /**
+       * Sets the max number of spooled batches replayed per second.
+       *
+       * @param replayBatchesPerSecond the max number of spooled batches replayed per second.
+       * @return this.
+       * @since 0.24
+       */
+      public abstract Builder setReplayBatchesPerSecond(int replayBatchesPerSecond);
+
+      abstract Options autoBuild();
+
+      /**
+       * Builds the {@link Options}.
+       *
+       * @return the {@code Options}.
+       * @since 0.24
+       */
+      public Options build() {
+        Options options = autoBuild();
+        checkArgument(
+            options.getSegmentBytes() > SegmentLog.RECORD_HEADER_BYTES,
+            "segmentBytes must be larger than %s.",
+            SegmentLog.RECORD_HEADER_BYTES);
+        checkArgument(
+            options.getMaxBytes() >= options.getSegmentBytes(),
+            "maxBytes must be at least segmentBytes.");
+        checkArgument(options.getMaxAge().compareTo(ZERO) > 0, "maxAge must be positive.");
+        checkArgument(
+            options.getReplayBatchesPerSecond() > 0, "replayBatchesPerSecond must be positive.");
+        return options;
+      }
+    }
+  }
+}
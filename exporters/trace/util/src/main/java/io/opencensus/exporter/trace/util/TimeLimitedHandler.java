@@ -17,6 +17,7 @@
 package io.opencensus.exporter.trace.util;
 
 import com.google.common.util.concurrent.SimpleTimeLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.TimeLimiter;
 import com.google.errorprone.annotations.MustBeClosed;
 import io.opencensus.common.Duration;
@@ -32,12 +33,14 @@ import io.opencensus.trace.export.SpanExporter;
 import io.opencensus.trace.export.SpanExporter.Handler;
 import io.opencensus.trace.samplers.Samplers;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * An abstract class that allows different tracing services to export recorded data for sampled
@@ -51,6 +54,9 @@ import java.util.logging.Logger;
  * <p>To export data this MUST be register to to the ExportComponent using {@link
  * SpanExporter#registerHandler(String, Handler)}.
  *
+ * <p>If the handler has a {@link SpanSpool}, the batches that fail to export are spooled instead of
+ * dropped, and replayed after the next successful export.
+ *
  * @since 0.22
  */
 public abstract class TimeLimitedHandler extends SpanExporter.Handler {
@@ -58,13 +64,37 @@ public abstract class TimeLimitedHandler extends SpanExporter.Handler {
   private static final Logger logger = Logger.getLogger(TimeLimitedHandler.class.getName());
   private static final Tracer tracer = Tracing.getTracer();
   private static final Sampler lowProbabilitySampler = Samplers.probabilitySampler(0.0001);
+  // Runs the exports of all the handlers. A thread is only kept while an export that timed out is
+  // still running, or for a minute after its last export.
+  private static final TimeLimiter timeLimiter =
+      SimpleTimeLimiter.create(
+          Executors.newCachedThreadPool(
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("OpenCensus.TimeLimitedHandler-%d")
+                  .build()));
 
   private final Duration deadline;
   private final String exportSpanName;
+  @Nullable private final SpanSpool spool;
 
   protected TimeLimitedHandler(Duration deadline, String exportSpanName) {
+    this(deadline, exportSpanName, null);
+  }
+
+  /**
+   * Creates a handler that spools the batches it fails to export.
+   *
+   * @param deadline the deadline of each export.
+   * @param exportSpanName the name of the span that traces each export.
+   * @param spool the spool of the batches that failed to export, or {@code null} to drop them.
+   * @since 0.24
+   */
+  protected TimeLimitedHandler(
+      Duration deadline, String exportSpanName, @Nullable SpanSpool spool) {
     this.deadline = deadline;
     this.exportSpanName = exportSpanName;
+    this.spool = spool;
   }
 
   /**
@@ -78,11 +108,54 @@ public abstract class TimeLimitedHandler extends SpanExporter.Handler {
    */
   public abstract void timeLimitedExport(Collection<SpanData> spanDataList) throws Exception;
 
+  /**
+   * Reports that spans which {@link #timeLimitedExport(Collection)} handed over to be sent in the
+   * background failed to export. They are spooled if the handler has a {@link SpanSpool}, and
+   * dropped otherwise.
+   *
+   * @param spanDataList the spans that failed to export.
+   * @param e the cause of the failure.
+   * @since 0.24
+   */
+  protected final void onBackgroundExportFailure(Collection<SpanData> spanDataList, Exception e) {
+    logger.log(Level.WARNING, "Failed to export traces: " + e);
+    if (spool != null) {
+      spool.offer(spanDataList);
+    }
+  }
+
   @Override
   public void export(final Collection<SpanData> spanDataList) {
     final Scope exportScope = newExportScope();
     try {
-      TimeLimiter timeLimiter = SimpleTimeLimiter.create(Executors.newSingleThreadExecutor());
+      boolean exported = exportWithDeadline(spanDataList);
+      if (spool != null) {
+        if (exported) {
+          replaySpooled(spool);
+        } else {
+          spool.offer(spanDataList);
+        }
+      }
+    } finally {
+      exportScope.close();
+    }
+  }
+
+  // Handlers are called by a single worker thread, so a spooled batch is never replayed twice.
+  private void replaySpooled(SpanSpool spool) {
+    for (int permits = spool.acquireReplayPermits(); permits > 0; permits--) {
+      List<SpanData> spooled = spool.peek();
+      if (spooled == null || !exportWithDeadline(spooled)) {
+        // Nothing more to replay, or the backend failed again: the batch is replayed later.
+        return;
+      }
+      spool.remove();
+    }
+  }
+
+  // Returns whether the spans were exported.
+  private boolean exportWithDeadline(final Collection<SpanData> spanDataList) {
+    try {
       timeLimiter.callWithTimeout(
           new Callable<Void>() {
             @Override
@@ -93,15 +166,15 @@ public abstract class TimeLimitedHandler extends SpanExporter.Handler {
           },
           deadline.toMillis(),
           TimeUnit.MILLISECONDS);
+      return true;
     } catch (TimeoutException e) {
       handleException(e, "Timeout when exporting traces: " + e);
     } catch (InterruptedException e) {
       handleException(e, "Interrupted when exporting traces: " + e);
     } catch (Exception e) {
       handleException(e, "Failed to export traces: " + e);
-    } finally {
-      exportScope.close();
     }
+    return false;
   }
 
   @MustBeClosed
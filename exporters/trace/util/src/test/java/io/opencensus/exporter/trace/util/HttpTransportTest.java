@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.opencensus.common.Duration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link HttpTransport}. */
+@RunWith(JUnit4.class)
+public class HttpTransportTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final HttpTransport.BodyWriter BODY =
+      new HttpTransport.BodyWriter() {
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+          outputStream.write("{\"hello\":\"world\"}".getBytes(UTF_8));
+        }
+      };
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private final List<String> requestBodies = new CopyOnWriteArrayList<String>();
+  private final List<String> contentEncodings = new CopyOnWriteArrayList<String>();
+  private final List<String> headers = new CopyOnWriteArrayList<String>();
+  // The status codes of the next responses. 200 once the queue is empty.
+  private final ConcurrentLinkedQueue<Integer> responseCodes = new ConcurrentLinkedQueue<Integer>();
+  // Whether the server answers 415 to gzip compressed requests, like backends that don't accept
+  // them.
+  private volatile boolean rejectGzip;
+  private HttpServer server;
+  private URL url;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        new HttpHandler() {
+          @Override
+          public void handle(HttpExchange exchange) throws IOException {
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            contentEncodings.add(contentEncoding == null ? "" : contentEncoding);
+            String header = exchange.getRequestHeaders().getFirst("X-Test");
+            headers.add(header == null ? "" : header);
+            InputStream body = exchange.getRequestBody();
+            if ("gzip".equals(contentEncoding)) {
+              body = new GZIPInputStream(body);
+            }
+            requestBodies.add(new String(ByteStreams.toByteArray(body), UTF_8));
+            Integer responseCode = responseCodes.poll();
+            if (rejectGzip && "gzip".equals(contentEncoding)) {
+              responseCode = 415;
+            }
+            byte[] response = "ok".getBytes(UTF_8);
+            exchange.sendResponseHeaders(
+                responseCode == null ? 200 : responseCode, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+          }
+        });
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/path");
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void defaultOptions() {
+    HttpTransport.Options options = HttpTransport.Options.builder(url).build();
+    assertThat(options.getUrl()).isEqualTo(url);
+    assertThat(options.getContentType()).isEqualTo("application/json");
+    assertThat(options.getHeaders()).isEmpty();
+    assertThat(options.getGzip()).isFalse();
+    assertThat(options.getMaxInFlightRequests())
+        .isEqualTo(HttpTransport.Options.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    assertThat(options.getMaxRetries()).isEqualTo(HttpTransport.Options.DEFAULT_MAX_RETRIES);
+    assertThat(options.getInitialBackoff())
+        .isEqualTo(HttpTransport.Options.DEFAULT_INITIAL_BACKOFF);
+    assertThat(options.getConnectTimeout())
+        .isEqualTo(HttpTransport.Options.DEFAULT_CONNECT_TIMEOUT);
+    assertThat(options.getReadTimeout()).isEqualTo(HttpTransport.Options.DEFAULT_READ_TIMEOUT);
+  }
+
+  @Test
+  public void send_GzipCompressed() throws Exception {
+    HttpTransport transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(url)
+                .setHeaders(Collections.singletonMap("X-Test", "value"))
+                .setGzip(true)
+                .build());
+    assertThat(transport.send(BODY)).isEqualTo("ok");
+    assertThat(transport.send(BODY)).isEqualTo("ok");
+    assertThat(requestBodies).containsExactly("{\"hello\":\"world\"}", "{\"hello\":\"world\"}");
+    assertThat(contentEncodings).containsExactly("gzip", "gzip");
+    assertThat(headers).containsExactly("value", "value");
+  }
+
+  @Test
+  public void send_UncompressedByDefault() throws Exception {
+    rejectGzip = true;
+    HttpTransport transport = HttpTransport.create(HttpTransport.Options.builder(url).build());
+    assertThat(transport.send(BODY)).isEqualTo("ok");
+    assertThat(requestBodies).containsExactly("{\"hello\":\"world\"}");
+    assertThat(contentEncodings).containsExactly("");
+  }
+
+  @Test
+  public void send_GzipRejected() throws Exception {
+    rejectGzip = true;
+    HttpTransport transport =
+        HttpTransport.create(HttpTransport.Options.builder(url).setGzip(true).build());
+    thrown.expect(IOException.class);
+    transport.send(BODY);
+  }
+
+  @Test
+  public void send_RetriesServerErrors() throws Exception {
+    responseCodes.add(503);
+    responseCodes.add(429);
+    HttpTransport transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(url).setInitialBackoff(Duration.fromMillis(1)).build());
+    assertThat(transport.send(BODY)).isEqualTo("ok");
+    assertThat(requestBodies).hasSize(3);
+  }
+
+  @Test
+  public void send_FailsAfterMaxRetries() throws Exception {
+    responseCodes.add(500);
+    responseCodes.add(500);
+    HttpTransport transport =
+        HttpTransport.create(
+            HttpTransport.Options.builder(url)
+                .setMaxRetries(1)
+                .setInitialBackoff(Duration.fromMillis(1))
+                .build());
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Response 500");
+    try {
+      transport.send(BODY);
+    } finally {
+      assertThat(requestBodies).hasSize(2);
+    }
+  }
+
+  @Test
+  public void send_DoesNotRetryClientErrors() throws Exception {
+    responseCodes.add(400);
+    HttpTransport transport = HttpTransport.create(HttpTransport.Options.builder(url).build());
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Response 400");
+    try {
+      transport.send(BODY);
+    } finally {
+      assertThat(requestBodies).hasSize(1);
+    }
+  }
+
+  @Test
+  public void send_TimesOutWhenBackendDoesNotRespond() throws Exception {
+    // Accepts connections in its backlog, but never reads or responds.
+    ServerSocket hangingServer = new ServerSocket(0);
+    try {
+      HttpTransport transport =
+          HttpTransport.create(
+              HttpTransport.Options.builder(
+                      new URL("http://localhost:" + hangingServer.getLocalPort() + "/path"))
+                  .setMaxRetries(0)
+                  .setReadTimeout(Duration.fromMillis(100))
+                  .build());
+      thrown.expect(IOException.class);
+      thrown.expectMessage("Failed to send request");
+      transport.send(BODY);
+    } finally {
+      hangingServer.close();
+    }
+  }
+
+  @Test
+  public void preventNegativeReadTimeout() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("readTimeout must not be negative.");
+    HttpTransport.Options.builder(url).setReadTimeout(Duration.fromMillis(-1)).build();
+  }
+
+  @Test
+  public void preventZeroMaxInFlightRequests() {
+    thrown.expect(IllegalArgumentException.class);
+    HttpTransport.Options.builder(url).setMaxInFlightRequests(0).build();
+  }
+}
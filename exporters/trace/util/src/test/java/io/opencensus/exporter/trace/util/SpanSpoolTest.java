@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.FakeTicker;
+import io.opencensus.common.Duration;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracestate;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SpanSpool}. */
+@RunWith(JUnit4.class)
+public class SpanSpoolTest {
+
+  private static final SpanContext SPAN_CONTEXT =
+      SpanContext.create(
+          TraceId.fromLowerBase16("4bf92f3577b34da6a3ce929d0e0e4736"),
+          SpanId.fromLowerBase16("24aa0b2d371f48c9"),
+          TraceOptions.builder().setIsSampled(true).build(),
+          Tracestate.builder().set("key_1", "value.1").set("key_2", "value.2").build());
+  private static final SpanId PARENT_SPAN_ID = SpanId.fromLowerBase16("71da8d631536f5f1");
+  private static final int SEGMENT_BYTES = 4096;
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void codec_RoundTrip() throws IOException {
+    SpanData spanData =
+        SpanData.create(
+            SPAN_CONTEXT,
+            PARENT_SPAN_ID,
+            /* hasRemoteParent= */ true,
+            "MySpanName",
+            Kind.SERVER,
+            Timestamp.create(123, 456),
+            SpanData.Attributes.create(
+                ImmutableMap.of(
+                    "long", AttributeValue.longAttributeValue(-10L),
+                    "bool", AttributeValue.booleanAttributeValue(false),
+                    "double", AttributeValue.doubleAttributeValue(1.5),
+                    "string", AttributeValue.stringAttributeValue("\u00e9t\u00e9")),
+                1),
+            TimedEvents.create(
+                ImmutableList.of(
+                    TimedEvent.create(
+                        Timestamp.create(123, 457),
+                        Annotation.fromDescriptionAndAttributes(
+                            "MyAnnotationText",
+                            ImmutableMap.of("key", AttributeValue.longAttributeValue(1L))))),
+                2),
+            TimedEvents.create(
+                ImmutableList.of(
+                    TimedEvent.create(
+                        Timestamp.create(123, 458),
+                        MessageEvent.builder(MessageEvent.Type.SENT, 300)
+                            .setCompressedMessageSize(69)
+                            .setUncompressedMessageSize(96)
+                            .build())),
+                3),
+            SpanData.Links.create(
+                ImmutableList.of(
+                    Link.fromSpanContext(
+                        SPAN_CONTEXT,
+                        Link.Type.PARENT_LINKED_SPAN,
+                        ImmutableMap.of("key", AttributeValue.booleanAttributeValue(true)))),
+                4),
+            13,
+            Status.DEADLINE_EXCEEDED.withDescription("TooSlow"),
+            Timestamp.create(123, 460));
+    SpanData nullableFields =
+        SpanData.create(
+            SPAN_CONTEXT,
+            null,
+            null,
+            "",
+            null,
+            Timestamp.create(0, 0),
+            SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0),
+            TimedEvents.create(Collections.<TimedEvent<Annotation>>emptyList(), 0),
+            TimedEvents.create(Collections.<TimedEvent<MessageEvent>>emptyList(), 0),
+            SpanData.Links.create(Collections.<Link>emptyList(), 0),
+            null,
+            null,
+            null);
+
+    List<SpanData> spans = ImmutableList.of(spanData, nullableFields);
+    assertThat(SpanDataCodec.decode(SpanDataCodec.encode(spans))).isEqualTo(spans);
+  }
+
+  @Test(expected = IOException.class)
+  public void codec_RejectsUnknownVersion() throws IOException {
+    SpanDataCodec.decode(new byte[] {(byte) 0xff, 0, 0, 0, 0});
+  }
+
+  @Test
+  public void offerPeekAndRemove() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 4);
+    assertThat(spool.peek()).isNull();
+    List<SpanData> first = Collections.singletonList(createSpanData("first"));
+    List<SpanData> second = Collections.singletonList(createSpanData("second"));
+    assertThat(spool.offer(first)).isTrue();
+    assertThat(spool.offer(second)).isTrue();
+    assertThat(spool.getBatchCount()).isEqualTo(2);
+
+    // A batch stays spooled until it is removed.
+    assertThat(spool.peek()).isEqualTo(first);
+    assertThat(spool.peek()).isEqualTo(first);
+    spool.remove();
+    assertThat(spool.peek()).isEqualTo(second);
+    spool.remove();
+    assertThat(spool.peek()).isNull();
+    assertThat(spool.getBatchCount()).isEqualTo(0);
+    assertThat(spool.getDroppedBatches()).isEqualTo(0);
+  }
+
+  @Test
+  public void offer_DropsBatchLargerThanSegment() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 4);
+    List<SpanData> batch = new ArrayList<SpanData>();
+    for (int i = 0; i < 100; i++) {
+      batch.add(createSpanData("span" + i));
+    }
+    assertThat(spool.offer(batch)).isFalse();
+    assertThat(spool.getBatchCount()).isEqualTo(0);
+    assertThat(spool.getDroppedBatches()).isEqualTo(1);
+  }
+
+  @Test
+  public void reopen_RecoversBatches() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 4);
+    List<SpanData> first = Collections.singletonList(createSpanData("first"));
+    List<SpanData> second = Collections.singletonList(createSpanData("second"));
+    spool.offer(first);
+    spool.offer(second);
+    spool.peek();
+    spool.remove();
+    spool.close();
+
+    SpanSpool reopened = createSpool(SEGMENT_BYTES * 4);
+    assertThat(reopened.getBatchCount()).isEqualTo(1);
+    assertThat(reopened.peek()).isEqualTo(second);
+  }
+
+  @Test
+  public void reopen_SkipsTornBatch() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 4);
+    List<SpanData> first = Collections.singletonList(createSpanData("first"));
+    List<SpanData> second = Collections.singletonList(createSpanData("second"));
+    spool.offer(first);
+    spool.offer(second);
+    spool.close();
+
+    // Corrupts the last byte of the second batch, like a crash in the middle of its write.
+    File segment = tempFolder.getRoot().listFiles()[0];
+    int firstSize = SegmentLog.RECORD_HEADER_BYTES + SpanDataCodec.encode(first).length;
+    int secondSize = SegmentLog.RECORD_HEADER_BYTES + SpanDataCodec.encode(second).length;
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.seek(firstSize + secondSize - 1);
+      int lastByte = file.read();
+      file.seek(firstSize + secondSize - 1);
+      file.write(lastByte ^ 0xff);
+    } finally {
+      file.close();
+    }
+
+    SpanSpool reopened = createSpool(SEGMENT_BYTES * 4);
+    assertThat(reopened.getBatchCount()).isEqualTo(1);
+    assertThat(reopened.peek()).isEqualTo(first);
+  }
+
+  @Test
+  public void offer_DropsOldestSegmentsOverMaxBytes() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 2);
+    int offered = 0;
+    while (spool.getDroppedBatches() == 0) {
+      spool.offer(Collections.singletonList(createSpanData("span" + offered)));
+      offered++;
+    }
+    assertThat(tempFolder.getRoot().listFiles()).hasLength(2);
+    assertThat(spool.getBatchCount() + spool.getDroppedBatches()).isEqualTo(offered);
+    // The oldest batches were dropped.
+    assertThat(spool.peek().get(0).getName()).isNotEqualTo("span0");
+  }
+
+  @Test
+  public void peek_DropsExpiredRecords() throws IOException {
+    SegmentLog log = SegmentLog.open(tempFolder.getRoot(), SEGMENT_BYTES, SEGMENT_BYTES * 4, 1000);
+    assertThat(log.append(new byte[] {1}, 0)).isTrue();
+    assertThat(log.append(new byte[] {2}, 500)).isTrue();
+    assertThat(log.peek(1200)).isEqualTo(new byte[] {2});
+    assertThat(log.getDroppedRecords()).isEqualTo(1);
+    assertThat(log.peek(2000)).isNull();
+    assertThat(log.getDroppedRecords()).isEqualTo(2);
+    assertThat(log.getRecordCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquireReplayPermits_LimitsReplayRate() throws IOException {
+    SpanSpool spool = createSpool(SEGMENT_BYTES * 4);
+    long now = System.nanoTime();
+    spool.acquireReplayPermits(now);
+    assertThat(spool.acquireReplayPermits(now)).isEqualTo(0);
+    assertThat(spool.acquireReplayPermits(now + TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(1);
+    // Unused permits accumulate up to one second of replays.
+    now += TimeUnit.SECONDS.toNanos(10);
+    assertThat(spool.acquireReplayPermits(now))
+        .isEqualTo(SpanSpool.Options.DEFAULT_REPLAY_BATCHES_PER_SECOND);
+    assertThat(spool.acquireReplayPermits(now + TimeUnit.MILLISECONDS.toNanos(50))).isEqualTo(0);
+  }
+
+  @Test
+  public void handler_SpoolsFailedExportsAndReplaysThem() throws IOException {
+    FakeTicker ticker = new FakeTicker();
+    SpanSpool spool =
+        SpanSpool.create(
+            SpanSpool.Options.builder(tempFolder.getRoot())
+                .setSegmentBytes(SEGMENT_BYTES)
+                .setMaxBytes(SEGMENT_BYTES * 4)
+                .setReplayBatchesPerSecond(100)
+                .build(),
+            ticker);
+    FakeHandler handler = new FakeHandler(spool);
+    List<SpanData> first = Collections.singletonList(createSpanData("first"));
+    List<SpanData> second = Collections.singletonList(createSpanData("second"));
+    List<SpanData> third = Collections.singletonList(createSpanData("third"));
+
+    handler.failing = true;
+    handler.export(first);
+    handler.export(second);
+    assertThat(handler.exported).isEmpty();
+    assertThat(spool.getBatchCount()).isEqualTo(2);
+
+    // Only one replay permit is available after 15 milliseconds.
+    ticker.advance(15, TimeUnit.MILLISECONDS);
+    handler.failing = false;
+    handler.export(third);
+    assertThat(handler.exported).containsExactly(third, first).inOrder();
+    assertThat(spool.getBatchCount()).isEqualTo(1);
+
+    ticker.advance(10, TimeUnit.MILLISECONDS);
+    handler.export(third);
+    assertThat(handler.exported).containsExactly(third, first, third, second).inOrder();
+    assertThat(spool.getBatchCount()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void options_DisallowMaxBytesSmallerThanSegmentBytes() {
+    SpanSpool.Options.builder(tempFolder.getRoot())
+        .setSegmentBytes(SEGMENT_BYTES)
+        .setMaxBytes(SEGMENT_BYTES - 1)
+        .build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void options_DisallowNonPositiveReplayRate() {
+    SpanSpool.Options.builder(tempFolder.getRoot()).setReplayBatchesPerSecond(0).build();
+  }
+
+  private SpanSpool createSpool(long maxBytes) throws IOException {
+    return SpanSpool.create(
+        SpanSpool.Options.builder(tempFolder.getRoot())
+            .setSegmentBytes(SEGMENT_BYTES)
+            .setMaxBytes(maxBytes)
+            .build());
+  }
+
+  private static SpanData createSpanData(String name) {
+    return SpanData.create(
+        SPAN_CONTEXT,
+        PARENT_SPAN_ID,
+        /* hasRemoteParent= */ false,
+        name,
+        Kind.CLIENT,
+        Timestamp.create(123, 456),
+        SpanData.Attributes.create(
+            ImmutableMap.of("http.path", AttributeValue.stringAttributeValue("/users/" + name)), 0),
+        TimedEvents.create(Collections.<TimedEvent<Annotation>>emptyList(), 0),
+        TimedEvents.create(Collections.<TimedEvent<MessageEvent>>emptyList(), 0),
+        SpanData.Links.create(Collections.<Link>emptyList(), 0),
+        0,
+        Status.OK,
+        Timestamp.create(124, 0));
+  }
+
+  private static final class FakeHandler extends TimeLimitedHandler {
+    private final List<List<SpanData>> exported = new ArrayList<List<SpanData>>();
+    private volatile boolean failing;
+
+    FakeHandler(SpanSpool spool) {
+      super(Duration.create(10, 0), "ExportFakeSpans", spool);
+    }
+
+    @Override
+    public void timeLimitedExport(Collection<SpanData> spanDataList) throws IOException {
+      if (failing) {
+        throw new IOException("Backend unavailable.");
+      }
+      synchronized (exported) {
+        exported.add(new ArrayList<SpanData>(spanDataList));
+      }
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import zipkin2.codec.SpanBytesEncoder;
@@ -35,6 +36,7 @@ import zipkin2.reporter.Sender;
 public abstract class ZipkinExporterConfiguration {
 
   @VisibleForTesting static final Duration DEFAULT_DEADLINE = Duration.create(10, 0);
+  @VisibleForTesting static final int DEFAULT_MAX_CONCURRENT_SENDS = 1;
 
   ZipkinExporterConfiguration() {}
 
@@ -83,6 +85,31 @@ public abstract class ZipkinExporterConfiguration {
    */
   public abstract Duration getDeadline();
 
+  /**
+   * Returns the maximum number of messages sent to Zipkin at the same time.
+   *
+   * <p>Default value is 1: each export sends its messages one after the other, and fails if a send
+   * fails. With more than one concurrent send, messages are sent by background threads and an
+   * export only waits for a free sender thread, so failed sends are logged but not retried.
+   *
+   * @return the maximum number of concurrent sends.
+   * @since 0.24
+   */
+  public abstract int getMaxConcurrentSends();
+
+  /**
+   * Returns the {@link SpanSpool} that keeps the spans which failed to export, until they can be
+   * replayed to Zipkin.
+   *
+   * <p>Default value is {@code null}, the spans which failed to export are dropped. A spool can
+   * only be used with one concurrent send, as asynchronous sends do not fail the export.
+   *
+   * @return the {@code SpanSpool}.
+   * @since 0.24
+   */
+  @Nullable
+  public abstract SpanSpool getSpool();
+
   /**
    * Returns a new {@link Builder}.
    *
@@ -93,7 +120,8 @@ public abstract class ZipkinExporterConfiguration {
     return new AutoValue_ZipkinExporterConfiguration.Builder()
         .setV2Url("")
         .setEncoder(SpanBytesEncoder.JSON_V2)
-        .setDeadline(DEFAULT_DEADLINE);
+        .setDeadline(DEFAULT_DEADLINE)
+        .setMaxConcurrentSends(DEFAULT_MAX_CONCURRENT_SENDS);
   }
 
   /**
@@ -159,13 +187,36 @@ public abstract class ZipkinExporterConfiguration {
      */
     public abstract Builder setDeadline(Duration deadline);
 
+    /**
+     * Sets the maximum number of messages sent to Zipkin at the same time.
+     *
+     * @param maxConcurrentSends the maximum number of concurrent sends.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setMaxConcurrentSends(int maxConcurrentSends);
+
+    /**
+     * Sets the {@link SpanSpool} that keeps the spans which failed to export.
+     *
+     * @param spool the {@code SpanSpool}.
+     * @return this
+     * @since 0.24
+     */
+    public abstract Builder setSpool(SpanSpool spool);
+
     abstract Duration getDeadline();
 
+    abstract int getMaxConcurrentSends();
+
     abstract String getV2Url();
 
     @Nullable
     abstract Sender getSender();
 
+    @Nullable
+    abstract SpanSpool getSpool();
+
     abstract ZipkinExporterConfiguration autoBuild();
 
     /**
@@ -176,6 +227,11 @@ public abstract class ZipkinExporterConfiguration {
      */
     public ZipkinExporterConfiguration build() {
       Preconditions.checkArgument(getDeadline().compareTo(ZERO) > 0, "Deadline must be positive.");
+      Preconditions.checkArgument(
+          getMaxConcurrentSends() > 0, "Max concurrent sends must be positive.");
+      Preconditions.checkArgument(
+          getSpool() == null || getMaxConcurrentSends() == 1,
+          "Spool cannot be used with concurrent sends.");
       Preconditions.checkArgument(
           !getV2Url().isEmpty() || getSender() != null,
           "Neither Zipkin V2 URL nor Zipkin sender is specified.");
@@ -20,10 +20,12 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Function;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
+import io.opencensus.exporter.trace.util.SpanSpool;
 import io.opencensus.exporter.trace.util.TimeLimitedHandler;
 import io.opencensus.trace.Annotation;
 import io.opencensus.trace.AttributeValue;
@@ -40,10 +42,16 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import zipkin2.Endpoint;
 import zipkin2.Span;
+import zipkin2.codec.Encoding;
 import zipkin2.codec.SpanBytesEncoder;
 import zipkin2.reporter.Sender;
 
@@ -64,13 +72,50 @@ final class ZipkinExporterHandler extends TimeLimitedHandler {
   private final SpanBytesEncoder encoder;
   private final Sender sender;
   private final Endpoint localEndpoint;
+  // Whether spans are encoded by a ZipkinSpanEncoder, instead of being converted to zipkin2.Span.
+  private final boolean encodeDirectly;
+  // Span encoders re-used from one export to the next. An export that timed out may still be
+  // running when the next one starts, so each export takes its own encoder.
+  private final ConcurrentLinkedQueue<ZipkinSpanEncoder> spanEncoders =
+      new ConcurrentLinkedQueue<ZipkinSpanEncoder>();
+  // The executor and permits of asynchronous sends, or null if messages are sent by the export.
+  @javax.annotation.Nullable private final ExecutorService sendExecutor;
+  @javax.annotation.Nullable private final Semaphore sendPermits;
 
   ZipkinExporterHandler(
       SpanBytesEncoder encoder, Sender sender, String serviceName, Duration deadline) {
-    super(deadline, EXPORT_SPAN_NAME);
+    this(encoder, sender, serviceName, deadline, 1, null);
+  }
+
+  ZipkinExporterHandler(
+      SpanBytesEncoder encoder,
+      Sender sender,
+      String serviceName,
+      Duration deadline,
+      int maxConcurrentSends,
+      @javax.annotation.Nullable SpanSpool spool) {
+    super(deadline, EXPORT_SPAN_NAME, spool);
     this.encoder = encoder;
     this.sender = sender;
     this.localEndpoint = produceLocalEndpoint(serviceName);
+    ZipkinSpanEncoder spanEncoder = ZipkinSpanEncoder.create(encoder, localEndpoint);
+    this.encodeDirectly = spanEncoder != null;
+    if (spanEncoder != null) {
+      spanEncoders.offer(spanEncoder);
+    }
+    if (maxConcurrentSends > 1) {
+      sendExecutor =
+          Executors.newFixedThreadPool(
+              maxConcurrentSends,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("OpenCensus.ZipkinExporter-%d")
+                  .build());
+      sendPermits = new Semaphore(maxConcurrentSends);
+    } else {
+      sendExecutor = null;
+      sendPermits = null;
+    }
   }
 
   /** Logic borrowed from brave.internal.Platform.produceLocalEndpoint */
@@ -156,7 +201,7 @@ final class ZipkinExporterHandler extends TimeLimitedHandler {
   }
 
   @javax.annotation.Nullable
-  private static Span.Kind toSpanKind(SpanData spanData) {
+  static Span.Kind toSpanKind(SpanData spanData) {
     // This is a hack because the Span API did not have SpanKind.
     if (spanData.getKind() == Kind.SERVER
         || (spanData.getKind() == null && Boolean.TRUE.equals(spanData.getHasRemoteParent()))) {
@@ -171,7 +216,7 @@ final class ZipkinExporterHandler extends TimeLimitedHandler {
     return null;
   }
 
-  private static long toEpochMicros(Timestamp timestamp) {
+  static long toEpochMicros(Timestamp timestamp) {
     return SECONDS.toMicros(timestamp.getSeconds()) + NANOSECONDS.toMicros(timestamp.getNanos());
   }
 
@@ -182,7 +227,7 @@ final class ZipkinExporterHandler extends TimeLimitedHandler {
 
   // TODO: Fix the Checker Framework warning.
   @SuppressWarnings("nullness")
-  private static String attributeValueToString(AttributeValue attributeValue) {
+  static String attributeValueToString(AttributeValue attributeValue) {
     return attributeValue.match(
         returnToString,
         returnToString,
@@ -191,12 +236,98 @@ final class ZipkinExporterHandler extends TimeLimitedHandler {
         Functions.<String>returnConstant(""));
   }
 
+  /**
+   * Sends the spans in as few messages as {@link Sender#messageMaxBytes()} allows. A span that does
+   * not fit in a message on its own is dropped.
+   *
+   * <p>With asynchronous sends, this returns once the last message is handed to a sender thread,
+   * and failed sends are only logged.
+   */
   @Override
-  public void timeLimitedExport(final Collection<SpanData> spanDataList) throws IOException {
-    List<byte[]> encodedSpans = new ArrayList<byte[]>(spanDataList.size());
-    for (SpanData spanData : spanDataList) {
-      encodedSpans.add(encoder.encode(generateSpan(spanData, localEndpoint)));
+  public void timeLimitedExport(final Collection<SpanData> spanDataList)
+      throws IOException, InterruptedException {
+    ZipkinSpanEncoder spanEncoder = encodeDirectly ? pollSpanEncoder() : null;
+    try {
+      int messageMaxBytes = sender.messageMaxBytes();
+      int separatorSize = sender.encoding() == Encoding.JSON ? 1 : 0;
+      List<byte[]> message = new ArrayList<byte[]>(spanDataList.size());
+      int messageSize = 0;
+      for (SpanData spanData : spanDataList) {
+        byte[] encodedSpan =
+            spanEncoder != null
+                ? spanEncoder.encode(spanData)
+                : encoder.encode(generateSpan(spanData, localEndpoint));
+        int singleSpanMessageSize = sender.messageSizeInBytes(encodedSpan.length);
+        if (singleSpanMessageSize > messageMaxBytes) {
+          logger.log(
+              Level.WARNING,
+              "Dropping span "
+                  + spanData.getName()
+                  + " of "
+                  + encodedSpan.length
+                  + " bytes, which is larger than the messages of the Zipkin sender.");
+          continue;
+        }
+        if (!message.isEmpty()
+            && messageSize + separatorSize + encodedSpan.length > messageMaxBytes) {
+          send(message);
+          message = new ArrayList<byte[]>();
+        }
+        messageSize =
+            message.isEmpty()
+                ? singleSpanMessageSize
+                : messageSize + separatorSize + encodedSpan.length;
+        message.add(encodedSpan);
+      }
+      if (!message.isEmpty()) {
+        send(message);
+      }
+    } finally {
+      if (spanEncoder != null) {
+        spanEncoders.offer(spanEncoder);
+      }
+    }
+  }
+
+  private ZipkinSpanEncoder pollSpanEncoder() {
+    ZipkinSpanEncoder spanEncoder = spanEncoders.poll();
+    if (spanEncoder == null) {
+      spanEncoder = ZipkinSpanEncoder.create(encoder, localEndpoint);
+    }
+    return spanEncoder;
+  }
+
+  private void send(final List<byte[]> message) throws IOException, InterruptedException {
+    if (sendExecutor == null || sendPermits == null) {
+      sender.sendSpans(message).execute();
+      return;
+    }
+    final Semaphore permits = sendPermits;
+    permits.acquire();
+    try {
+      sendExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                sender.sendSpans(message).execute();
+              } catch (Exception e) {
+                logger.log(Level.WARNING, "Failed to send spans to Zipkin: " + e);
+              } finally {
+                permits.release();
+              }
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /** Stops the sender threads once the messages already handed to them are sent. */
+  void shutdown() {
+    if (sendExecutor != null) {
+      sendExecutor.shutdown();
     }
-    sender.sendSpans(encodedSpans).execute();
   }
 }
@@ -0,0 +1,671 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.zipkin;
+
+import static io.opencensus.exporter.trace.zipkin.ZipkinExporterHandler.STATUS_CODE;
+import static io.opencensus.exporter.trace.zipkin.ZipkinExporterHandler.STATUS_DESCRIPTION;
+import static io.opencensus.exporter.trace.zipkin.ZipkinExporterHandler.STATUS_ERROR;
+
+import com.google.common.base.Charsets;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import zipkin2.Endpoint;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesEncoder;
+
+/**
+ * Encodes {@link SpanData} directly in the Zipkin JSON v2 or proto3 formats, without building a
+ * {@link Span} first. The bytes are the same as {@link SpanBytesEncoder#JSON_V2} or {@link
+ * SpanBytesEncoder#PROTO3} would write for the span built by {@link
+ * ZipkinExporterHandler#generateSpan(SpanData, Endpoint)}: names are lower-cased, annotations are
+ * sorted without duplicates, tags are sorted by key and empty fields are omitted.
+ *
+ * <p>Spans are written into a buffer re-used from one span to the next, then copied into an array
+ * of the exact size.
+ */
+@NotThreadSafe
+abstract class ZipkinSpanEncoder {
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes(Charsets.US_ASCII);
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+  int position;
+
+  private final byte[] idBytes = new byte[TraceId.SIZE];
+  // Tags sorted by key, re-used from one span to the next.
+  private final TreeMap<String, String> tags = new TreeMap<String, String>();
+  // Annotations of the span, sorted by timestamp then value without duplicates.
+  private long[] annotationTimestamps = new long[8];
+  private String[] annotationValues = new String[8];
+  int annotationCount;
+
+  /**
+   * Returns an encoder for the given {@code SpanBytesEncoder}, or {@code null} if the format is
+   * neither JSON v2 nor proto3.
+   */
+  @Nullable
+  static ZipkinSpanEncoder create(SpanBytesEncoder encoder, Endpoint localEndpoint) {
+    if (encoder == SpanBytesEncoder.JSON_V2) {
+      return new JsonV2(localEndpoint);
+    }
+    if (encoder == SpanBytesEncoder.PROTO3) {
+      return new Proto3(localEndpoint);
+    }
+    return null;
+  }
+
+  /** Returns the encoded span. */
+  final byte[] encode(SpanData spanData) {
+    position = 0;
+    prepareAnnotations(spanData);
+    prepareTags(spanData);
+    writeSpan(spanData);
+    tags.clear();
+    Arrays.fill(annotationValues, 0, annotationCount, null);
+    return Arrays.copyOf(buffer, position);
+  }
+
+  abstract void writeSpan(SpanData spanData);
+
+  // Returns the lower case name, or null if it is empty like zipkin2.Span does.
+  @Nullable
+  static String toName(SpanData spanData) {
+    String name = spanData.getName();
+    return name.isEmpty() ? null : name.toLowerCase(Locale.ROOT);
+  }
+
+  // Copies the trace id to idBytes() and returns the offset of the bytes to write: zipkin2 shortens
+  // the trace id to 8 bytes if its first 8 bytes are zero.
+  final int copyTraceId(TraceId traceId) {
+    traceId.copyBytesTo(idBytes, 0);
+    for (int i = 0; i < TraceId.SIZE / 2; i++) {
+      if (idBytes[i] != 0) {
+        return 0;
+      }
+    }
+    return TraceId.SIZE / 2;
+  }
+
+  final byte[] idBytes() {
+    return idBytes;
+  }
+
+  final byte[] copySpanId(SpanId spanId) {
+    spanId.copyBytesTo(idBytes, 0);
+    return idBytes;
+  }
+
+  static long getDurationMicros(SpanData spanData) {
+    Timestamp end = spanData.getEndTimestamp();
+    return end == null
+        ? 0
+        : ZipkinExporterHandler.toEpochMicros(end)
+            - ZipkinExporterHandler.toEpochMicros(spanData.getStartTimestamp());
+  }
+
+  final TreeMap<String, String> tags() {
+    return tags;
+  }
+
+  final long annotationTimestamp(int index) {
+    return annotationTimestamps[index];
+  }
+
+  final String annotationValue(int index) {
+    return annotationValues[index];
+  }
+
+  private void prepareTags(SpanData spanData) {
+    for (Map.Entry<String, AttributeValue> label :
+        spanData.getAttributes().getAttributeMap().entrySet()) {
+      tags.put(label.getKey(), ZipkinExporterHandler.attributeValueToString(label.getValue()));
+    }
+    Status status = spanData.getStatus();
+    if (status != null) {
+      tags.put(STATUS_CODE, status.getCanonicalCode().toString());
+      String description = status.getDescription();
+      if (description != null) {
+        tags.put(STATUS_DESCRIPTION, description);
+      }
+      if (!status.isOk()) {
+        tags.put(STATUS_ERROR, status.getCanonicalCode().toString());
+      }
+    }
+  }
+
+  private void prepareAnnotations(SpanData spanData) {
+    annotationCount = 0;
+    for (TimedEvent<Annotation> annotation : spanData.getAnnotations().getEvents()) {
+      addAnnotation(
+          ZipkinExporterHandler.toEpochMicros(annotation.getTimestamp()),
+          annotation.getEvent().getDescription());
+    }
+    for (TimedEvent<MessageEvent> messageEvent : spanData.getMessageEvents().getEvents()) {
+      addAnnotation(
+          ZipkinExporterHandler.toEpochMicros(messageEvent.getTimestamp()),
+          messageEvent.getEvent().getType().name());
+    }
+  }
+
+  // Inserts the annotation in order, events are usually recorded in order so this rarely moves
+  // more than a few annotations.
+  private void addAnnotation(long timestamp, String value) {
+    int index = annotationCount;
+    while (index > 0) {
+      int compare =
+          compareAnnotations(
+              annotationTimestamps[index - 1], annotationValues[index - 1], timestamp, value);
+      if (compare == 0) {
+        return;
+      }
+      if (compare < 0) {
+        break;
+      }
+      index--;
+    }
+    if (annotationCount == annotationTimestamps.length) {
+      annotationTimestamps = Arrays.copyOf(annotationTimestamps, annotationCount * 2);
+      annotationValues = Arrays.copyOf(annotationValues, annotationCount * 2);
+    }
+    System.arraycopy(
+        annotationTimestamps, index, annotationTimestamps, index + 1, annotationCount - index);
+    System.arraycopy(annotationValues, index, annotationValues, index + 1, annotationCount - index);
+    annotationTimestamps[index] = timestamp;
+    annotationValues[index] = value;
+    annotationCount++;
+  }
+
+  private static int compareAnnotations(
+      long timestamp1, String value1, long timestamp2, String value2) {
+    if (timestamp1 != timestamp2) {
+      return timestamp1 < timestamp2 ? -1 : 1;
+    }
+    return value1.compareTo(value2);
+  }
+
+  final void ensureCapacity(int length) {
+    if (position + length > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+    }
+  }
+
+  final void writeByte(int b) {
+    ensureCapacity(1);
+    buffer[position++] = (byte) b;
+  }
+
+  final void writeBytes(byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  final void writeHex(byte[] bytes, int offset, int length) {
+    ensureCapacity(2 * length);
+    for (int i = offset; i < offset + length; i++) {
+      buffer[position++] = HEX[(bytes[i] >> 4) & 0xf];
+      buffer[position++] = HEX[bytes[i] & 0xf];
+    }
+  }
+
+  // Writes the string in UTF-8, with '?' in place of malformed surrogate pairs like zipkin2 does.
+  final void writeUtf8(String string) {
+    ensureCapacity(3 * string.length());
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else {
+        i = writeUtf8NonAscii(string, i, c);
+      }
+    }
+  }
+
+  // Writes the character at index i, and returns the index of its last char.
+  final int writeUtf8NonAscii(String string, int i, char c) {
+    if (c < 0x800) {
+      buffer[position++] = (byte) (0xc0 | (c >> 6));
+      buffer[position++] = (byte) (0x80 | (c & 0x3f));
+    } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+      buffer[position++] = (byte) (0xe0 | (c >> 12));
+      buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+      buffer[position++] = (byte) (0x80 | (c & 0x3f));
+    } else if (Character.isHighSurrogate(c)
+        && i + 1 < string.length()
+        && Character.isLowSurrogate(string.charAt(i + 1))) {
+      int codePoint = Character.toCodePoint(c, string.charAt(i + 1));
+      buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+      return i + 1;
+    } else {
+      buffer[position++] = '?';
+    }
+    return i;
+  }
+
+  /** Encodes spans like {@link SpanBytesEncoder#JSON_V2}. */
+  static final class JsonV2 extends ZipkinSpanEncoder {
+    private static final byte[] TRACE_ID = asciiBytes("{\"traceId\":\"");
+    private static final byte[] PARENT_ID = asciiBytes("\",\"parentId\":\"");
+    private static final byte[] ID = asciiBytes("\",\"id\":\"");
+    private static final byte[] KIND_CLIENT = asciiBytes(",\"kind\":\"CLIENT\"");
+    private static final byte[] KIND_SERVER = asciiBytes(",\"kind\":\"SERVER\"");
+    private static final byte[] NAME = asciiBytes(",\"name\":\"");
+    private static final byte[] TIMESTAMP = asciiBytes(",\"timestamp\":");
+    private static final byte[] DURATION = asciiBytes(",\"duration\":");
+    private static final byte[] LOCAL_ENDPOINT = asciiBytes(",\"localEndpoint\":");
+    private static final byte[] ANNOTATIONS = asciiBytes(",\"annotations\":[");
+    private static final byte[] ANNOTATION_TIMESTAMP = asciiBytes("{\"timestamp\":");
+    private static final byte[] ANNOTATION_VALUE = asciiBytes(",\"value\":\"");
+    private static final byte[] TAGS = asciiBytes(",\"tags\":{");
+    private static final byte[] LONG_MIN_VALUE = asciiBytes(String.valueOf(Long.MIN_VALUE));
+
+    // The local endpoint, or null if all its fields are empty.
+    @Nullable private final byte[] localEndpoint;
+
+    JsonV2(Endpoint localEndpoint) {
+      this.localEndpoint = encodeEndpoint(localEndpoint);
+    }
+
+    @Nullable
+    private byte[] encodeEndpoint(Endpoint endpoint) {
+      position = 0;
+      writeByte('{');
+      String serviceName = endpoint.serviceName();
+      if (serviceName != null) {
+        writeAscii("\"serviceName\":\"");
+        writeEscaped(serviceName);
+        writeByte('"');
+      }
+      String ipv4 = endpoint.ipv4();
+      if (ipv4 != null) {
+        writeAscii(position > 1 ? ",\"ipv4\":\"" : "\"ipv4\":\"");
+        writeAscii(ipv4);
+        writeByte('"');
+      }
+      String ipv6 = endpoint.ipv6();
+      if (ipv6 != null) {
+        writeAscii(position > 1 ? ",\"ipv6\":\"" : "\"ipv6\":\"");
+        writeAscii(ipv6);
+        writeByte('"');
+      }
+      int port = endpoint.portAsInt();
+      if (port != 0) {
+        writeAscii(position > 1 ? ",\"port\":" : "\"port\":");
+        writeLong(port);
+      }
+      writeByte('}');
+      return position == 2 ? null : Arrays.copyOf(buffer, position);
+    }
+
+    @Override
+    void writeSpan(SpanData spanData) {
+      writeBytes(TRACE_ID, 0, TRACE_ID.length);
+      int traceIdOffset = copyTraceId(spanData.getContext().getTraceId());
+      writeHex(idBytes(), traceIdOffset, TraceId.SIZE - traceIdOffset);
+      SpanId parentSpanId = spanData.getParentSpanId();
+      if (parentSpanId != null && parentSpanId.isValid()) {
+        writeBytes(PARENT_ID, 0, PARENT_ID.length);
+        writeHex(copySpanId(parentSpanId), 0, SpanId.SIZE);
+      }
+      writeBytes(ID, 0, ID.length);
+      writeHex(copySpanId(spanData.getContext().getSpanId()), 0, SpanId.SIZE);
+      writeByte('"');
+      Span.Kind kind = ZipkinExporterHandler.toSpanKind(spanData);
+      if (kind == Span.Kind.CLIENT) {
+        writeBytes(KIND_CLIENT, 0, KIND_CLIENT.length);
+      } else if (kind == Span.Kind.SERVER) {
+        writeBytes(KIND_SERVER, 0, KIND_SERVER.length);
+      }
+      String name = toName(spanData);
+      if (name != null) {
+        writeBytes(NAME, 0, NAME.length);
+        writeEscaped(name);
+        writeByte('"');
+      }
+      long timestamp = ZipkinExporterHandler.toEpochMicros(spanData.getStartTimestamp());
+      if (timestamp > 0) {
+        writeBytes(TIMESTAMP, 0, TIMESTAMP.length);
+        writeLong(timestamp);
+      }
+      long duration = getDurationMicros(spanData);
+      if (duration > 0) {
+        writeBytes(DURATION, 0, DURATION.length);
+        writeLong(duration);
+      }
+      if (localEndpoint != null) {
+        writeBytes(LOCAL_ENDPOINT, 0, LOCAL_ENDPOINT.length);
+        writeBytes(localEndpoint, 0, localEndpoint.length);
+      }
+      if (annotationCount > 0) {
+        writeBytes(ANNOTATIONS, 0, ANNOTATIONS.length);
+        for (int i = 0; i < annotationCount; i++) {
+          if (i > 0) {
+            writeByte(',');
+          }
+          writeBytes(ANNOTATION_TIMESTAMP, 0, ANNOTATION_TIMESTAMP.length);
+          writeLong(annotationTimestamp(i));
+          writeBytes(ANNOTATION_VALUE, 0, ANNOTATION_VALUE.length);
+          writeEscaped(annotationValue(i));
+          writeAscii("\"}");
+        }
+        writeByte(']');
+      }
+      if (!tags().isEmpty()) {
+        writeBytes(TAGS, 0, TAGS.length);
+        boolean first = true;
+        for (Map.Entry<String, String> tag : tags().entrySet()) {
+          writeAscii(first ? "\"" : ",\"");
+          first = false;
+          writeEscaped(tag.getKey());
+          writeAscii("\":\"");
+          writeEscaped(tag.getValue());
+          writeByte('"');
+        }
+        writeByte('}');
+      }
+      writeByte('}');
+    }
+
+    private void writeAscii(String ascii) {
+      ensureCapacity(ascii.length());
+      for (int i = 0; i < ascii.length(); i++) {
+        buffer[position++] = (byte) ascii.charAt(i);
+      }
+    }
+
+    private void writeLong(long value) {
+      if (value == Long.MIN_VALUE) {
+        writeBytes(LONG_MIN_VALUE, 0, LONG_MIN_VALUE.length);
+        return;
+      }
+      ensureCapacity(20);
+      if (value < 0) {
+        buffer[position++] = '-';
+        value = -value;
+      }
+      int digits = 1;
+      for (long v = value / 10; v > 0; v /= 10) {
+        digits++;
+      }
+      for (int i = position + digits - 1; i >= position; i--) {
+        buffer[i] = (byte) ('0' + value % 10);
+        value /= 10;
+      }
+      position += digits;
+    }
+
+    // Writes the string in UTF-8, escaped like zipkin2.internal.JsonEscaper does.
+    private void writeEscaped(String string) {
+      // An escaped char takes at most 6 bytes.
+      ensureCapacity(6 * string.length());
+      for (int i = 0; i < string.length(); i++) {
+        char c = string.charAt(i);
+        if (c < 0x80) {
+          if (c >= 0x20 && c != '"' && c != '\\') {
+            buffer[position++] = (byte) c;
+          } else {
+            writeEscapedAscii(c);
+          }
+        } else if (c == '\u2028' || c == '\u2029') {
+          writeUnicodeEscape(c);
+        } else {
+          i = writeUtf8NonAscii(string, i, c);
+        }
+      }
+    }
+
+    private void writeEscapedAscii(char c) {
+      buffer[position++] = '\\';
+      switch (c) {
+        case '"':
+          buffer[position++] = '"';
+          break;
+        case '\\':
+          buffer[position++] = '\\';
+          break;
+        case '\t':
+          buffer[position++] = 't';
+          break;
+        case '\b':
+          buffer[position++] = 'b';
+          break;
+        case '\n':
+          buffer[position++] = 'n';
+          break;
+        case '\r':
+          buffer[position++] = 'r';
+          break;
+        case '\f':
+          buffer[position++] = 'f';
+          break;
+        default:
+          position--;
+          writeUnicodeEscape(c);
+      }
+    }
+
+    private void writeUnicodeEscape(char c) {
+      buffer[position++] = '\\';
+      buffer[position++] = 'u';
+      buffer[position++] = HEX[(c >> 12) & 0xf];
+      buffer[position++] = HEX[(c >> 8) & 0xf];
+      buffer[position++] = HEX[(c >> 4) & 0xf];
+      buffer[position++] = HEX[c & 0xf];
+    }
+  }
+
+  /** Encodes spans like {@link SpanBytesEncoder#PROTO3}, as a field of a {@code ListOfSpans}. */
+  static final class Proto3 extends ZipkinSpanEncoder {
+    private static final int SPAN_KEY = (1 << 3) | 2;
+    private static final int TRACE_ID_KEY = (1 << 3) | 2;
+    private static final int PARENT_ID_KEY = (2 << 3) | 2;
+    private static final int ID_KEY = (3 << 3) | 2;
+    private static final int KIND_KEY = 4 << 3;
+    private static final int NAME_KEY = (5 << 3) | 2;
+    private static final int TIMESTAMP_KEY = (6 << 3) | 1;
+    private static final int DURATION_KEY = 7 << 3;
+    private static final int LOCAL_ENDPOINT_KEY = (8 << 3) | 2;
+    private static final int ANNOTATION_KEY = (10 << 3) | 2;
+    private static final int TAG_KEY = (11 << 3) | 2;
+    // Fields of the Endpoint, Annotation and tag entry messages.
+    private static final int SERVICE_NAME_KEY = (1 << 3) | 2;
+    private static final int IPV4_KEY = (2 << 3) | 2;
+    private static final int IPV6_KEY = (3 << 3) | 2;
+    private static final int PORT_KEY = 4 << 3;
+    private static final int ANNOTATION_TIMESTAMP_KEY = (1 << 3) | 1;
+    private static final int ANNOTATION_VALUE_KEY = (2 << 3) | 2;
+    private static final int TAG_KEY_KEY = (1 << 3) | 2;
+    private static final int TAG_VALUE_KEY = (2 << 3) | 2;
+    private static final int KIND_CLIENT = 1;
+    private static final int KIND_SERVER = 2;
+
+    // The local endpoint field, or null if all its fields are empty.
+    @Nullable private final byte[] localEndpoint;
+
+    Proto3(Endpoint localEndpoint) {
+      this.localEndpoint = encodeEndpoint(localEndpoint);
+    }
+
+    @Nullable
+    private byte[] encodeEndpoint(Endpoint endpoint) {
+      position = 0;
+      int start = startMessage(LOCAL_ENDPOINT_KEY);
+      String serviceName = endpoint.serviceName();
+      if (serviceName != null) {
+        writeString(SERVICE_NAME_KEY, serviceName);
+      }
+      byte[] ipv4 = endpoint.ipv4Bytes();
+      if (ipv4 != null) {
+        writeByte(IPV4_KEY);
+        writeByte(ipv4.length);
+        writeBytes(ipv4, 0, ipv4.length);
+      }
+      byte[] ipv6 = endpoint.ipv6Bytes();
+      if (ipv6 != null) {
+        writeByte(IPV6_KEY);
+        writeByte(ipv6.length);
+        writeBytes(ipv6, 0, ipv6.length);
+      }
+      int port = endpoint.portAsInt();
+      if (port != 0) {
+        writeByte(PORT_KEY);
+        writeVarint(port);
+      }
+      return endMessage(start) ? Arrays.copyOf(buffer, position) : null;
+    }
+
+    @Override
+    void writeSpan(SpanData spanData) {
+      int start = startMessage(SPAN_KEY);
+      int traceIdOffset = copyTraceId(spanData.getContext().getTraceId());
+      writeByte(TRACE_ID_KEY);
+      writeByte(TraceId.SIZE - traceIdOffset);
+      writeBytes(idBytes(), traceIdOffset, TraceId.SIZE - traceIdOffset);
+      SpanId parentSpanId = spanData.getParentSpanId();
+      if (parentSpanId != null && parentSpanId.isValid()) {
+        writeByte(PARENT_ID_KEY);
+        writeByte(SpanId.SIZE);
+        writeBytes(copySpanId(parentSpanId), 0, SpanId.SIZE);
+      }
+      writeByte(ID_KEY);
+      writeByte(SpanId.SIZE);
+      writeBytes(copySpanId(spanData.getContext().getSpanId()), 0, SpanId.SIZE);
+      Span.Kind kind = ZipkinExporterHandler.toSpanKind(spanData);
+      if (kind != null) {
+        writeByte(KIND_KEY);
+        writeByte(kind == Span.Kind.CLIENT ? KIND_CLIENT : KIND_SERVER);
+      }
+      String name = toName(spanData);
+      if (name != null) {
+        writeString(NAME_KEY, name);
+      }
+      long timestamp = ZipkinExporterHandler.toEpochMicros(spanData.getStartTimestamp());
+      if (timestamp > 0) {
+        writeByte(TIMESTAMP_KEY);
+        writeFixed64(timestamp);
+      }
+      long duration = getDurationMicros(spanData);
+      if (duration > 0) {
+        writeByte(DURATION_KEY);
+        writeVarint(duration);
+      }
+      if (localEndpoint != null) {
+        writeBytes(localEndpoint, 0, localEndpoint.length);
+      }
+      for (int i = 0; i < annotationCount; i++) {
+        int annotationStart = startMessage(ANNOTATION_KEY);
+        long annotationTimestamp = annotationTimestamp(i);
+        if (annotationTimestamp != 0) {
+          writeByte(ANNOTATION_TIMESTAMP_KEY);
+          writeFixed64(annotationTimestamp);
+        }
+        writeString(ANNOTATION_VALUE_KEY, annotationValue(i));
+        endMessage(annotationStart);
+      }
+      for (Map.Entry<String, String> tag : tags().entrySet()) {
+        int tagStart = startMessage(TAG_KEY);
+        writeString(TAG_KEY_KEY, tag.getKey());
+        writeString(TAG_VALUE_KEY, tag.getValue());
+        endMessage(tagStart);
+      }
+      endMessage(start);
+    }
+
+    // Writes the key of a message field and reserves one byte for its length. Returns the position
+    // of the key.
+    private int startMessage(int key) {
+      int start = position;
+      writeByte(key);
+      writeByte(0);
+      return start;
+    }
+
+    // Writes the length of the message started at the given position, moving the message if its
+    // length takes more than one byte. An empty message is removed, and false is returned.
+    private boolean endMessage(int start) {
+      int length = position - start - 2;
+      if (length == 0) {
+        position = start;
+        return false;
+      }
+      int lengthSize = varintSize(length);
+      if (lengthSize > 1) {
+        ensureCapacity(lengthSize - 1);
+        System.arraycopy(buffer, start + 2, buffer, start + 1 + lengthSize, length);
+      }
+      position = start + 1;
+      writeVarint(length);
+      position += length;
+      return true;
+    }
+
+    private void writeString(int key, String value) {
+      if (value.isEmpty()) {
+        return;
+      }
+      int start = startMessage(key);
+      writeUtf8(value);
+      endMessage(start);
+    }
+
+    private void writeVarint(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7fL) != 0) {
+        buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeFixed64(long value) {
+      ensureCapacity(8);
+      for (int i = 0; i < 8; i++) {
+        buffer[position++] = (byte) (value >> (8 * i));
+      }
+    }
+
+    private static int varintSize(int value) {
+      int size = 1;
+      while ((value & ~0x7f) != 0) {
+        size++;
+        value >>>= 7;
+      }
+      return size;
+    }
+  }
+
+  private static byte[] asciiBytes(String ascii) {
+    return ascii.getBytes(Charsets.US_ASCII);
+  }
+}
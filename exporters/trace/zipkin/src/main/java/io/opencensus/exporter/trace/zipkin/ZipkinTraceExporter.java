@@ -54,7 +54,7 @@ public final class ZipkinTraceExporter {
 
   @GuardedBy("monitor")
   @Nullable
-  private static Handler handler = null;
+  private static ZipkinExporterHandler handler = null;
 
   private ZipkinTraceExporter() {}
 
@@ -73,12 +73,14 @@ public final class ZipkinTraceExporter {
       if (sender == null) {
         sender = URLConnectionSender.create(configuration.getV2Url());
       }
-      Handler newHandler =
+      ZipkinExporterHandler newHandler =
           new ZipkinExporterHandler(
               configuration.getEncoder(),
               sender,
               configuration.getServiceName(),
-              configuration.getDeadline());
+              configuration.getDeadline(),
+              configuration.getMaxConcurrentSends(),
+              configuration.getSpool());
       handler = newHandler;
       register(Tracing.getExportComponent().getSpanExporter(), newHandler);
     }
@@ -142,6 +144,7 @@ public final class ZipkinTraceExporter {
     synchronized (monitor) {
       checkState(handler != null, "Zipkin exporter is not registered.");
       unregister(Tracing.getExportComponent().getSpanExporter());
+      handler.shutdown();
       handler = null;
     }
   }
@@ -19,9 +19,12 @@ package io.opencensus.exporter.trace.zipkin;
 import static com.google.common.truth.Truth.assertThat;
 
 import io.opencensus.common.Duration;
+import io.opencensus.exporter.trace.util.SpanSpool;
+import java.io.IOException;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
@@ -41,6 +44,7 @@ public class ZipkinExporterConfigurationTest {
   @Mock private static final Sender mockSender = Mockito.mock(Sender.class);
 
   @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
 
   @Test
   public void updateConfigs() {
@@ -51,12 +55,67 @@ public class ZipkinExporterConfigurationTest {
             .setSender(mockSender)
             .setV2Url(END_POINT)
             .setEncoder(SpanBytesEncoder.PROTO3)
+            .setMaxConcurrentSends(4)
             .build();
     assertThat(configuration.getServiceName()).isEqualTo(SERVICE);
     assertThat(configuration.getDeadline()).isEqualTo(ONE_MIN);
     assertThat(configuration.getV2Url()).isEqualTo(END_POINT);
     assertThat(configuration.getSender()).isEqualTo(mockSender);
     assertThat(configuration.getEncoder()).isEqualTo(SpanBytesEncoder.PROTO3);
+    assertThat(configuration.getMaxConcurrentSends()).isEqualTo(4);
+  }
+
+  @Test
+  public void defaultMaxConcurrentSends() {
+    ZipkinExporterConfiguration configuration =
+        ZipkinExporterConfiguration.builder().setServiceName(SERVICE).setV2Url(END_POINT).build();
+    assertThat(configuration.getMaxConcurrentSends())
+        .isEqualTo(ZipkinExporterConfiguration.DEFAULT_MAX_CONCURRENT_SENDS);
+    assertThat(configuration.getSpool()).isNull();
+  }
+
+  @Test
+  public void setSpool() throws IOException {
+    SpanSpool spool = SpanSpool.create(SpanSpool.Options.builder(tempFolder.getRoot()).build());
+    try {
+      ZipkinExporterConfiguration configuration =
+          ZipkinExporterConfiguration.builder()
+              .setServiceName(SERVICE)
+              .setV2Url(END_POINT)
+              .setSpool(spool)
+              .build();
+      assertThat(configuration.getSpool()).isEqualTo(spool);
+    } finally {
+      spool.close();
+    }
+  }
+
+  @Test
+  public void disallowSpoolWithConcurrentSends() throws IOException {
+    SpanSpool spool = SpanSpool.create(SpanSpool.Options.builder(tempFolder.getRoot()).build());
+    try {
+      ZipkinExporterConfiguration.Builder builder =
+          ZipkinExporterConfiguration.builder()
+              .setServiceName(SERVICE)
+              .setV2Url(END_POINT)
+              .setMaxConcurrentSends(2)
+              .setSpool(spool);
+      thrown.expect(IllegalArgumentException.class);
+      builder.build();
+    } finally {
+      spool.close();
+    }
+  }
+
+  @Test
+  public void disallowZeroMaxConcurrentSends() {
+    ZipkinExporterConfiguration.Builder builder =
+        ZipkinExporterConfiguration.builder()
+            .setServiceName(SERVICE)
+            .setV2Url(END_POINT)
+            .setMaxConcurrentSends(0);
+    thrown.expect(IllegalArgumentException.class);
+    builder.build();
   }
 
   @Test
@@ -18,7 +18,9 @@ package io.opencensus.exporter.trace.zipkin;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
 import io.opencensus.trace.Annotation;
 import io.opencensus.trace.AttributeValue;
@@ -36,19 +38,29 @@ import io.opencensus.trace.export.SpanData.Attributes;
 import io.opencensus.trace.export.SpanData.Links;
 import io.opencensus.trace.export.SpanData.TimedEvent;
 import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import zipkin2.Call;
 import zipkin2.Endpoint;
 import zipkin2.Span;
+import zipkin2.codec.Encoding;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.Sender;
 
 /** Unit tests for {@link ZipkinExporterHandler}. */
 @RunWith(JUnit4.class)
 public class ZipkinExporterHandlerTest {
+  private static final String SERVICE_NAME = "tweetiebird";
+  private static final Duration DEADLINE = Duration.create(10, 0);
   private static final Endpoint localEndpoint =
       Endpoint.newBuilder().serviceName("tweetiebird").build();
   private static final String TRACE_ID = "d239036e7d5cec116b562147388b35bf";
@@ -278,4 +290,182 @@ public class ZipkinExporterHandlerTest {
                 .putTag(ZipkinExporterHandler.STATUS_ERROR, "DEADLINE_EXCEEDED")
                 .build());
   }
+
+  @Test
+  public void timeLimitedExport_SplitsMessagesAtMessageMaxBytes() throws Exception {
+    List<SpanData> spanDataList = spanDataList(5);
+    int spanSize = encode(SpanBytesEncoder.JSON_V2, spanDataList.get(0)).length;
+    // Two spans, the comma between them and the brackets around the list.
+    FakeSender sender = new FakeSender(Encoding.JSON, 2 * spanSize + 3);
+    new ZipkinExporterHandler(SpanBytesEncoder.JSON_V2, sender, SERVICE_NAME, DEADLINE)
+        .timeLimitedExport(spanDataList);
+
+    assertThat(sender.messages).hasSize(3);
+    assertThat(wrap(sender.messages.get(0)))
+        .containsExactly(
+            wrap(encode(SpanBytesEncoder.JSON_V2, spanDataList.get(0))),
+            wrap(encode(SpanBytesEncoder.JSON_V2, spanDataList.get(1))))
+        .inOrder();
+    assertThat(wrap(sender.messages.get(1)))
+        .containsExactly(
+            wrap(encode(SpanBytesEncoder.JSON_V2, spanDataList.get(2))),
+            wrap(encode(SpanBytesEncoder.JSON_V2, spanDataList.get(3))))
+        .inOrder();
+    assertThat(wrap(sender.messages.get(2)))
+        .containsExactly(wrap(encode(SpanBytesEncoder.JSON_V2, spanDataList.get(4))));
+  }
+
+  @Test
+  public void timeLimitedExport_DropsSpansLargerThanMessages() throws Exception {
+    List<SpanData> spanDataList = spanDataList(2);
+    Map<String, AttributeValue> largeAttributes = new HashMap<String, AttributeValue>();
+    largeAttributes.put("large", AttributeValue.stringAttributeValue(Strings.repeat("x", 1000)));
+    SpanData largeSpanData = spanData(SPAN_ID, largeAttributes);
+    spanDataList.add(1, largeSpanData);
+    FakeSender sender =
+        new FakeSender(Encoding.PROTO3, encode(SpanBytesEncoder.PROTO3, largeSpanData).length - 1);
+    new ZipkinExporterHandler(SpanBytesEncoder.PROTO3, sender, SERVICE_NAME, DEADLINE)
+        .timeLimitedExport(spanDataList);
+
+    assertThat(sender.messages).hasSize(1);
+    assertThat(wrap(sender.messages.get(0)))
+        .containsExactly(
+            wrap(encode(SpanBytesEncoder.PROTO3, spanDataList.get(0))),
+            wrap(encode(SpanBytesEncoder.PROTO3, spanDataList.get(2))))
+        .inOrder();
+  }
+
+  @Test
+  public void timeLimitedExport_EncodesZipkinSpansForThrift() throws Exception {
+    List<SpanData> spanDataList = spanDataList(2);
+    FakeSender sender = new FakeSender(Encoding.THRIFT, Integer.MAX_VALUE);
+    new ZipkinExporterHandler(SpanBytesEncoder.THRIFT, sender, SERVICE_NAME, DEADLINE)
+        .timeLimitedExport(spanDataList);
+
+    assertThat(sender.messages).hasSize(1);
+    assertThat(wrap(sender.messages.get(0)))
+        .containsExactly(
+            wrap(encode(SpanBytesEncoder.THRIFT, spanDataList.get(0))),
+            wrap(encode(SpanBytesEncoder.THRIFT, spanDataList.get(1))))
+        .inOrder();
+  }
+
+  @Test
+  public void timeLimitedExport_SendsMessagesConcurrently() throws Exception {
+    List<SpanData> spanDataList = spanDataList(6);
+    int spanSize = encode(SpanBytesEncoder.PROTO3, spanDataList.get(0)).length;
+    FakeSender sender = new FakeSender(Encoding.PROTO3, spanSize);
+    sender.sent = new CountDownLatch(spanDataList.size());
+    ZipkinExporterHandler handler =
+        new ZipkinExporterHandler(SpanBytesEncoder.PROTO3, sender, SERVICE_NAME, DEADLINE, 2, null);
+    try {
+      handler.timeLimitedExport(spanDataList);
+      assertThat(sender.sent.await(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      handler.shutdown();
+    }
+
+    List<ByteBuffer> sentSpans = new ArrayList<ByteBuffer>();
+    synchronized (sender.messages) {
+      for (List<byte[]> message : sender.messages) {
+        assertThat(message).hasSize(1);
+        sentSpans.addAll(wrap(message));
+      }
+    }
+    List<ByteBuffer> expectedSpans = new ArrayList<ByteBuffer>();
+    for (SpanData spanData : spanDataList) {
+      expectedSpans.add(wrap(encode(SpanBytesEncoder.PROTO3, spanData)));
+    }
+    assertThat(sentSpans).containsExactlyElementsIn(expectedSpans);
+  }
+
+  // Wraps encoded spans in ByteBuffers, which are equal if their bytes are equal.
+  private static List<ByteBuffer> wrap(List<byte[]> encodedSpans) {
+    List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+    for (byte[] encodedSpan : encodedSpans) {
+      buffers.add(wrap(encodedSpan));
+    }
+    return buffers;
+  }
+
+  private static ByteBuffer wrap(byte[] encodedSpan) {
+    return ByteBuffer.wrap(encodedSpan);
+  }
+
+  private static byte[] encode(SpanBytesEncoder encoder, SpanData spanData) {
+    return encoder.encode(
+        ZipkinExporterHandler.generateSpan(
+            spanData, ZipkinExporterHandler.produceLocalEndpoint(SERVICE_NAME)));
+  }
+
+  private static List<SpanData> spanDataList(int size) {
+    List<SpanData> spanDataList = new ArrayList<SpanData>();
+    for (int i = 0; i < size; i++) {
+      // Spans of the same size, with different ids.
+      spanDataList.add(spanData(String.format("%016x", i + 1), attributes));
+    }
+    return spanDataList;
+  }
+
+  private static SpanData spanData(String spanId, Map<String, AttributeValue> attributes) {
+    return SpanData.create(
+        SpanContext.create(
+            TraceId.fromLowerBase16(TRACE_ID),
+            SpanId.fromLowerBase16(spanId),
+            TraceOptions.builder().setIsSampled(true).build()),
+        SpanId.fromLowerBase16(PARENT_SPAN_ID),
+        true, /* hasRemoteParent */
+        "Recv.helloworld.Greeter.SayHello", /* name */
+        Kind.SERVER, /* kind */
+        Timestamp.create(1505855794, 194009601) /* startTimestamp */,
+        Attributes.create(attributes, 0 /* droppedAttributesCount */),
+        TimedEvents.create(annotations, 0 /* droppedEventsCount */),
+        TimedEvents.create(messageEvents, 0 /* droppedEventsCount */),
+        Links.create(Collections.<Link>emptyList(), 0 /* droppedLinksCount */),
+        null, /* childSpanCount */
+        Status.OK,
+        Timestamp.create(1505855799, 465726528) /* endTimestamp */);
+  }
+
+  private static final class FakeSender extends Sender {
+    private final Encoding encoding;
+    private final int messageMaxBytes;
+    private final List<List<byte[]>> messages = new ArrayList<List<byte[]>>();
+    @javax.annotation.Nullable private volatile CountDownLatch sent;
+
+    private FakeSender(Encoding encoding, int messageMaxBytes) {
+      this.encoding = encoding;
+      this.messageMaxBytes = messageMaxBytes;
+    }
+
+    @Override
+    public Encoding encoding() {
+      return encoding;
+    }
+
+    @Override
+    public int messageMaxBytes() {
+      return messageMaxBytes;
+    }
+
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+      return encoding.listSizeInBytes(encodedSpans);
+    }
+
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+      assertThat(messageSizeInBytes(encodedSpans)).isAtMost(messageMaxBytes);
+      synchronized (messages) {
+        messages.add(encodedSpans);
+      }
+      CountDownLatch sent = this.sent;
+      if (sent != null) {
+        for (int i = 0; i < encodedSpans.size(); i++) {
+          sent.countDown();
+        }
+      }
+      return Call.create(null);
+    }
+  }
 }
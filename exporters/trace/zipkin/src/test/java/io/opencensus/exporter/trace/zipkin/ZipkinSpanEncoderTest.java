@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.exporter.trace.zipkin;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.MessageEvent;
+import io.opencensus.trace.MessageEvent.Type;
+import io.opencensus.trace.Span.Kind;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanData.Attributes;
+import io.opencensus.trace.export.SpanData.Links;
+import io.opencensus.trace.export.SpanData.TimedEvent;
+import io.opencensus.trace.export.SpanData.TimedEvents;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import zipkin2.Endpoint;
+import zipkin2.codec.SpanBytesEncoder;
+
+/** Unit tests for {@link ZipkinSpanEncoder}. */
+@RunWith(JUnit4.class)
+public class ZipkinSpanEncoderTest {
+  private static final String TRACE_ID = "d239036e7d5cec116b562147388b35bf";
+  private static final String SHORT_TRACE_ID = "00000000000000006b562147388b35bf";
+  private static final String SPAN_ID = "9cc1e3049173be09";
+  private static final String PARENT_SPAN_ID = "8b03ab423da481c5";
+  private static final String SPECIAL_CHARS =
+      "quote\" backslash\\ tab\t newline\n cr\r bs\b ff\f nul\u0000 us\u001f del\u007f "
+          + "\u00e9 \u20ac \ud83d\ude00 lone\ud800x \udc00";
+  // Kept apart from other non-ASCII chars, which make zipkin2 pad its JSON with zeros.
+  private static final String LINE_SEPARATORS = "ls\u2028 ps\u2029";
+  private static final List<Endpoint> ENDPOINTS =
+      Arrays.asList(
+          Endpoint.newBuilder().serviceName("tweetiebird").build(),
+          Endpoint.newBuilder()
+              .serviceName("Service")
+              .ip("10.0.0.1")
+              .ip("2001:db8::1")
+              .port(8080)
+              .build(),
+          Endpoint.newBuilder().ip("192.168.1.2").port(70000 % 65536).build(),
+          Endpoint.newBuilder().serviceName(SPECIAL_CHARS).build(),
+          Endpoint.newBuilder().build());
+
+  @Test
+  public void create_UnsupportedEncoders() {
+    assertThat(ZipkinSpanEncoder.create(SpanBytesEncoder.JSON_V1, ENDPOINTS.get(0))).isNull();
+    assertThat(ZipkinSpanEncoder.create(SpanBytesEncoder.THRIFT, ENDPOINTS.get(0))).isNull();
+  }
+
+  @Test
+  public void encode_SameBytesAsZipkinJsonV2() {
+    assertSameBytes(SpanBytesEncoder.JSON_V2);
+  }
+
+  @Test
+  public void encode_SameBytesAsZipkinProto3() {
+    assertSameBytes(SpanBytesEncoder.PROTO3);
+  }
+
+  @Test
+  public void encode_ReusesEncoderForLargerAndSmallerSpans() {
+    ZipkinSpanEncoder encoder = ZipkinSpanEncoder.create(SpanBytesEncoder.PROTO3, ENDPOINTS.get(1));
+    SpanData small = spanData(TRACE_ID, null, "small", null, Status.OK, attributes(0), 0, 0);
+    SpanData large =
+        spanData(
+            TRACE_ID, PARENT_SPAN_ID, "large", Kind.CLIENT, Status.OK, attributes(2000), 200, 0);
+    byte[] smallBytes = encoder.encode(small);
+    assertThat(encoder.encode(large))
+        .isEqualTo(
+            SpanBytesEncoder.PROTO3.encode(
+                ZipkinExporterHandler.generateSpan(large, ENDPOINTS.get(1))));
+    assertThat(encoder.encode(small)).isEqualTo(smallBytes);
+  }
+
+  private static void assertSameBytes(SpanBytesEncoder bytesEncoder) {
+    for (Endpoint endpoint : ENDPOINTS) {
+      ZipkinSpanEncoder encoder = ZipkinSpanEncoder.create(bytesEncoder, endpoint);
+      for (SpanData spanData : spanDataList()) {
+        assertThat(encoder.encode(spanData))
+            .isEqualTo(bytesEncoder.encode(ZipkinExporterHandler.generateSpan(spanData, endpoint)));
+      }
+    }
+  }
+
+  private static List<SpanData> spanDataList() {
+    List<SpanData> spanDataList = new ArrayList<SpanData>();
+    spanDataList.add(
+        spanData(
+            TRACE_ID,
+            PARENT_SPAN_ID,
+            "Recv.helloworld.Greeter.SayHello",
+            null,
+            Status.OK,
+            attributes(0),
+            0,
+            2));
+    spanDataList.add(
+        spanData(
+            SHORT_TRACE_ID,
+            null,
+            "Sent.helloworld.Greeter.SayHello",
+            null,
+            null,
+            attributes(3),
+            3,
+            0));
+    spanDataList.add(
+        spanData(
+            TRACE_ID,
+            PARENT_SPAN_ID,
+            "MixedCase \u00c4\u00d6",
+            Kind.SERVER,
+            Status.DEADLINE_EXCEEDED.withDescription(SPECIAL_CHARS),
+            attributes(5),
+            5,
+            5));
+    spanDataList.add(
+        spanData(TRACE_ID, null, "", Kind.CLIENT, Status.UNKNOWN, attributes(200), 300, 300));
+    spanDataList.add(
+        spanData(
+            TRACE_ID,
+            null,
+            Strings.repeat("long name ", 50),
+            null,
+            Status.OK,
+            attributes(0),
+            0,
+            0));
+
+    // Attributes named like the status tags, and special chars in keys and values.
+    Map<String, AttributeValue> attributes = new HashMap<String, AttributeValue>();
+    attributes.put(ZipkinExporterHandler.STATUS_CODE, AttributeValue.stringAttributeValue("x"));
+    attributes.put("error", AttributeValue.booleanAttributeValue(true));
+    attributes.put(SPECIAL_CHARS, AttributeValue.stringAttributeValue(SPECIAL_CHARS));
+    attributes.put("", AttributeValue.stringAttributeValue(""));
+    attributes.put(LINE_SEPARATORS, AttributeValue.stringAttributeValue(LINE_SEPARATORS));
+    attributes.put("double", AttributeValue.doubleAttributeValue(-1.5e-300));
+    attributes.put("long", AttributeValue.longAttributeValue(Long.MIN_VALUE));
+    // Unsorted and duplicate annotations, with zero and negative timestamps.
+    List<TimedEvent<Annotation>> annotations = new ArrayList<TimedEvent<Annotation>>();
+    annotations.add(annotation(Timestamp.create(1505855799, 2000), "b"));
+    annotations.add(annotation(Timestamp.create(1505855799, 1000), "z"));
+    annotations.add(annotation(Timestamp.create(1505855799, 2000), "a"));
+    annotations.add(annotation(Timestamp.create(1505855799, 2000), "b"));
+    annotations.add(annotation(Timestamp.create(0, 0), ""));
+    annotations.add(annotation(Timestamp.create(0, 0), SPECIAL_CHARS));
+    annotations.add(annotation(Timestamp.create(-5, 0), "negative"));
+    List<TimedEvent<MessageEvent>> messageEvents =
+        Collections.singletonList(
+            TimedEvent.create(
+                Timestamp.create(1505855799, 1000), MessageEvent.builder(Type.SENT, 1).build()));
+    spanDataList.add(
+        SpanData.create(
+            SpanContext.create(
+                TraceId.fromLowerBase16(TRACE_ID),
+                SpanId.fromLowerBase16(SPAN_ID),
+                TraceOptions.builder().setIsSampled(true).build()),
+            SpanId.INVALID,
+            false, /* hasRemoteParent */
+            SPECIAL_CHARS, /* name */
+            Kind.CLIENT, /* kind */
+            Timestamp.create(0, 0) /* startTimestamp */,
+            Attributes.create(attributes, 0 /* droppedAttributesCount */),
+            TimedEvents.create(annotations, 0 /* droppedEventsCount */),
+            TimedEvents.create(messageEvents, 0 /* droppedEventsCount */),
+            Links.create(Collections.<Link>emptyList(), 0 /* droppedLinksCount */),
+            null, /* childSpanCount */
+            Status.NOT_FOUND,
+            Timestamp.create(0, 0) /* endTimestamp */));
+    return spanDataList;
+  }
+
+  private static SpanData spanData(
+      String traceId,
+      String parentSpanId,
+      String name,
+      Kind kind,
+      Status status,
+      Map<String, AttributeValue> attributes,
+      int annotationCount,
+      int messageEventCount) {
+    List<TimedEvent<Annotation>> annotations = new ArrayList<TimedEvent<Annotation>>();
+    for (int i = 0; i < annotationCount; i++) {
+      annotations.add(annotation(Timestamp.create(1505855799, 1000 * i), "annotation " + i));
+    }
+    List<TimedEvent<MessageEvent>> messageEvents = new ArrayList<TimedEvent<MessageEvent>>();
+    for (int i = 0; i < messageEventCount; i++) {
+      messageEvents.add(
+          TimedEvent.create(
+              Timestamp.create(1505855799, 433901068 + 1000 * i),
+              MessageEvent.builder(i % 2 == 0 ? Type.RECEIVED : Type.SENT, i).build()));
+    }
+    return SpanData.create(
+        SpanContext.create(
+            TraceId.fromLowerBase16(traceId),
+            SpanId.fromLowerBase16(SPAN_ID),
+            TraceOptions.builder().setIsSampled(true).build()),
+        parentSpanId == null ? null : SpanId.fromLowerBase16(parentSpanId),
+        true, /* hasRemoteParent */
+        name,
+        kind,
+        Timestamp.create(1505855794, 194009601) /* startTimestamp */,
+        Attributes.create(attributes, 0 /* droppedAttributesCount */),
+        TimedEvents.create(annotations, 0 /* droppedEventsCount */),
+        TimedEvents.create(messageEvents, 0 /* droppedEventsCount */),
+        Links.create(Collections.<Link>emptyList(), 0 /* droppedLinksCount */),
+        null, /* childSpanCount */
+        status,
+        Timestamp.create(1505855799, 465726528) /* endTimestamp */);
+  }
+
+  private static Map<String, AttributeValue> attributes(int count) {
+    Map<String, AttributeValue> attributes = new HashMap<String, AttributeValue>();
+    for (int i = 0; i < count; i++) {
+      attributes.put(
+          "key" + i,
+          i % 3 == 0
+              ? AttributeValue.stringAttributeValue(Strings.repeat("value ", i))
+              : i % 3 == 1
+                  ? AttributeValue.longAttributeValue(i)
+                  : AttributeValue.booleanAttributeValue(i % 2 == 0));
+    }
+    return attributes;
+  }
+
+  private static TimedEvent<Annotation> annotation(Timestamp timestamp, String description) {
+    return TimedEvent.create(timestamp, Annotation.fromDescription(description));
+  }
+}
@@ -22,8 +22,17 @@ import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.SleepingWaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
+import io.opencensus.common.ToDoubleFunction;
+import io.opencensus.common.ToLongFunction;
 import io.opencensus.implcore.internal.DaemonThreadFactory;
 import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.metrics.DerivedDoubleGauge;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -97,6 +106,26 @@ public final class DisruptorEventQueue implements EventQueue {
   // configured to a size appropriate to the system (smaller/less busy systems will not need as
   // large a queue.
   private static final int DISRUPTOR_BUFFER_SIZE = 8192;
+  // One in LATENCY_SAMPLING_PERIOD events is timed from enqueue to the end of its processing. It
+  // must be a power of two.
+  private static final long LATENCY_SAMPLING_PERIOD = 1024;
+  private static final DerivedLongGauge queueSize =
+      Metrics.getMetricRegistry()
+          .addDerivedLongGauge(
+              "oc_event_queue_size",
+              MetricOptions.builder()
+                  .setDescription("Current number of events waiting in the event queue.")
+                  .setUnit("1")
+                  .build());
+  private static final DerivedDoubleGauge queueLatency =
+      Metrics.getMetricRegistry()
+          .addDerivedDoubleGauge(
+              "oc_event_queue_latency",
+              MetricOptions.builder()
+                  .setDescription(
+                      "Time from enqueue to the end of processing of the last sampled event.")
+                  .setUnit("ms")
+                  .build());
   // The single instance of the class.
   private static final DisruptorEventQueue eventQueue = create();
 
@@ -126,6 +155,12 @@ public final class DisruptorEventQueue implements EventQueue {
     disruptor.handleEventsWith(new DisruptorEventHandler[] {DisruptorEventHandler.INSTANCE});
     disruptor.start();
     final RingBuffer<DisruptorEvent> ringBuffer = disruptor.getRingBuffer();
+    queueSize.createTimeSeries(
+        Collections.<LabelValue>emptyList(), ringBuffer, new ReportQueueSize());
+    queueLatency.createTimeSeries(
+        Collections.<LabelValue>emptyList(),
+        DisruptorEventHandler.INSTANCE,
+        new ReportQueueLatency());
 
     DisruptorEnqueuer enqueuer =
         new DisruptorEnqueuer() {
@@ -135,6 +170,9 @@ public final class DisruptorEventQueue implements EventQueue {
             try {
               DisruptorEvent event = ringBuffer.get(sequence);
               event.setEntry(entry);
+              // Reading the clock for every event would slow down the producers.
+              event.setEnqueueNanos(
+                  (sequence & (LATENCY_SAMPLING_PERIOD - 1)) == 0 ? System.nanoTime() : 0);
             } finally {
               ringBuffer.publish(sequence);
             }
@@ -193,6 +231,9 @@ public final class DisruptorEventQueue implements EventQueue {
     // intuitively this variable must be volatile.
     @Nullable private volatile Entry entry = null;
 
+    // Written before the event is published, so the entry's volatile write makes it visible.
+    private long enqueueNanos;
+
     // Sets the EventQueueEntry associated with this DisruptorEvent.
     void setEntry(@Nullable Entry entry) {
       this.entry = entry;
@@ -203,6 +244,15 @@ public final class DisruptorEventQueue implements EventQueue {
     Entry getEntry() {
       return entry;
     }
+
+    // Sets the time when the entry was enqueued, or 0 if the entry is not timed.
+    void setEnqueueNanos(long enqueueNanos) {
+      this.enqueueNanos = enqueueNanos;
+    }
+
+    long getEnqueueNanos() {
+      return enqueueNanos;
+    }
   }
 
   // Factory for DisruptorEvent.
@@ -222,14 +272,43 @@ public final class DisruptorEventQueue implements EventQueue {
   private enum DisruptorEventHandler implements EventHandler<DisruptorEvent> {
     INSTANCE;
 
+    // Only written by the thread of the disruptor.
+    private volatile long lastSampledLatencyNanos;
+
     @Override
     public void onEvent(DisruptorEvent event, long sequence, boolean endOfBatch) {
       Entry entry = event.getEntry();
       if (entry != null) {
         entry.process();
       }
+      long enqueueNanos = event.getEnqueueNanos();
+      if (enqueueNanos != 0) {
+        lastSampledLatencyNanos = System.nanoTime() - enqueueNanos;
+      }
       // Remove the reference to the previous entry to allow the memory to be gc'ed.
       event.setEntry(null);
     }
   }
+
+  private static final class ReportQueueSize
+      implements ToLongFunction</*@Nullable*/ RingBuffer<DisruptorEvent>> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ RingBuffer<DisruptorEvent> ringBuffer) {
+      if (ringBuffer == null) {
+        return 0;
+      }
+      return ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+    }
+  }
+
+  private static final class ReportQueueLatency
+      implements ToDoubleFunction</*@Nullable*/ DisruptorEventHandler> {
+    @Override
+    public double applyAsDouble(/*@Nullable*/ DisruptorEventHandler handler) {
+      if (handler == null) {
+        return 0;
+      }
+      return (double) handler.lastSampledLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.metrics;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Remembers the version of the {@link MetricRegistryImpl} export in which the value of a time
+ * series last changed.
+ *
+ * <p>The value is compared when the time series is read, so updating the time series costs nothing
+ * more.
+ */
+@ThreadSafe
+final class ChangeTracker {
+  @GuardedBy("this")
+  private boolean observed;
+
+  @GuardedBy("this")
+  private long lastValueBits;
+
+  @GuardedBy("this")
+  private long changedVersion;
+
+  /**
+   * Records the current value of the time series and returns whether it changed after {@code
+   * cursor}.
+   *
+   * @param valueBits the current value, or its raw bits for a double.
+   * @param cursor the version of the previous export.
+   * @param version the version of the current export.
+   * @return {@code true} if the value changed after {@code cursor}.
+   */
+  synchronized boolean changedSince(long valueBits, long cursor, long version) {
+    if (!observed || valueBits != lastValueBits) {
+      observed = true;
+      lastValueBits = valueBits;
+      changedVersion = version;
+    }
+    return changedVersion > cursor;
+  }
+}
@@ -35,7 +35,6 @@ import io.opencensus.metrics.export.Value;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -52,8 +51,8 @@ public final class DerivedDoubleCumulativeImpl extends DerivedDoubleCumulative i
   private final List<LabelValue> constantLabelValues;
   private final Timestamp startTime;
 
-  private volatile Map<List<LabelValue>, PointWithFunction<?>> registeredPoints =
-      Collections.<List<LabelValue>, PointWithFunction<?>>emptyMap();
+  private final RegisteredPoints<PointWithFunction<?>> registeredPoints =
+      new RegisteredPoints<PointWithFunction<?>>();
 
   DerivedDoubleCumulativeImpl(
       String name,
@@ -77,7 +76,7 @@ public final class DerivedDoubleCumulativeImpl extends DerivedDoubleCumulative i
   }
 
   @Override
-  public synchronized <T> void createTimeSeries(
+  public <T> void createTimeSeries(
       List<LabelValue> labelValues,
       @javax.annotation.Nullable T obj,
       ToDoubleFunction</*@Nullable*/ T> function) {
@@ -90,66 +89,63 @@ public final class DerivedDoubleCumulativeImpl extends DerivedDoubleCumulative i
         "Label Keys and Label Values don't have same size.");
     checkNotNull(function, "function");
 
-    PointWithFunction<?> existingPoint =
-        registeredPoints.get(Collections.unmodifiableList(labelValuesCopy));
-    if (existingPoint != null) {
+    PointWithFunction<T> newPoint =
+        new PointWithFunction<T>(labelValuesCopy, obj, function, startTime);
+    if (registeredPoints.putIfAbsent(Collections.unmodifiableList(labelValuesCopy), newPoint)
+        != newPoint) {
       throw new IllegalArgumentException(
           "A different time series with the same labels already exists.");
     }
-
-    PointWithFunction<T> newPoint =
-        new PointWithFunction<T>(labelValuesCopy, obj, function, startTime);
-    // Updating the map of time series happens under a lock to avoid multiple add operations
-    // to happen in the same time.
-    Map<List<LabelValue>, PointWithFunction<?>> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointWithFunction<?>>(registeredPoints);
-    registeredPointsCopy.put(labelValuesCopy, newPoint);
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
   }
 
   @Override
-  public synchronized void removeTimeSeries(List<LabelValue> labelValues) {
+  public void removeTimeSeries(List<LabelValue> labelValues) {
     List<LabelValue> labelValuesCopy =
         new ArrayList<LabelValue>(checkNotNull(labelValues, "labelValues"));
     labelValuesCopy.addAll(constantLabelValues);
-
-    Map<List<LabelValue>, PointWithFunction<?>> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointWithFunction<?>>(registeredPoints);
-    if (registeredPointsCopy.remove(labelValuesCopy) == null) {
-      // The element not present, no need to update the current map of time series.
-      return;
-    }
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
+    registeredPoints.remove(labelValuesCopy);
   }
 
   @Override
-  public synchronized void clear() {
-    registeredPoints = Collections.<List<LabelValue>, PointWithFunction<?>>emptyMap();
+  public void clear() {
+    registeredPoints.clear();
   }
 
   @javax.annotation.Nullable
   @Override
   public Metric getMetric(Clock clock) {
-    Map<List<LabelValue>, PointWithFunction<?>> currentRegisteredPoints = registeredPoints;
-    if (currentRegisteredPoints.isEmpty()) {
+    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+    for (PointWithFunction<?> point : registeredPoints.values()) {
+      timeSeriesList.add(point.getTimeSeries(clock));
+    }
+    if (timeSeriesList.isEmpty()) {
       return null;
     }
-
-    if (currentRegisteredPoints.size() == 1) {
-      PointWithFunction<?> point = currentRegisteredPoints.values().iterator().next();
-      return Metric.createWithOneTimeSeries(metricDescriptor, point.getTimeSeries(clock));
+    if (timeSeriesList.size() == 1) {
+      return Metric.createWithOneTimeSeries(metricDescriptor, timeSeriesList.get(0));
     }
+    return Metric.create(metricDescriptor, timeSeriesList);
+  }
 
-    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>(currentRegisteredPoints.size());
-    for (Map.Entry<List<LabelValue>, PointWithFunction<?>> entry :
-        currentRegisteredPoints.entrySet()) {
-      timeSeriesList.add(entry.getValue().getTimeSeries(clock));
+  @javax.annotation.Nullable
+  @Override
+  public Metric getMetricChangedSince(Clock clock, long cursor, long version) {
+    List<TimeSeries> timeSeriesList = null;
+    for (PointWithFunction<?> point : registeredPoints.values()) {
+      TimeSeries timeSeries = point.getTimeSeriesChangedSince(clock, cursor, version);
+      if (timeSeries != null) {
+        if (timeSeriesList == null) {
+          timeSeriesList = new ArrayList<TimeSeries>();
+        }
+        timeSeriesList.add(timeSeries);
+      }
     }
-    return Metric.create(metricDescriptor, timeSeriesList);
+    return timeSeriesList == null ? null : Metric.create(metricDescriptor, timeSeriesList);
   }
 
   /** Implementation of {@link PointWithFunction} with an object and a callback function. */
   public static final class PointWithFunction<T> {
+    private final ChangeTracker changeTracker = new ChangeTracker();
     private final List<LabelValue> labelValues;
     private final Timestamp startTime;
     @javax.annotation.Nullable private final WeakReference<T> ref;
@@ -170,14 +166,28 @@ public final class DerivedDoubleCumulativeImpl extends DerivedDoubleCumulative i
     }
 
     private TimeSeries getTimeSeries(Clock clock) {
+      Point point = Point.create(Value.doubleValue(getValue()), clock.now());
+      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
+    }
+
+    @javax.annotation.Nullable
+    private TimeSeries getTimeSeriesChangedSince(Clock clock, long cursor, long version) {
+      double currentValue = getValue();
+      if (!changeTracker.changedSince(Double.doubleToLongBits(currentValue), cursor, version)) {
+        return null;
+      }
+      Point point = Point.create(Value.doubleValue(currentValue), clock.now());
+      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
+    }
+
+    // Returns the current value of the function, or the last value if it decreased.
+    private double getValue() {
       final T obj = ref != null ? ref.get() : null;
       double newValue = function.applyAsDouble(obj);
-      Point point;
       synchronized (this) {
         value = newValue > value ? newValue : value;
-        point = Point.create(Value.doubleValue(value), clock.now());
+        return value;
       }
-      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
     }
   }
 }
@@ -35,16 +35,12 @@ import io.opencensus.metrics.export.Value;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
-/*>>>
-import org.checkerframework.checker.nullness.qual.Nullable;
-*/
-
 /** Implementation of {@link DerivedLongCumulative}. */
 public final class DerivedLongCumulativeImpl extends DerivedLongCumulative implements Meter {
   private final MetricDescriptor metricDescriptor;
@@ -52,8 +48,8 @@ public final class DerivedLongCumulativeImpl extends DerivedLongCumulative imple
   private final List<LabelValue> constantLabelValues;
   private final Timestamp startTime;
 
-  private volatile Map<List<LabelValue>, PointWithFunction<?>> registeredPoints =
-      Collections.<List<LabelValue>, PointWithFunction<?>>emptyMap();
+  private final RegisteredPoints<PointWithFunction<?>> registeredPoints =
+      new RegisteredPoints<PointWithFunction<?>>();
 
   DerivedLongCumulativeImpl(
       String name,
@@ -77,10 +73,8 @@ public final class DerivedLongCumulativeImpl extends DerivedLongCumulative imple
   }
 
   @Override
-  public synchronized <T> void createTimeSeries(
-      List<LabelValue> labelValues,
-      @javax.annotation.Nullable T obj,
-      ToLongFunction</*@Nullable*/ T> function) {
+  public <T> void createTimeSeries(
+      List<LabelValue> labelValues, @Nullable T obj, ToLongFunction</*@Nullable*/ T> function) {
     checkNotNull(function, "function");
     Utils.checkListElementNotNull(checkNotNull(labelValues, "labelValues"), "labelValue");
     List<LabelValue> labelValuesCopy = new ArrayList<LabelValue>(labelValues);
@@ -90,69 +84,66 @@ public final class DerivedLongCumulativeImpl extends DerivedLongCumulative imple
         labelKeysSize == labelValuesCopy.size(),
         "Label Keys and Label Values don't have same size.");
 
-    PointWithFunction<?> existingPoint =
-        registeredPoints.get(Collections.unmodifiableList(labelValuesCopy));
-    if (existingPoint != null) {
+    PointWithFunction<T> newPoint =
+        new PointWithFunction<T>(labelValuesCopy, obj, function, startTime);
+    if (registeredPoints.putIfAbsent(Collections.unmodifiableList(labelValuesCopy), newPoint)
+        != newPoint) {
       throw new IllegalArgumentException(
           "A different time series with the same labels already exists.");
     }
-
-    PointWithFunction<T> newPoint =
-        new PointWithFunction<T>(labelValuesCopy, obj, function, startTime);
-    // Updating the map of time series happens under a lock to avoid multiple add operations
-    // to happen in the same time.
-    Map<List<LabelValue>, PointWithFunction<?>> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointWithFunction<?>>(registeredPoints);
-    registeredPointsCopy.put(labelValuesCopy, newPoint);
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
   }
 
   @Override
-  public synchronized void removeTimeSeries(List<LabelValue> labelValues) {
+  public void removeTimeSeries(List<LabelValue> labelValues) {
     List<LabelValue> labelValuesCopy =
         new ArrayList<LabelValue>(checkNotNull(labelValues, "labelValues"));
     labelValuesCopy.addAll(constantLabelValues);
-
-    Map<List<LabelValue>, PointWithFunction<?>> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointWithFunction<?>>(registeredPoints);
-    if (registeredPointsCopy.remove(labelValuesCopy) == null) {
-      // The element not present, no need to update the current map of time series.
-      return;
-    }
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
+    registeredPoints.remove(labelValuesCopy);
   }
 
   @Override
-  public synchronized void clear() {
-    registeredPoints = Collections.<List<LabelValue>, PointWithFunction<?>>emptyMap();
+  public void clear() {
+    registeredPoints.clear();
   }
 
-  @javax.annotation.Nullable
+  @Nullable
   @Override
   public Metric getMetric(Clock clock) {
-    Map<List<LabelValue>, PointWithFunction<?>> currentRegisteredPoints = registeredPoints;
-    if (currentRegisteredPoints.isEmpty()) {
+    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+    for (PointWithFunction<?> point : registeredPoints.values()) {
+      timeSeriesList.add(point.getTimeSeries(clock));
+    }
+    if (timeSeriesList.isEmpty()) {
       return null;
     }
-
-    if (currentRegisteredPoints.size() == 1) {
-      PointWithFunction<?> point = currentRegisteredPoints.values().iterator().next();
-      return Metric.createWithOneTimeSeries(metricDescriptor, point.getTimeSeries(clock));
+    if (timeSeriesList.size() == 1) {
+      return Metric.createWithOneTimeSeries(metricDescriptor, timeSeriesList.get(0));
     }
+    return Metric.create(metricDescriptor, timeSeriesList);
+  }
 
-    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>(currentRegisteredPoints.size());
-    for (Map.Entry<List<LabelValue>, PointWithFunction<?>> entry :
-        currentRegisteredPoints.entrySet()) {
-      timeSeriesList.add(entry.getValue().getTimeSeries(clock));
+  @Nullable
+  @Override
+  public Metric getMetricChangedSince(Clock clock, long cursor, long version) {
+    List<TimeSeries> timeSeriesList = null;
+    for (PointWithFunction<?> point : registeredPoints.values()) {
+      TimeSeries timeSeries = point.getTimeSeriesChangedSince(clock, cursor, version);
+      if (timeSeries != null) {
+        if (timeSeriesList == null) {
+          timeSeriesList = new ArrayList<TimeSeries>();
+        }
+        timeSeriesList.add(timeSeries);
+      }
     }
-    return Metric.create(metricDescriptor, timeSeriesList);
+    return timeSeriesList == null ? null : Metric.create(metricDescriptor, timeSeriesList);
   }
 
   /** Implementation of {@link PointWithFunction} with an object and a callback function. */
   public static final class PointWithFunction<T> {
+    private final ChangeTracker changeTracker = new ChangeTracker();
     private final List<LabelValue> labelValues;
     private final Timestamp startTime;
-    @javax.annotation.Nullable private final WeakReference<T> ref;
+    @Nullable private final WeakReference<T> ref;
     private final ToLongFunction</*@Nullable*/ T> function;
 
     @GuardedBy("this")
@@ -160,7 +151,7 @@ public final class DerivedLongCumulativeImpl extends DerivedLongCumulative imple
 
     PointWithFunction(
         List<LabelValue> labelValues,
-        @javax.annotation.Nullable T obj,
+        @Nullable T obj,
         ToLongFunction</*@Nullable*/ T> function,
         Timestamp startTime) {
       this.labelValues = labelValues;
@@ -170,14 +161,28 @@ public final class DerivedLongCumulativeImpl extends DerivedLongCumulative imple
     }
 
     private TimeSeries getTimeSeries(Clock clock) {
+      Point point = Point.create(Value.longValue(getValue()), clock.now());
+      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
+    }
+
+    @Nullable
+    private TimeSeries getTimeSeriesChangedSince(Clock clock, long cursor, long version) {
+      long currentValue = getValue();
+      if (!changeTracker.changedSince(currentValue, cursor, version)) {
+        return null;
+      }
+      Point point = Point.create(Value.longValue(currentValue), clock.now());
+      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
+    }
+
+    // Returns the current value of the function, or the last value if it decreased.
+    private long getValue() {
       final T obj = ref != null ? ref.get() : null;
       long newValue = function.applyAsLong(obj);
-      Point point;
       synchronized (this) {
         value = newValue > value ? newValue : value;
-        point = Point.create(Value.longValue(value), clock.now());
+        return value;
       }
-      return TimeSeries.createWithOnePoint(labelValues, point, startTime);
     }
   }
 }
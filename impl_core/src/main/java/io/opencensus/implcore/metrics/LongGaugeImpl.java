@@ -33,7 +33,6 @@ import io.opencensus.metrics.export.TimeSeries;
 import io.opencensus.metrics.export.Value;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,8 +44,7 @@ public final class LongGaugeImpl extends LongGauge implements Meter {
   @VisibleForTesting static final LabelValue UNSET_VALUE = LabelValue.create(null);
 
   private final MetricDescriptor metricDescriptor;
-  private volatile Map<List<LabelValue>, PointImpl> registeredPoints =
-      Collections.<List<LabelValue>, PointImpl>emptyMap();
+  private final RegisteredPoints<PointImpl> registeredPoints = new RegisteredPoints<PointImpl>();
   private final int labelKeysSize;
   private final List<LabelValue> defaultLabelValues;
   private final List<LabelValue> constantLabelValues;
@@ -80,13 +78,12 @@ public final class LongGaugeImpl extends LongGauge implements Meter {
   @Override
   public LongPoint getOrCreateTimeSeries(List<LabelValue> labelValues) {
     // lock free point retrieval, if it is present
-    PointImpl existingPoint = registeredPoints.get(labelValues);
+    PointImpl existingPoint = registeredPoints.get(checkNotNull(labelValues, "labelValues"));
     if (existingPoint != null) {
       return existingPoint;
     }
 
-    List<LabelValue> labelValuesCopy =
-        new ArrayList<LabelValue>(checkNotNull(labelValues, "labelValues"));
+    List<LabelValue> labelValuesCopy = new ArrayList<LabelValue>(labelValues);
     labelValuesCopy.addAll(constantLabelValues);
     return registerTimeSeries(Collections.unmodifiableList(labelValuesCopy));
   }
@@ -102,66 +99,58 @@ public final class LongGaugeImpl extends LongGauge implements Meter {
   }
 
   @Override
-  public synchronized void removeTimeSeries(List<LabelValue> labelValues) {
+  public void removeTimeSeries(List<LabelValue> labelValues) {
     List<LabelValue> labelValuesCopy =
         new ArrayList<LabelValue>(checkNotNull(labelValues, "labelValues"));
     labelValuesCopy.addAll(constantLabelValues);
-
-    Map<List<LabelValue>, PointImpl> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointImpl>(registeredPoints);
-    if (registeredPointsCopy.remove(labelValuesCopy) == null) {
-      // The element not present, no need to update the current map of points.
-      return;
-    }
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
+    registeredPoints.remove(labelValuesCopy);
   }
 
   @Override
-  public synchronized void clear() {
-    registeredPoints = Collections.<List<LabelValue>, PointImpl>emptyMap();
+  public void clear() {
+    registeredPoints.clear();
   }
 
-  private synchronized LongPoint registerTimeSeries(List<LabelValue> labelValues) {
-    PointImpl existingPoint = registeredPoints.get(labelValues);
-    if (existingPoint != null) {
-      // Return a Point that are already registered. This can happen if a multiple threads
-      // concurrently try to register the same {@code TimeSeries}.
-      return existingPoint;
-    }
-
+  private LongPoint registerTimeSeries(List<LabelValue> labelValues) {
     checkArgument(
         labelKeysSize == labelValues.size(), "Label Keys and Label Values don't have same size.");
     Utils.checkListElementNotNull(labelValues, "labelValue");
 
-    PointImpl newPoint = new PointImpl(labelValues);
-    // Updating the map of points happens under a lock to avoid multiple add operations
-    // to happen in the same time.
-    Map<List<LabelValue>, PointImpl> registeredPointsCopy =
-        new LinkedHashMap<List<LabelValue>, PointImpl>(registeredPoints);
-    registeredPointsCopy.put(labelValues, newPoint);
-    registeredPoints = Collections.unmodifiableMap(registeredPointsCopy);
-
-    return newPoint;
+    // Returns the Point that is already registered if multiple threads concurrently try to
+    // register the same {@code TimeSeries}.
+    return registeredPoints.putIfAbsent(labelValues, new PointImpl(labelValues));
   }
 
   @Nullable
   @Override
   public Metric getMetric(Clock clock) {
-    Map<List<LabelValue>, PointImpl> currentRegisteredPoints = registeredPoints;
-    if (currentRegisteredPoints.isEmpty()) {
+    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+    for (PointImpl point : registeredPoints.values()) {
+      timeSeriesList.add(point.getTimeSeries(clock));
+    }
+    if (timeSeriesList.isEmpty()) {
       return null;
     }
-
-    if (currentRegisteredPoints.size() == 1) {
-      PointImpl point = currentRegisteredPoints.values().iterator().next();
-      return Metric.createWithOneTimeSeries(metricDescriptor, point.getTimeSeries(clock));
+    if (timeSeriesList.size() == 1) {
+      return Metric.createWithOneTimeSeries(metricDescriptor, timeSeriesList.get(0));
     }
+    return Metric.create(metricDescriptor, timeSeriesList);
+  }
 
-    List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>(currentRegisteredPoints.size());
-    for (Map.Entry<List<LabelValue>, PointImpl> entry : currentRegisteredPoints.entrySet()) {
-      timeSeriesList.add(entry.getValue().getTimeSeries(clock));
+  @Nullable
+  @Override
+  public Metric getMetricChangedSince(Clock clock, long cursor, long version) {
+    List<TimeSeries> timeSeriesList = null;
+    for (PointImpl point : registeredPoints.values()) {
+      TimeSeries timeSeries = point.getTimeSeriesChangedSince(clock, cursor, version);
+      if (timeSeries != null) {
+        if (timeSeriesList == null) {
+          timeSeriesList = new ArrayList<TimeSeries>();
+        }
+        timeSeriesList.add(timeSeries);
+      }
     }
-    return Metric.create(metricDescriptor, timeSeriesList);
+    return timeSeriesList == null ? null : Metric.create(metricDescriptor, timeSeriesList);
   }
 
   /** Implementation of {@link LongGauge.LongPoint}. */
@@ -170,6 +159,7 @@ public final class LongGaugeImpl extends LongGauge implements Meter {
     // TODO(mayurkale): Consider to use LongAdder here, once we upgrade to Java8.
     private final AtomicLong value = new AtomicLong(0);
     private final TimeSeries defaultTimeSeries;
+    private final ChangeTracker changeTracker = new ChangeTracker();
 
     PointImpl(List<LabelValue> labelValues) {
       defaultTimeSeries = TimeSeries.create(labelValues);
@@ -188,5 +178,14 @@ public final class LongGaugeImpl extends LongGauge implements Meter {
     private TimeSeries getTimeSeries(Clock clock) {
       return defaultTimeSeries.setPoint(Point.create(Value.longValue(value.get()), clock.now()));
     }
+
+    @Nullable
+    private TimeSeries getTimeSeriesChangedSince(Clock clock, long cursor, long version) {
+      long currentValue = value.get();
+      if (!changeTracker.changedSince(currentValue, cursor, version)) {
+        return null;
+      }
+      return defaultTimeSeries.setPoint(Point.create(Value.longValue(currentValue), clock.now()));
+    }
   }
 }
@@ -31,4 +31,16 @@ interface Meter {
    */
   @Nullable
   Metric getMetric(Clock clock);
+
+  /**
+   * Provides a {@link io.opencensus.metrics.export.Metric} with only the {@link
+   * io.opencensus.metrics.export.TimeSeries} whose value changed after {@code cursor}.
+   *
+   * @param clock the clock used to get the time.
+   * @param cursor the version of the previous export.
+   * @param version the version of the current export, greater than all the previous ones.
+   * @return a {@code Metric}, or {@code null} if no {@code TimeSeries} changed.
+   */
+  @Nullable
+  Metric getMetricChangedSince(Clock clock, long cursor, long version);
 }
@@ -29,6 +29,7 @@ import io.opencensus.metrics.LongCumulative;
 import io.opencensus.metrics.LongGauge;
 import io.opencensus.metrics.MetricOptions;
 import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.metrics.export.ChangedMetrics;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricProducer;
 import java.util.ArrayList;
@@ -37,6 +38,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
 
 /** Implementation of {@link MetricRegistry}. */
 public final class MetricRegistryImpl extends MetricRegistry {
@@ -183,6 +185,10 @@ public final class MetricRegistryImpl extends MetricRegistry {
     private final RegisteredMeters registeredMeters;
     private final Clock clock;
 
+    // The version of the last call to getMetricsChangedSince, returned as its cursor.
+    @GuardedBy("this")
+    private long version = ChangedMetrics.INITIAL_CURSOR;
+
     private MetricProducerForRegistry(RegisteredMeters registeredMeters, Clock clock) {
       this.registeredMeters = registeredMeters;
       this.clock = clock;
@@ -205,6 +211,19 @@ public final class MetricRegistryImpl extends MetricRegistry {
       }
       return Collections.unmodifiableCollection(metrics);
     }
+
+    @Override
+    public synchronized ChangedMetrics getMetricsChangedSince(long cursor) {
+      long currentVersion = ++version;
+      List<Metric> metrics = new ArrayList<Metric>();
+      for (Meter meter : registeredMeters.getRegisteredMeters().values()) {
+        Metric metric = meter.getMetricChangedSince(clock, cursor, currentVersion);
+        if (metric != null) {
+          metrics.add(metric);
+        }
+      }
+      return ChangedMetrics.create(metrics, currentVersion);
+    }
   }
 
   MetricProducer getMetricProducer() {
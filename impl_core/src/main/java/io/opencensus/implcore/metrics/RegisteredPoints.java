@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.metrics;
+
+import io.opencensus.metrics.LabelValue;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The points of a {@link Meter}, by label values.
+ *
+ * <p>Adding or removing a point doesn't copy the other points and doesn't take a lock, so that
+ * registering many time series stays linear. {@link #values()} returns the points in the order they
+ * were added; points added or removed during the iteration may or may not be returned.
+ *
+ * @param <P> the type of the points.
+ */
+@ThreadSafe
+final class RegisteredPoints<P> {
+  private final ConcurrentMap<List<LabelValue>, Entry<P>> entries =
+      new ConcurrentHashMap<List<LabelValue>, Entry<P>>();
+  // The points by the order they were added, for the export.
+  private final ConcurrentSkipListMap<Long, P> orderedPoints = new ConcurrentSkipListMap<Long, P>();
+  private final AtomicLong nextSequence = new AtomicLong();
+
+  /**
+   * Returns the point with the given label values, or {@code null} if there is none.
+   *
+   * @param labelValues the label values of the point.
+   * @return the point with the given label values.
+   */
+  @Nullable
+  P get(List<LabelValue> labelValues) {
+    Entry<P> entry = entries.get(labelValues);
+    return entry == null ? null : entry.point;
+  }
+
+  /**
+   * Adds the point if there is no point with the same label values yet.
+   *
+   * @param labelValues the label values of the point, which must not be modified afterwards.
+   * @param point the point to add.
+   * @return the point already registered with the same label values, or {@code point} if it was
+   *     added.
+   */
+  P putIfAbsent(List<LabelValue> labelValues, P point) {
+    Entry<P> entry = new Entry<P>(nextSequence.getAndIncrement(), point);
+    Entry<P> existingEntry = entries.putIfAbsent(labelValues, entry);
+    if (existingEntry != null) {
+      return existingEntry.point;
+    }
+    orderedPoints.put(entry.sequence, point);
+    if (entries.get(labelValues) != entry) {
+      // The point was removed concurrently, before it was added to orderedPoints.
+      orderedPoints.remove(entry.sequence);
+    }
+    return point;
+  }
+
+  /**
+   * Removes the point with the given label values, if any.
+   *
+   * @param labelValues the label values of the point.
+   */
+  void remove(List<LabelValue> labelValues) {
+    Entry<P> entry = entries.remove(labelValues);
+    if (entry != null) {
+      orderedPoints.remove(entry.sequence);
+    }
+  }
+
+  /** Removes all the points. */
+  void clear() {
+    for (Map.Entry<List<LabelValue>, Entry<P>> entry : entries.entrySet()) {
+      if (entries.remove(entry.getKey(), entry.getValue())) {
+        orderedPoints.remove(entry.getValue().sequence);
+      }
+    }
+  }
+
+  /**
+   * Returns a live view of the points, in the order they were added.
+   *
+   * @return the points.
+   */
+  Collection<P> values() {
+    return orderedPoints.values();
+  }
+
+  private static final class Entry<P> {
+    private final long sequence;
+    private final P point;
+
+    private Entry(long sequence, P point) {
+      this.sequence = sequence;
+      this.point = point;
+    }
+  }
+}
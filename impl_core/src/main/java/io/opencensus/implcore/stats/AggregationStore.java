@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static io.opencensus.implcore.stats.RecordUtils.createAggregationMap;
+import static io.opencensus.implcore.stats.RecordUtils.createMutableAggregation;
+
+import com.google.common.collect.Maps;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.stats.AggregationData;
+import io.opencensus.stats.Measurement;
+import io.opencensus.stats.View;
+import io.opencensus.tags.TagValue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * Stores the aggregations of a cumulative view, by tag values.
+ *
+ * <p>By default each combination of tag values has its own {@link MutableAggregation}. Setting the
+ * {@value #STORE_PROPERTY} system property to {@value #SLAB} stores the aggregations in a {@link
+ * SlabAggregationStore} instead, which keeps the heap footprint of views with many tag combinations
+ * low.
+ */
+abstract class AggregationStore {
+
+  /** The name of the system property that selects the store of the cumulative views. */
+  static final String STORE_PROPERTY = "io.opencensus.implcore.stats.aggregationStore";
+
+  /** The value of {@link #STORE_PROPERTY} that selects the {@link SlabAggregationStore}. */
+  static final String SLAB = "slab";
+
+  // Updated by the store when it adds or clears rows, so that it can be read without the lock.
+  private final AtomicInteger rowCount = new AtomicInteger();
+
+  /**
+   * Returns whether the {@value #STORE_PROPERTY} system property selects the {@link
+   * SlabAggregationStore}.
+   */
+  static boolean isSlabStoreSelected() {
+    return SLAB.equals(System.getProperty(STORE_PROPERTY));
+  }
+
+  /**
+   * Creates an empty store for the given view.
+   *
+   * @param view the cumulative view.
+   * @param slab whether to create a {@link SlabAggregationStore}.
+   * @return an empty store.
+   */
+  static AggregationStore create(View view, boolean slab) {
+    return slab ? new SlabAggregationStore(view) : new HeapAggregationStore(view);
+  }
+
+  /** Records a value with the given tag values. */
+  abstract void record(
+      List</*@Nullable*/ TagValue> tagValues,
+      Measurement measurement,
+      Map<String, AttachmentValue> attachments,
+      Timestamp timestamp);
+
+  /** Returns a {@link MutableViewData.BoundRecorder} that records with the given tag values. */
+  abstract MutableViewData.BoundRecorder bind(List</*@Nullable*/ TagValue> tagValues);
+
+  /** Returns a snapshot of the aggregations, by tag values. */
+  abstract Map<List</*@Nullable*/ TagValue>, AggregationData> toAggregationMap();
+
+  /**
+   * Returns a snapshot of the aggregations, to be converted to {@link TimeSeries} without holding
+   * the lock that guards the store.
+   */
+  abstract Snapshot snapshot(Timestamp now);
+
+  /**
+   * Returns the number of combinations of tag values that have an aggregation. Unlike the other
+   * methods, this doesn't need the lock of the store.
+   */
+  final int getRowCount() {
+    return rowCount.get();
+  }
+
+  // Must be called by the store when it adds a row.
+  final void rowAdded() {
+    rowCount.incrementAndGet();
+  }
+
+  // Must be called by the store when it removes all the rows.
+  final void rowsCleared() {
+    rowCount.set(0);
+  }
+
+  /** Removes all the aggregations. */
+  abstract void clear();
+
+  /** The state of an {@link AggregationStore} at one point in time. */
+  abstract static class Snapshot {
+    /** Converts the snapshot to {@link TimeSeries}. This doesn't need the lock of the store. */
+    abstract List<TimeSeries> toTimeSeriesList(@javax.annotation.Nullable Timestamp startTime);
+  }
+
+  // Stores a MutableAggregation for each combination of tag values.
+  private static final class HeapAggregationStore extends AggregationStore {
+    private final View view;
+    private final Map<List</*@Nullable*/ TagValue>, MutableAggregation> tagValueAggregationMap =
+        Maps.newHashMap();
+
+    private HeapAggregationStore(View view) {
+      this.view = view;
+    }
+
+    private MutableAggregation getOrCreateAggregation(List</*@Nullable*/ TagValue> tagValues) {
+      MutableAggregation mutableAggregation = tagValueAggregationMap.get(tagValues);
+      if (mutableAggregation == null) {
+        mutableAggregation = createMutableAggregation(view.getAggregation(), view.getMeasure());
+        tagValueAggregationMap.put(tagValues, mutableAggregation);
+        rowAdded();
+      }
+      return mutableAggregation;
+    }
+
+    @Override
+    void record(
+        List</*@Nullable*/ TagValue> tagValues,
+        Measurement measurement,
+        Map<String, AttachmentValue> attachments,
+        Timestamp timestamp) {
+      getOrCreateAggregation(tagValues).add(measurement, attachments, timestamp);
+    }
+
+    @Override
+    MutableViewData.BoundRecorder bind(List</*@Nullable*/ TagValue> tagValues) {
+      final MutableAggregation boundAggregation = getOrCreateAggregation(tagValues);
+      return new MutableViewData.BoundRecorder() {
+        @Override
+        void record(Measurement measurement, Timestamp timestamp) {
+          boundAggregation.add(measurement, MutableViewData.NO_ATTACHMENTS, timestamp);
+        }
+      };
+    }
+
+    @Override
+    Map<List</*@Nullable*/ TagValue>, AggregationData> toAggregationMap() {
+      return createAggregationMap(tagValueAggregationMap, view.getMeasure());
+    }
+
+    // Only the primitive state of the aggregations is copied while the store is locked, the points
+    // are created from the copies afterwards.
+    @Override
+    Snapshot snapshot(final Timestamp now) {
+      int size = tagValueAggregationMap.size();
+      final List<List</*@Nullable*/ TagValue>> tagValuesList =
+          new ArrayList<List</*@Nullable*/ TagValue>>(size);
+      final List<MutableAggregation> aggregations = new ArrayList<MutableAggregation>(size);
+      for (Entry<List</*@Nullable*/ TagValue>, MutableAggregation> entry :
+          tagValueAggregationMap.entrySet()) {
+        tagValuesList.add(entry.getKey());
+        aggregations.add(entry.getValue().copy());
+      }
+      return new Snapshot() {
+        @Override
+        List<TimeSeries> toTimeSeriesList(@javax.annotation.Nullable Timestamp startTime) {
+          List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>(aggregations.size());
+          for (int i = 0; i < aggregations.size(); i++) {
+            List<LabelValue> labelValues = MetricUtils.tagValuesToLabelValues(tagValuesList.get(i));
+            timeSeriesList.add(
+                TimeSeries.createWithOnePoint(
+                    labelValues, aggregations.get(i).toPoint(now), startTime));
+          }
+          return timeSeriesList;
+        }
+      };
+    }
+
+    @Override
+    void clear() {
+      tagValueAggregationMap.clear();
+      rowsCleared();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import io.opencensus.stats.BoundMeasure;
+import io.opencensus.stats.BoundMeasure.BoundMeasureDouble;
+import io.opencensus.stats.BoundMeasure.BoundMeasureLong;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Measurement.MeasurementDouble;
+import io.opencensus.stats.Measurement.MeasurementLong;
+import io.opencensus.tags.TagContext;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** Implementations of {@link BoundMeasure}. */
+final class BoundMeasureImpl {
+  private static final Logger logger = Logger.getLogger(BoundMeasureImpl.class.getName());
+
+  private BoundMeasureImpl() {}
+
+  static BoundMeasureDouble create(
+      StatsManager statsManager, MeasureDouble measure, TagContext tags) {
+    return new BoundMeasureDoubleImpl(
+        statsManager, measure, new MeasureToViewMap.Binding(measure, tags));
+  }
+
+  static BoundMeasureLong create(StatsManager statsManager, MeasureLong measure, TagContext tags) {
+    return new BoundMeasureLongImpl(
+        statsManager, measure, new MeasureToViewMap.Binding(measure, tags));
+  }
+
+  private static void logNegativeValue() {
+    logger.log(Level.WARNING, "Dropping value, value to record must be non-negative.");
+  }
+
+  private static final class BoundMeasureDoubleImpl extends BoundMeasureDouble {
+    private final StatsManager statsManager;
+    private final MeasureDouble measure;
+    private final MeasureToViewMap.Binding binding;
+
+    private BoundMeasureDoubleImpl(
+        StatsManager statsManager, MeasureDouble measure, MeasureToViewMap.Binding binding) {
+      this.statsManager = statsManager;
+      this.measure = measure;
+      this.binding = binding;
+    }
+
+    @Override
+    public void record(double value) {
+      if (value < 0) {
+        logNegativeValue();
+        return;
+      }
+      statsManager.record(binding, MeasurementDouble.create(measure, value));
+    }
+  }
+
+  private static final class BoundMeasureLongImpl extends BoundMeasureLong {
+    private final StatsManager statsManager;
+    private final MeasureLong measure;
+    private final MeasureToViewMap.Binding binding;
+
+    private BoundMeasureLongImpl(
+        StatsManager statsManager, MeasureLong measure, MeasureToViewMap.Binding binding) {
+      this.statsManager = statsManager;
+      this.measure = measure;
+      this.binding = binding;
+    }
+
+    @Override
+    public void record(long value) {
+      if (value < 0) {
+        logNegativeValue();
+        return;
+      }
+      statsManager.record(binding, MeasurementLong.create(measure, value));
+    }
+  }
+}
@@ -25,9 +25,11 @@ import io.opencensus.common.Timestamp;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measurement;
 import io.opencensus.tags.TagValue;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*>>>
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -44,6 +46,8 @@ final class IntervalBucket {
   private final Measure measure;
   private final Map<List</*@Nullable*/ TagValue>, MutableAggregation> tagValueAggregationMap =
       Maps.newHashMap();
+  // Size of tagValueAggregationMap, which can be read without the lock of the stats.
+  private final AtomicInteger rowCount = new AtomicInteger();
 
   IntervalBucket(Timestamp start, Duration duration, Aggregation aggregation, Measure measure) {
     this.start = checkNotNull(start, "Start");
@@ -57,6 +61,10 @@ final class IntervalBucket {
     return tagValueAggregationMap;
   }
 
+  int getRowCount() {
+    return rowCount.get();
+  }
+
   Timestamp getStart() {
     return start;
   }
@@ -64,14 +72,15 @@ final class IntervalBucket {
   // Puts a new value into the internal MutableAggregations, based on the TagValues.
   void record(
       List</*@Nullable*/ TagValue> tagValues,
-      double value,
+      Measurement measurement,
       Map<String, AttachmentValue> attachments,
       Timestamp timestamp) {
     if (!tagValueAggregationMap.containsKey(tagValues)) {
       tagValueAggregationMap.put(
           tagValues, RecordUtils.createMutableAggregation(aggregation, measure));
+      rowCount.incrementAndGet();
     }
-    tagValueAggregationMap.get(tagValues).add(value, attachments, timestamp);
+    tagValueAggregationMap.get(tagValues).add(measurement, attachments, timestamp);
   }
 
   /*
@@ -92,5 +101,6 @@ final class IntervalBucket {
 
   void clearStats() {
     tagValueAggregationMap.clear();
+    rowCount.set(0);
   }
 }
@@ -16,7 +16,6 @@
 
 package io.opencensus.implcore.stats;
 
-import io.grpc.Context;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.stats.Measure.MeasureDouble;
 import io.opencensus.stats.Measure.MeasureLong;
@@ -69,7 +68,7 @@ final class MeasureMapImpl extends MeasureMap {
   @Override
   public void record() {
     // Use the context key directly, to avoid depending on the tags implementation.
-    record(ContextUtils.getValue(Context.current()));
+    record(ContextUtils.getCurrentValue());
   }
 
   @Override
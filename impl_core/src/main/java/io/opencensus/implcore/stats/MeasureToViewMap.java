@@ -22,7 +22,14 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import io.opencensus.common.Clock;
 import io.opencensus.common.Timestamp;
+import io.opencensus.common.ToLongFunction;
 import io.opencensus.implcore.internal.CurrentState.State;
+import io.opencensus.metrics.DerivedLongCumulative;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.stats.Measure;
@@ -39,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.GuardedBy;
 
 /*>>>
@@ -48,6 +56,34 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /** A class that stores a singleton map from {@code MeasureName}s to {@link MutableViewData}s. */
 @SuppressWarnings("deprecation")
 final class MeasureToViewMap {
+  private static final DerivedLongCumulative recordedMeasurements =
+      Metrics.getMetricRegistry()
+          .addDerivedLongCumulative(
+              "oc_stats_measurements_recorded",
+              MetricOptions.builder()
+                  .setDescription("Number of measurements recorded to registered measures.")
+                  .setUnit("1")
+                  .build());
+  private static final DerivedLongCumulative droppedMeasurements =
+      Metrics.getMetricRegistry()
+          .addDerivedLongCumulative(
+              "oc_stats_measurements_dropped",
+              MetricOptions.builder()
+                  .setDescription(
+                      "Number of measurements dropped because their measure has no view.")
+                  .setUnit("1")
+                  .build());
+  private static final DerivedLongGauge viewRows =
+      Metrics.getMetricRegistry()
+          .addDerivedLongGauge(
+              "oc_stats_view_rows",
+              MetricOptions.builder()
+                  .setDescription("Current number of tag value combinations stored by a view.")
+                  .setUnit("1")
+                  .setLabelKeys(
+                      Collections.singletonList(LabelKey.create("view", "The name of the view.")))
+                  .build());
+  private static final ReportViewRows REPORT_VIEW_ROWS = new ReportViewRows();
 
   /*
    * A synchronized singleton map that stores the one-to-many mapping from Measures
@@ -64,10 +100,37 @@ final class MeasureToViewMap {
   @GuardedBy("this")
   private final Map<String, Measure> registeredMeasures = Maps.newHashMap();
 
+  // Incremented whenever the MutableViewData.BoundRecorders of the Bindings must be resolved
+  // again, i.e. when a view is registered or the stats are cleared.
+  @GuardedBy("this")
+  private long generation;
+
+  // Incremented under the lock of this map, and read without it when the metrics are exported.
+  private final AtomicLong recordedMeasurementsCount = new AtomicLong();
+  private final AtomicLong droppedMeasurementsCount = new AtomicLong();
+
+  // Whether the cumulative views keep their aggregations in a SlabAggregationStore.
+  private final boolean slabAggregationStore;
+
   // Cached set of exported views. It must be set to null whenever a view is registered or
   // unregistered.
   @javax.annotation.Nullable private volatile Set<View> exportedViews;
 
+  MeasureToViewMap() {
+    this(AggregationStore.isSlabStoreSelected());
+  }
+
+  MeasureToViewMap(boolean slabAggregationStore) {
+    this.slabAggregationStore = slabAggregationStore;
+    // The time series of a previous MeasureToViewMap, if any, are replaced.
+    recordedMeasurements.removeTimeSeries(Collections.<LabelValue>emptyList());
+    recordedMeasurements.createTimeSeries(
+        Collections.<LabelValue>emptyList(), this, new ReportRecordedMeasurements());
+    droppedMeasurements.removeTimeSeries(Collections.<LabelValue>emptyList());
+    droppedMeasurements.createTimeSeries(
+        Collections.<LabelValue>emptyList(), this, new ReportDroppedMeasurements());
+  }
+
   /** Returns a {@link ViewData} corresponding to the given {@link View.Name}. */
   @javax.annotation.Nullable
   synchronized ViewData getView(View.Name viewName, Clock clock, State state) {
@@ -120,7 +183,30 @@ final class MeasureToViewMap {
       registeredMeasures.put(measure.getName(), measure);
     }
     Timestamp now = clock.now();
-    mutableMap.put(view.getMeasure().getName(), MutableViewData.create(view, now));
+    MutableViewData mutableViewData = MutableViewData.create(view, now, slabAggregationStore);
+    mutableMap.put(view.getMeasure().getName(), mutableViewData);
+    generation++;
+    List<LabelValue> labelValues =
+        Collections.singletonList(LabelValue.create(view.getName().asString()));
+    viewRows.removeTimeSeries(labelValues);
+    // The row count of the view is read without the lock of this map.
+    viewRows.createTimeSeries(labelValues, mutableViewData, REPORT_VIEW_ROWS);
+  }
+
+  /** Returns the number of measurements that were recorded to a registered measure. */
+  long getRecordedMeasurements() {
+    return recordedMeasurementsCount.get();
+  }
+
+  /** Returns the number of measurements that were dropped because their measure has no view. */
+  long getDroppedMeasurements() {
+    return droppedMeasurementsCount.get();
+  }
+
+  /** Returns the number of rows of the given view, or 0 if the view is not registered. */
+  synchronized int getViewRows(View.Name viewName) {
+    MutableViewData view = getMutableViewData(viewName);
+    return view == null ? 0 : view.getRowCount();
   }
 
   @javax.annotation.Nullable
@@ -153,30 +239,77 @@ final class MeasureToViewMap {
       Measure measure = measurement.getMeasure();
       if (!measure.equals(registeredMeasures.get(measure.getName()))) {
         // unregistered measures will be ignored.
+        droppedMeasurementsCount.incrementAndGet();
         continue;
       }
+      recordedMeasurementsCount.incrementAndGet();
       Collection<MutableViewData> viewDataCollection = mutableMap.get(measure.getName());
       for (MutableViewData viewData : viewDataCollection) {
-        viewData.record(
-            tags, RecordUtils.getDoubleValueFromMeasurement(measurement), timestamp, attachments);
+        viewData.record(tags, measurement, timestamp, attachments);
       }
     }
   }
 
-  synchronized List<Metric> getMetrics(Clock clock, State state) {
-    List<Metric> metrics = new ArrayList<Metric>();
+  // Records the value of a bound measure, resolving its tags for each view only when the views
+  // changed.
+  synchronized void record(Binding binding, Measurement measurement, Timestamp timestamp) {
+    if (binding.generation != generation) {
+      binding.recorders = bind(binding.measure, binding.tags);
+      binding.generation = generation;
+    }
+    if (binding.recorders.isEmpty()) {
+      droppedMeasurementsCount.incrementAndGet();
+      return;
+    }
+    recordedMeasurementsCount.incrementAndGet();
+    for (MutableViewData.BoundRecorder recorder : binding.recorders) {
+      recorder.record(measurement, timestamp);
+    }
+  }
+
+  @GuardedBy("this")
+  private List<MutableViewData.BoundRecorder> bind(Measure measure, TagContext tags) {
+    if (!measure.equals(registeredMeasures.get(measure.getName()))) {
+      // unregistered measures will be ignored.
+      return Collections.<MutableViewData.BoundRecorder>emptyList();
+    }
+    Collection<MutableViewData> viewDataCollection = mutableMap.get(measure.getName());
+    List<MutableViewData.BoundRecorder> recorders =
+        new ArrayList<MutableViewData.BoundRecorder>(viewDataCollection.size());
+    for (MutableViewData viewData : viewDataCollection) {
+      recorders.add(viewData.bind(tags));
+    }
+    return recorders;
+  }
+
+  // Only the snapshots of the views are taken with the lock held. Creating the TimeSeries, which
+  // is linear in the number of rows of the views, doesn't block recording.
+  List<Metric> getMetrics(Clock clock, State state) {
+    List<MutableViewData.MetricSnapshot> snapshots = snapshotMetrics(clock, state);
+    List<Metric> metrics = new ArrayList<Metric>(snapshots.size());
+    for (MutableViewData.MetricSnapshot snapshot : snapshots) {
+      metrics.add(snapshot.toMetric());
+    }
+    return metrics;
+  }
+
+  private synchronized List<MutableViewData.MetricSnapshot> snapshotMetrics(
+      Clock clock, State state) {
+    List<MutableViewData.MetricSnapshot> snapshots =
+        new ArrayList<MutableViewData.MetricSnapshot>();
     Timestamp now = clock.now();
     for (Entry<String, MutableViewData> entry : mutableMap.entries()) {
-      Metric metric = entry.getValue().toMetric(now, state);
-      if (metric != null) {
-        metrics.add(metric);
+      MutableViewData.MetricSnapshot snapshot = entry.getValue().snapshotMetric(now, state);
+      if (snapshot != null) {
+        snapshots.add(snapshot);
       }
     }
-    return metrics;
+    return snapshots;
   }
 
   // Clear stats for all the current MutableViewData
   synchronized void clearStats() {
+    generation++;
     for (Entry<String, Collection<MutableViewData>> entry : mutableMap.asMap().entrySet()) {
       for (MutableViewData mutableViewData : entry.getValue()) {
         mutableViewData.clearStats();
@@ -192,4 +325,47 @@ final class MeasureToViewMap {
       }
     }
   }
+
+  private static final class ReportRecordedMeasurements
+      implements ToLongFunction</*@Nullable*/ MeasureToViewMap> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ MeasureToViewMap measureToViewMap) {
+      return measureToViewMap == null ? 0 : measureToViewMap.getRecordedMeasurements();
+    }
+  }
+
+  private static final class ReportDroppedMeasurements
+      implements ToLongFunction</*@Nullable*/ MeasureToViewMap> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ MeasureToViewMap measureToViewMap) {
+      return measureToViewMap == null ? 0 : measureToViewMap.getDroppedMeasurements();
+    }
+  }
+
+  private static final class ReportViewRows
+      implements ToLongFunction</*@Nullable*/ MutableViewData> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ MutableViewData mutableViewData) {
+      return mutableViewData == null ? 0 : mutableViewData.getRowCount();
+    }
+  }
+
+  /**
+   * A {@link Measure} and {@link TagContext} recorded together many times. The tags are resolved
+   * for each view on the first record, and again after the views change.
+   */
+  static final class Binding {
+    private final Measure measure;
+    private final TagContext tags;
+
+    // Guarded by the MeasureToViewMap.
+    private long generation = -1;
+    private List<MutableViewData.BoundRecorder> recorders =
+        Collections.<MutableViewData.BoundRecorder>emptyList();
+
+    Binding(Measure measure, TagContext tags) {
+      this.measure = measure;
+      this.tags = tags;
+    }
+  }
 }
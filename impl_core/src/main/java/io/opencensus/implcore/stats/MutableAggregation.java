@@ -31,6 +31,9 @@ import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.AggregationData;
 import io.opencensus.stats.AggregationData.DistributionData;
 import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measurement;
+import io.opencensus.stats.Measurement.MeasurementDouble;
+import io.opencensus.stats.Measurement.MeasurementLong;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +55,35 @@ abstract class MutableAggregation {
    */
   abstract void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp);
 
+  /**
+   * Put a new long value into the MutableAggregation. The aggregations of {@code MeasureLong}s
+   * override this so that the value is never converted to a double.
+   *
+   * @param value new value to be added to population
+   * @param attachments the contextual information on an {@link Exemplar}
+   * @param timestamp the timestamp when the value is recorded
+   */
+  void add(long value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    add((double) value, attachments, timestamp);
+  }
+
+  /**
+   * Put the value of a {@link Measurement} into the MutableAggregation, keeping the values of
+   * {@code MeasurementLong}s as longs.
+   *
+   * @param measurement the measurement to be added to population
+   * @param attachments the contextual information on an {@link Exemplar}
+   * @param timestamp the timestamp when the value is recorded
+   */
+  final void add(
+      Measurement measurement, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    if (measurement instanceof MeasurementLong) {
+      add(((MeasurementLong) measurement).getValue(), attachments, timestamp);
+    } else {
+      add(((MeasurementDouble) measurement).getValue(), attachments, timestamp);
+    }
+  }
+
   // TODO(songya): remove this method once interval stats is completely removed.
   /**
    * Combine the internal values of this MutableAggregation and value of the given
@@ -69,8 +101,16 @@ abstract class MutableAggregation {
 
   abstract Point toPoint(Timestamp timestamp);
 
+  /**
+   * Returns a copy of the current state of this MutableAggregation, which later values don't
+   * change. It only copies primitive state, so that it's cheaper than {@link #toPoint}.
+   *
+   * @return a copy of this {@code MutableAggregation}.
+   */
+  abstract MutableAggregation copy();
+
   /** Calculate sum of doubles on aggregated {@code MeasureValue}s. */
-  static class MutableSumDouble extends MutableAggregation {
+  static final class MutableSumDouble extends MutableAggregation {
 
     private double sum = 0.0;
 
@@ -96,6 +136,13 @@ abstract class MutableAggregation {
       this.sum += fraction * ((MutableSumDouble) other).sum;
     }
 
+    @Override
+    MutableSumDouble copy() {
+      MutableSumDouble copy = new MutableSumDouble();
+      copy.sum = sum;
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
       return AggregationData.SumDataDouble.create(sum);
@@ -113,10 +160,13 @@ abstract class MutableAggregation {
   }
 
   /** Calculate sum of longs on aggregated {@code MeasureValue}s. */
-  static final class MutableSumLong extends MutableSumDouble {
-    private MutableSumLong() {
-      super();
-    }
+  static final class MutableSumLong extends MutableAggregation {
+
+    private long sum = 0;
+    // The fractions of the sums of other aggregations, rounded once when the sum is read.
+    private double fractionalSum = 0.0;
+
+    private MutableSumLong() {}
 
     /**
      * Construct a {@code MutableSumLong}.
@@ -127,14 +177,49 @@ abstract class MutableAggregation {
       return new MutableSumLong();
     }
 
+    @Override
+    void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      sum += Math.round(value);
+    }
+
+    @Override
+    void add(long value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      sum += value;
+    }
+
+    @Override
+    void combine(MutableAggregation other, double fraction) {
+      checkArgument(other instanceof MutableSumLong, "MutableSumLong expected.");
+      MutableSumLong otherSum = (MutableSumLong) other;
+      if (fraction == 1.0) {
+        this.sum += otherSum.sum;
+        this.fractionalSum += otherSum.fractionalSum;
+      } else {
+        this.fractionalSum += fraction * (otherSum.sum + otherSum.fractionalSum);
+      }
+    }
+
+    @Override
+    MutableSumLong copy() {
+      MutableSumLong copy = new MutableSumLong();
+      copy.sum = sum;
+      copy.fractionalSum = fractionalSum;
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
-      return AggregationData.SumDataLong.create(Math.round(getSum()));
+      return AggregationData.SumDataLong.create(getSum());
     }
 
     @Override
     Point toPoint(Timestamp timestamp) {
-      return Point.create(Value.longValue(Math.round(getSum())), timestamp);
+      return Point.create(Value.longValue(getSum()), timestamp);
+    }
+
+    @VisibleForTesting
+    long getSum() {
+      return sum + Math.round(fractionalSum);
     }
   }
 
@@ -159,12 +244,24 @@ abstract class MutableAggregation {
       count++;
     }
 
+    @Override
+    void add(long value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      count++;
+    }
+
     @Override
     void combine(MutableAggregation other, double fraction) {
       checkArgument(other instanceof MutableCount, "MutableCount expected.");
       this.count += Math.round(fraction * ((MutableCount) other).getCount());
     }
 
+    @Override
+    MutableCount copy() {
+      MutableCount copy = new MutableCount();
+      copy.count = count;
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
       return AggregationData.CountData.create(count);
@@ -216,6 +313,14 @@ abstract class MutableAggregation {
       this.sum += mutableMean.sum * fraction;
     }
 
+    @Override
+    MutableMean copy() {
+      MutableMean copy = new MutableMean();
+      copy.sum = sum;
+      copy.count = count;
+      return copy;
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     AggregationData toAggregationData() {
@@ -369,6 +474,20 @@ abstract class MutableAggregation {
       }
     }
 
+    @Override
+    MutableDistribution copy() {
+      MutableDistribution copy = new MutableDistribution(bucketBoundaries);
+      copy.sum = sum;
+      copy.mean = mean;
+      copy.count = count;
+      copy.sumOfSquaredDeviations = sumOfSquaredDeviations;
+      System.arraycopy(bucketCounts, 0, copy.bucketCounts, 0, bucketCounts.length);
+      if (exemplars != null && copy.exemplars != null) {
+        System.arraycopy(exemplars, 0, copy.exemplars, 0, exemplars.length);
+      }
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
       List<Long> boxedBucketCounts = new ArrayList<Long>();
@@ -446,7 +565,7 @@ abstract class MutableAggregation {
   }
 
   /** Calculate double last value on aggregated {@code MeasureValue}s. */
-  static class MutableLastValueDouble extends MutableAggregation {
+  static final class MutableLastValueDouble extends MutableAggregation {
 
     // Initial value that will get reset as soon as first value is added.
     private double lastValue = Double.NaN;
@@ -482,6 +601,14 @@ abstract class MutableAggregation {
       this.lastValue = otherValue.initialized ? otherValue.getLastValue() : this.lastValue;
     }
 
+    @Override
+    MutableLastValueDouble copy() {
+      MutableLastValueDouble copy = new MutableLastValueDouble();
+      copy.lastValue = lastValue;
+      copy.initialized = initialized;
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
       return AggregationData.LastValueDataDouble.create(lastValue);
@@ -499,10 +626,13 @@ abstract class MutableAggregation {
   }
 
   /** Calculate last long value on aggregated {@code MeasureValue}s. */
-  static final class MutableLastValueLong extends MutableLastValueDouble {
-    private MutableLastValueLong() {
-      super();
-    }
+  static final class MutableLastValueLong extends MutableAggregation {
+
+    private long lastValue = 0;
+    // Whether a value was recorded, so that combine() only overwrites with recorded values.
+    private boolean initialized = false;
+
+    private MutableLastValueLong() {}
 
     /**
      * Construct a {@code MutableLastValueLong}.
@@ -513,14 +643,47 @@ abstract class MutableAggregation {
       return new MutableLastValueLong();
     }
 
+    @Override
+    void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      add(Math.round(value), attachments, timestamp);
+    }
+
+    @Override
+    void add(long value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      lastValue = value;
+      initialized = true;
+    }
+
+    @Override
+    void combine(MutableAggregation other, double fraction) {
+      checkArgument(other instanceof MutableLastValueLong, "MutableLastValueLong expected.");
+      MutableLastValueLong otherValue = (MutableLastValueLong) other;
+      // Assume other is always newer than this, because we combined interval buckets in time order.
+      // If there's a newer value, overwrite current value.
+      this.lastValue = otherValue.initialized ? otherValue.getLastValue() : this.lastValue;
+    }
+
+    @Override
+    MutableLastValueLong copy() {
+      MutableLastValueLong copy = new MutableLastValueLong();
+      copy.lastValue = lastValue;
+      copy.initialized = initialized;
+      return copy;
+    }
+
     @Override
     AggregationData toAggregationData() {
-      return AggregationData.LastValueDataLong.create(Math.round(getLastValue()));
+      return AggregationData.LastValueDataLong.create(lastValue);
     }
 
     @Override
     Point toPoint(Timestamp timestamp) {
-      return Point.create(Value.longValue(Math.round(getLastValue())), timestamp);
+      return Point.create(Value.longValue(lastValue), timestamp);
+    }
+
+    @VisibleForTesting
+    long getLastValue() {
+      return lastValue;
     }
   }
 }
@@ -32,22 +32,19 @@ import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
 import io.opencensus.implcore.internal.CheckerFrameworkUtils;
 import io.opencensus.implcore.internal.CurrentState.State;
-import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricDescriptor;
 import io.opencensus.metrics.export.MetricDescriptor.Type;
-import io.opencensus.metrics.export.Point;
-import io.opencensus.metrics.export.TimeSeries;
 import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.AggregationData;
 import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measurement;
 import io.opencensus.stats.View;
 import io.opencensus.stats.ViewData;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagValue;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +60,9 @@ abstract class MutableViewData {
 
   @VisibleForTesting static final Timestamp ZERO_TIMESTAMP = Timestamp.create(0, 0);
 
+  static final Map<String, AttachmentValue> NO_ATTACHMENTS =
+      Collections.<String, AttachmentValue>emptyMap();
+
   private final View view;
 
   private MutableViewData(View view) {
@@ -77,9 +77,23 @@ abstract class MutableViewData {
    * @return a {@code MutableViewData}.
    */
   static MutableViewData create(final View view, final Timestamp start) {
+    return create(view, start, false);
+  }
+
+  /**
+   * Constructs a new {@link MutableViewData}.
+   *
+   * @param view the {@code View} linked with this {@code MutableViewData}.
+   * @param start the start {@code Timestamp}.
+   * @param slabAggregationStore whether a cumulative view keeps its aggregations in a {@link
+   *     SlabAggregationStore}.
+   * @return a {@code MutableViewData}.
+   */
+  static MutableViewData create(
+      final View view, final Timestamp start, final boolean slabAggregationStore) {
     return view.getWindow()
         .match(
-            new CreateCumulative(view, start),
+            new CreateCumulative(view, start, slabAggregationStore),
             new CreateInterval(view, start),
             Functions.<MutableViewData>throwAssertionError());
   }
@@ -89,19 +103,35 @@ abstract class MutableViewData {
     return view;
   }
 
+  /**
+   * Returns the state of this view as a {@link MetricSnapshot}, or {@code null} if the view is not
+   * exported as a {@link Metric}.
+   */
   @javax.annotation.Nullable
-  abstract Metric toMetric(Timestamp now, State state);
+  abstract MetricSnapshot snapshotMetric(Timestamp now, State state);
 
   /** Record stats with the given tags. */
   abstract void record(
       TagContext context,
-      double value,
+      Measurement measurement,
       Timestamp timestamp,
       Map<String, AttachmentValue> attachments);
 
+  /**
+   * Resolves the given tags for this view, and returns a {@link BoundRecorder} that records stats
+   * with them. The {@code BoundRecorder} must not be used after {@link #clearStats()}.
+   */
+  abstract BoundRecorder bind(TagContext context);
+
   /** Convert this {@link MutableViewData} to {@link ViewData}. */
   abstract ViewData toViewData(Timestamp now, State state);
 
+  /**
+   * Returns the number of combinations of tag values that this view is currently storing. Unlike
+   * the other methods, this doesn't need the lock of the stats.
+   */
+  abstract int getRowCount();
+
   // Clear recorded stats.
   abstract void clearStats();
 
@@ -109,17 +139,46 @@ abstract class MutableViewData {
   // bucket list (for InternalMutableViewData).
   abstract void resumeStatsCollection(Timestamp now);
 
+  /**
+   * A view captured by {@link #snapshotMetric}. It is converted to a {@link Metric} without holding
+   * the lock that guards the {@code MutableViewData}, so that recording isn't blocked while the
+   * {@code TimeSeries} are created.
+   */
+  static final class MetricSnapshot {
+    private final MetricDescriptor metricDescriptor;
+    @javax.annotation.Nullable private final Timestamp startTime;
+    private final AggregationStore.Snapshot snapshot;
+
+    private MetricSnapshot(
+        MetricDescriptor metricDescriptor,
+        @javax.annotation.Nullable Timestamp startTime,
+        AggregationStore.Snapshot snapshot) {
+      this.metricDescriptor = metricDescriptor;
+      this.startTime = startTime;
+      this.snapshot = snapshot;
+    }
+
+    Metric toMetric() {
+      return Metric.create(metricDescriptor, snapshot.toTimeSeriesList(startTime));
+    }
+  }
+
+  /** Records stats with tags that were already resolved for a view. */
+  abstract static class BoundRecorder {
+    abstract void record(Measurement measurement, Timestamp timestamp);
+  }
+
   private static final class CumulativeMutableViewData extends MutableViewData {
 
     private Timestamp start;
-    private final Map<List</*@Nullable*/ TagValue>, MutableAggregation> tagValueAggregationMap =
-        Maps.newHashMap();
+    private final AggregationStore aggregationStore;
     // Cache a MetricDescriptor to avoid converting View to MetricDescriptor in the future.
     private final MetricDescriptor metricDescriptor;
 
-    private CumulativeMutableViewData(View view, Timestamp start) {
+    private CumulativeMutableViewData(View view, Timestamp start, boolean slabAggregationStore) {
       super(view);
       this.start = start;
+      this.aggregationStore = AggregationStore.create(view, slabAggregationStore);
       MetricDescriptor metricDescriptor = MetricUtils.viewToMetricDescriptor(view);
       if (metricDescriptor == null) {
         throw new AssertionError(
@@ -131,37 +190,30 @@ abstract class MutableViewData {
 
     @javax.annotation.Nullable
     @Override
-    Metric toMetric(Timestamp now, State state) {
+    MetricSnapshot snapshotMetric(Timestamp now, State state) {
       if (state == State.DISABLED) {
         return null;
       }
       Type type = metricDescriptor.getType();
       @javax.annotation.Nullable
       Timestamp startTime = type == Type.GAUGE_INT64 || type == Type.GAUGE_DOUBLE ? null : start;
-      List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
-      for (Entry<List</*@Nullable*/ TagValue>, MutableAggregation> entry :
-          tagValueAggregationMap.entrySet()) {
-        List<LabelValue> labelValues = MetricUtils.tagValuesToLabelValues(entry.getKey());
-        Point point = entry.getValue().toPoint(now);
-        timeSeriesList.add(TimeSeries.createWithOnePoint(labelValues, point, startTime));
-      }
-      return Metric.create(metricDescriptor, timeSeriesList);
+      return new MetricSnapshot(metricDescriptor, startTime, aggregationStore.snapshot(now));
     }
 
     @Override
     void record(
         TagContext context,
-        double value,
+        Measurement measurement,
         Timestamp timestamp,
         Map<String, AttachmentValue> attachments) {
       List</*@Nullable*/ TagValue> tagValues =
           getTagValues(getTagMap(context), super.view.getColumns());
-      if (!tagValueAggregationMap.containsKey(tagValues)) {
-        tagValueAggregationMap.put(
-            tagValues,
-            createMutableAggregation(super.view.getAggregation(), super.getView().getMeasure()));
-      }
-      tagValueAggregationMap.get(tagValues).add(value, attachments, timestamp);
+      aggregationStore.record(tagValues, measurement, attachments, timestamp);
+    }
+
+    @Override
+    BoundRecorder bind(TagContext context) {
+      return aggregationStore.bind(getTagValues(getTagMap(context), super.view.getColumns()));
     }
 
     @Override
@@ -169,7 +221,7 @@ abstract class MutableViewData {
       if (state == State.ENABLED) {
         return ViewData.create(
             super.view,
-            createAggregationMap(tagValueAggregationMap, super.view.getMeasure()),
+            aggregationStore.toAggregationMap(),
             ViewData.AggregationWindowData.CumulativeData.create(start, now));
       } else {
         // If Stats state is DISABLED, return an empty ViewData.
@@ -180,9 +232,14 @@ abstract class MutableViewData {
       }
     }
 
+    @Override
+    int getRowCount() {
+      return aggregationStore.getRowCount();
+    }
+
     @Override
     void clearStats() {
-      tagValueAggregationMap.clear();
+      aggregationStore.clear();
     }
 
     @Override
@@ -230,6 +287,8 @@ abstract class MutableViewData {
     private static final int N = 4; // IntervalView has N + 1 buckets
 
     private final ArrayDeque<IntervalBucket> buckets = new ArrayDeque<IntervalBucket>();
+    // The last bucket, published for getRowCount() which doesn't hold the lock of the stats.
+    @javax.annotation.Nullable private volatile IntervalBucket currentBucket;
 
     private final Duration totalDuration; // Duration of the whole interval.
     private final Duration bucketDuration; // Duration of a single bucket (totalDuration / N)
@@ -247,14 +306,14 @@ abstract class MutableViewData {
 
     @javax.annotation.Nullable
     @Override
-    Metric toMetric(Timestamp now, State state) {
+    MetricSnapshot snapshotMetric(Timestamp now, State state) {
       return null;
     }
 
     @Override
     void record(
         TagContext context,
-        double value,
+        Measurement measurement,
         Timestamp timestamp,
         Map<String, AttachmentValue> attachments) {
       List</*@Nullable*/ TagValue> tagValues =
@@ -262,7 +321,22 @@ abstract class MutableViewData {
       refreshBucketList(timestamp);
       // It is always the last bucket that does the recording.
       CheckerFrameworkUtils.castNonNull(buckets.peekLast())
-          .record(tagValues, value, attachments, timestamp);
+          .record(tagValues, measurement, attachments, timestamp);
+    }
+
+    @Override
+    BoundRecorder bind(TagContext context) {
+      final List</*@Nullable*/ TagValue> tagValues =
+          getTagValues(getTagMap(context), super.view.getColumns());
+      return new BoundRecorder() {
+        @Override
+        void record(Measurement measurement, Timestamp timestamp) {
+          refreshBucketList(timestamp);
+          // It is always the last bucket that does the recording.
+          CheckerFrameworkUtils.castNonNull(buckets.peekLast())
+              .record(tagValues, measurement, NO_ATTACHMENTS, timestamp);
+        }
+      };
     }
 
     @Override
@@ -282,6 +356,13 @@ abstract class MutableViewData {
       }
     }
 
+    // Only the rows of the current bucket are counted, the other buckets are no longer recorded to.
+    @Override
+    int getRowCount() {
+      IntervalBucket bucket = currentBucket;
+      return bucket == null ? 0 : bucket.getRowCount();
+    }
+
     @Override
     void clearStats() {
       for (IntervalBucket bucket : buckets) {
@@ -349,6 +430,7 @@ abstract class MutableViewData {
       while (buckets.size() > N + 1) {
         buckets.pollFirst();
       }
+      currentBucket = buckets.peekLast();
     }
 
     // Combine stats within each bucket, aggregate stats by tag values, and return the mapping from
@@ -444,15 +526,17 @@ abstract class MutableViewData {
       implements Function<View.AggregationWindow.Cumulative, MutableViewData> {
     @Override
     public MutableViewData apply(View.AggregationWindow.Cumulative arg) {
-      return new CumulativeMutableViewData(view, start);
+      return new CumulativeMutableViewData(view, start, slabAggregationStore);
     }
 
     private final View view;
     private final Timestamp start;
+    private final boolean slabAggregationStore;
 
-    private CreateCumulative(View view, Timestamp start) {
+    private CreateCumulative(View view, Timestamp start, boolean slabAggregationStore) {
       this.view = view;
       this.start = start;
+      this.slabAggregationStore = slabAggregationStore;
     }
   }
 
@@ -39,9 +39,6 @@ import io.opencensus.stats.AggregationData;
 import io.opencensus.stats.Measure;
 import io.opencensus.stats.Measure.MeasureDouble;
 import io.opencensus.stats.Measure.MeasureLong;
-import io.opencensus.stats.Measurement;
-import io.opencensus.stats.Measurement.MeasurementDouble;
-import io.opencensus.stats.Measurement.MeasurementLong;
 import io.opencensus.tags.InternalUtils;
 import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
@@ -96,7 +93,9 @@ final class RecordUtils {
     // Every view aggregates every measure. This is similar to doing a GROUPBY view’s keys.
     for (int i = 0; i < columns.size(); ++i) {
       TagKey tagKey = columns.get(i);
-      if (!tags.containsKey(tagKey)) {
+      // The map of a TagMapImpl is backed by a sorted array, so each lookup is a binary search.
+      TagValueWithMetadata valueWithMetadata = tags.get(tagKey);
+      if (valueWithMetadata == null) {
         @javax.annotation.Nullable TagValue tagValue = UNKNOWN_TAG_VALUE;
         TagKey[] newKeys = RPC_TAG_MAPPINGS.get(tagKey);
         if (newKeys != null) {
@@ -104,7 +103,7 @@ final class RecordUtils {
         }
         tagValues.add(tagValue);
       } else {
-        tagValues.add(tags.get(tagKey).getTagValue());
+        tagValues.add(valueWithMetadata.getTagValue());
       }
     }
     return tagValues;
@@ -167,32 +166,8 @@ final class RecordUtils {
     return map;
   }
 
-  static double getDoubleValueFromMeasurement(Measurement measurement) {
-    return measurement.match(
-        GET_VALUE_FROM_MEASUREMENT_DOUBLE,
-        GET_VALUE_FROM_MEASUREMENT_LONG,
-        Functions.<Double>throwAssertionError());
-  }
-
   // static inner Function classes
 
-  private static final Function<MeasurementDouble, Double> GET_VALUE_FROM_MEASUREMENT_DOUBLE =
-      new Function<MeasurementDouble, Double>() {
-        @Override
-        public Double apply(MeasurementDouble arg) {
-          return arg.getValue();
-        }
-      };
-
-  private static final Function<MeasurementLong, Double> GET_VALUE_FROM_MEASUREMENT_LONG =
-      new Function<MeasurementLong, Double>() {
-        @Override
-        public Double apply(MeasurementLong arg) {
-          // TODO: consider checking truncation here.
-          return (double) arg.getValue();
-        }
-      };
-
   private static final class CreateMutableSumDouble
       implements Function<MeasureDouble, MutableAggregation> {
     @Override
@@ -0,0 +1,464 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.metrics.data.Exemplar;
+import io.opencensus.metrics.export.Distribution;
+import io.opencensus.metrics.export.Distribution.BucketOptions;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.AggregationData;
+import io.opencensus.stats.AggregationData.DistributionData;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Measurement;
+import io.opencensus.stats.Measurement.MeasurementDouble;
+import io.opencensus.stats.Measurement.MeasurementLong;
+import io.opencensus.stats.View;
+import io.opencensus.tags.TagValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * An {@link AggregationStore} that keeps the aggregations in large primitive arrays instead of one
+ * {@link MutableAggregation} per combination of tag values.
+ *
+ * <p>Each combination of tag values gets a row id when it is first recorded. The cells of a row are
+ * a fixed number of longs and doubles in slabs of {@link #ROWS_PER_SLAB} rows, so the number of
+ * heap objects, and the work of the garbage collector, doesn't grow with the number of rows beyond
+ * the keys of the row index. {@link AggregationData} and {@link Point}s are only created when the
+ * view is read or exported.
+ *
+ * <p>Exemplars are kept separately, only for the rows that were recorded with attachments.
+ */
+@SuppressWarnings("deprecation")
+final class SlabAggregationStore extends AggregationStore {
+  private static final int SLAB_SHIFT = 10;
+  static final int ROWS_PER_SLAB = 1 << SLAB_SHIFT;
+  private static final int ROW_MASK = ROWS_PER_SLAB - 1;
+  private static final int INITIAL_ROWS = 16;
+
+  private enum Kind {
+    SUM_DOUBLE,
+    SUM_LONG,
+    COUNT,
+    MEAN,
+    DISTRIBUTION,
+    LAST_VALUE_DOUBLE,
+    LAST_VALUE_LONG
+  }
+
+  private final Kind kind;
+  // The number of long and double cells in each row:
+  // SUM_LONG, COUNT, LAST_VALUE_LONG: the value.
+  // SUM_DOUBLE, LAST_VALUE_DOUBLE: the value.
+  // MEAN: the count; the sum.
+  // DISTRIBUTION: the count, then the bucket counts; the mean and the sum of squared deviations.
+  private final int longsPerRow;
+  private final int doublesPerRow;
+  private final double[] bucketBoundaries;
+  private final BucketOptions bucketOptions;
+
+  private final Map<List</*@Nullable*/ TagValue>, Integer> rowIds =
+      new HashMap<List</*@Nullable*/ TagValue>, Integer>();
+  // The tag values of each row, by row id. Slots below numRows are never written again, so that
+  // snapshots can keep reading them; growing or clearing the store replaces the array.
+  private Object[] rowTagValues = new Object[INITIAL_ROWS];
+  private final List<long[]> longSlabs = new ArrayList<long[]>();
+  private final List<double[]> doubleSlabs = new ArrayList<double[]>();
+  // Only for distributions with a histogram, and only the rows recorded with attachments.
+  private final Map<Integer, Exemplar[]> exemplars = new HashMap<Integer, Exemplar[]>();
+  private int numRows;
+
+  SlabAggregationStore(View view) {
+    Aggregation aggregation = view.getAggregation();
+    boolean isLong = view.getMeasure() instanceof MeasureLong;
+    List<Double> boundaries = Collections.<Double>emptyList();
+    if (aggregation instanceof Aggregation.Sum) {
+      kind = isLong ? Kind.SUM_LONG : Kind.SUM_DOUBLE;
+    } else if (aggregation instanceof Aggregation.Count) {
+      kind = Kind.COUNT;
+    } else if (aggregation instanceof Aggregation.Mean) {
+      kind = Kind.MEAN;
+    } else if (aggregation instanceof Aggregation.Distribution) {
+      kind = Kind.DISTRIBUTION;
+      boundaries = ((Aggregation.Distribution) aggregation).getBucketBoundaries().getBoundaries();
+    } else if (aggregation instanceof Aggregation.LastValue) {
+      kind = isLong ? Kind.LAST_VALUE_LONG : Kind.LAST_VALUE_DOUBLE;
+    } else {
+      throw new AssertionError("Unexpected aggregation: " + aggregation);
+    }
+    bucketBoundaries = new double[boundaries.size()];
+    for (int i = 0; i < bucketBoundaries.length; i++) {
+      bucketBoundaries[i] = boundaries.get(i);
+    }
+    bucketOptions = BucketOptions.explicitOptions(boundaries);
+    switch (kind) {
+      case SUM_LONG:
+      case COUNT:
+      case LAST_VALUE_LONG:
+        longsPerRow = 1;
+        doublesPerRow = 0;
+        break;
+      case SUM_DOUBLE:
+      case LAST_VALUE_DOUBLE:
+        longsPerRow = 0;
+        doublesPerRow = 1;
+        break;
+      case MEAN:
+        longsPerRow = 1;
+        doublesPerRow = 1;
+        break;
+      default:
+        longsPerRow = 2 + bucketBoundaries.length;
+        doublesPerRow = 2;
+        break;
+    }
+  }
+
+  // Returns the id of the row of the given tag values, adding a row if there is none.
+  private int getOrCreateRow(List</*@Nullable*/ TagValue> tagValues) {
+    Integer rowId = rowIds.get(tagValues);
+    if (rowId != null) {
+      return rowId;
+    }
+    int row = numRows++;
+    rowAdded();
+    if ((row >>> SLAB_SHIFT) == longSlabs.size()) {
+      longSlabs.add(new long[ROWS_PER_SLAB * longsPerRow]);
+      doubleSlabs.add(new double[ROWS_PER_SLAB * doublesPerRow]);
+    }
+    if (kind == Kind.LAST_VALUE_DOUBLE) {
+      // Same initial value as MutableLastValueDouble.
+      doubleSlab(row)[doubleOffset(row)] = Double.NaN;
+    }
+    if (row == rowTagValues.length) {
+      rowTagValues = Arrays.copyOf(rowTagValues, row * 2);
+    }
+    rowTagValues[row] = tagValues;
+    rowIds.put(tagValues, row);
+    return row;
+  }
+
+  private long[] longSlab(int row) {
+    return longSlabs.get(row >>> SLAB_SHIFT);
+  }
+
+  private int longOffset(int row) {
+    return (row & ROW_MASK) * longsPerRow;
+  }
+
+  private double[] doubleSlab(int row) {
+    return doubleSlabs.get(row >>> SLAB_SHIFT);
+  }
+
+  private int doubleOffset(int row) {
+    return (row & ROW_MASK) * doublesPerRow;
+  }
+
+  private void add(
+      int row,
+      Measurement measurement,
+      Map<String, AttachmentValue> attachments,
+      Timestamp timestamp) {
+    if (measurement instanceof MeasurementLong) {
+      addLong(row, ((MeasurementLong) measurement).getValue(), attachments, timestamp);
+    } else {
+      addDouble(row, ((MeasurementDouble) measurement).getValue(), attachments, timestamp);
+    }
+  }
+
+  private void addLong(
+      int row, long value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    switch (kind) {
+      case SUM_LONG:
+        longSlab(row)[longOffset(row)] += value;
+        break;
+      case COUNT:
+        longSlab(row)[longOffset(row)]++;
+        break;
+      case LAST_VALUE_LONG:
+        longSlab(row)[longOffset(row)] = value;
+        break;
+      default:
+        addDouble(row, (double) value, attachments, timestamp);
+        break;
+    }
+  }
+
+  private void addDouble(
+      int row, double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    long[] longs = longSlab(row);
+    int longOffset = longOffset(row);
+    double[] doubles = doubleSlab(row);
+    int doubleOffset = doubleOffset(row);
+    switch (kind) {
+      case SUM_DOUBLE:
+        doubles[doubleOffset] += value;
+        break;
+      case SUM_LONG:
+        longs[longOffset] += Math.round(value);
+        break;
+      case COUNT:
+        longs[longOffset]++;
+        break;
+      case MEAN:
+        longs[longOffset]++;
+        doubles[doubleOffset] += value;
+        break;
+      case LAST_VALUE_DOUBLE:
+        doubles[doubleOffset] = value;
+        break;
+      case LAST_VALUE_LONG:
+        longs[longOffset] = Math.round(value);
+        break;
+      case DISTRIBUTION:
+        addToDistribution(
+            row, longs, longOffset, doubles, doubleOffset, value, attachments, timestamp);
+        break;
+    }
+  }
+
+  private void addToDistribution(
+      int row,
+      long[] longs,
+      int longOffset,
+      double[] doubles,
+      int doubleOffset,
+      double value,
+      Map<String, AttachmentValue> attachments,
+      Timestamp timestamp) {
+    long count = ++longs[longOffset];
+    // Welford's method, as in MutableDistribution.
+    double mean = doubles[doubleOffset];
+    double deltaFromMean = value - mean;
+    mean += deltaFromMean / count;
+    doubles[doubleOffset] = mean;
+    doubles[doubleOffset + 1] += deltaFromMean * (value - mean);
+
+    int bucket = getBucket(value);
+    longs[longOffset + 1 + bucket]++;
+
+    // No implicit recording for exemplars - if there are no attachments (contextual information),
+    // don't record exemplars.
+    if (!attachments.isEmpty() && bucketBoundaries.length > 0) {
+      Exemplar[] rowExemplars = exemplars.get(row);
+      if (rowExemplars == null) {
+        rowExemplars = new Exemplar[bucketBoundaries.length + 1];
+        exemplars.put(row, rowExemplars);
+      }
+      rowExemplars[bucket] = Exemplar.create(value, timestamp, attachments);
+    }
+  }
+
+  // Returns the index of the first boundary greater than the value.
+  private int getBucket(double value) {
+    int low = 0;
+    int high = bucketBoundaries.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (value < bucketBoundaries[mid]) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  void record(
+      List</*@Nullable*/ TagValue> tagValues,
+      Measurement measurement,
+      Map<String, AttachmentValue> attachments,
+      Timestamp timestamp) {
+    add(getOrCreateRow(tagValues), measurement, attachments, timestamp);
+  }
+
+  @Override
+  MutableViewData.BoundRecorder bind(List</*@Nullable*/ TagValue> tagValues) {
+    final int row = getOrCreateRow(tagValues);
+    return new MutableViewData.BoundRecorder() {
+      @Override
+      void record(Measurement measurement, Timestamp timestamp) {
+        add(row, measurement, MutableViewData.NO_ATTACHMENTS, timestamp);
+      }
+    };
+  }
+
+  @Override
+  Map<List</*@Nullable*/ TagValue>, AggregationData> toAggregationMap() {
+    Map<List</*@Nullable*/ TagValue>, AggregationData> map =
+        new HashMap<List</*@Nullable*/ TagValue>, AggregationData>(rowIds.size() * 2);
+    for (Entry<List</*@Nullable*/ TagValue>, Integer> entry : rowIds.entrySet()) {
+      map.put(entry.getKey(), toAggregationData(entry.getValue()));
+    }
+    return map;
+  }
+
+  // Copies the used part of the slabs, which takes about as long as copying the same amount of
+  // memory. All the export objects are created by the snapshot.
+  @Override
+  Snapshot snapshot(final Timestamp now) {
+    final int rows = numRows;
+    final Object[] tagValues = rowTagValues;
+    final long[][] longs = new long[longSlabs.size()][];
+    final double[][] doubles = new double[doubleSlabs.size()][];
+    for (int i = 0; i < longs.length; i++) {
+      int slabRows = Math.min(rows - i * ROWS_PER_SLAB, ROWS_PER_SLAB);
+      longs[i] = Arrays.copyOf(longSlabs.get(i), slabRows * longsPerRow);
+      doubles[i] = Arrays.copyOf(doubleSlabs.get(i), slabRows * doublesPerRow);
+    }
+    final Map<Integer, Exemplar[]> exemplarsCopy =
+        new HashMap<Integer, Exemplar[]>(exemplars.size() * 2);
+    for (Entry<Integer, Exemplar[]> entry : exemplars.entrySet()) {
+      exemplarsCopy.put(entry.getKey(), entry.getValue().clone());
+    }
+    return new Snapshot() {
+      @Override
+      List<TimeSeries> toTimeSeriesList(@javax.annotation.Nullable Timestamp startTime) {
+        List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>(rows);
+        for (int row = 0; row < rows; row++) {
+          @SuppressWarnings("unchecked")
+          List</*@Nullable*/ TagValue> rowTags = (List</*@Nullable*/ TagValue>) tagValues[row];
+          Point point =
+              toPoint(
+                  longs[row >>> SLAB_SHIFT],
+                  longOffset(row),
+                  doubles[row >>> SLAB_SHIFT],
+                  doubleOffset(row),
+                  exemplarsCopy.get(row),
+                  now);
+          timeSeriesList.add(
+              TimeSeries.createWithOnePoint(
+                  MetricUtils.tagValuesToLabelValues(rowTags), point, startTime));
+        }
+        return timeSeriesList;
+      }
+    };
+  }
+
+  @Override
+  void clear() {
+    rowIds.clear();
+    rowTagValues = new Object[INITIAL_ROWS];
+    longSlabs.clear();
+    doubleSlabs.clear();
+    exemplars.clear();
+    numRows = 0;
+    rowsCleared();
+  }
+
+  private AggregationData toAggregationData(int row) {
+    long[] longs = longSlab(row);
+    int longOffset = longOffset(row);
+    double[] doubles = doubleSlab(row);
+    int doubleOffset = doubleOffset(row);
+    switch (kind) {
+      case SUM_DOUBLE:
+        return AggregationData.SumDataDouble.create(doubles[doubleOffset]);
+      case SUM_LONG:
+        return AggregationData.SumDataLong.create(longs[longOffset]);
+      case COUNT:
+        return AggregationData.CountData.create(longs[longOffset]);
+      case MEAN:
+        long count = longs[longOffset];
+        return AggregationData.MeanData.create(
+            count == 0 ? 0 : doubles[doubleOffset] / count, count);
+      case LAST_VALUE_DOUBLE:
+        return AggregationData.LastValueDataDouble.create(doubles[doubleOffset]);
+      case LAST_VALUE_LONG:
+        return AggregationData.LastValueDataLong.create(longs[longOffset]);
+      default:
+        List<Long> bucketCounts = new ArrayList<Long>(bucketBoundaries.length + 1);
+        for (int i = 0; i <= bucketBoundaries.length; i++) {
+          bucketCounts.add(longs[longOffset + 1 + i]);
+        }
+        List<Exemplar> exemplarList = new ArrayList<Exemplar>();
+        Exemplar[] rowExemplars = exemplars.get(row);
+        if (rowExemplars != null) {
+          for (Exemplar exemplar : rowExemplars) {
+            if (exemplar != null) {
+              exemplarList.add(exemplar);
+            }
+          }
+        }
+        return DistributionData.create(
+            doubles[doubleOffset],
+            longs[longOffset],
+            doubles[doubleOffset + 1],
+            bucketCounts,
+            exemplarList);
+    }
+  }
+
+  // Only reads the given cells and the final fields, so that it can be used by snapshots.
+  private Point toPoint(
+      long[] longs,
+      int longOffset,
+      double[] doubles,
+      int doubleOffset,
+      @javax.annotation.Nullable Exemplar[] rowExemplars,
+      Timestamp timestamp) {
+    switch (kind) {
+      case SUM_DOUBLE:
+      case LAST_VALUE_DOUBLE:
+        return Point.create(Value.doubleValue(doubles[doubleOffset]), timestamp);
+      case SUM_LONG:
+      case COUNT:
+      case LAST_VALUE_LONG:
+        return Point.create(Value.longValue(longs[longOffset]), timestamp);
+      case MEAN:
+        long count = longs[longOffset];
+        return Point.create(
+            Value.doubleValue(count == 0 ? 0 : doubles[doubleOffset] / count), timestamp);
+      default:
+        List<Distribution.Bucket> buckets = new ArrayList<Distribution.Bucket>();
+        for (int i = 0; i <= bucketBoundaries.length; i++) {
+          long bucketCount = longs[longOffset + 1 + i];
+          @javax.annotation.Nullable
+          Exemplar exemplar = rowExemplars == null ? null : rowExemplars[i];
+          buckets.add(
+              exemplar == null
+                  ? Distribution.Bucket.create(bucketCount)
+                  : Distribution.Bucket.create(bucketCount, exemplar));
+        }
+        long distributionCount = longs[longOffset];
+        return Point.create(
+            Value.distributionValue(
+                Distribution.create(
+                    distributionCount,
+                    doubles[doubleOffset] * distributionCount,
+                    doubles[doubleOffset + 1],
+                    bucketOptions,
+                    buckets)),
+            timestamp);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import io.opencensus.implcore.internal.CurrentState;
 import io.opencensus.implcore.internal.CurrentState.State;
 import io.opencensus.implcore.internal.EventQueue;
 import io.opencensus.metrics.export.Metric;
+import io.opencensus.stats.Measurement;
 import io.opencensus.stats.View;
 import io.opencensus.stats.ViewData;
 import io.opencensus.tags.TagContext;
@@ -71,6 +72,12 @@ final class StatsManager {
     }
   }
 
+  void record(MeasureToViewMap.Binding binding, Measurement measurement) {
+    if (state.getInternal() == State.ENABLED) {
+      queue.enqueue(new BoundStatsEvent(this, binding, measurement));
+    }
+  }
+
   Collection<Metric> getMetrics() {
     return measureToViewMap.getMetrics(clock, state.getInternal());
   }
@@ -101,4 +108,23 @@ final class StatsManager {
       statsManager.measureToViewMap.record(tags, stats, statsManager.clock.now());
     }
   }
+
+  // An EventQueue entry that records one value of a bound measure.
+  private static final class BoundStatsEvent implements EventQueue.Entry {
+    private final StatsManager statsManager;
+    private final MeasureToViewMap.Binding binding;
+    private final Measurement measurement;
+
+    BoundStatsEvent(
+        StatsManager statsManager, MeasureToViewMap.Binding binding, Measurement measurement) {
+      this.statsManager = statsManager;
+      this.binding = binding;
+      this.measurement = measurement;
+    }
+
+    @Override
+    public void process() {
+      statsManager.measureToViewMap.record(binding, measurement, statsManager.clock.now());
+    }
+  }
 }
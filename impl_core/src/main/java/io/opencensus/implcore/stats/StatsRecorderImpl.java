@@ -18,7 +18,12 @@ package io.opencensus.implcore.stats;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import io.opencensus.stats.BoundMeasure.BoundMeasureDouble;
+import io.opencensus.stats.BoundMeasure.BoundMeasureLong;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
 import io.opencensus.stats.StatsRecorder;
+import io.opencensus.tags.TagContext;
 
 /** Implementation of {@link StatsRecorder}. */
 public final class StatsRecorderImpl extends StatsRecorder {
@@ -33,4 +38,16 @@ public final class StatsRecorderImpl extends StatsRecorder {
   public MeasureMapImpl newMeasureMap() {
     return MeasureMapImpl.create(statsManager);
   }
+
+  @Override
+  public BoundMeasureDouble bindMeasure(MeasureDouble measure, TagContext tags) {
+    return BoundMeasureImpl.create(
+        statsManager, checkNotNull(measure, "measure"), checkNotNull(tags, "tags"));
+  }
+
+  @Override
+  public BoundMeasureLong bindMeasure(MeasureLong measure, TagContext tags) {
+    return BoundMeasureImpl.create(
+        statsManager, checkNotNull(measure, "measure"), checkNotNull(tags, "tags"));
+  }
 }
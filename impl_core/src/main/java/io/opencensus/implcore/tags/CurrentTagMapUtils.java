@@ -16,13 +16,13 @@
 
 package io.opencensus.implcore.tags;
 
-import io.grpc.Context;
 import io.opencensus.common.Scope;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.unsafe.ContextUtils;
 
 /**
- * Utility methods for accessing the {@link TagContext} contained in the {@link io.grpc.Context}.
+ * Utility methods for accessing the current {@link TagContext}, which is stored in the {@link
+ * io.opencensus.common.ContextStorage} selected for this process.
  */
 final class CurrentTagMapUtils {
 
@@ -34,7 +34,7 @@ final class CurrentTagMapUtils {
    * @return the {@code TagContext} from the current context.
    */
   static TagContext getCurrentTagMap() {
-    return ContextUtils.getValue(Context.current());
+    return ContextUtils.getCurrentValue();
   }
 
   /**
@@ -52,20 +52,20 @@ final class CurrentTagMapUtils {
 
   private static final class WithTagMap implements Scope {
 
-    private final Context orig;
+    private final Scope orig;
 
     /**
      * Constructs a new {@link WithTagMap}.
      *
-     * @param tags the {@code TagContext} to be added to the current {@code Context}.
+     * @param tags the {@code TagContext} to be added to the current context.
      */
     private WithTagMap(TagContext tags) {
-      orig = ContextUtils.withValue(Context.current(), tags).attach();
+      orig = ContextUtils.getCurrentTagContextSlot().attach(tags);
     }
 
     @Override
     public void close() {
-      Context.current().detach(orig);
+      orig.close();
     }
   }
 }
@@ -24,22 +24,36 @@ import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
 import io.opencensus.tags.TagValue;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import javax.annotation.Nullable;
 
+// Builds a TagMapImpl from the sorted arrays of a parent TagMapImpl. The arrays are shared with the
+// parent until the first change, and with the built TagMapImpl until the next change, so deriving a
+// TagMapImpl only copies the tags once.
 final class TagMapBuilderImpl extends TagContextBuilder {
 
   private static final TagMetadata METADATA_UNLIMITED_PROPAGATION =
       TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION);
 
-  private final Map<TagKey, TagValueWithMetadata> tags;
+  private static final int EXTRA_CAPACITY = 3;
 
-  TagMapBuilderImpl(Map<TagKey, TagValueWithMetadata> tags) {
-    this.tags = new HashMap<TagKey, TagValueWithMetadata>(tags);
+  private TagKey[] keys;
+  private TagValueWithMetadata[] values;
+  private int size;
+
+  // The TagMapImpl that owns the arrays, which must be copied before they are changed. This is null
+  // once the builder has its own copy.
+  @Nullable private TagMapImpl shared;
+
+  TagMapBuilderImpl(TagMapImpl parent) {
+    this.keys = parent.getKeys();
+    this.values = parent.getValues();
+    this.size = parent.size();
+    this.shared = parent;
   }
 
   TagMapBuilderImpl() {
-    this.tags = new HashMap<TagKey, TagValueWithMetadata>();
+    this(TagMapImpl.EMPTY);
   }
 
   @Override
@@ -54,23 +68,64 @@ final class TagMapBuilderImpl extends TagContextBuilder {
     TagValueWithMetadata valueWithMetadata =
         TagValueWithMetadata.create(
             checkNotNull(value, "value"), checkNotNull(tagMetadata, "tagMetadata"));
-    tags.put(checkNotNull(key, "key"), valueWithMetadata);
+    int index =
+        Arrays.binarySearch(keys, 0, size, checkNotNull(key, "key"), TagMapImpl.KEY_COMPARATOR);
+    if (index >= 0) {
+      if (valueWithMetadata.equals(values[index])) {
+        return this;
+      }
+      copyOnWrite(size);
+      values[index] = valueWithMetadata;
+    } else {
+      int insertionPoint = -index - 1;
+      copyOnWrite(size + 1);
+      System.arraycopy(keys, insertionPoint, keys, insertionPoint + 1, size - insertionPoint);
+      System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+      keys[insertionPoint] = key;
+      values[insertionPoint] = valueWithMetadata;
+      size++;
+    }
     return this;
   }
 
   @Override
   public TagMapBuilderImpl remove(TagKey key) {
-    tags.remove(checkNotNull(key, "key"));
+    int index =
+        Arrays.binarySearch(keys, 0, size, checkNotNull(key, "key"), TagMapImpl.KEY_COMPARATOR);
+    if (index >= 0) {
+      copyOnWrite(size);
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+      System.arraycopy(values, index + 1, values, index, size - index - 1);
+      size--;
+      keys[size] = null;
+      values[size] = null;
+    }
     return this;
   }
 
   @Override
   public TagMapImpl build() {
-    return new TagMapImpl(tags);
+    if (shared == null) {
+      shared = new TagMapImpl(keys, values, size);
+    }
+    return shared;
   }
 
   @Override
   public Scope buildScoped() {
     return CurrentTagMapUtils.withTagMap(build());
   }
+
+  // Makes sure that the builder owns arrays with room for at least minCapacity tags. The arrays
+  // grow by a few elements at a time, since they are shared with the built TagMapImpl and tag maps
+  // are usually derived by adding only a few tags.
+  private void copyOnWrite(int minCapacity) {
+    if (shared == null && minCapacity <= keys.length) {
+      return;
+    }
+    int capacity = minCapacity + EXTRA_CAPACITY;
+    keys = Arrays.copyOf(keys, capacity);
+    values = Arrays.copyOf(values, capacity);
+    shared = null;
+  }
 }
@@ -16,27 +16,60 @@
 
 package io.opencensus.implcore.tags;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagKey;
-import java.util.Collections;
-import java.util.HashMap;
+import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
-/** Implementation of {@link TagContext}. */
+/**
+ * Implementation of {@link TagContext}.
+ *
+ * <p>The tags are stored in two parallel arrays sorted by key name, so that lookups are binary
+ * searches and two {@code TagMapImpl}s can be compared element by element. {@link
+ * TagMapBuilderImpl} shares these arrays with the {@code TagMapImpl} it was derived from until the
+ * first change.
+ */
 @Immutable
 public final class TagMapImpl extends TagContext {
 
   /** Empty {@link TagMapImpl} with no tags. */
   public static final TagMapImpl EMPTY =
-      new TagMapImpl(Collections.<TagKey, TagValueWithMetadata>emptyMap());
+      new TagMapImpl(new TagKey[0], new TagValueWithMetadata[0], 0);
+
+  static final Comparator<TagKey> KEY_COMPARATOR =
+      new Comparator<TagKey>() {
+        @Override
+        public int compare(TagKey k1, TagKey k2) {
+          return k1.getName().compareTo(k2.getName());
+        }
+      };
+
+  // Sorted by KEY_COMPARATOR and without duplicate keys. Only the first 'size' elements are used,
+  // and the arrays are never modified after construction.
+  private final TagKey[] keys;
+  private final TagValueWithMetadata[] values;
+  private final int size;
+
+  // Hash of the tags, used to quickly tell unequal TagMapImpls apart. Benign data race, like
+  // String#hashCode: every thread computes the same value.
+  private int tagsHash;
 
-  // The types of the TagKey and value must match for each entry.
-  private final Map<TagKey, TagValueWithMetadata> tags;
+  // Memoized propagation encodings, which only contain the tags that propagate. Since the tags are
+  // immutable, the encodings never need to be invalidated. Benign data races, like String#hashCode:
+  // every thread computes an equal encoding.
+  @Nullable private volatile byte[] binaryEncoding;
+  @Nullable private volatile String correlationContextEncoding;
 
   /**
    * Creates a new {@link TagMapImpl} with the given tags.
@@ -44,7 +77,36 @@ public final class TagMapImpl extends TagContext {
    * @param tags the initial tags for this {@code TagMapImpl}.
    */
   public TagMapImpl(Map<? extends TagKey, ? extends TagValueWithMetadata> tags) {
-    this.tags = Collections.unmodifiableMap(new HashMap<TagKey, TagValueWithMetadata>(tags));
+    int size = tags.size();
+    TagKey[] keys = tags.keySet().toArray(new TagKey[size]);
+    Arrays.sort(keys, KEY_COMPARATOR);
+    TagValueWithMetadata[] values = new TagValueWithMetadata[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = tags.get(keys[i]);
+    }
+    this.keys = keys;
+    this.values = values;
+    this.size = size;
+  }
+
+  /**
+   * Creates a new {@link TagMapImpl} with the given tags, which were decoded from the given binary
+   * encoding. The encoding is memoized, so that propagating the tags again does not re-encode them.
+   *
+   * @param tags the initial tags for this {@code TagMapImpl}.
+   * @param binaryEncoding the binary encoding of the tags. It must not be modified later.
+   */
+  public TagMapImpl(
+      Map<? extends TagKey, ? extends TagValueWithMetadata> tags, byte[] binaryEncoding) {
+    this(tags);
+    this.binaryEncoding = binaryEncoding;
+  }
+
+  // Takes ownership of the arrays, which must already be sorted and must not be modified later.
+  TagMapImpl(TagKey[] keys, TagValueWithMetadata[] values, int size) {
+    this.keys = keys;
+    this.values = values;
+    this.size = size;
   }
 
   /**
@@ -53,41 +115,165 @@ public final class TagMapImpl extends TagContext {
    * @return the tags.
    */
   public Map<TagKey, TagValueWithMetadata> getTags() {
-    return tags;
+    return new TagMap();
+  }
+
+  /**
+   * Returns the value and metadata for the given key, or {@code null} if this {@link TagMapImpl}
+   * does not contain the key.
+   *
+   * @param key the tag key.
+   * @return the value and metadata for the key, or {@code null}.
+   */
+  @Nullable
+  public TagValueWithMetadata get(TagKey key) {
+    int index = indexOf(key);
+    return index < 0 ? null : values[index];
+  }
+
+  /**
+   * Returns the number of tags in this {@link TagMapImpl}.
+   *
+   * @return the number of tags.
+   */
+  public int size() {
+    return size;
+  }
+
+  TagKey[] getKeys() {
+    return keys;
+  }
+
+  TagValueWithMetadata[] getValues() {
+    return values;
+  }
+
+  // Returns the index of the key, or (-(insertion point) - 1) if it is not present.
+  int indexOf(TagKey key) {
+    return Arrays.binarySearch(keys, 0, size, key, KEY_COMPARATOR);
+  }
+
+  // Returns the memoized binary encoding, or null if it has not been computed yet.
+  @VisibleForTesting
+  @Nullable
+  byte[] getBinaryEncoding() {
+    return binaryEncoding;
+  }
+
+  /**
+   * Returns the binary encoding of this {@link TagMapImpl}, computing it with {@code encoder} and
+   * memoizing it if it has not been computed yet. Callers must not modify the returned array.
+   *
+   * @param encoder computes the binary encoding of the tags that propagate.
+   * @return the binary encoding.
+   * @throws TagContextSerializationException if the encoding cannot be computed.
+   */
+  public byte[] getBinaryEncoding(Encoder<byte[]> encoder) throws TagContextSerializationException {
+    byte[] encoding = binaryEncoding;
+    if (encoding == null) {
+      encoding = encoder.encode(this);
+      binaryEncoding = encoding;
+    }
+    return encoding;
+  }
+
+  // Returns the memoized correlation context encoding, or null if it has not been computed yet.
+  @VisibleForTesting
+  @Nullable
+  String getCorrelationContextEncoding() {
+    return correlationContextEncoding;
+  }
+
+  /**
+   * Returns the correlation context encoding of this {@link TagMapImpl}, computing it with {@code
+   * encoder} and memoizing it if it has not been computed yet.
+   *
+   * @param encoder computes the correlation context encoding of the tags that propagate.
+   * @return the correlation context encoding.
+   * @throws TagContextSerializationException if the encoding cannot be computed.
+   */
+  public String getCorrelationContextEncoding(Encoder<String> encoder)
+      throws TagContextSerializationException {
+    String encoding = correlationContextEncoding;
+    if (encoding == null) {
+      encoding = encoder.encode(this);
+      correlationContextEncoding = encoding;
+    }
+    return encoding;
+  }
+
+  /**
+   * Computes a propagation encoding of a {@link TagMapImpl}.
+   *
+   * @param <T> the type of the encoding.
+   */
+  public interface Encoder<T> {
+
+    /**
+     * Encodes the tags of {@code tagMap} that propagate.
+     *
+     * @param tagMap the tags to encode.
+     * @return the encoding.
+     * @throws TagContextSerializationException if the tags cannot be encoded.
+     */
+    T encode(TagMapImpl tagMap) throws TagContextSerializationException;
   }
 
   @Override
   protected Iterator<Tag> getIterator() {
-    return new TagIterator(tags);
+    return new TagIterator();
   }
 
   @Override
   public boolean equals(@Nullable Object other) {
     // Directly compare the tags when both objects are TagMapImpls, for efficiency.
     if (other instanceof TagMapImpl) {
-      return getTags().equals(((TagMapImpl) other).getTags());
+      TagMapImpl that = (TagMapImpl) other;
+      if (this == that) {
+        return true;
+      }
+      if (size != that.size || getTagsHash() != that.getTagsHash()) {
+        return false;
+      }
+      // Both arrays are sorted by key, so equal TagMapImpls have equal elements at each index.
+      for (int i = 0; i < size; i++) {
+        if (!keys[i].equals(that.keys[i]) || !values[i].equals(that.values[i])) {
+          return false;
+        }
+      }
+      return true;
     }
     return super.equals(other);
   }
 
-  private static final class TagIterator implements Iterator<Tag> {
-    Iterator<Map.Entry<TagKey, TagValueWithMetadata>> iterator;
-
-    TagIterator(Map<TagKey, TagValueWithMetadata> tags) {
-      iterator = tags.entrySet().iterator();
+  private int getTagsHash() {
+    int hash = tagsHash;
+    if (hash == 0) {
+      for (int i = 0; i < size; i++) {
+        hash = 31 * hash + keys[i].hashCode();
+        hash = 31 * hash + values[i].hashCode();
+      }
+      tagsHash = hash;
     }
+    return hash;
+  }
+
+  private final class TagIterator implements Iterator<Tag> {
+    private int index;
 
     @Override
     public boolean hasNext() {
-      return iterator.hasNext();
+      return index < size;
     }
 
     @Override
     public Tag next() {
-      final Entry<TagKey, TagValueWithMetadata> next = iterator.next();
-      TagValueWithMetadata valueWithMetadata = next.getValue();
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      TagValueWithMetadata valueWithMetadata = values[index];
       return Tag.create(
-          next.getKey(), valueWithMetadata.getTagValue(), valueWithMetadata.getTagMetadata());
+          keys[index++], valueWithMetadata.getTagValue(), valueWithMetadata.getTagMetadata());
     }
 
     @Override
@@ -95,4 +281,62 @@ public final class TagMapImpl extends TagContext {
       throw new UnsupportedOperationException("TagIterator.remove()");
     }
   }
+
+  // Unmodifiable Map view of the arrays.
+  private final class TagMap extends AbstractMap<TagKey, TagValueWithMetadata> {
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+      return key instanceof TagKey && indexOf((TagKey) key) >= 0;
+    }
+
+    @Override
+    @Nullable
+    public TagValueWithMetadata get(@Nullable Object key) {
+      return key instanceof TagKey ? TagMapImpl.this.get((TagKey) key) : null;
+    }
+
+    @Override
+    public Set<Entry<TagKey, TagValueWithMetadata>> entrySet() {
+      return new AbstractSet<Entry<TagKey, TagValueWithMetadata>>() {
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public Iterator<Entry<TagKey, TagValueWithMetadata>> iterator() {
+          return new Iterator<Entry<TagKey, TagValueWithMetadata>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return index < size;
+            }
+
+            @Override
+            public Entry<TagKey, TagValueWithMetadata> next() {
+              if (index >= size) {
+                throw new NoSuchElementException();
+              }
+              Entry<TagKey, TagValueWithMetadata> entry =
+                  new SimpleImmutableEntry<TagKey, TagValueWithMetadata>(
+                      keys[index], values[index]);
+              index++;
+              return entry;
+            }
+
+            @Override
+            public void remove() {
+              throw new UnsupportedOperationException("TagMap.remove()");
+            }
+          };
+        }
+      };
+    }
+  }
 }
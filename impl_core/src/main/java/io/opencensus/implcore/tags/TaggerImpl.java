@@ -99,9 +99,9 @@ public final class TaggerImpl extends Tagger {
   }
 
   private static TagMapBuilderImpl toTagMapBuilderImpl(TagContext tags) {
-    // Copy the tags more efficiently in the expected case, when the TagContext is a TagMapImpl.
+    // Share the tags with the builder in the expected case, when the TagContext is a TagMapImpl.
     if (tags instanceof TagMapImpl) {
-      return new TagMapBuilderImpl(((TagMapImpl) tags).getTags());
+      return new TagMapBuilderImpl((TagMapImpl) tags);
     } else {
       TagMapBuilderImpl builder = new TagMapBuilderImpl();
       for (Iterator<Tag> i = InternalUtils.getTags(tags); i.hasNext(); ) {
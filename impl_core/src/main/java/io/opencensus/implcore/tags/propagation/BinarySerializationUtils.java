@@ -17,9 +17,6 @@
 package io.opencensus.implcore.tags.propagation;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Charsets;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import io.opencensus.implcore.internal.VarInt;
 import io.opencensus.implcore.tags.TagMapImpl;
 import io.opencensus.implcore.tags.TagValueWithMetadata;
@@ -32,11 +29,13 @@ import io.opencensus.tags.TagMetadata.TagTtl;
 import io.opencensus.tags.TagValue;
 import io.opencensus.tags.propagation.TagContextDeserializationException;
 import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Methods for serializing and deserializing {@link TagContext}s.
@@ -81,61 +80,169 @@ final class BinarySerializationUtils {
   // Serializes a TagContext to the on-the-wire format.
   // Encoded tags are of the form: <version_id><encoded_tags>
   static byte[] serializeBinary(TagContext tags) throws TagContextSerializationException {
-    // Use a ByteArrayDataOutput to avoid needing to handle IOExceptions.
-    final ByteArrayDataOutput byteArrayDataOutput = ByteStreams.newDataOutput();
-    byteArrayDataOutput.write(VERSION_ID);
+    byte[] encodedTags = getEncodedTags(tags);
+    if (encodedTags != null) {
+      // Copy the shared encoding, since the caller owns the returned array.
+      return encodedTags.clone();
+    }
+    byte[] bytes = new byte[computeSerializedSize(tags)];
+    encodeTags(tags, ByteBuffer.wrap(bytes));
+    return bytes;
+  }
+
+  // Serializes a TagContext to the on-the-wire format, starting at the current position of the
+  // buffer. Nothing is written if the buffer does not have enough space for the whole TagContext.
+  static void serializeBinary(TagContext tags, ByteBuffer buffer)
+      throws TagContextSerializationException {
+    byte[] encodedTags = getEncodedTags(tags);
+    if (encodedTags != null) {
+      buffer.put(encodedTags);
+      return;
+    }
+    if (buffer.remaining() < computeSerializedSize(tags)) {
+      throw new BufferOverflowException();
+    }
+    encodeTags(tags, buffer);
+  }
+
+  // Returns the exact number of bytes needed to serialize the TagContext.
+  static int getSerializedSize(TagContext tags) throws TagContextSerializationException {
+    byte[] encodedTags = getEncodedTags(tags);
+    return encodedTags != null ? encodedTags.length : computeSerializedSize(tags);
+  }
+
+  // Returns the shared encoding of a LazyTagMap or TagMapImpl, computing and memoizing it on the
+  // TagMapImpl if needed, or null for other TagContext implementations. Callers must not modify the
+  // returned array.
+  @Nullable
+  private static byte[] getEncodedTags(TagContext tags) throws TagContextSerializationException {
+    if (tags instanceof LazyTagMap) {
+      return ((LazyTagMap) tags).getEncodedTags();
+    }
+    if (!(tags instanceof TagMapImpl)) {
+      return null;
+    }
+    return ((TagMapImpl) tags).getBinaryEncoding(BINARY_ENCODER);
+  }
+
+  private static final TagMapImpl.Encoder<byte[]> BINARY_ENCODER =
+      new TagMapImpl.Encoder<byte[]>() {
+        @Override
+        public byte[] encode(TagMapImpl tagMap) throws TagContextSerializationException {
+          byte[] encodedTags = new byte[computeSerializedSize(tagMap)];
+          encodeTags(tagMap, ByteBuffer.wrap(encodedTags));
+          return encodedTags;
+        }
+      };
+
+  private static int computeSerializedSize(TagContext tags)
+      throws TagContextSerializationException {
+    int size = 1; // <version_id>
     int totalChars = 0; // Here chars are equivalent to bytes, since we're using ascii chars.
     for (Iterator<Tag> i = InternalUtils.getTags(tags); i.hasNext(); ) {
       Tag tag = i.next();
       if (TagTtl.NO_PROPAGATION.equals(tag.getTagMetadata().getTagTtl())) {
         continue;
       }
-      totalChars += tag.getKey().getName().length();
-      totalChars += tag.getValue().asString().length();
-      encodeTag(tag, byteArrayDataOutput);
+      int keyLength = tag.getKey().getName().length();
+      int valueLength = tag.getValue().asString().length();
+      totalChars += keyLength + valueLength;
+      size += 1 + VarInt.varIntSize(keyLength) + keyLength;
+      size += VarInt.varIntSize(valueLength) + valueLength;
     }
     if (totalChars > TAGCONTEXT_SERIALIZED_SIZE_LIMIT) {
       throw new TagContextSerializationException(
           "Size of TagContext exceeds the maximum serialized size "
               + TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
     }
-    return byteArrayDataOutput.toByteArray();
+    return size;
   }
 
   // Deserializes input to TagContext based on the binary format standard.
   // The encoded tags are of the form: <version_id><encoded_tags>
   static TagMapImpl deserializeBinary(byte[] bytes) throws TagContextDeserializationException {
+    return deserializeBinary(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+  }
+
+  // Deserializes the remaining bytes of the buffer to TagContext based on the binary format
+  // standard.
+  static TagMapImpl deserializeBinary(ByteBuffer buffer) throws TagContextDeserializationException {
+    return new TagMapImpl(decodeTags(buffer));
+  }
+
+  private static Map<TagKey, TagValueWithMetadata> decodeTags(ByteBuffer buffer)
+      throws TagContextDeserializationException {
     try {
-      if (bytes.length == 0) {
-        // Does not allow empty byte array.
-        throw new TagContextDeserializationException("Input byte[] can not be empty.");
-      }
+      checkVersion(buffer);
+      Map<TagKey, TagValueWithMetadata> tags = new HashMap<TagKey, TagValueWithMetadata>();
+      parseTags(buffer, tags);
+      buffer.position(buffer.limit());
+      return tags;
+    } catch (BufferUnderflowException exn) {
+      throw new TagContextDeserializationException(exn.toString()); // byte array format error.
+    }
+  }
 
-      ByteBuffer buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
-      int versionId = buffer.get();
-      if (versionId > VERSION_ID || versionId < 0) {
-        throw new TagContextDeserializationException(
-            "Wrong Version ID: " + versionId + ". Currently supports version up to: " + VERSION_ID);
-      }
-      return new TagMapImpl(parseTags(buffer));
+  // Validates the remaining bytes of the buffer the same way as deserializeBinary, but only copies
+  // the encoded tags. Tags are created when the returned TagContext is first accessed.
+  static LazyTagMap deserializeBinaryLazily(ByteBuffer buffer)
+      throws TagContextDeserializationException {
+    try {
+      int start = buffer.position();
+      checkVersion(buffer);
+      int end = parseTags(buffer, null);
+      byte[] encodedTags = new byte[end - start];
+      buffer.position(start);
+      buffer.get(encodedTags);
+      buffer.position(buffer.limit());
+      return new LazyTagMap(encodedTags);
     } catch (BufferUnderflowException exn) {
       throw new TagContextDeserializationException(exn.toString()); // byte array format error.
     }
   }
 
-  private static Map<TagKey, TagValueWithMetadata> parseTags(ByteBuffer buffer)
+  // Creates the tags of a LazyTagMap. The input has already been validated. The encoded tags are
+  // memoized on the result, so that propagating it again does not re-encode the tags.
+  static TagMapImpl materialize(byte[] encodedTags) {
+    try {
+      return new TagMapImpl(decodeTags(ByteBuffer.wrap(encodedTags)), encodedTags);
+    } catch (TagContextDeserializationException e) {
+      throw new IllegalStateException("Encoded tags were validated on creation.", e);
+    }
+  }
+
+  private static void checkVersion(ByteBuffer buffer) throws TagContextDeserializationException {
+    if (!buffer.hasRemaining()) {
+      // Does not allow empty byte array.
+      throw new TagContextDeserializationException("Input byte[] can not be empty.");
+    }
+    int versionId = buffer.get();
+    if (versionId > VERSION_ID || versionId < 0) {
+      throw new TagContextDeserializationException(
+          "Wrong Version ID: " + versionId + ". Currently supports version up to: " + VERSION_ID);
+    }
+  }
+
+  // Parses the encoded tags and adds them to 'tags', or only validates them if 'tags' is null.
+  // Returns the position of the end of the last tag that could be parsed.
+  private static int parseTags(ByteBuffer buffer, @Nullable Map<TagKey, TagValueWithMetadata> tags)
       throws TagContextDeserializationException {
-    Map<TagKey, TagValueWithMetadata> tags = new HashMap<TagKey, TagValueWithMetadata>();
     int limit = buffer.limit();
+    int end = buffer.position();
     int totalChars = 0; // Here chars are equivalent to bytes, since we're using ascii chars.
     while (buffer.position() < limit) {
       int type = buffer.get();
       if (type == TAG_FIELD_ID) {
-        TagKey key = createTagKey(decodeString(buffer));
-        TagValue val = createTagValue(key, decodeString(buffer));
-        totalChars += key.getName().length();
-        totalChars += val.asString().length();
-        tags.put(key, TagValueWithMetadata.create(val, METADATA_UNLIMITED_PROPAGATION));
+        if (tags == null) {
+          totalChars += validateTag(buffer);
+        } else {
+          TagKey key = createTagKey(decodeString(buffer));
+          TagValue val = createTagValue(key, decodeString(buffer));
+          totalChars += key.getName().length();
+          totalChars += val.asString().length();
+          tags.put(key, TagValueWithMetadata.create(val, METADATA_UNLIMITED_PROPAGATION));
+        }
+        end = buffer.position();
       } else {
         // Stop parsing at the first unknown field ID, since there is no way to know its length.
         // TODO(sebright): Consider storing the rest of the byte array in the TagContext.
@@ -147,7 +254,44 @@ final class BinarySerializationUtils {
           "Size of TagContext exceeds the maximum serialized size "
               + TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
     }
-    return tags;
+    return end;
+  }
+
+  // Checks that the next encoded tag would create a valid TagKey and TagValue without creating
+  // them, and returns the number of chars in the key and value.
+  private static int validateTag(ByteBuffer buffer) throws TagContextDeserializationException {
+    int start = buffer.position();
+    int keyLength = skipPrintableString(buffer, 1, TagKey.MAX_LENGTH);
+    int valueLength = keyLength < 0 ? -1 : skipPrintableString(buffer, 0, TagValue.MAX_LENGTH);
+    if (valueLength < 0) {
+      // Decode the tag to report the same error as the eager path.
+      buffer.position(start);
+      TagKey key = createTagKey(decodeString(buffer));
+      TagValue val = createTagValue(key, decodeString(buffer));
+      return key.getName().length() + val.asString().length();
+    }
+    return keyLength + valueLength;
+  }
+
+  // Skips over an encoded string and returns its length, or returns -1 if the string is not
+  // between minLength and maxLength printable ascii chars.
+  private static int skipPrintableString(ByteBuffer buffer, int minLength, int maxLength) {
+    int length = VarInt.getVarInt(buffer);
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    if (length < minLength || length > maxLength) {
+      return -1;
+    }
+    int start = buffer.position();
+    for (int i = start; i < start + length; i++) {
+      byte b = buffer.get(i);
+      if (b < ' ' || b > '~') {
+        return -1;
+      }
+    }
+    buffer.position(start + length);
+    return length;
   }
 
   // TODO(sebright): Consider exposing a TagKey name validation method to avoid needing to catch an
@@ -172,21 +316,30 @@ final class BinarySerializationUtils {
     }
   }
 
-  private static final void encodeTag(Tag tag, ByteArrayDataOutput byteArrayDataOutput) {
-    byteArrayDataOutput.write(TAG_FIELD_ID);
-    encodeString(tag.getKey().getName(), byteArrayDataOutput);
-    encodeString(tag.getValue().asString(), byteArrayDataOutput);
+  private static void encodeTags(TagContext tags, ByteBuffer buffer) {
+    buffer.put((byte) VERSION_ID);
+    for (Iterator<Tag> i = InternalUtils.getTags(tags); i.hasNext(); ) {
+      Tag tag = i.next();
+      if (TagTtl.NO_PROPAGATION.equals(tag.getTagMetadata().getTagTtl())) {
+        continue;
+      }
+      encodeTag(tag, buffer);
+    }
   }
 
-  private static final void encodeString(String input, ByteArrayDataOutput byteArrayDataOutput) {
-    putVarInt(input.length(), byteArrayDataOutput);
-    byteArrayDataOutput.write(input.getBytes(Charsets.UTF_8));
+  private static final void encodeTag(Tag tag, ByteBuffer buffer) {
+    buffer.put((byte) TAG_FIELD_ID);
+    encodeString(tag.getKey().getName(), buffer);
+    encodeString(tag.getValue().asString(), buffer);
   }
 
-  private static final void putVarInt(int input, ByteArrayDataOutput byteArrayDataOutput) {
-    byte[] output = new byte[VarInt.varIntSize(input)];
-    VarInt.putVarInt(input, output, 0);
-    byteArrayDataOutput.write(output);
+  // Tag keys and values only contain printable ascii chars, so each char is encoded as one byte,
+  // which is the same as its UTF-8 encoding.
+  private static final void encodeString(String input, ByteBuffer buffer) {
+    VarInt.putVarInt(input.length(), buffer);
+    for (int i = 0; i < input.length(); i++) {
+      buffer.put((byte) input.charAt(i));
+    }
   }
 
   private static final String decodeString(ByteBuffer buffer) {
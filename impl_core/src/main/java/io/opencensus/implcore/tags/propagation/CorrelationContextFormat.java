@@ -93,6 +93,30 @@ final class CorrelationContextFormat extends TagContextTextFormat {
       return;
     }
 
+    setter.put(carrier, CORRELATION_CONTEXT, getEncoding(tagContext));
+  }
+
+  // Returns the memoized encoding of a TagMapImpl, computing it if needed. Other TagContext
+  // implementations are encoded every time.
+  private static String getEncoding(TagContext tagContext) throws TagContextSerializationException {
+    if (tagContext instanceof LazyTagMap) {
+      tagContext = ((LazyTagMap) tagContext).getTagMap();
+    }
+    if (!(tagContext instanceof TagMapImpl)) {
+      return encode(tagContext);
+    }
+    return ((TagMapImpl) tagContext).getCorrelationContextEncoding(ENCODER);
+  }
+
+  private static final TagMapImpl.Encoder<String> ENCODER =
+      new TagMapImpl.Encoder<String>() {
+        @Override
+        public String encode(TagMapImpl tagMap) throws TagContextSerializationException {
+          return CorrelationContextFormat.encode(tagMap);
+        }
+      };
+
+  private static String encode(TagContext tagContext) throws TagContextSerializationException {
     try {
       StringBuilder stringBuilder = new StringBuilder(TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
       int totalChars = 0; // Here chars are equivalent to bytes, since we're using ascii chars.
@@ -117,7 +141,7 @@ final class CorrelationContextFormat extends TagContextTextFormat {
           totalChars <= TAGCONTEXT_SERIALIZED_SIZE_LIMIT,
           "Size of TagContext exceeds the maximum serialized size "
               + TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
-      setter.put(carrier, CORRELATION_CONTEXT, stringBuilder.toString());
+      return stringBuilder.toString();
     } catch (IllegalArgumentException e) {
       throw new TagContextSerializationException("Failed to serialize TagContext", e);
     }
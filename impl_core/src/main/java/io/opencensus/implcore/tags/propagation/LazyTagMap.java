@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.tags.propagation;
+
+import io.opencensus.implcore.tags.TagMapImpl;
+import io.opencensus.tags.InternalUtils;
+import io.opencensus.tags.Tag;
+import io.opencensus.tags.TagContext;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A {@link TagContext} deserialized from the binary format, which only creates its tags when they
+ * are first accessed.
+ *
+ * <p>The encoded tags are validated by {@link BinarySerializationUtils} before an instance is
+ * created, so creating the tags cannot fail. Serializing an instance to the binary format copies
+ * the encoded tags without creating the tags.
+ */
+@Immutable
+final class LazyTagMap extends TagContext {
+  // <version_id><encoded_tags>, without any trailing unknown fields.
+  private final byte[] encodedTags;
+
+  // Benign data race, like String#hashCode: every thread creates an equal TagMapImpl.
+  @Nullable private volatile TagMapImpl tagMap;
+
+  LazyTagMap(byte[] encodedTags) {
+    this.encodedTags = encodedTags;
+  }
+
+  int getEncodedSize() {
+    return encodedTags.length;
+  }
+
+  // Returns the internal array, callers must not modify it.
+  byte[] getEncodedTags() {
+    return encodedTags;
+  }
+
+  /**
+   * Returns the materialized tags of this {@code LazyTagMap}.
+   *
+   * @return the materialized tags.
+   */
+  TagMapImpl getTagMap() {
+    TagMapImpl result = tagMap;
+    if (result == null) {
+      result = BinarySerializationUtils.materialize(encodedTags);
+      tagMap = result;
+    }
+    return result;
+  }
+
+  @Override
+  protected Iterator<Tag> getIterator() {
+    return InternalUtils.getTags(getTagMap());
+  }
+
+  @Override
+  public boolean equals(@Nullable Object other) {
+    if (other instanceof LazyTagMap) {
+      return getTagMap().equals(((LazyTagMap) other).getTagMap());
+    }
+    return getTagMap().equals(other);
+  }
+}
@@ -17,8 +17,14 @@
 package io.opencensus.implcore.trace.export;
 
 import com.google.common.collect.EvictingQueue;
+import io.opencensus.common.ToLongFunction;
 import io.opencensus.implcore.internal.EventQueue;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl;
+import io.opencensus.metrics.DerivedLongCumulative;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.trace.Status;
 import io.opencensus.trace.Status.CanonicalCode;
 import io.opencensus.trace.export.SampledSpanStore;
@@ -33,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
@@ -49,6 +56,22 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
   private static final int MAX_PER_SPAN_NAME_SAMPLES =
       NUM_SAMPLES_PER_LATENCY_BUCKET * NUM_LATENCY_BUCKETS
           + NUM_SAMPLES_PER_ERROR_BUCKET * NUM_ERROR_BUCKETS;
+  private static final DerivedLongGauge spanNames =
+      Metrics.getMetricRegistry()
+          .addDerivedLongGauge(
+              "oc_sampled_span_store_span_names",
+              MetricOptions.builder()
+                  .setDescription("Current number of span names kept by the sampled span store.")
+                  .setUnit("1")
+                  .build());
+  private static final DerivedLongCumulative sampledSpans =
+      Metrics.getMetricRegistry()
+          .addDerivedLongCumulative(
+              "oc_sampled_span_store_spans_sampled",
+              MetricOptions.builder()
+                  .setDescription("Number of spans kept as samples by the sampled span store.")
+                  .setUnit("1")
+                  .build());
 
   // Used to stream the register/unregister events to the implementation to avoid lock contention
   // between the main threads and the worker thread.
@@ -57,6 +80,10 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
   @GuardedBy("samples")
   private final Map<String, PerSpanNameSamples> samples;
 
+  // Written with the lock of samples held, read by the metrics without it.
+  private volatile int numSpanNames;
+  private final AtomicLong numSampledSpans = new AtomicLong();
+
   private static final class Bucket {
 
     private final EvictingQueue<RecordEventsSpanImpl> sampledSpansQueue;
@@ -69,7 +96,8 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
       notSampledSpansQueue = EvictingQueue.create(numSamples);
     }
 
-    private void considerForSampling(RecordEventsSpanImpl span) {
+    // Returns whether the span was kept as a sample.
+    private boolean considerForSampling(RecordEventsSpanImpl span) {
       long spanEndNanoTime = span.getEndNanoTime();
       if (span.getContext().getTraceOptions().isSampled()) {
         // Need to compare by doing the subtraction all the time because in case of an overflow,
@@ -78,6 +106,7 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
         if (spanEndNanoTime - lastSampledNanoTime > TIME_BETWEEN_SAMPLES) {
           sampledSpansQueue.add(span);
           lastSampledNanoTime = spanEndNanoTime;
+          return true;
         }
       } else {
         // Need to compare by doing the subtraction all the time because in case of an overflow,
@@ -86,8 +115,10 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
         if (spanEndNanoTime - lastNotSampledNanoTime > TIME_BETWEEN_SAMPLES) {
           notSampledSpansQueue.add(span);
           lastNotSampledNanoTime = spanEndNanoTime;
+          return true;
         }
       }
+      return false;
     }
 
     private void getSamples(int maxSpansToReturn, List<RecordEventsSpanImpl> output) {
@@ -178,7 +209,8 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
       return errorBuckets[code.value() - 1];
     }
 
-    private void considerForSampling(RecordEventsSpanImpl span) {
+    // Returns whether the span was kept as a sample.
+    private boolean considerForSampling(RecordEventsSpanImpl span) {
       Status status = span.getStatus();
       // Null status means running Span, this should not happen in production, but the library
       // should not crash because of this.
@@ -189,9 +221,10 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
                 : getErrorBucket(status.getCanonicalCode());
         // If unable to find the bucket, ignore this Span.
         if (bucket != null) {
-          bucket.considerForSampling(span);
+          return bucket.considerForSampling(span);
         }
       }
+      return false;
     }
 
     private Map<LatencyBucketBoundaries, Integer> getNumbersOfLatencySampledSpans() {
@@ -247,6 +280,12 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
   InProcessSampledSpanStoreImpl(EventQueue eventQueue) {
     samples = new HashMap<String, PerSpanNameSamples>();
     this.eventQueue = eventQueue;
+    // The time series of a previous InProcessSampledSpanStoreImpl, if any, are replaced.
+    spanNames.removeTimeSeries(Collections.<LabelValue>emptyList());
+    spanNames.createTimeSeries(Collections.<LabelValue>emptyList(), this, new ReportSpanNames());
+    sampledSpans.removeTimeSeries(Collections.<LabelValue>emptyList());
+    sampledSpans.createTimeSeries(
+        Collections.<LabelValue>emptyList(), this, new ReportSampledSpans());
   }
 
   @Override
@@ -270,10 +309,11 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
       String spanName = span.getName();
       if (span.getSampleToLocalSpanStore() && !samples.containsKey(spanName)) {
         samples.put(spanName, new PerSpanNameSamples());
+        numSpanNames = samples.size();
       }
       PerSpanNameSamples perSpanNameSamples = samples.get(spanName);
-      if (perSpanNameSamples != null) {
-        perSpanNameSamples.considerForSampling(span);
+      if (perSpanNameSamples != null && perSpanNameSamples.considerForSampling(span)) {
+        numSampledSpans.incrementAndGet();
       }
     }
   }
@@ -301,6 +341,7 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
           samples.put(spanName, new PerSpanNameSamples());
         }
       }
+      numSpanNames = samples.size();
     }
   }
 
@@ -329,6 +370,7 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
   private void internalUnregisterSpanNamesForCollection(Collection<String> spanNames) {
     synchronized (samples) {
       samples.keySet().removeAll(spanNames);
+      numSpanNames = samples.size();
     }
   }
 
@@ -348,6 +390,32 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
     }
   }
 
+  /** Returns the number of span names that have samples or are registered for collection. */
+  int getNumSpanNames() {
+    return numSpanNames;
+  }
+
+  /** Returns the number of spans that were kept as samples. */
+  long getNumSampledSpans() {
+    return numSampledSpans.get();
+  }
+
+  private static final class ReportSpanNames
+      implements ToLongFunction</*@Nullable*/ InProcessSampledSpanStoreImpl> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ InProcessSampledSpanStoreImpl sampledSpanStore) {
+      return sampledSpanStore == null ? 0 : sampledSpanStore.getNumSpanNames();
+    }
+  }
+
+  private static final class ReportSampledSpans
+      implements ToLongFunction</*@Nullable*/ InProcessSampledSpanStoreImpl> {
+    @Override
+    public long applyAsLong(/*@Nullable*/ InProcessSampledSpanStoreImpl sampledSpanStore) {
+      return sampledSpanStore == null ? 0 : sampledSpanStore.getNumSampledSpans();
+    }
+  }
+
   @Override
   public Set<String> getRegisteredSpanNamesForCollection() {
     synchronized (samples) {
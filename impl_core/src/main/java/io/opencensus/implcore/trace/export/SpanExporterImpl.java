@@ -24,7 +24,10 @@ import io.opencensus.implcore.internal.DaemonThreadFactory;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl;
 import io.opencensus.metrics.DerivedLongCumulative;
 import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.DoubleGauge;
+import io.opencensus.metrics.LabelKey;
 import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongCumulative;
 import io.opencensus.metrics.MetricOptions;
 import io.opencensus.metrics.Metrics;
 import io.opencensus.trace.export.ExportComponent;
@@ -35,6 +38,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.concurrent.GuardedBy;
@@ -70,6 +74,26 @@ public final class SpanExporterImpl extends SpanExporter {
                   .setDescription("Current number of spans referenced by the exporter thread.")
                   .setUnit("1")
                   .build());
+  private static final List<LabelKey> HANDLER_LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("handler", "The name of the export handler."));
+  private static final DoubleGauge exportLatency =
+      Metrics.getMetricRegistry()
+          .addDoubleGauge(
+              "oc_worker_export_latency",
+              MetricOptions.builder()
+                  .setDescription("Time taken by a handler to export the last batch of spans.")
+                  .setUnit("ms")
+                  .setLabelKeys(HANDLER_LABEL_KEYS)
+                  .build());
+  private static final LongCumulative failedExports =
+      Metrics.getMetricRegistry()
+          .addLongCumulative(
+              "oc_worker_export_failures",
+              MetricOptions.builder()
+                  .setDescription("Number of batches of spans that a handler failed to export.")
+                  .setUnit("1")
+                  .setLabelKeys(HANDLER_LABEL_KEYS)
+                  .build());
 
   private final Worker worker;
   private final Thread workerThread;
@@ -243,12 +267,18 @@ public final class SpanExporterImpl extends SpanExporter {
       // upon construction of the iterator, and may (but is not guaranteed to) reflect any
       // modifications subsequent to construction.
       for (Map.Entry<String, Handler> it : serviceHandlers.entrySet()) {
+        List<LabelValue> labelValues = Collections.singletonList(LabelValue.create(it.getKey()));
+        long startNanos = System.nanoTime();
         // In case of any exception thrown by the service handlers continue to run.
         try {
           it.getValue().export(spanDataList);
         } catch (Throwable e) {
+          failedExports.getOrCreateTimeSeries(labelValues).add(1);
           logger.log(Level.WARNING, "Exception thrown by the service export " + it.getKey(), e);
         }
+        exportLatency
+            .getOrCreateTimeSeries(labelValues)
+            .set((double) (System.nanoTime() - startNanos) / TimeUnit.MILLISECONDS.toNanos(1));
       }
     }
 
@@ -26,6 +26,8 @@ import io.opencensus.trace.TraceOptions;
 import io.opencensus.trace.Tracestate;
 import io.opencensus.trace.propagation.BinaryFormat;
 import io.opencensus.trace.propagation.SpanContextParseException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * Implementation of the {@link BinaryFormat}.
@@ -95,23 +97,49 @@ final class BinaryFormatImpl extends BinaryFormat {
   public byte[] toByteArray(SpanContext spanContext) {
     checkNotNull(spanContext, "spanContext");
     byte[] bytes = new byte[ALL_FORMAT_LENGTH];
-    bytes[VERSION_ID_OFFSET] = VERSION_ID;
-    bytes[TRACE_ID_FIELD_ID_OFFSET] = TRACE_ID_FIELD_ID;
-    spanContext.getTraceId().copyBytesTo(bytes, TRACE_ID_OFFSET);
-    bytes[SPAN_ID_FIELD_ID_OFFSET] = SPAN_ID_FIELD_ID;
-    spanContext.getSpanId().copyBytesTo(bytes, SPAN_ID_OFFSET);
-    bytes[TRACE_OPTION_FIELD_ID_OFFSET] = TRACE_OPTION_FIELD_ID;
-    spanContext.getTraceOptions().copyBytesTo(bytes, TRACE_OPTIONS_OFFSET);
+    toByteBuffer(spanContext, ByteBuffer.wrap(bytes));
     return bytes;
   }
 
+  @Override
+  public int getSerializedSize(SpanContext spanContext) {
+    checkNotNull(spanContext, "spanContext");
+    return ALL_FORMAT_LENGTH;
+  }
+
+  @Override
+  public void toByteBuffer(SpanContext spanContext, ByteBuffer buffer) {
+    checkNotNull(spanContext, "spanContext");
+    checkNotNull(buffer, "buffer");
+    if (buffer.remaining() < ALL_FORMAT_LENGTH) {
+      throw new BufferOverflowException();
+    }
+    buffer.put(VERSION_ID);
+    buffer.put(TRACE_ID_FIELD_ID);
+    spanContext.getTraceId().copyBytesTo(buffer);
+    buffer.put(SPAN_ID_FIELD_ID);
+    spanContext.getSpanId().copyBytesTo(buffer);
+    buffer.put(TRACE_OPTION_FIELD_ID);
+    buffer.put(spanContext.getTraceOptions().getByte());
+  }
+
   @Override
   public SpanContext fromByteArray(byte[] bytes) throws SpanContextParseException {
     checkNotNull(bytes, "bytes");
-    if (bytes.length == 0 || bytes[0] != VERSION_ID) {
+    return fromByteBuffer(ByteBuffer.wrap(bytes));
+  }
+
+  @Override
+  public SpanContext fromByteBuffer(ByteBuffer buffer) throws SpanContextParseException {
+    checkNotNull(buffer, "buffer");
+    // All offsets are relative to the current position, so that the encoded value can start
+    // anywhere in the buffer.
+    int start = buffer.position();
+    int length = buffer.remaining();
+    if (length == 0 || buffer.get(start) != VERSION_ID) {
       throw new SpanContextParseException("Unsupported version.");
     }
-    if (bytes.length < REQUIRED_FORMAT_LENGTH) {
+    if (length < REQUIRED_FORMAT_LENGTH) {
       throw new SpanContextParseException("Invalid input: truncated");
     }
     // TODO: the following logic assumes that fields are written in ID order. The spec does not say
@@ -120,15 +148,17 @@ final class BinaryFormatImpl extends BinaryFormat {
     SpanId spanId;
     TraceOptions traceOptions = TraceOptions.DEFAULT;
     int pos = 1;
-    if (bytes[pos] == TRACE_ID_FIELD_ID) {
-      traceId = TraceId.fromBytes(bytes, pos + ID_SIZE);
+    if (buffer.get(start + pos) == TRACE_ID_FIELD_ID) {
+      buffer.position(start + pos + ID_SIZE);
+      traceId = TraceId.fromBytes(buffer);
       pos += ID_SIZE + TraceId.SIZE;
     } else {
       // TODO: update the spec to suggest that the trace ID is not actually optional
       throw new SpanContextParseException("Invalid input: expected trace ID at offset " + pos);
     }
-    if (bytes[pos] == SPAN_ID_FIELD_ID) {
-      spanId = SpanId.fromBytes(bytes, pos + ID_SIZE);
+    if (buffer.get(start + pos) == SPAN_ID_FIELD_ID) {
+      buffer.position(start + pos + ID_SIZE);
+      spanId = SpanId.fromBytes(buffer);
       pos += ID_SIZE + SpanId.SIZE;
     } else {
       // TODO: update the spec to suggest that the span ID is not actually optional.
@@ -137,12 +167,13 @@ final class BinaryFormatImpl extends BinaryFormat {
     // Check to see if we are long enough to include an options field, and also that the next field
     // is an options field. Per spec we simply stop parsing at first unknown field instead of
     // failing.
-    if (bytes.length > pos && bytes[pos] == TRACE_OPTION_FIELD_ID) {
-      if (bytes.length < ALL_FORMAT_LENGTH) {
+    if (length > pos && buffer.get(start + pos) == TRACE_OPTION_FIELD_ID) {
+      if (length < ALL_FORMAT_LENGTH) {
         throw new SpanContextParseException("Invalid input: truncated");
       }
-      traceOptions = TraceOptions.fromByte(bytes[pos + ID_SIZE]);
+      traceOptions = TraceOptions.fromByte(buffer.get(start + pos + ID_SIZE));
     }
+    buffer.position(buffer.limit());
     return SpanContext.create(traceId, spanId, traceOptions, TRACESTATE_DEFAULT);
   }
 }
@@ -305,4 +305,15 @@ public class DerivedLongCumulativeImplTest {
   public void empty_GetMetrics() {
     assertThat(derivedLongCumulative.getMetric(testClock)).isNull();
   }
+
+  @Test
+  public void getMetricChangedSince() {
+    derivedLongCumulative.createTimeSeries(LABEL_VALUES, null, longFunction);
+    derivedLongCumulative.createTimeSeries(LABEL_VALUES_1, null, negativeLongFunction);
+    testClock.advanceTime(ONE_MINUTE);
+    assertThat(derivedLongCumulative.getMetricChangedSince(testClock, 0, 1))
+        .isEqualTo(derivedLongCumulative.getMetric(testClock));
+    // The value of the functions didn't change.
+    assertThat(derivedLongCumulative.getMetricChangedSince(testClock, 1, 2)).isNull();
+  }
 }
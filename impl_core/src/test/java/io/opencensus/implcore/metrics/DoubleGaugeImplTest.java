@@ -348,4 +348,24 @@ public class DoubleGaugeImplTest {
         .addEqualityGroup(newDoublePointAfterRemove)
         .testEquals();
   }
+
+  @Test
+  public void getMetricChangedSince() {
+    DoublePoint point = doubleGauge.getOrCreateTimeSeries(LABEL_VALUES);
+    point.set(-1.5);
+    doubleGauge.getOrCreateTimeSeries(LABEL_VALUES1).set(7.0);
+    assertThat(doubleGauge.getMetricChangedSince(testClock, 0, 1))
+        .isEqualTo(doubleGauge.getMetric(testClock));
+    assertThat(doubleGauge.getMetricChangedSince(testClock, 1, 2)).isNull();
+
+    point.set(2.5);
+    assertThat(doubleGauge.getMetricChangedSince(testClock, 2, 3))
+        .isEqualTo(
+            Metric.createWithOneTimeSeries(
+                METRIC_DESCRIPTOR,
+                TimeSeries.createWithOnePoint(
+                    LABEL_VALUES, Point.create(Value.doubleValue(2.5), TEST_TIME), null)));
+    assertThat(doubleGauge.getMetricChangedSince(testClock, 0, 4))
+        .isEqualTo(doubleGauge.getMetric(testClock));
+  }
 }
@@ -30,9 +30,11 @@ import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.LongGauge;
 import io.opencensus.metrics.LongGauge.LongPoint;
 import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.export.ChangedMetrics;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricDescriptor;
 import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.MetricProducer;
 import io.opencensus.metrics.export.Point;
 import io.opencensus.metrics.export.TimeSeries;
 import io.opencensus.metrics.export.Value;
@@ -250,4 +252,54 @@ public class MetricRegistryImplTest {
     thrown.expectMessage("A different metric with the same name already registered.");
     metricRegistry.addDoubleGauge(NAME, DESCRIPTION, UNIT, LABEL_KEYS);
   }
+
+  @Test
+  public void getMetricsChangedSince() {
+    LongGauge longGauge = metricRegistry.addLongGauge(NAME, METRIC_OPTIONS);
+    LongPoint longPoint = longGauge.getOrCreateTimeSeries(LABEL_VALUES);
+    longPoint.set(200);
+    DerivedLongGauge derivedLongGauge = metricRegistry.addDerivedLongGauge(NAME_3, METRIC_OPTIONS);
+    derivedLongGauge.createTimeSeries(LABEL_VALUES, null, longFunction);
+    MetricProducer metricProducer = metricRegistry.getMetricProducer();
+
+    ChangedMetrics changedMetrics =
+        metricProducer.getMetricsChangedSince(ChangedMetrics.INITIAL_CURSOR);
+    assertThat(changedMetrics.getMetrics())
+        .containsExactly(
+            Metric.createWithOneTimeSeries(
+                LONG_METRIC_DESCRIPTOR,
+                TimeSeries.createWithOnePoint(
+                    ALL_VALUES, Point.create(Value.longValue(200), TEST_TIME), null)),
+            Metric.createWithOneTimeSeries(
+                DERIVED_LONG_METRIC_DESCRIPTOR,
+                TimeSeries.createWithOnePoint(
+                    ALL_VALUES, Point.create(Value.longValue(5), TEST_TIME), null)));
+    long firstCursor = changedMetrics.getCursor();
+
+    // Nothing changed.
+    changedMetrics = metricProducer.getMetricsChangedSince(firstCursor);
+    assertThat(changedMetrics.getMetrics()).isEmpty();
+    assertThat(changedMetrics.getCursor()).isGreaterThan(firstCursor);
+
+    longPoint.set(300);
+    changedMetrics = metricProducer.getMetricsChangedSince(changedMetrics.getCursor());
+    assertThat(changedMetrics.getMetrics())
+        .containsExactly(
+            Metric.createWithOneTimeSeries(
+                LONG_METRIC_DESCRIPTOR,
+                TimeSeries.createWithOnePoint(
+                    ALL_VALUES, Point.create(Value.longValue(300), TEST_TIME), null)));
+    assertThat(metricProducer.getMetricsChangedSince(changedMetrics.getCursor()).getMetrics())
+        .isEmpty();
+
+    // The change is still visible to a consumer with an older cursor.
+    assertThat(metricProducer.getMetricsChangedSince(firstCursor).getMetrics())
+        .containsExactly(
+            Metric.createWithOneTimeSeries(
+                LONG_METRIC_DESCRIPTOR,
+                TimeSeries.createWithOnePoint(
+                    ALL_VALUES, Point.create(Value.longValue(300), TEST_TIME), null)));
+    assertThat(metricProducer.getMetricsChangedSince(ChangedMetrics.INITIAL_CURSOR).getMetrics())
+        .hasSize(2);
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.metrics.LabelValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link RegisteredPoints}. */
+@RunWith(JUnit4.class)
+public class RegisteredPointsTest {
+  private static final List<LabelValue> LABEL_VALUES_1 =
+      Collections.singletonList(LabelValue.create("value1"));
+  private static final List<LabelValue> LABEL_VALUES_2 =
+      Collections.singletonList(LabelValue.create("value2"));
+  private static final List<LabelValue> LABEL_VALUES_3 =
+      Collections.singletonList(LabelValue.create("value3"));
+
+  private final RegisteredPoints<String> registeredPoints = new RegisteredPoints<String>();
+
+  @Test
+  public void putIfAbsent() {
+    assertThat(registeredPoints.get(LABEL_VALUES_1)).isNull();
+    assertThat(registeredPoints.putIfAbsent(LABEL_VALUES_1, "point1")).isEqualTo("point1");
+    assertThat(registeredPoints.putIfAbsent(LABEL_VALUES_1, "other")).isEqualTo("point1");
+    assertThat(registeredPoints.get(LABEL_VALUES_1)).isEqualTo("point1");
+    assertThat(registeredPoints.values()).containsExactly("point1");
+  }
+
+  @Test
+  public void values_InInsertionOrder() {
+    registeredPoints.putIfAbsent(LABEL_VALUES_3, "point3");
+    registeredPoints.putIfAbsent(LABEL_VALUES_1, "point1");
+    registeredPoints.putIfAbsent(LABEL_VALUES_2, "point2");
+    assertThat(registeredPoints.values()).containsExactly("point3", "point1", "point2").inOrder();
+  }
+
+  @Test
+  public void remove() {
+    registeredPoints.putIfAbsent(LABEL_VALUES_1, "point1");
+    registeredPoints.putIfAbsent(LABEL_VALUES_2, "point2");
+    registeredPoints.remove(LABEL_VALUES_1);
+    registeredPoints.remove(LABEL_VALUES_3);
+    assertThat(registeredPoints.get(LABEL_VALUES_1)).isNull();
+    assertThat(registeredPoints.values()).containsExactly("point2");
+
+    // Added again at the end.
+    registeredPoints.putIfAbsent(LABEL_VALUES_1, "point1");
+    assertThat(registeredPoints.values()).containsExactly("point2", "point1").inOrder();
+  }
+
+  @Test
+  public void clear() {
+    registeredPoints.putIfAbsent(LABEL_VALUES_1, "point1");
+    registeredPoints.putIfAbsent(LABEL_VALUES_2, "point2");
+    registeredPoints.clear();
+    assertThat(registeredPoints.get(LABEL_VALUES_1)).isNull();
+    assertThat(registeredPoints.values()).isEmpty();
+  }
+
+  @Test
+  public void concurrentPutIfAbsent() throws InterruptedException {
+    final int numThreads = 4;
+    final int numPoints = 1000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < numThreads; i++) {
+      final String thread = "thread" + i;
+      Thread t =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                  }
+                  for (int j = 0; j < numPoints; j++) {
+                    registeredPoints.putIfAbsent(
+                        Collections.singletonList(LabelValue.create("value" + j)), thread);
+                  }
+                }
+              });
+      threads.add(t);
+      t.start();
+    }
+    start.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+    // Exactly one point per label values, and it's the one that get returns.
+    assertThat(registeredPoints.values()).hasSize(numPoints);
+    List<String> points = new ArrayList<String>();
+    for (int j = 0; j < numPoints; j++) {
+      points.add(registeredPoints.get(Collections.singletonList(LabelValue.create("value" + j))));
+    }
+    assertThat(registeredPoints.values()).containsExactlyElementsIn(points);
+  }
+}
@@ -24,6 +24,7 @@ import io.opencensus.implcore.stats.MutableAggregation.MutableMean;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.stats.Aggregation.Mean;
 import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measurement.MeasurementDouble;
 import io.opencensus.tags.TagValue;
 import java.util.Arrays;
 import java.util.Collections;
@@ -94,10 +95,23 @@ public class IntervalBucketTest {
     IntervalBucket bucket = new IntervalBucket(START, MINUTE, MEAN, MEASURE_DOUBLE);
     List<TagValue> tagValues1 = Arrays.<TagValue>asList(TagValue.create("VALUE1"));
     List<TagValue> tagValues2 = Arrays.<TagValue>asList(TagValue.create("VALUE2"));
-    bucket.record(tagValues1, 5.0, Collections.<String, AttachmentValue>emptyMap(), START);
-    bucket.record(tagValues1, 15.0, Collections.<String, AttachmentValue>emptyMap(), START);
-    bucket.record(tagValues2, 10.0, Collections.<String, AttachmentValue>emptyMap(), START);
+    bucket.record(
+        tagValues1,
+        MeasurementDouble.create(MEASURE_DOUBLE, 5.0),
+        Collections.<String, AttachmentValue>emptyMap(),
+        START);
+    bucket.record(
+        tagValues1,
+        MeasurementDouble.create(MEASURE_DOUBLE, 15.0),
+        Collections.<String, AttachmentValue>emptyMap(),
+        START);
+    bucket.record(
+        tagValues2,
+        MeasurementDouble.create(MEASURE_DOUBLE, 10.0),
+        Collections.<String, AttachmentValue>emptyMap(),
+        START);
     assertThat(bucket.getTagValueAggregationMap().keySet()).containsExactly(tagValues1, tagValues2);
+    assertThat(bucket.getRowCount()).isEqualTo(2);
     MutableMean mutableMean1 = (MutableMean) bucket.getTagValueAggregationMap().get(tagValues1);
     MutableMean mutableMean2 = (MutableMean) bucket.getTagValueAggregationMap().get(tagValues2);
     assertThat(mutableMean1.getSum()).isWithin(TOLERANCE).of(20);
@@ -20,14 +20,19 @@ import static com.google.common.truth.Truth.assertThat;
 
 import io.opencensus.common.Timestamp;
 import io.opencensus.implcore.internal.CurrentState.State;
+import io.opencensus.implcore.stats.StatsTestUtil.SimpleTagContext;
 import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.AggregationData.MeanData;
 import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measurement;
 import io.opencensus.stats.View;
 import io.opencensus.stats.View.AggregationWindow.Cumulative;
 import io.opencensus.stats.View.Name;
 import io.opencensus.stats.ViewData;
 import io.opencensus.stats.ViewData.AggregationWindowData.CumulativeData;
+import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
 import io.opencensus.testing.common.TestClock;
 import java.util.Arrays;
 import org.junit.Test;
@@ -38,21 +43,19 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class MeasureToViewMapTest {
 
-  private static final Measure MEASURE =
+  private static final Measure.MeasureDouble MEASURE =
       Measure.MeasureDouble.create("my measurement", "measurement description", "By");
 
+  private static final TagKey KEY = TagKey.create("my key");
+  private static final TagValue VALUE = TagValue.create("my value");
+
   private static final Name VIEW_NAME = View.Name.create("my view");
 
   private static final Cumulative CUMULATIVE = Cumulative.create();
 
   private static final View VIEW =
       View.create(
-          VIEW_NAME,
-          "view description",
-          MEASURE,
-          Mean.create(),
-          Arrays.asList(TagKey.create("my key")),
-          CUMULATIVE);
+          VIEW_NAME, "view description", MEASURE, Mean.create(), Arrays.asList(KEY), CUMULATIVE);
 
   @Test
   public void testRegisterAndGetView() {
@@ -66,4 +69,45 @@ public class MeasureToViewMapTest {
         .isEqualTo(CumulativeData.create(Timestamp.create(10, 20), Timestamp.create(30, 40)));
     assertThat(viewData.getAggregationMap()).isEmpty();
   }
+
+  @Test
+  public void testRegisterAndGetView_SlabAggregationStore() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap(true);
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    measureToViewMap.registerView(VIEW, clock);
+    measureToViewMap.record(
+        new SimpleTagContext(Tag.create(KEY, VALUE)),
+        MeasureMapInternal.builder().put(MEASURE, 2.0).put(MEASURE, 4.0).build(),
+        clock.now());
+    ViewData viewData = measureToViewMap.getView(VIEW_NAME, clock, State.ENABLED);
+    assertThat(viewData.getAggregationMap())
+        .containsExactly(Arrays.asList(VALUE), MeanData.create(4.0, 1));
+  }
+
+  @Test
+  public void testRecord_CountsRecordedAndDroppedMeasurements() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    measureToViewMap.registerView(VIEW, clock);
+    Measure.MeasureDouble unregistered =
+        Measure.MeasureDouble.create("unregistered", "measurement description", "By");
+    measureToViewMap.record(
+        new SimpleTagContext(Tag.create(KEY, VALUE)),
+        MeasureMapInternal.builder().put(MEASURE, 2.0).put(unregistered, 4.0).build(),
+        clock.now());
+    measureToViewMap.record(
+        new SimpleTagContext(Tag.create(KEY, TagValue.create("other value"))),
+        MeasureMapInternal.builder().put(MEASURE, 1.0).build(),
+        clock.now());
+    measureToViewMap.record(
+        new MeasureToViewMap.Binding(unregistered, new SimpleTagContext()),
+        Measurement.MeasurementDouble.create(unregistered, 1.0),
+        clock.now());
+    assertThat(measureToViewMap.getRecordedMeasurements()).isEqualTo(2);
+    assertThat(measureToViewMap.getDroppedMeasurements()).isEqualTo(2);
+    assertThat(measureToViewMap.getViewRows(VIEW_NAME)).isEqualTo(2);
+    assertThat(measureToViewMap.getViewRows(View.Name.create("unregistered view"))).isEqualTo(0);
+    measureToViewMap.clearStats();
+    assertThat(measureToViewMap.getViewRows(VIEW_NAME)).isEqualTo(0);
+  }
 }
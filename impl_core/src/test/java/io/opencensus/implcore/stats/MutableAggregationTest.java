@@ -45,6 +45,8 @@ import io.opencensus.stats.AggregationData.MeanData;
 import io.opencensus.stats.AggregationData.SumDataDouble;
 import io.opencensus.stats.AggregationData.SumDataLong;
 import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Measurement.MeasurementLong;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -66,6 +68,7 @@ public class MutableAggregationTest {
       BucketBoundaries.create(Arrays.asList(-10.0, 0.0, 10.0));
   private static final BucketBoundaries BUCKET_BOUNDARIES_EMPTY =
       BucketBoundaries.create(Collections.<Double>emptyList());
+  private static final MeasureLong MEASURE_LONG = MeasureLong.create("measure", "description", "1");
   private static final Timestamp TIMESTAMP = Timestamp.create(60, 0);
   private static final AttachmentValue ATTACHMENT_VALUE_1 = AttachmentValueString.create("v1");
   private static final AttachmentValue ATTACHMENT_VALUE_2 = AttachmentValueString.create("v2");
@@ -76,11 +79,11 @@ public class MutableAggregationTest {
   @Test
   public void testCreateEmpty() {
     assertThat(MutableSumDouble.create().getSum()).isWithin(TOLERANCE).of(0);
-    assertThat(MutableSumLong.create().getSum()).isWithin(TOLERANCE).of(0);
+    assertThat(MutableSumLong.create().getSum()).isEqualTo(0);
     assertThat(MutableCount.create().getCount()).isEqualTo(0);
     assertThat(MutableMean.create().getMean()).isWithin(TOLERANCE).of(0);
     assertThat(MutableLastValueDouble.create().getLastValue()).isNaN();
-    assertThat(MutableLastValueLong.create().getLastValue()).isNaN();
+    assertThat(MutableLastValueLong.create().getLastValue()).isEqualTo(0);
 
     BucketBoundaries bucketBoundaries = BucketBoundaries.create(Arrays.asList(0.1, 2.2, 33.3));
     MutableDistribution mutableDistribution = MutableDistribution.create(bucketBoundaries);
@@ -156,6 +159,31 @@ public class MutableAggregationTest {
         TOLERANCE);
   }
 
+  @Test
+  public void testAdd_LongValues() {
+    MutableSumLong sum = MutableSumLong.create();
+    MutableLastValueLong lastValue = MutableLastValueLong.create();
+    // Not representable as a double.
+    long value = (1L << 53) + 1;
+    for (MutableAggregation aggregation : Arrays.<MutableAggregation>asList(sum, lastValue)) {
+      aggregation.add(value, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+      aggregation.add(
+          MeasurementLong.create(MEASURE_LONG, 2),
+          Collections.<String, AttachmentValue>emptyMap(),
+          TIMESTAMP);
+    }
+    assertThat(sum.toAggregationData()).isEqualTo(SumDataLong.create(value + 2));
+    assertThat(sum.toPoint(TIMESTAMP))
+        .isEqualTo(Point.create(Value.longValue(value + 2), TIMESTAMP));
+    assertThat(lastValue.toAggregationData()).isEqualTo(LastValueDataLong.create(2));
+
+    MutableLastValueLong combined = MutableLastValueLong.create();
+    MutableLastValueLong other = MutableLastValueLong.create();
+    other.add(value, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    combined.combine(other, 1.0);
+    assertThat(combined.getLastValue()).isEqualTo(value);
+  }
+
   @Test
   public void testAdd_DistributionWithExemplarAttachments() {
     MutableDistribution mutableDistribution = MutableDistribution.create(BUCKET_BOUNDARIES);
@@ -194,6 +222,43 @@ public class MutableAggregationTest {
     assertThat(mutableDistributionNoHistogram.getExemplars()).isNull();
   }
 
+  @Test
+  public void testCopy() {
+    List<MutableAggregation> aggregations =
+        Arrays.asList(
+            MutableSumDouble.create(),
+            MutableSumLong.create(),
+            MutableCount.create(),
+            MutableMean.create(),
+            MutableDistribution.create(BUCKET_BOUNDARIES),
+            MutableLastValueDouble.create(),
+            MutableLastValueLong.create());
+    Map<String, AttachmentValue> attachments =
+        Collections.<String, AttachmentValue>singletonMap("k1", ATTACHMENT_VALUE_1);
+    for (MutableAggregation aggregation : aggregations) {
+      aggregation.add(5.0, attachments, TIMESTAMP);
+      MutableAggregation copy = aggregation.copy();
+      Point point = aggregation.toPoint(TIMESTAMP);
+      assertThat(copy.toPoint(TIMESTAMP)).isEqualTo(point);
+      // Later values don't change the copy.
+      aggregation.add(-20.0, attachments, TIMESTAMP);
+      assertThat(copy.toPoint(TIMESTAMP)).isEqualTo(point);
+    }
+  }
+
+  @Test
+  public void testCombine_SumLongRoundsOnce() {
+    MutableSumLong combined = MutableSumLong.create();
+    for (int i = 0; i < 3; i++) {
+      MutableSumLong other = MutableSumLong.create();
+      other.add(1L, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+      combined.combine(other, 0.5);
+    }
+    // 1.5 rounded once, rather than 0.5 rounded three times.
+    assertThat(combined.getSum()).isEqualTo(2);
+    assertThat(combined.toAggregationData()).isEqualTo(SumDataLong.create(2));
+  }
+
   @Test
   public void testCombine_SumCountMean() {
     // combine() for Mutable Sum, Count and Mean will pick up fractional stats
@@ -235,7 +300,7 @@ public class MutableAggregationTest {
     }
 
     assertThat(((MutableSumDouble) combined.get(0)).getSum()).isWithin(TOLERANCE).of(30);
-    assertThat(((MutableSumLong) combined.get(1)).getSum()).isWithin(TOLERANCE).of(30);
+    assertThat(((MutableSumLong) combined.get(1)).getSum()).isEqualTo(30);
     assertThat(((MutableCount) combined.get(2)).getCount()).isEqualTo(3);
     assertThat(((MutableMean) combined.get(3)).getMean()).isWithin(TOLERANCE).of(10);
   }
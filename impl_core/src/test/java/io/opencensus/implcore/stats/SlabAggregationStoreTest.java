@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.metrics.data.AttachmentValue.AttachmentValueString;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.Aggregation.Count;
+import io.opencensus.stats.Aggregation.Distribution;
+import io.opencensus.stats.Aggregation.LastValue;
+import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Sum;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Measurement;
+import io.opencensus.stats.Measurement.MeasurementDouble;
+import io.opencensus.stats.Measurement.MeasurementLong;
+import io.opencensus.stats.View;
+import io.opencensus.stats.View.AggregationWindow.Cumulative;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SlabAggregationStore}. */
+@RunWith(JUnit4.class)
+public class SlabAggregationStoreTest {
+  private static final MeasureDouble MEASURE_DOUBLE =
+      MeasureDouble.create("measure double", "description", "1");
+  private static final MeasureLong MEASURE_LONG =
+      MeasureLong.create("measure long", "description", "1");
+  private static final TagKey KEY = TagKey.create("KEY");
+  private static final Timestamp TIMESTAMP = Timestamp.create(60, 0);
+  private static final Timestamp START = Timestamp.create(10, 0);
+  private static final Map<String, AttachmentValue> ATTACHMENTS =
+      Collections.<String, AttachmentValue>singletonMap("k", AttachmentValueString.create("v"));
+  private static final Map<String, AttachmentValue> NO_ATTACHMENTS =
+      Collections.<String, AttachmentValue>emptyMap();
+  // More rows than fit in one slab.
+  private static final int NUM_ROWS = SlabAggregationStore.ROWS_PER_SLAB + 10;
+
+  @Test
+  public void sameAsHeapStore_SumDouble() {
+    assertSameAsHeapStore(Sum.create(), MEASURE_DOUBLE);
+  }
+
+  @Test
+  public void sameAsHeapStore_SumLong() {
+    assertSameAsHeapStore(Sum.create(), MEASURE_LONG);
+  }
+
+  @Test
+  public void sameAsHeapStore_Count() {
+    assertSameAsHeapStore(Count.create(), MEASURE_DOUBLE);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void sameAsHeapStore_Mean() {
+    assertSameAsHeapStore(Mean.create(), MEASURE_DOUBLE);
+  }
+
+  @Test
+  public void sameAsHeapStore_Distribution() {
+    assertSameAsHeapStore(
+        Distribution.create(BucketBoundaries.create(Arrays.asList(-10.0, 0.0, 10.0))),
+        MEASURE_DOUBLE);
+    assertSameAsHeapStore(
+        Distribution.create(BucketBoundaries.create(Arrays.asList(5.0, 10.0))), MEASURE_LONG);
+    assertSameAsHeapStore(
+        Distribution.create(BucketBoundaries.create(Collections.<Double>emptyList())),
+        MEASURE_DOUBLE);
+  }
+
+  @Test
+  public void sameAsHeapStore_LastValue() {
+    assertSameAsHeapStore(LastValue.create(), MEASURE_DOUBLE);
+    assertSameAsHeapStore(LastValue.create(), MEASURE_LONG);
+  }
+
+  @Test
+  public void clear() {
+    View view = createView(LastValue.create(), MEASURE_DOUBLE);
+    AggregationStore slabStore = AggregationStore.create(view, true);
+    AggregationStore heapStore = AggregationStore.create(view, false);
+    for (AggregationStore store : Arrays.asList(slabStore, heapStore)) {
+      record(store, MEASURE_DOUBLE, NUM_ROWS, 1);
+      assertThat(store.getRowCount()).isEqualTo(NUM_ROWS);
+      store.clear();
+      assertThat(store.toAggregationMap()).isEmpty();
+      assertThat(store.getRowCount()).isEqualTo(0);
+      // Rows created after clear start from the initial values again.
+      store.bind(tagValues(0));
+      store.record(tagValues(1), measurement(MEASURE_DOUBLE, 3), NO_ATTACHMENTS, TIMESTAMP);
+    }
+    assertThat(slabStore.toAggregationMap()).hasSize(2);
+    assertThat(slabStore.toAggregationMap()).isEqualTo(heapStore.toAggregationMap());
+    assertThat(slabStore.getRowCount()).isEqualTo(2);
+    assertThat(heapStore.getRowCount()).isEqualTo(2);
+  }
+
+  private static void assertSameAsHeapStore(Aggregation aggregation, Measure measure) {
+    View view = createView(aggregation, measure);
+    AggregationStore slabStore = AggregationStore.create(view, true);
+    AggregationStore heapStore = AggregationStore.create(view, false);
+    for (AggregationStore store : Arrays.asList(slabStore, heapStore)) {
+      record(store, measure, NUM_ROWS, 5);
+      // Bound recorders record in the same rows.
+      MutableViewData.BoundRecorder recorder = store.bind(tagValues(3));
+      recorder.record(measurement(measure, 42), TIMESTAMP);
+      store.bind(tagValues(NUM_ROWS)).record(measurement(measure, 7), TIMESTAMP);
+    }
+    assertThat(slabStore.toAggregationMap()).hasSize(NUM_ROWS + 1);
+    assertThat(slabStore.toAggregationMap()).isEqualTo(heapStore.toAggregationMap());
+    assertThat(slabStore.snapshot(TIMESTAMP).toTimeSeriesList(START))
+        .containsExactlyElementsIn(heapStore.snapshot(TIMESTAMP).toTimeSeriesList(START));
+  }
+
+  @Test
+  public void snapshot_NotChangedByLaterRecords() {
+    View view = createView(Sum.create(), MEASURE_LONG);
+    AggregationStore slabStore = AggregationStore.create(view, true);
+    AggregationStore heapStore = AggregationStore.create(view, false);
+    for (AggregationStore store : Arrays.asList(slabStore, heapStore)) {
+      store.record(tagValues(0), measurement(MEASURE_LONG, 1), NO_ATTACHMENTS, TIMESTAMP);
+      AggregationStore.Snapshot snapshot = store.snapshot(TIMESTAMP);
+      store.record(tagValues(0), measurement(MEASURE_LONG, 2), NO_ATTACHMENTS, TIMESTAMP);
+      // Grows the slabs and the row index after the snapshot.
+      record(store, MEASURE_LONG, NUM_ROWS, 1);
+      store.clear();
+      assertThat(snapshot.toTimeSeriesList(START))
+          .containsExactly(
+              TimeSeries.createWithOnePoint(
+                  Collections.singletonList(LabelValue.create("value0")),
+                  Point.create(Value.longValue(1), TIMESTAMP),
+                  START));
+    }
+  }
+
+  // Records values in numRows rows, with exemplars in some of the rows.
+  private static void record(
+      AggregationStore store, Measure measure, int numRows, int valuesPerRow) {
+    for (int i = 0; i < valuesPerRow; i++) {
+      for (int row = 0; row < numRows; row++) {
+        store.record(
+            tagValues(row),
+            measurement(measure, (row * 7 + i * 13) % 25 - 5),
+            row % 3 == 0 ? ATTACHMENTS : NO_ATTACHMENTS,
+            Timestamp.create(60, i));
+      }
+    }
+  }
+
+  private static Measurement measurement(Measure measure, long value) {
+    return measure instanceof MeasureLong
+        ? MeasurementLong.create((MeasureLong) measure, value)
+        : MeasurementDouble.create((MeasureDouble) measure, value + 0.5);
+  }
+
+  private static List<TagValue> tagValues(int row) {
+    return Collections.singletonList(TagValue.create("value" + row));
+  }
+
+  private static View createView(Aggregation aggregation, Measure measure) {
+    return View.create(
+        View.Name.create("view"),
+        "description",
+        measure,
+        aggregation,
+        Collections.singletonList(KEY),
+        Cumulative.create());
+  }
+}
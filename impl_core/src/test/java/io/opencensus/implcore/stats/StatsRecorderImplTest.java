@@ -34,8 +34,12 @@ import io.opencensus.stats.Aggregation.Distribution;
 import io.opencensus.stats.Aggregation.Sum;
 import io.opencensus.stats.AggregationData.CountData;
 import io.opencensus.stats.AggregationData.DistributionData;
+import io.opencensus.stats.AggregationData.SumDataLong;
+import io.opencensus.stats.BoundMeasure.BoundMeasureDouble;
+import io.opencensus.stats.BoundMeasure.BoundMeasureLong;
 import io.opencensus.stats.BucketBoundaries;
 import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
 import io.opencensus.stats.MeasureMap;
 import io.opencensus.stats.StatsCollectionState;
 import io.opencensus.stats.StatsComponent;
@@ -66,6 +70,8 @@ public final class StatsRecorderImplTest {
   private static final TagValue VALUE_2 = TagValue.create("VALUE_2");
   private static final MeasureDouble MEASURE_DOUBLE =
       MeasureDouble.create("my measurement", "description", "us");
+  private static final MeasureLong MEASURE_LONG =
+      MeasureLong.create("my long measurement", "description", "1");
   private static final MeasureDouble MEASURE_DOUBLE_NO_VIEW_1 =
       MeasureDouble.create("my measurement no view 1", "description", "us");
   private static final MeasureDouble MEASURE_DOUBLE_NO_VIEW_2 =
@@ -373,4 +379,104 @@ public final class StatsRecorderImplTest {
             StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 4.0)),
         1e-6);
   }
+
+  @Test
+  public void bindMeasure_Double() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    BoundMeasureDouble boundMeasure =
+        statsRecorder.bindMeasure(MEASURE_DOUBLE, new SimpleTagContext(Tag.create(KEY, VALUE)));
+    // Not recorded, the view is not registered yet.
+    boundMeasure.record(1.0);
+    viewManager.registerView(view);
+    boundMeasure.record(2.0);
+    boundMeasure.record(3.0);
+    statsRecorder
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 4.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 2.0, 3.0, 4.0)),
+        1e-6);
+  }
+
+  @Test
+  public void bindMeasure_Long() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_LONG,
+            Count.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    BoundMeasureLong boundMeasure =
+        statsRecorder.bindMeasure(MEASURE_LONG, new SimpleTagContext(Tag.create(KEY, VALUE_2)));
+    boundMeasure.record(1);
+    boundMeasure.record(5);
+    // Negative values are dropped.
+    boundMeasure.record(-1);
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(Arrays.asList(VALUE_2), CountData.create(2)),
+        1e-6);
+  }
+
+  @Test
+  public void bindMeasure_AfterStatsCleared() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    BoundMeasureDouble boundMeasure =
+        statsRecorder.bindMeasure(MEASURE_DOUBLE, new SimpleTagContext(Tag.create(KEY, VALUE)));
+    boundMeasure.record(1.0);
+
+    statsComponent.setState(StatsCollectionState.DISABLED);
+    boundMeasure.record(2.0);
+    assertThat(viewManager.getView(VIEW_NAME)).isEqualTo(createEmptyViewData(view));
+
+    statsComponent.setState(StatsCollectionState.ENABLED);
+    boundMeasure.record(4.0);
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 4.0)),
+        1e-6);
+  }
+
+  @Test
+  public void record_LongSumAboveDoublePrecision() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_LONG,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    long value = (1L << 53) + 1;
+    TagContext tags = new SimpleTagContext(Tag.create(KEY, VALUE));
+    statsRecorder.newMeasureMap().put(MEASURE_LONG, value).record(tags);
+    statsRecorder.bindMeasure(MEASURE_LONG, tags).record(2);
+    assertThat(viewManager.getView(VIEW_NAME).getAggregationMap())
+        .containsExactly(Arrays.asList(VALUE), SumDataLong.create(value + 2));
+  }
 }
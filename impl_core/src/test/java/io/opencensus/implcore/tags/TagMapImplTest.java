@@ -33,6 +33,7 @@ import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
 import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
+import io.opencensus.tags.propagation.TagContextSerializationException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -81,6 +82,31 @@ public class TagMapImplTest {
     assertThat(tags.getTags()).containsExactly(K1, VM1, K2, VM2);
   }
 
+  @Test
+  public void getBinaryEncoding_Memoized() throws TagContextSerializationException {
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1));
+    assertThat(tags.getBinaryEncoding()).isNull();
+    final byte[] encoding = {0, 0, 2, 'k', '1', 2, 'v', '1'};
+    TagMapImpl.Encoder<byte[]> encoder =
+        new TagMapImpl.Encoder<byte[]>() {
+          @Override
+          public byte[] encode(TagMapImpl tagMap) {
+            return encoding;
+          }
+        };
+    assertThat(tags.getBinaryEncoding(encoder)).isSameInstanceAs(encoding);
+    assertThat(tags.getBinaryEncoding()).isSameInstanceAs(encoding);
+  }
+
+  @Test
+  public void getBinaryEncoding_KnownEncoding() {
+    byte[] encoding = {0, 0, 2, 'k', '1', 2, 'v', '1'};
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1), encoding);
+    assertThat(tags.getTags()).containsExactly(K1, VM1);
+    assertThat(tags.getBinaryEncoding()).isSameInstanceAs(encoding);
+    assertThat(tags.getCorrelationContextEncoding()).isNull();
+  }
+
   @Test
   public void put_newKey() {
     TagContext tags = new TagMapImpl(ImmutableMap.of(K1, VM1));
@@ -190,4 +216,72 @@ public class TagMapImplTest {
         .addEqualityGroup(tagger.emptyBuilder().put(K1, V2).put(K2, V1).build())
         .testEquals();
   }
+
+  @Test
+  public void testIterator_SortedByKeyName() {
+    TagKey k0 = TagKey.create("k0");
+    TagContext tags = tagger.emptyBuilder().put(K2, V2).put(K1, V1).put(k0, V1).build();
+    assertThat(TagsTestUtil.tagContextToList(tags))
+        .containsExactly(Tag.create(k0, V1), Tag.create(K1, V1), Tag.create(K2, V2))
+        .inOrder();
+  }
+
+  @Test
+  public void get() {
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1, K2, VM2));
+    assertThat(tags.get(K1)).isEqualTo(VM1);
+    assertThat(tags.get(K2)).isEqualTo(VM2);
+    assertThat(tags.get(TagKey.create("k3"))).isNull();
+    assertThat(tags.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void toBuilder_WithoutChangesReturnsParent() {
+    TagContext tags = new TagMapImpl(ImmutableMap.of(K1, VM1));
+    assertThat(tagger.toBuilder(tags).build()).isSameInstanceAs(tags);
+    assertThat(tagger.toBuilder(tags).put(K1, V1).build()).isSameInstanceAs(tags);
+    assertThat(tagger.toBuilder(tags).remove(K2).build()).isSameInstanceAs(tags);
+  }
+
+  @Test
+  public void toBuilder_DoesNotModifyParent() {
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1, K2, VM2));
+    tagger.toBuilder(tags).put(K1, V2).remove(K2).put(TagKey.create("k0"), V1).build();
+    assertThat(tags.getTags()).containsExactly(K1, VM1, K2, VM2);
+  }
+
+  @Test
+  public void build_BuilderCanBeReused() {
+    TagContextBuilder builder = tagger.emptyBuilder().put(K1, V1);
+    TagContext tags1 = builder.build();
+    TagContext tags2 = builder.put(K2, V2).build();
+    TagContext tags3 = builder.remove(K1).build();
+    assertThat(((TagMapImpl) tags1).getTags()).containsExactly(K1, VM1);
+    assertThat(((TagMapImpl) tags2).getTags()).containsExactly(K1, VM1, K2, VM2);
+    assertThat(((TagMapImpl) tags3).getTags()).containsExactly(K2, VM2);
+  }
+
+  @Test
+  public void build_ManyTags() {
+    TagContextBuilder builder = tagger.emptyBuilder();
+    for (int i = 99; i >= 0; i--) {
+      builder.put(TagKey.create("k" + i), TagValue.create("v" + i));
+    }
+    for (int i = 0; i < 100; i += 2) {
+      builder.remove(TagKey.create("k" + i));
+    }
+    TagMapImpl tags = (TagMapImpl) builder.build();
+    assertThat(tags.size()).isEqualTo(50);
+    for (int i = 0; i < 100; i++) {
+      TagValueWithMetadata value = tags.get(TagKey.create("k" + i));
+      if (i % 2 == 0) {
+        assertThat(value).isNull();
+      } else {
+        assertThat(value)
+            .isEqualTo(
+                TagValueWithMetadata.create(
+                    TagValue.create("v" + i), METADATA_UNLIMITED_PROPAGATION));
+      }
+    }
+  }
 }
@@ -20,6 +20,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static io.opencensus.implcore.tags.propagation.CorrelationContextFormat.CORRELATION_CONTEXT;
 import static io.opencensus.implcore.tags.propagation.CorrelationContextFormat.METADATA_UNLIMITED_PROPAGATION;
 
+import com.google.common.collect.ImmutableMap;
+import io.opencensus.implcore.tags.TagMapImpl;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
 import io.opencensus.implcore.tags.TagsComponentImplBase;
 import io.opencensus.implcore.tags.TagsTestUtil;
 import io.opencensus.tags.Tag;
@@ -282,6 +285,46 @@ public class CorrelationContextFormatTest {
         .containsExactlyElementsIn(TagsTestUtil.tagContextToList(tagContext));
   }
 
+  @Test
+  public void inject_MemoizesEncodingOfTagMapImpl() throws TagContextSerializationException {
+    TagMapImpl tagMap =
+        new TagMapImpl(
+            ImmutableMap.of(
+                K1,
+                TagValueWithMetadata.create(V1, METADATA_UNLIMITED_PROPAGATION),
+                K2,
+                TagValueWithMetadata.create(V2, METADATA_NO_PROPAGATION)));
+    Map<String, String> carrier = new HashMap<String, String>();
+    textFormat.inject(tagMap, carrier, setter);
+    assertThat(carrier).containsExactly(CORRELATION_CONTEXT, "k1=v1");
+    assertThat(
+            tagMap.getCorrelationContextEncoding(
+                new TagMapImpl.Encoder<String>() {
+                  @Override
+                  public String encode(TagMapImpl tagMap) {
+                    throw new AssertionError("The encoding was not memoized.");
+                  }
+                }))
+        .isEqualTo("k1=v1");
+  }
+
+  @Test
+  public void inject_UsesMemoizedEncodingOfTagMapImpl() throws TagContextSerializationException {
+    TagMapImpl tagMap =
+        new TagMapImpl(
+            ImmutableMap.of(K1, TagValueWithMetadata.create(V1, METADATA_UNLIMITED_PROPAGATION)));
+    tagMap.getCorrelationContextEncoding(
+        new TagMapImpl.Encoder<String>() {
+          @Override
+          public String encode(TagMapImpl tagMap) {
+            return "memoized=v";
+          }
+        });
+    Map<String, String> carrier = new HashMap<String, String>();
+    textFormat.inject(tagMap, carrier, setter);
+    assertThat(carrier).containsExactly(CORRELATION_CONTEXT, "memoized=v");
+  }
+
   private static TagContext makeTagContext(final Tag... tags) {
     return new TagContext() {
       @Override
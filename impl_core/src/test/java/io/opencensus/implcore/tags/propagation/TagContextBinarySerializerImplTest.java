@@ -17,8 +17,12 @@
 package io.opencensus.implcore.tags.propagation;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.opencensus.implcore.tags.TagMapImpl;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
 import io.opencensus.implcore.tags.TagsComponentImplBase;
 import io.opencensus.implcore.tags.TagsTestUtil;
 import io.opencensus.tags.Tag;
@@ -32,6 +36,8 @@ import io.opencensus.tags.TagsComponent;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
 import io.opencensus.tags.propagation.TagContextDeserializationException;
 import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -51,6 +57,8 @@ public final class TagContextBinarySerializerImplTest {
 
   private static final TagMetadata METADATA_NO_PROPAGATION =
       TagMetadata.create(TagTtl.NO_PROPAGATION);
+  private static final TagMetadata METADATA_UNLIMITED_PROPAGATION =
+      TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION);
 
   private final TagContext tagContext =
       new TagContext() {
@@ -113,4 +121,135 @@ public final class TagContextBinarySerializerImplTest {
     tagsComponent.setState(TaggingState.ENABLED);
     assertThat(serializer.fromByteArray(serialized)).isEqualTo(tagContext);
   }
+
+  @Test
+  public void toByteBuffer_MatchesToByteArray() throws TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    assertThat(serializer.getSerializedSize(tagContext)).isEqualTo(serialized.length);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(serialized.length + 1);
+    buffer.put((byte) 42);
+    serializer.toByteBuffer(tagContext, buffer);
+    assertThat(buffer.remaining()).isEqualTo(0);
+    byte[] written = new byte[serialized.length];
+    buffer.position(1);
+    buffer.get(written);
+    assertThat(written).isEqualTo(serialized);
+  }
+
+  @Test
+  public void toByteBuffer_NotEnoughSpace() throws TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(serializer.getSerializedSize(tagContext) - 1);
+    try {
+      serializer.toByteBuffer(tagContext, buffer);
+      fail("Expected BufferOverflowException.");
+    } catch (BufferOverflowException e) {
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void toByteBuffer_TaggingDisabled() throws TagContextSerializationException {
+    tagsComponent.setState(TaggingState.DISABLED);
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    serializer.toByteBuffer(tagContext, buffer);
+    assertThat(buffer.position()).isEqualTo(0);
+    assertThat(serializer.getSerializedSize(tagContext)).isEqualTo(0);
+  }
+
+  @Test
+  public void fromByteBuffer_IsLazy()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.wrap(serializer.toByteArray(tagContext));
+    TagContext deserialized = serializer.fromByteBuffer(buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(deserialized).isInstanceOf(LazyTagMap.class);
+    assertThat(deserialized).isEqualTo(tagContext);
+    assertThat(tagContext).isEqualTo(deserialized);
+    assertThat(deserialized.hashCode()).isEqualTo(tagContext.hashCode());
+  }
+
+  @Test
+  public void fromByteBuffer_DoesNotShareBuffer()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    TagContext deserialized = serializer.fromByteBuffer(ByteBuffer.wrap(serialized));
+    serialized[serialized.length - 1] = 'X';
+    assertThat(deserialized).isEqualTo(tagContext);
+  }
+
+  @Test
+  public void fromByteBuffer_ReserializesEncodedTags()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    TagContext deserialized = serializer.fromByteBuffer(ByteBuffer.wrap(serialized));
+    assertThat(serializer.getSerializedSize(deserialized)).isEqualTo(serialized.length);
+    assertThat(serializer.toByteArray(deserialized)).isEqualTo(serialized);
+  }
+
+  @Test
+  public void fromByteBuffer_TaggingDisabled()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.wrap(serializer.toByteArray(tagContext));
+    tagsComponent.setState(TaggingState.DISABLED);
+    assertThat(TagsTestUtil.tagContextToList(serializer.fromByteBuffer(buffer))).isEmpty();
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  // Fails the tests that expect the encoding to be memoized already.
+  private static final TagMapImpl.Encoder<byte[]> NOT_MEMOIZED =
+      new TagMapImpl.Encoder<byte[]>() {
+        @Override
+        public byte[] encode(TagMapImpl tagMap) {
+          throw new AssertionError("The encoding was not memoized.");
+        }
+      };
+
+  @Test
+  public void toByteArray_MemoizesEncodingOfTagMapImpl() throws TagContextSerializationException {
+    TagMapImpl tagMap =
+        new TagMapImpl(
+            ImmutableMap.of(
+                TagKey.create("key"),
+                TagValueWithMetadata.create(
+                    TagValue.create("value"), METADATA_UNLIMITED_PROPAGATION),
+                TagKey.create("key2"),
+                TagValueWithMetadata.create(TagValue.create("value2"), METADATA_NO_PROPAGATION)));
+    byte[] serialized = serializer.toByteArray(tagMap);
+    assertThat(serialized).isEqualTo(serializer.toByteArray(tagContext));
+    assertThat(tagMap.getBinaryEncoding(NOT_MEMOIZED)).isEqualTo(serialized);
+    assertThat(tagMap.getBinaryEncoding(NOT_MEMOIZED) == serialized).isFalse();
+    serialized[serialized.length - 1] = 'X';
+    assertThat(serializer.toByteArray(tagMap)).isEqualTo(serializer.toByteArray(tagContext));
+  }
+
+  @Test
+  public void toByteBuffer_UsesMemoizedEncodingOfTagMapImpl()
+      throws TagContextSerializationException {
+    TagMapImpl tagMap =
+        new TagMapImpl(
+            ImmutableMap.of(
+                TagKey.create("key"),
+                TagValueWithMetadata.create(
+                    TagValue.create("value"), METADATA_UNLIMITED_PROPAGATION)));
+    final byte[] memoized = {0, 0, 1, 'k', 1, 'v'};
+    tagMap.getBinaryEncoding(
+        new TagMapImpl.Encoder<byte[]>() {
+          @Override
+          public byte[] encode(TagMapImpl tagMap) {
+            return memoized;
+          }
+        });
+    assertThat(serializer.getSerializedSize(tagMap)).isEqualTo(memoized.length);
+    ByteBuffer buffer = ByteBuffer.allocate(memoized.length);
+    serializer.toByteBuffer(tagMap, buffer);
+    assertThat(buffer.array()).isEqualTo(memoized);
+  }
+
+  @Test
+  public void fromByteBuffer_MemoizesEncodingOfMaterializedTags()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    LazyTagMap deserialized = (LazyTagMap) serializer.fromByteBuffer(ByteBuffer.wrap(serialized));
+    assertThat(deserialized.getTagMap().getBinaryEncoding(NOT_MEMOIZED)).isEqualTo(serialized);
+  }
 }
@@ -30,6 +30,8 @@ import io.opencensus.tags.Tagger;
 import io.opencensus.tags.TagsComponent;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
 import io.opencensus.tags.propagation.TagContextDeserializationException;
+import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.ByteBuffer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -309,6 +311,78 @@ public class TagContextDeserializationTest {
     serializer.fromByteArray(new byte[] {(byte) -1});
   }
 
+  @Test
+  public void testDeserializeLazily_InvalidTagKey() throws TagContextDeserializationException {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    output.write(BinarySerializationUtils.VERSION_ID);
+    encodeTagToOutput("\2key", "value", output);
+
+    thrown.expect(TagContextDeserializationException.class);
+    thrown.expectMessage("Invalid tag key: \2key");
+    serializer.fromByteBuffer(ByteBuffer.wrap(output.toByteArray()));
+  }
+
+  @Test
+  public void testDeserializeLazily_InvalidTagValue() throws TagContextDeserializationException {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    output.write(BinarySerializationUtils.VERSION_ID);
+    encodeTagToOutput("my key", "val\3", output);
+
+    thrown.expect(TagContextDeserializationException.class);
+    thrown.expectMessage("Invalid tag value for key TagKey{name=my key}: val\3");
+    serializer.fromByteBuffer(ByteBuffer.wrap(output.toByteArray()));
+  }
+
+  @Test
+  public void testDeserializeLazily_TooLargeThrowException()
+      throws TagContextDeserializationException {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    output.write(BinarySerializationUtils.VERSION_ID);
+    // 1025 tags of 8 chars each is one tag more than the limit.
+    for (int i = 0; i <= BinarySerializationUtils.TAGCONTEXT_SERIALIZED_SIZE_LIMIT / 8; i++) {
+      encodeTagToOutput("key_", "0123", output);
+    }
+
+    thrown.expect(TagContextDeserializationException.class);
+    thrown.expectMessage("Size of TagContext exceeds the maximum serialized size ");
+    serializer.fromByteBuffer(ByteBuffer.wrap(output.toByteArray()));
+  }
+
+  @Test
+  public void testDeserializeLazily_Truncated() throws TagContextDeserializationException {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    output.write(BinarySerializationUtils.VERSION_ID);
+    encodeTagToOutput("Key", "Value", output);
+    byte[] bytes = output.toByteArray();
+
+    thrown.expect(TagContextDeserializationException.class);
+    serializer.fromByteBuffer(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+  }
+
+  @Test
+  public void testDeserializeLazily_StopParsingAtUnknownField()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    output.write(BinarySerializationUtils.VERSION_ID);
+    encodeTagToOutput("Key1", "Value1", output);
+    encodeTagToOutput("Key1", "Value2", output);
+    byte[] knownTags = output.toByteArray();
+
+    // Write unknown field ID 1.
+    output.write(1);
+    output.write(new byte[] {1, 2, 3, 4});
+    encodeTagToOutput("Key3", "Value3", output);
+
+    ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray());
+    TagContext actual = serializer.fromByteBuffer(buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    // The last value of a duplicate key wins, and key 3 should not be included.
+    assertThat(actual)
+        .isEqualTo(
+            tagger.emptyBuilder().put(TagKey.create("Key1"), TagValue.create("Value2")).build());
+    assertThat(serializer.toByteArray(actual)).isEqualTo(knownTags);
+  }
+
   //     <tag_encoding> ==
   //       <tag_key_len><tag_key><tag_val_len><tag_val>
   //         <tag_key_len> == varint encoded integer
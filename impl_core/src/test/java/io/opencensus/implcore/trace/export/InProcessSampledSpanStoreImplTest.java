@@ -152,6 +152,8 @@ public class InProcessSampledSpanStoreImplTest {
     for (Map.Entry<LatencyBucketBoundaries, Integer> it : latencyBucketsSummaries.entrySet()) {
       assertThat(it.getValue()).isEqualTo(2);
     }
+    assertThat(sampleStore.getNumSampledSpans())
+        .isEqualTo(2 * LatencyBucketBoundaries.values().length);
   }
 
   @Test
@@ -161,6 +163,7 @@ public class InProcessSampledSpanStoreImplTest {
         sampleStore.getSummary().getPerSpanNameSummary();
     assertThat(perSpanNameSummary.size()).isEqualTo(1);
     assertThat(perSpanNameSummary.containsKey(NOT_REGISTERED_SPAN_NAME)).isFalse();
+    assertThat(sampleStore.getNumSampledSpans()).isEqualTo(0);
   }
 
   @Test
@@ -170,10 +173,12 @@ public class InProcessSampledSpanStoreImplTest {
     sampleStore.registerSpanNamesForCollection(Collections.singletonList(NOT_REGISTERED_SPAN_NAME));
     assertThat(sampleStore.getRegisteredSpanNamesForCollection())
         .containsExactly(REGISTERED_SPAN_NAME, NOT_REGISTERED_SPAN_NAME);
+    assertThat(sampleStore.getNumSpanNames()).isEqualTo(2);
     sampleStore.unregisterSpanNamesForCollection(
         Collections.singletonList(NOT_REGISTERED_SPAN_NAME));
     assertThat(sampleStore.getRegisteredSpanNamesForCollection())
         .containsExactly(REGISTERED_SPAN_NAME);
+    assertThat(sampleStore.getNumSpanNames()).isEqualTo(1);
   }
 
   @Test
@@ -184,6 +189,7 @@ public class InProcessSampledSpanStoreImplTest {
         .end(EndSpanOptions.builder().setSampleToLocalSpanStore(true).build());
     assertThat(sampleStore.getRegisteredSpanNamesForCollection())
         .containsExactly(REGISTERED_SPAN_NAME, NOT_REGISTERED_SPAN_NAME);
+    assertThat(sampleStore.getNumSpanNames()).isEqualTo(2);
   }
 
   @Test
@@ -18,6 +18,7 @@ package io.opencensus.implcore.trace.propagation;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
 
 import io.opencensus.trace.SpanContext;
 import io.opencensus.trace.SpanId;
@@ -25,6 +26,8 @@ import io.opencensus.trace.TraceId;
 import io.opencensus.trace.TraceOptions;
 import io.opencensus.trace.propagation.BinaryFormat;
 import io.opencensus.trace.propagation.SpanContextParseException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -188,4 +191,50 @@ public class BinaryFormatImplTest {
     assertThat(extracted.isValid()).isTrue();
     assertThat(extracted.getTraceOptions()).isEqualTo(TraceOptions.DEFAULT);
   }
+
+  @Test
+  public void getSerializedSize() {
+    assertThat(binaryFormat.getSerializedSize(EXAMPLE_SPAN_CONTEXT))
+        .isEqualTo(EXAMPLE_BYTES.length);
+  }
+
+  @Test
+  public void toByteBuffer_WritesAtPosition() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(EXAMPLE_BYTES.length + 2);
+    buffer.put((byte) 42);
+    binaryFormat.toByteBuffer(EXAMPLE_SPAN_CONTEXT, buffer);
+    assertThat(buffer.position()).isEqualTo(EXAMPLE_BYTES.length + 1);
+    byte[] written = new byte[EXAMPLE_BYTES.length];
+    buffer.position(1);
+    buffer.get(written);
+    assertThat(written).isEqualTo(EXAMPLE_BYTES);
+  }
+
+  @Test
+  public void toByteBuffer_NotEnoughSpace() {
+    ByteBuffer buffer = ByteBuffer.allocate(EXAMPLE_BYTES.length - 1);
+    try {
+      binaryFormat.toByteBuffer(EXAMPLE_SPAN_CONTEXT, buffer);
+      fail("Expected BufferOverflowException.");
+    } catch (BufferOverflowException e) {
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void fromByteBuffer_BinaryExampleValue() throws SpanContextParseException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(EXAMPLE_BYTES.length + 1);
+    buffer.put((byte) 42).put(EXAMPLE_BYTES).flip();
+    buffer.position(1);
+    assertThat(binaryFormat.fromByteBuffer(buffer)).isEqualTo(EXAMPLE_SPAN_CONTEXT);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void fromByteBuffer_ShorterTraceId() throws SpanContextParseException {
+    expectedException.expect(SpanContextParseException.class);
+    expectedException.expectMessage("Invalid input: truncated");
+    binaryFormat.fromByteBuffer(
+        ByteBuffer.wrap(new byte[] {0, 0, 64, 65, 66, 67, 68, 69, 70, 71, 72, 73, 74, 75, 76}));
+  }
 }